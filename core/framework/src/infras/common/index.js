@@ -167,6 +167,23 @@ function setNativeTimer() {
       }
     }
 
+    /**
+     * 由原生每帧调用一次，ids 为本帧所有待执行的回调，按请求顺序排列，timestamp 为帧时间(毫秒)
+     * 与逐个调用的 requestAnimationFrameCallback 不同：回调执行前即从 timerMap 删除，并传入 timestamp
+     */
+    global.requestAnimationFrameCallbacks = function(ids, timestamp) {
+      console.trace(`### App Framework ### requestAnimationFrame 批量执行回调 ${ids.length}----`)
+      // 同一帧的回调共用同一个时间戳，执行后删除记录
+      for (let i = 0; i < ids.length; i++) {
+        const id = ids[i]
+        const cb = timerMap[id]
+        if (typeof cb === 'function') {
+          delete timerMap[id]
+          cb(timestamp)
+        }
+      }
+    }
+
     global.cancelAnimationFrame = global.cancelAnimationFrameWrap = function(id) {
       if (typeof _oriCancelAnimationFrame === 'function') {
         const idInt = parseInt(id)
@@ -201,6 +218,7 @@ function resetNativeTimer() {
   global.cancelAnimationFrame = _oriCancelAnimationFrame
   global.cancelAnimationFrameWrap = null
   global.requestAnimationFrameCallback = null
+  global.requestAnimationFrameCallbacks = null
   global.requestAnimationFrameWrap = null
 }
 
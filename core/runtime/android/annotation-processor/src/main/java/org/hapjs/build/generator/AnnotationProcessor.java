@@ -25,8 +25,13 @@ import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
 import org.hapjs.bridge.annotation.ActionAnnotation;
 import org.hapjs.bridge.annotation.DependencyAnnotation;
 import org.hapjs.bridge.annotation.EventTargetAnnotation;
@@ -59,6 +64,14 @@ public class AnnotationProcessor extends AbstractProcessor {
             = WebFeatureExtensionAnnotation.class.getName();
     private static final String WebInheritedAnnotationClassname
             = WebInheritedAnnotation.class.getName();
+    private static final String[] COMPONENT_CONSTRUCTOR_PARAMS = {
+            "org.hapjs.runtime.HapEngine",
+            "android.content.Context",
+            "org.hapjs.component.Container",
+            "int",
+            "org.hapjs.component.bridge.RenderEventCallback",
+            "java.util.Map"
+    };
     private String mOutputDir;
     private MetaData<Extension> mFeatureExtensions;
     private MetaData<Extension> mModuleExtensions;
@@ -193,6 +206,7 @@ public class AnnotationProcessor extends AbstractProcessor {
             extension.setName(name);
             extension.setClassname(annotatedTypeElement.getQualifiedName().toString());
             extension.setSuperClasses(processSuperClasses(annotatedTypeElement.getSuperclass()));
+            extension.setInstantiable(isInstantiable(annotatedTypeElement));
 
             try {
                 java.lang.reflect.Method residentTypeField =
@@ -237,6 +251,8 @@ public class AnnotationProcessor extends AbstractProcessor {
         widget.setClassname(classname);
         widget.setNeedDeleteSuperClasses(annotation.needDeleteSuperClasses());
         widget.setSuperClasses(processSuperClasses(annotatedTypeElement.getSuperclass()));
+        widget.setInstantiable(
+                isInstantiable(annotatedTypeElement, COMPONENT_CONSTRUCTOR_PARAMS));
         for (TypeAnnotation typeAnnotation : annotation.types()) {
             org.hapjs.build.generator.Type type = new org.hapjs.build.generator.Type();
             type.setName(typeAnnotation.name());
@@ -256,6 +272,9 @@ public class AnnotationProcessor extends AbstractProcessor {
         Inherited inherited = new Inherited();
         inherited.setClassname(classname);
         inherited.setSuperClasses(processSuperClasses(annotatedTypeElement.getSuperclass()));
+        inherited.setInstantiable(isInstantiable(annotatedTypeElement));
+        inherited.setWidgetInstantiable(
+                isInstantiable(annotatedTypeElement, COMPONENT_CONSTRUCTOR_PARAMS));
         if (isWebAnnotation) {
             mWebInheriteds.addElement(inherited);
         } else {
@@ -292,6 +311,52 @@ public class AnnotationProcessor extends AbstractProcessor {
         System.out.println("Found dependency: " + dependency.getClassname());
     }
 
+    /**
+     * Whether the generated code can create the class with {@code new}, otherwise it's created
+     * by reflection at runtime.
+     *
+     * @param paramTypes erased parameter types of the public constructor to call
+     */
+    private boolean isInstantiable(TypeElement typeElement, String... paramTypes) {
+        if (typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        // the class and its enclosing classes must be public, nested classes must be static
+        Element element = typeElement;
+        while (element.getKind().isClass()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            Element enclosingElement = element.getEnclosingElement();
+            if (!modifiers.contains(Modifier.PUBLIC)
+                    || (enclosingElement.getKind().isClass()
+                    && !modifiers.contains(Modifier.STATIC))) {
+                return false;
+            }
+            element = enclosingElement;
+        }
+        for (Element enclosed : typeElement.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.CONSTRUCTOR
+                    && enclosed.getModifiers().contains(Modifier.PUBLIC)
+                    && hasParamTypes((ExecutableElement) enclosed, paramTypes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasParamTypes(ExecutableElement executableElement, String[] paramTypes) {
+        List<? extends VariableElement> params = executableElement.getParameters();
+        if (params.size() != paramTypes.length) {
+            return false;
+        }
+        Types typeUtils = processingEnv.getTypeUtils();
+        for (int i = 0; i < paramTypes.length; i++) {
+            if (!paramTypes[i].equals(typeUtils.erasure(params.get(i).asType()).toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private List<String> processSuperClasses(TypeMirror superClassType) {
         List<String> superClassesName = new ArrayList<>();
         while (superClassType instanceof Type.ClassType) {
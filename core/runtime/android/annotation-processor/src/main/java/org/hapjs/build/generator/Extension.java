@@ -14,6 +14,7 @@ public class Extension implements Cloneable {
     private String classname;
     private List<String> superClasses;
     private List<Method> methods;
+    private boolean instantiable;
 
     public Extension() {
         methods = new ArrayList<>();
@@ -68,6 +69,17 @@ public class Extension implements Cloneable {
         methods.add(method);
     }
 
+    /**
+     * @return true if the class can be created with a public no-arg constructor
+     */
+    public boolean isInstantiable() {
+        return instantiable;
+    }
+
+    public void setInstantiable(boolean instantiable) {
+        this.instantiable = instantiable;
+    }
+
     @Override
     public Object clone() {
         try {
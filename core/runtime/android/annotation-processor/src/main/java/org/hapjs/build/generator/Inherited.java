@@ -11,6 +11,8 @@ import java.util.List;
 public class Inherited {
     private String classname;
     private List<String> superClasses;
+    private boolean instantiable;
+    private boolean widgetInstantiable;
 
     public Inherited() {
         superClasses = new ArrayList<>();
@@ -36,6 +38,22 @@ public class Inherited {
         superClasses.add(superClassname);
     }
 
+    public boolean isInstantiable() {
+        return instantiable;
+    }
+
+    public void setInstantiable(boolean instantiable) {
+        this.instantiable = instantiable;
+    }
+
+    public boolean isWidgetInstantiable() {
+        return widgetInstantiable;
+    }
+
+    public void setWidgetInstantiable(boolean widgetInstantiable) {
+        this.widgetInstantiable = widgetInstantiable;
+    }
+
     public Extension[] resolveExtension(List<Extension> extensions) {
         for (String superClass : superClasses) {
             for (Extension extension : extensions) {
@@ -43,6 +61,7 @@ public class Inherited {
                     Extension result = (Extension) extension.clone();
                     result.setClassname(classname);
                     result.setSuperClasses(superClasses);
+                    result.setInstantiable(instantiable);
                     return new Extension[] {extension, result};
                 }
             }
@@ -58,6 +77,7 @@ public class Inherited {
                     result.setClassname(classname);
                     result.setSuperClasses(superClasses);
                     result.setNeedDeleteSuperClasses(true);
+                    result.setInstantiable(widgetInstantiable);
                     return new Widget[] {widget, result};
                 }
             }
@@ -22,6 +22,7 @@ public class Widget implements Cloneable {
     private List<String> methods;
     private List<String> superClasses;
     private boolean needDeleteSuperClasses;
+    private boolean instantiable;
 
     public Widget() {
         this.types = new ArrayList<>();
@@ -43,6 +44,17 @@ public class Widget implements Cloneable {
         this.needDeleteSuperClasses = needDeleteSuperClasses;
     }
 
+    /**
+     * @return true if the class can be created with its public component constructor
+     */
+    public boolean isInstantiable() {
+        return instantiable;
+    }
+
+    public void setInstantiable(boolean instantiable) {
+        this.instantiable = instantiable;
+    }
+
     public List<String> getSuperClasses() {
         return superClasses;
     }
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.card.api;
+
+/**
+ * A {@link CardMessageCallback} receiving the messages posted by a card in a burst with one call.
+ * Messages are delivered in the order they are posted, callbacks only implementing
+ * {@link CardMessageCallback} receive them one by one.
+ */
+public interface CardMessageBatchCallback extends CardMessageCallback {
+    /**
+     * @param codes codes of the messages
+     * @param data  data of the messages, data[i] is the data of the message of codes[i]
+     */
+    void onMessages(int[] codes, String[] data);
+}
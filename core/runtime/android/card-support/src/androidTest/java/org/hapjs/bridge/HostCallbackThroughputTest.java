@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.bridge;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Activity;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hapjs.card.api.CardMessageBatchCallback;
+import org.hapjs.card.api.CardMessageCallback;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measure messages per second between the host and dozens of cards sending at the same time,
+ * each message of a card to the host is answered by the host. Results are printed to logcat with
+ * tag "HostCallbackThroughput".
+ */
+@RunWith(AndroidJUnit4.class)
+public class HostCallbackThroughputTest {
+    private static final String TAG = "HostCallbackThroughput";
+    private static final int CARDS = 48;
+    private static final int MESSAGES_PER_CARD = 500;
+
+    @Test
+    public void throughputOfCards() throws Exception {
+        HostCallbackManager manager = HostCallbackManager.getInstance();
+        HybridManager[] cards = new HybridManager[CARDS];
+        // messages to host, replies to cards and messages to cards
+        CountDownLatch done = new CountDownLatch(CARDS * MESSAGES_PER_CARD * 3);
+        AtomicInteger hostBatches = new AtomicInteger();
+        for (int i = 0; i < CARDS; i++) {
+            HybridManager card = new HybridManager((Activity) null, null);
+            cards[i] = card;
+            manager.addHostCallback(card, new CardMessageBatchCallback() {
+                @Override
+                public void onMessages(int[] codes, String[] data) {
+                    hostBatches.incrementAndGet();
+                    for (int j = 0; j < codes.length; j++) {
+                        reply(codes[j], data[j]);
+                    }
+                }
+
+                @Override
+                public void onMessage(int code, String data) {
+                    hostBatches.incrementAndGet();
+                    reply(code, data);
+                }
+
+                private void reply(int code, String data) {
+                    done.countDown();
+                    manager.doJsCallback(card, code, data);
+                }
+            });
+            manager.addJsCallback(card, new CountingHolder(done));
+        }
+
+        Thread[] senders = new Thread[CARDS];
+        long start = System.nanoTime();
+        for (int i = 0; i < CARDS; i++) {
+            HybridManager card = cards[i];
+            senders[i] = new Thread(() -> {
+                for (int j = 0; j < MESSAGES_PER_CARD; j++) {
+                    String data = "{\"index\":" + j + "}";
+                    manager.doHostCallback(card, data, new CountingCallback(done));
+                    manager.doJsCallback(card, 0, data);
+                }
+            });
+            senders[i].start();
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        long nanos = System.nanoTime() - start;
+
+        long messages = (long) CARDS * MESSAGES_PER_CARD * 3;
+        Log.i(TAG, CARDS + " cards: " + messages * 1000_000_000L / nanos + " messages/s, "
+                + nanos / 1000_000 + " ms, " + hostBatches.get() + " host deliveries");
+        for (HybridManager card : cards) {
+            manager.removeCallback(card);
+        }
+    }
+
+    @Test
+    public void dropMessagesAfterDestroyed() throws Exception {
+        HostCallbackManager manager = HostCallbackManager.getInstance();
+        HybridManager card = new HybridManager((Activity) null, null);
+        manager.removeCallback(card);
+
+        // messages sent late must not create the entity and be cached again
+        manager.doHostCallback(card, "late", null);
+        CountDownLatch received = new CountDownLatch(1);
+        manager.addHostCallback(card, new CardMessageCallback() {
+            @Override
+            public void onMessage(int code, String data) {
+                received.countDown();
+            }
+        });
+        assertFalse(received.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    private static class CountingCallback extends Callback {
+        private final CountDownLatch mDone;
+
+        CountingCallback(CountDownLatch done) {
+            super(null, null, Extension.Mode.CALLBACK);
+            mDone = done;
+        }
+
+        @Override
+        public void callback(Response response) {
+            mDone.countDown();
+        }
+    }
+
+    private static class CountingHolder implements CallbackContextHolder {
+        private final CountDownLatch mDone;
+
+        CountingHolder(CountDownLatch done) {
+            mDone = done;
+        }
+
+        @Override
+        public void putCallbackContext(CallbackContext callbackContext) {
+        }
+
+        @Override
+        public void removeCallbackContext(String action) {
+        }
+
+        @Override
+        public void runCallbackContext(String action, int what, Object obj) {
+            mDone.countDown();
+        }
+    }
+}
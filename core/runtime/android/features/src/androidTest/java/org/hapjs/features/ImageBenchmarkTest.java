@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.features;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import org.hapjs.bridge.ApplicationContext;
+import org.hapjs.bridge.Response;
+import org.hapjs.runtime.HapEngine;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compare peak memory and latency of applyOperations with the former pipeline, which decoded the
+ * whole image and created a bitmap for every operation. Results are printed to logcat with tag
+ * "ImageBenchmarkTest".
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImageBenchmarkTest extends AbstractTest {
+    private static final String TAG = "ImageBenchmarkTest";
+    private static final int SOURCE_WIDTH = 4000;
+    private static final int SOURCE_HEIGHT = 3000;
+    private static final int ROUNDS = 5;
+
+    public ImageBenchmarkTest() {
+        super(new Image());
+    }
+
+    @Test
+    public void benchmarkApplyOperations() throws Exception {
+        ApplicationContext applicationContext =
+                HapEngine.getInstance("features_test").getApplicationContext();
+        File source = applicationContext.createTempFile("benchmark", ".jpg");
+        createSourceImage(source);
+        String uri = applicationContext.getInternalUri(source);
+
+        // crop the center, rotate it and scale it down to a thumbnail
+        JSONArray operations = new JSONArray();
+        operations.put(new JSONObject().put(Image.PARAM_ACTION, Image.ACTION_CROP)
+                .put(Image.PARAM_CROP_X, 1000).put(Image.PARAM_CROP_Y, 750)
+                .put(Image.PARAM_CROP_WIDTH, 2000).put(Image.PARAM_CROP_HEIGHT, 1500));
+        operations.put(new JSONObject().put(Image.PARAM_ACTION, Image.ACTION_ROTATE)
+                .put(Image.PARAM_ROTATE_DEGREE, 90));
+        operations.put(new JSONObject().put(Image.PARAM_ACTION, Image.ACTION_SCALE)
+                .put(Image.PARAM_SCALE_X, 0.25).put(Image.PARAM_SCALE_Y, 0.25));
+        JSONObject params = new JSONObject()
+                .put(Image.PARAM_URI, uri)
+                .put(Image.PARAM_OPERATIONS, operations);
+
+        Result planned = new Result();
+        Result stepwise = new Result();
+        for (int i = 0; i < ROUNDS; i++) {
+            measure(planned, () -> {
+                Response response = invoke(Image.ACTION_APPLY_OPERATIONS, params);
+                Assert.assertEquals(Response.CODE_SUCCESS, response.getCode());
+            });
+            measure(stepwise, () -> applyStepwise(source, applicationContext));
+        }
+        Log.i(TAG, "planned: " + planned);
+        Log.i(TAG, "stepwise: " + stepwise);
+    }
+
+    private void createSourceImage(File file) throws Exception {
+        Bitmap bitmap = Bitmap.createBitmap(SOURCE_WIDTH, SOURCE_HEIGHT, Bitmap.Config.RGB_565);
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint();
+        for (int i = 0; i < 64; i++) {
+            paint.setColor(Color.rgb(i * 4, 255 - i * 4, i * 2));
+            canvas.drawCircle(
+                    SOURCE_WIDTH * (i % 8) / 8f, SOURCE_HEIGHT * (i / 8) / 8f, 400, paint);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * The former pipeline: decode the whole image, then create a new bitmap for each operation.
+     */
+    private void applyStepwise(File source, ApplicationContext applicationContext)
+            throws Exception {
+        Bitmap bitmap = BitmapFactory.decodeFile(source.getPath());
+        Bitmap cropped = Bitmap.createBitmap(bitmap, 1000, 750, 2000, 1500);
+        bitmap.recycle();
+        Matrix rotate = new Matrix();
+        rotate.setRotate(90);
+        Bitmap rotated =
+                Bitmap.createBitmap(cropped, 0, 0, cropped.getWidth(), cropped.getHeight(), rotate,
+                        true);
+        cropped.recycle();
+        Matrix scale = new Matrix();
+        scale.setScale(0.25f, 0.25f);
+        Bitmap scaled =
+                Bitmap.createBitmap(rotated, 0, 0, rotated.getWidth(), rotated.getHeight(), scale,
+                        true);
+        rotated.recycle();
+        File out = applicationContext.createTempFile("stepwise", ".jpg");
+        try (OutputStream stream = new FileOutputStream(out)) {
+            scaled.compress(Bitmap.CompressFormat.JPEG, 75, stream);
+        } finally {
+            scaled.recycle();
+        }
+    }
+
+    private void measure(Result result, Operation operation) throws Exception {
+        Runtime.getRuntime().gc();
+        long baseline = allocatedSize();
+        PeakSampler sampler = new PeakSampler();
+        sampler.start();
+        long start = SystemClock.elapsedRealtime();
+        try {
+            operation.run();
+        } finally {
+            sampler.finish();
+        }
+        result.add(SystemClock.elapsedRealtime() - start, sampler.mPeak - baseline);
+    }
+
+    private static long allocatedSize() {
+        // bitmap pixels are on the native heap since android O, on the java heap before it
+        Runtime runtime = Runtime.getRuntime();
+        return Debug.getNativeHeapAllocatedSize() + runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    private static class PeakSampler extends Thread {
+        private volatile boolean mFinished;
+        private volatile long mPeak;
+
+        @Override
+        public void run() {
+            while (!mFinished) {
+                mPeak = Math.max(mPeak, allocatedSize());
+                SystemClock.sleep(2);
+            }
+        }
+
+        void finish() throws InterruptedException {
+            mFinished = true;
+            join();
+            mPeak = Math.max(mPeak, allocatedSize());
+        }
+    }
+
+    private static class Result {
+        private long mTotalMillis;
+        private long mMaxPeakBytes;
+        private int mCount;
+
+        void add(long millis, long peakBytes) {
+            mTotalMillis += millis;
+            mMaxPeakBytes = Math.max(mMaxPeakBytes, peakBytes);
+            mCount++;
+        }
+
+        @Override
+        public String toString() {
+            return "avg " + mTotalMillis / Math.max(1, mCount) + "ms, peak +"
+                    + mMaxPeakBytes / 1024 / 1024 + "MB";
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.features.websocket;
+
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Base64;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.eclipsesource.v8.utils.typedarrays.ArrayBuffer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Receive binary frames from a loopback websocket server, and convert them to ArrayBuffer the way
+ * SocketTask does now and the way it did before, which copied each frame to a byte[] first.
+ * Throughput and java heap allocation are printed to logcat with tag "SocketTaskBenchmarkTest".
+ */
+@RunWith(AndroidJUnit4.class)
+public class SocketTaskBenchmarkTest {
+    private static final String TAG = "SocketTaskBenchmarkTest";
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final long TIMEOUT_SECONDS = 60;
+
+    @Test
+    public void benchmarkSmallFrames() throws Exception {
+        compare(20000, 1024);
+    }
+
+    @Test
+    public void benchmarkLargeFrames() throws Exception {
+        compare(1000, 64 * 1024);
+    }
+
+    private void compare(int frameCount, int frameSize) throws Exception {
+        // the first run warms up the connection and jit
+        receive(frameCount, frameSize, true);
+        String current = receive(frameCount, frameSize, true);
+        String former = receive(frameCount, frameSize, false);
+        Log.i(TAG, frameCount + " frames of " + frameSize + " bytes, current: " + current
+                + ", former: " + former);
+    }
+
+    private String receive(int frameCount, int frameSize, boolean current) throws Exception {
+        LoopbackServer server = new LoopbackServer(frameCount, frameSize);
+        server.start();
+        CountDownLatch latch = new CountDownLatch(frameCount);
+        // start and end of time and allocation, read on the reader thread of okhttp
+        long[] times = new long[2];
+        long[] allocs = new long[2];
+        Debug.startAllocCounting();
+        OkHttpClient client = new OkHttpClient();
+        Request request =
+                new Request.Builder().url("ws://127.0.0.1:" + server.getPort()).build();
+        client.newWebSocket(
+                request,
+                new WebSocketListener() {
+                    @Override
+                    public void onOpen(okhttp3.WebSocket webSocket, okhttp3.Response response) {
+                        times[0] = SystemClock.elapsedRealtimeNanos();
+                        allocs[0] = Debug.getThreadAllocSize();
+                    }
+
+                    @Override
+                    public void onMessage(okhttp3.WebSocket webSocket, ByteString bytes) {
+                        ArrayBuffer buffer =
+                                current
+                                        ? SocketTask.toArrayBuffer(bytes)
+                                        : new ArrayBuffer(bytes.toByteArray());
+                        Assert.assertEquals(bytes.size(), buffer.limit());
+                        if (latch.getCount() == 1) {
+                            times[1] = SystemClock.elapsedRealtimeNanos();
+                            allocs[1] = Debug.getThreadAllocSize();
+                        }
+                        latch.countDown();
+                    }
+                });
+        try {
+            Assert.assertTrue(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        long elapsed = times[1] - times[0];
+        long allocated = allocs[1] - allocs[0];
+        server.close();
+        client.dispatcher().executorService().shutdown();
+        double megabytes = (double) frameCount * frameSize / 1024 / 1024;
+        return String.format(
+                "%.1f MB/s, %.1f frames/ms, %d KB allocated on the reader thread",
+                megabytes / (elapsed / 1e9), frameCount / (elapsed / 1e6), allocated / 1024);
+    }
+
+    /**
+     * Accept one websocket connection, then send the given binary frames.
+     */
+    private static class LoopbackServer extends Thread {
+        private final ServerSocket mServerSocket;
+        private final int mFrameCount;
+        private final int mFrameSize;
+        private volatile Socket mSocket;
+
+        LoopbackServer(int frameCount, int frameSize) throws IOException {
+            mServerSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+            mFrameCount = frameCount;
+            mFrameSize = frameSize;
+        }
+
+        int getPort() {
+            return mServerSocket.getLocalPort();
+        }
+
+        @Override
+        public void run() {
+            try {
+                mSocket = mServerSocket.accept();
+                handshake(mSocket);
+                OutputStream out = mSocket.getOutputStream();
+                byte[] payload = new byte[mFrameSize];
+                for (int i = 0; i < mFrameSize; i++) {
+                    payload[i] = (byte) i;
+                }
+                byte[] header = frameHeader(mFrameSize);
+                for (int i = 0; i < mFrameCount; i++) {
+                    out.write(header);
+                    out.write(payload);
+                }
+                out.flush();
+            } catch (Exception e) {
+                Log.e(TAG, "loopback server failed", e);
+            }
+        }
+
+        private void handshake(Socket socket) throws Exception {
+            BufferedReader reader =
+                    new BufferedReader(
+                            new InputStreamReader(
+                                    socket.getInputStream(), StandardCharsets.UTF_8));
+            String key = null;
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0
+                        && "Sec-WebSocket-Key".equalsIgnoreCase(line.substring(0, colon).trim())) {
+                    key = line.substring(colon + 1).trim();
+                }
+            }
+            byte[] digest =
+                    MessageDigest.getInstance("SHA-1")
+                            .digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.UTF_8));
+            String response =
+                    "HTTP/1.1 101 Switching Protocols\r\n"
+                            + "Upgrade: websocket\r\n"
+                            + "Connection: Upgrade\r\n"
+                            + "Sec-WebSocket-Accept: "
+                            + Base64.encodeToString(digest, Base64.NO_WRAP)
+                            + "\r\n\r\n";
+            socket.getOutputStream().write(response.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static byte[] frameHeader(int size) {
+            // final binary frame, not masked from server to client
+            if (size <= 125) {
+                return new byte[] {(byte) 0x82, (byte) size};
+            } else if (size <= 0xffff) {
+                return new byte[] {(byte) 0x82, 126, (byte) (size >> 8), (byte) size};
+            }
+            byte[] header = new byte[10];
+            header[0] = (byte) 0x82;
+            header[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                header[9 - i] = (byte) ((long) size >> (8 * i));
+            }
+            return header;
+        }
+
+        void close() throws IOException {
+            mServerSocket.close();
+            if (mSocket != null) {
+                mSocket.close();
+            }
+        }
+    }
+}
@@ -30,7 +30,9 @@ import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import okhttp3.internal.http.HttpMethod;
+import okio.BufferedSource;
 import org.hapjs.bridge.CallbackHybridFeature;
 import org.hapjs.bridge.Request;
 import org.hapjs.bridge.Response;
@@ -432,7 +434,7 @@ public abstract class AbstractRequest extends CallbackHybridFeature {
                     throw new IOException("Fail to Parsing Data to Json!");
                 }
             } else if (RESPONSE_TYPE_ARRAYBUFFER.equalsIgnoreCase(responseType)) {
-                result.put(RESULT_KEY_DATA, new ArrayBuffer(response.body().bytes()));
+                result.put(RESULT_KEY_DATA, new ArrayBuffer(readBodyAsBuffer(response.body())));
             } else if (RESPONSE_TYPE_FILE.equalsIgnoreCase(responseType)) {
                 result.put(RESULT_KEY_DATA, parseFile(response));
             } else {
@@ -440,6 +442,28 @@ public abstract class AbstractRequest extends CallbackHybridFeature {
             }
         }
 
+        /**
+         * Read body into a direct buffer, which is handed to js without another copy.
+         */
+        private ByteBuffer readBodyAsBuffer(ResponseBody body) throws IOException {
+            long contentLength = body.contentLength();
+            if (contentLength < 0 || contentLength > Integer.MAX_VALUE) {
+                byte[] bytes = body.bytes();
+                ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+                buffer.put(bytes);
+                return buffer;
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) contentLength);
+            try (BufferedSource source = body.source()) {
+                while (buffer.hasRemaining()) {
+                    if (source.read(buffer) < 0) {
+                        throw new IOException("unexpected end of response body");
+                    }
+                }
+            }
+            return buffer;
+        }
+
         private String parseFile(okhttp3.Response response) throws IOException {
             if (HapEngine.getInstance(request.getApplicationContext().getPackage()).isCardMode()) {
                 throw new IOException("Not support request file on card mode!");
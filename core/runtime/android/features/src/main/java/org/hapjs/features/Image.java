@@ -13,8 +13,11 @@ import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
 import android.graphics.Matrix;
+import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.net.Uri;
 import android.provider.MediaStore;
 import android.text.TextUtils;
@@ -526,7 +529,6 @@ public class Image extends FeatureExtension {
             String format,
             Bitmap.CompressFormat compressFormat)
             throws IOException {
-        Bitmap bitmap = null;
         Activity activity = request.getNativeInterface().getActivity();
 
         BitmapFactory.Options options = new BitmapFactory.Options();
@@ -537,95 +539,144 @@ public class Image extends FeatureExtension {
         int orgWidth = options.outWidth;
         int orgHeight = options.outHeight;
 
-        options.inJustDecodeBounds = false;
-
+        // plan all the operations as one transform from the source image to the output image
+        Matrix transform = new Matrix();
+        int width = orgWidth;
+        int height = orgHeight;
         for (Operation operation : operations) {
             if (operation instanceof CropOperation) {
                 CropOperation cropOperation = (CropOperation) operation;
-                Rect rect =
-                        new Rect(
-                                (int) Math.round(cropOperation.x),
-                                (int) Math.round(cropOperation.y),
-                                (int) Math.round(cropOperation.x + cropOperation.width),
-                                (int) Math.round(cropOperation.y + cropOperation.height));
-                if (bitmap == null) {
-                    if (!checkCropParams(cropOperation, request, orgWidth, orgHeight)) {
-                        return null;
-                    }
-                    BitmapRegionDecoder decoder = null;
-                    try (InputStream in = activity.getContentResolver().openInputStream(uri)) {
-                        decoder = BitmapRegionDecoder.newInstance(in, false);
-                        if (decoder != null) {
-                            bitmap = decoder.decodeRegion(rect, options);
-                        }
-                    } finally {
-                        if (decoder != null) {
-                            decoder.recycle();
-                        }
-                    }
-                } else {
-                    if (!checkCropParams(cropOperation, request, bitmap.getWidth(),
-                            bitmap.getHeight())) {
-                        return null;
-                    }
-                    bitmap =
-                            Bitmap.createBitmap(
-                                    bitmap,
-                                    (int) Math.round(cropOperation.x),
-                                    (int) Math.round(cropOperation.y),
-                                    (int) Math.round(cropOperation.width),
-                                    (int) Math.round(cropOperation.height));
+                if (!checkCropParams(cropOperation, request, width, height)) {
+                    return null;
                 }
+                transform.postTranslate(
+                        -Math.round(cropOperation.x), -Math.round(cropOperation.y));
+                width = (int) Math.round(cropOperation.width);
+                height = (int) Math.round(cropOperation.height);
             } else if (operation instanceof RotateOperation) {
-                RotateOperation rotateOperation = (RotateOperation) operation;
                 Matrix matrix = new Matrix();
-                matrix.setRotate((float) rotateOperation.degree);
-                if (bitmap == null) {
-                    try (InputStream in = activity.getContentResolver().openInputStream(uri)) {
-                        bitmap = BitmapFactory.decodeStream(in, null, options);
-                    }
-                }
-                if (bitmap != null) {
-                    bitmap =
-                            Bitmap.createBitmap(
-                                    bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix,
-                                    false);
-                }
+                matrix.setRotate((float) ((RotateOperation) operation).degree);
+                int[] size = concatTransform(transform, matrix, width, height);
+                width = size[0];
+                height = size[1];
             } else if (operation instanceof ScaleOperation) {
                 ScaleOperation scaleOperation = (ScaleOperation) operation;
                 Matrix matrix = new Matrix();
                 matrix.setScale((float) scaleOperation.scaleX, (float) scaleOperation.scaleY);
-                if (bitmap == null) {
-                    try (InputStream in = activity.getContentResolver().openInputStream(uri)) {
-                        bitmap = BitmapFactory.decodeStream(in, null, options);
-                    }
+                int[] size = concatTransform(transform, matrix, width, height);
+                width = size[0];
+                height = size[1];
+            }
+        }
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+
+        // only decode the source region visible in the output, at the lowest resolution needed
+        Matrix inverse = new Matrix();
+        if (!transform.invert(inverse)) {
+            return null;
+        }
+        RectF sourceBounds = new RectF(0, 0, width, height);
+        inverse.mapRect(sourceBounds);
+        Rect region = new Rect();
+        sourceBounds.roundOut(region);
+        if (!region.intersect(0, 0, orgWidth, orgHeight)) {
+            return null;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = computeSampleSize(transform);
+
+        Bitmap source = null;
+        if (region.width() < orgWidth || region.height() < orgHeight) {
+            BitmapRegionDecoder decoder = null;
+            try (InputStream in = activity.getContentResolver().openInputStream(uri)) {
+                decoder = BitmapRegionDecoder.newInstance(in, false);
+                if (decoder != null) {
+                    source = decoder.decodeRegion(region, options);
                 }
-                if (bitmap != null) {
-                    bitmap =
-                            Bitmap.createBitmap(
-                                    bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix,
-                                    false);
+            } catch (IOException e) {
+                Log.w(TAG, "failed to decode region, fallback to decode the whole image", e);
+            } finally {
+                if (decoder != null) {
+                    decoder.recycle();
                 }
             }
         }
+        if (source == null) {
+            region.set(0, 0, orgWidth, orgHeight);
+            try (InputStream in = activity.getContentResolver().openInputStream(uri)) {
+                source = BitmapFactory.decodeStream(in, null, options);
+            }
+        }
+        if (source == null) {
+            return null;
+        }
+
+        // map pixels of the decoded bitmap to the source image, then apply the planned transform
+        Matrix drawMatrix = new Matrix();
+        drawMatrix.setScale(
+                (float) region.width() / source.getWidth(),
+                (float) region.height() / source.getHeight());
+        drawMatrix.postTranslate(region.left, region.top);
+        drawMatrix.postConcat(transform);
 
-        if (bitmap != null) {
-            OutputStream out = null;
-            File tmpFile;
+        Bitmap bitmap;
+        if (drawMatrix.isIdentity()
+                && source.getWidth() == width
+                && source.getHeight() == height) {
+            bitmap = source;
+        } else {
             try {
-                String extension = EXTENSION_MAP.get(format);
-                tmpFile = request.getApplicationContext()
-                        .createTempFile("applyOperations", extension);
-                out = new FileOutputStream(tmpFile);
-                bitmap.compress(compressFormat, (int) Math.round(quality), out);
-                return request.getApplicationContext().getInternalUri(tmpFile);
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                Canvas canvas = new Canvas(bitmap);
+                canvas.drawBitmap(source, drawMatrix, new Paint(Paint.FILTER_BITMAP_FLAG));
             } finally {
-                FileUtils.closeQuietly(out);
-                bitmap.recycle();
+                source.recycle();
             }
-        } else {
-            return null;
         }
+
+        OutputStream out = null;
+        File tmpFile;
+        try {
+            String extension = EXTENSION_MAP.get(format);
+            tmpFile = request.getApplicationContext()
+                    .createTempFile("applyOperations", extension);
+            out = new FileOutputStream(tmpFile);
+            bitmap.compress(compressFormat, (int) Math.round(quality), out);
+            return request.getApplicationContext().getInternalUri(tmpFile);
+        } finally {
+            FileUtils.closeQuietly(out);
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Append an operation to the transform, the same way as {@link Bitmap#createBitmap(Bitmap, int,
+     * int, int, int, Matrix, boolean)} does.
+     *
+     * @return size of the image after the operation
+     */
+    private int[] concatTransform(Matrix transform, Matrix operation, int width, int height) {
+        RectF bounds = new RectF(0, 0, width, height);
+        operation.mapRect(bounds);
+        transform.postConcat(operation);
+        transform.postTranslate(-bounds.left, -bounds.top);
+        return new int[] {Math.round(bounds.width()), Math.round(bounds.height())};
+    }
+
+    private int computeSampleSize(Matrix transform) {
+        float[] values = new float[9];
+        transform.getValues(values);
+        // scale factors of the source x and y axes in the output image
+        double scaleX = Math.hypot(values[Matrix.MSCALE_X], values[Matrix.MSKEW_Y]);
+        double scaleY = Math.hypot(values[Matrix.MSKEW_X], values[Matrix.MSCALE_Y]);
+        double scale = Math.min(scaleX, scaleY);
+        int sampleSize = 1;
+        while (scale > 0 && sampleSize * 2 * scale <= 1) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
     }
 
     private boolean checkCropParams(
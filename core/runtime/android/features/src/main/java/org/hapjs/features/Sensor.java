@@ -31,6 +31,7 @@ import org.hapjs.bridge.annotation.ActionAnnotation;
 import org.hapjs.bridge.annotation.FeatureExtensionAnnotation;
 import org.hapjs.bridge.permission.HapPermissionManager;
 import org.hapjs.bridge.permission.PermissionCallback;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -91,16 +92,27 @@ public class Sensor extends CallbackHybridFeature {
     protected static final String PARAM_INTENSITY = "intensity";
     protected static final String PARAM_STEPS = "steps";
     protected static final String PARAM_ACCURACY = "accuracy";
+    protected static final String PARAM_BATCH_SIZE = "batchSize";
+    protected static final String PARAM_LOW_PASS = "lowPass";
+    protected static final String PARAM_THRESHOLD = "threshold";
+    protected static final String PARAM_VALUES = "values";
+    protected static final String PARAM_COUNT = "count";
     private static final String TAG = "Sensor";
     private static final int MESSAGE_COMPASS_INTERVAL = 1;
     private static final int MESSAGE_ON_PAUSE = 2;
     private static final int MESSAGE_ON_RESUME = 3;
+    private static final int MESSAGE_BATCH_TIMEOUT = 4;
     private static final int SET_PAUSE_DELAY = 5000; // base on JsThread blocked delay time 5s
     private static final int COMPASS_EVENT_INTERVAL = 200;
     // microseconds
     private static final int EVENT_INTERVAL_GAME = 20 * 1000;
     private static final int EVENT_INTERVAL_UI = 60 * 1000;
     private static final int EVENT_INTERVAL_NORMAL = 200 * 1000;
+    private static final int MAX_BATCH_SIZE = 100;
+    // microseconds, a partial batch is delivered once its first sample is older than this
+    private static final int MAX_BATCH_LATENCY = 1000 * 1000;
+    private static final int WHAT_SAMPLES = 0;
+    private static final int WHAT_FLUSH = 1;
 
     private static final Map<String, Integer> INTERVAL_MAP = new HashMap<>();
 
@@ -129,6 +141,10 @@ public class Sensor extends CallbackHybridFeature {
                             case MESSAGE_ON_RESUME:
                                 isPause = false;
                                 break;
+                            case MESSAGE_BATCH_TIMEOUT:
+                                runCallbackContext(ACTION_SUBSCRIBE_ACCELEROMETER, WHAT_FLUSH,
+                                        null);
+                                break;
                             default:
                                 // do nothing
                         }
@@ -179,6 +195,9 @@ public class Sensor extends CallbackHybridFeature {
 
                         @Override
                         public void onPause() {
+                            // deliver the partial batch while js is still running
+                            mHandler.removeMessages(MESSAGE_BATCH_TIMEOUT);
+                            mHandler.sendEmptyMessage(MESSAGE_BATCH_TIMEOUT);
                             mHandler.removeMessages(MESSAGE_ON_RESUME);
                             mHandler.removeMessages(MESSAGE_ON_PAUSE);
                             mHandler.sendEmptyMessageDelayed(MESSAGE_ON_PAUSE, SET_PAUSE_DELAY);
@@ -306,6 +325,7 @@ public class Sensor extends CallbackHybridFeature {
 
     private class AccelerometerCallbackContext extends CallbackContext {
         SensorEventListener accelerometerListener;
+        private SampleBatcher batcher;
 
         public AccelerometerCallbackContext(Request request, boolean reserved) {
             super(Sensor.this, ACTION_SUBSCRIBE_ACCELEROMETER, request, reserved);
@@ -322,8 +342,21 @@ public class Sensor extends CallbackHybridFeature {
                     new SensorEventListener() {
                         @Override
                         public void onSensorChanged(SensorEvent event) {
-                            if (!isPause) {
-                                callback(0, event);
+                            if (isPause) {
+                                // samples since the last flush are still delivered, and the
+                                // filter starts over on resume
+                                callback(WHAT_FLUSH, null);
+                                batcher.clear();
+                                return;
+                            }
+                            float[] samples = batcher.add(event.values);
+                            if (samples != null) {
+                                mHandler.removeMessages(MESSAGE_BATCH_TIMEOUT);
+                                callback(WHAT_SAMPLES, samples);
+                            } else if (batcher.hasSamples()
+                                    && !mHandler.hasMessages(MESSAGE_BATCH_TIMEOUT)) {
+                                mHandler.sendEmptyMessageDelayed(MESSAGE_BATCH_TIMEOUT,
+                                        batcher.maxLatency / 1000);
                             }
                         }
 
@@ -333,19 +366,32 @@ public class Sensor extends CallbackHybridFeature {
                         }
                     };
             Integer interval = EVENT_INTERVAL_NORMAL;
+            int batchSize = 1;
+            float lowPass = 0;
+            float threshold = 0;
             try {
                 JSONObject params = mRequest.getJSONParams();
                 String intervalParam = params.optString(PARAM_INTERVAL);
                 if (!TextUtils.isEmpty(intervalParam)) {
                     interval = INTERVAL_MAP.get(intervalParam);
                 }
+                batchSize = params.optInt(PARAM_BATCH_SIZE, 1);
+                lowPass = (float) params.optDouble(PARAM_LOW_PASS, 0);
+                threshold = (float) params.optDouble(PARAM_THRESHOLD, 0);
             } catch (JSONException e) {
                 Log.e(TAG, "onCreate", e);
             }
             if (interval == null) {
                 interval = EVENT_INTERVAL_NORMAL;
             }
-            sm.registerListener(accelerometerListener, accelerometer, interval);
+            batcher = new SampleBatcher(batchSize, lowPass, threshold, interval);
+            if (batcher.batchSize > 1) {
+                // let the sensor hub buffer samples of a batch, so the cpu is waken up less often
+                sm.registerListener(accelerometerListener, accelerometer, interval,
+                        batcher.maxLatency);
+            } else {
+                sm.registerListener(accelerometerListener, accelerometer, interval);
+            }
         }
 
         @Override
@@ -354,17 +400,35 @@ public class Sensor extends CallbackHybridFeature {
             Activity activity = mRequest.getNativeInterface().getActivity();
             SensorManager sm = (SensorManager) activity.getSystemService(Context.SENSOR_SERVICE);
             sm.unregisterListener(accelerometerListener);
+            mHandler.removeMessages(MESSAGE_BATCH_TIMEOUT);
+            callback(WHAT_FLUSH, null);
         }
 
         @Override
         public void callback(int what, Object obj) {
-            SensorEvent event = (SensorEvent) obj;
-            if (event != null) {
+            if (what == WHAT_FLUSH) {
+                float[] samples = batcher == null ? null : batcher.drain();
+                if (samples != null) {
+                    callback(WHAT_SAMPLES, samples);
+                }
+                return;
+            }
+            float[] samples = (float[]) obj;
+            if (samples != null) {
                 try {
                     JSONObject result = new JSONObject();
-                    result.put(PARAM_X, event.values[0]);
-                    result.put(PARAM_Y, event.values[1]);
-                    result.put(PARAM_Z, event.values[2]);
+                    if (batcher.batchSize > 1) {
+                        JSONArray values = new JSONArray();
+                        for (float value : samples) {
+                            values.put(value);
+                        }
+                        result.put(PARAM_VALUES, values);
+                        result.put(PARAM_COUNT, samples.length / SampleBatcher.AXIS_COUNT);
+                    } else {
+                        result.put(PARAM_X, samples[0]);
+                        result.put(PARAM_Y, samples[1]);
+                        result.put(PARAM_Z, samples[2]);
+                    }
                     Response response = new Response(result);
                     mRequest.getCallback().callback(response);
                 } catch (JSONException e) {
@@ -376,6 +440,100 @@ public class Sensor extends CallbackHybridFeature {
         }
     }
 
+    /**
+     * Buffers 3-axis samples and delivers them in batches. Samples can be smoothed by a low-pass
+     * filter, and samples changed less than threshold since the last delivered one are dropped.
+     *
+     * <p>A batch is delivered when full, or partially by {@link #drain()} once its first sample
+     * has waited {@link #maxLatency}, so a still device or a low rate doesn't hold samples for
+     * long. Accessed by the main thread receiving samples and the thread unsubscribing, so it is
+     * synchronized.
+     */
+    private static class SampleBatcher {
+        static final int AXIS_COUNT = 3;
+
+        final int batchSize;
+        // microseconds
+        final int maxLatency;
+        private final float mLowPass;
+        private final float mThreshold;
+        private final float[] mFiltered = new float[AXIS_COUNT];
+        private final float[] mLastAccepted = new float[AXIS_COUNT];
+        private boolean mHasFiltered;
+        private boolean mHasAccepted;
+        private float[] mSamples;
+        private int mCount;
+
+        SampleBatcher(int batchSize, float lowPass, float threshold, int interval) {
+            this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+            maxLatency = (int) Math.min((long) interval * this.batchSize, MAX_BATCH_LATENCY);
+            // weight of the new sample, 0 or 1 means no filtering
+            mLowPass = lowPass > 0 && lowPass < 1 ? lowPass : 1;
+            mThreshold = Math.max(0, threshold);
+            mSamples = new float[this.batchSize * AXIS_COUNT];
+        }
+
+        /**
+         * @return samples of a full batch, or null if the batch is not full yet
+         */
+        synchronized float[] add(float[] values) {
+            for (int i = 0; i < AXIS_COUNT; i++) {
+                mFiltered[i] =
+                        mHasFiltered ? mFiltered[i] + mLowPass * (values[i] - mFiltered[i])
+                                : values[i];
+            }
+            mHasFiltered = true;
+
+            if (mHasAccepted && mThreshold > 0) {
+                boolean changed = false;
+                for (int i = 0; i < AXIS_COUNT; i++) {
+                    if (Math.abs(mFiltered[i] - mLastAccepted[i]) >= mThreshold) {
+                        changed = true;
+                        break;
+                    }
+                }
+                if (!changed) {
+                    return null;
+                }
+            }
+            System.arraycopy(mFiltered, 0, mLastAccepted, 0, AXIS_COUNT);
+            mHasAccepted = true;
+
+            System.arraycopy(mFiltered, 0, mSamples, mCount * AXIS_COUNT, AXIS_COUNT);
+            mCount++;
+            if (mCount < batchSize) {
+                return null;
+            }
+            float[] batch = mSamples;
+            mSamples = new float[batchSize * AXIS_COUNT];
+            mCount = 0;
+            return batch;
+        }
+
+        synchronized boolean hasSamples() {
+            return mCount > 0;
+        }
+
+        /**
+         * @return samples of the partial batch, or null if there is none
+         */
+        synchronized float[] drain() {
+            if (mCount == 0) {
+                return null;
+            }
+            float[] batch = new float[mCount * AXIS_COUNT];
+            System.arraycopy(mSamples, 0, batch, 0, batch.length);
+            mCount = 0;
+            return batch;
+        }
+
+        synchronized void clear() {
+            mCount = 0;
+            mHasFiltered = false;
+            mHasAccepted = false;
+        }
+    }
+
     private class CompassCallbackContext extends CallbackContext {
         private SensorEventListener compassAccelerometerListener;
         private SensorEventListener compassGeomagneticListener;
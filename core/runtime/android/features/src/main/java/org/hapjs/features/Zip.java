@@ -5,10 +5,15 @@
 
 package org.hapjs.features;
 
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Log;
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.hapjs.bridge.ApplicationContext;
+import org.hapjs.bridge.CallbackContext;
+import org.hapjs.bridge.CallbackHybridFeature;
 import org.hapjs.bridge.FeatureExtension;
 import org.hapjs.bridge.Request;
 import org.hapjs.bridge.Response;
@@ -19,27 +24,80 @@ import org.hapjs.bridge.storage.file.Resource;
 import org.hapjs.cache.utils.ZipUtils;
 import org.hapjs.render.jsruntime.serialize.SerializeException;
 import org.hapjs.render.jsruntime.serialize.SerializeObject;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 @FeatureExtensionAnnotation(
         name = Zip.FEATURE_NAME,
         actions = {
-                @ActionAnnotation(name = Zip.ACTION_DECOMPRESS, mode = FeatureExtension.Mode.ASYNC)})
-public class Zip extends FeatureExtension {
+                @ActionAnnotation(name = Zip.ACTION_DECOMPRESS, mode = FeatureExtension.Mode.ASYNC),
+                @ActionAnnotation(name = Zip.ACTION_ABORT, mode = FeatureExtension.Mode.SYNC),
+                @ActionAnnotation(
+                        name = Zip.ACTION_SUBSCRIBE_PROGRESS,
+                        mode = FeatureExtension.Mode.CALLBACK),
+                @ActionAnnotation(
+                        name = Zip.ACTION_UNSUBSCRIBE_PROGRESS,
+                        mode = FeatureExtension.Mode.SYNC)
+        })
+public class Zip extends CallbackHybridFeature {
     protected static final String FEATURE_NAME = "system.zip";
     protected static final String ACTION_DECOMPRESS = "decompress";
+    protected static final String ACTION_ABORT = "abort";
+    protected static final String ACTION_SUBSCRIBE_PROGRESS = "subscribeProgress";
+    protected static final String ACTION_UNSUBSCRIBE_PROGRESS = "unsubscribeProgress";
     private static final String TAG = "Zip";
     private static final String PARAMS_SRC_URI = "srcUri";
     private static final String PARAMS_DST_URI = "dstUri";
+    private static final String RESULT_SRC_URI = "srcUri";
+    private static final String RESULT_DST_URI = "dstUri";
+    private static final String RESULT_PROGRESS = "progress";
+    private static final String RESULT_TOTAL = "total";
+    private static final long PROGRESS_INTERVAL = 100;
+
+    // key: srcUri and dstUri, the same archive may be decompressed to different dirs at once
+    private final Map<String, DecompressTask> mTasks = new ConcurrentHashMap<>();
 
     @Override
     protected Response invokeInner(Request request) throws Exception {
         String action = request.getAction();
         if (ACTION_DECOMPRESS.equals(action)) {
             doDecompress(request);
+        } else if (ACTION_ABORT.equals(action)) {
+            return doAbort(request);
+        } else if (ACTION_SUBSCRIBE_PROGRESS.equals(action)) {
+            putCallbackContext(new ProgressCallbackContext(request, isReserved(request)));
+        } else if (ACTION_UNSUBSCRIBE_PROGRESS.equals(action)) {
+            removeCallbackContext(ACTION_SUBSCRIBE_PROGRESS);
+        }
+        return Response.SUCCESS;
+    }
+
+    private Response doAbort(Request request) throws SerializeException {
+        SerializeObject params = request.getSerializeParams();
+        String srcUri = params == null ? null : params.optString(PARAMS_SRC_URI);
+        if (TextUtils.isEmpty(srcUri)) {
+            return new Response(Response.CODE_ILLEGAL_ARGUMENT, PARAMS_SRC_URI + " not define");
+        }
+        // abort all the tasks of srcUri if dstUri is not given
+        String dstUri = params.optString(PARAMS_DST_URI);
+        boolean found = false;
+        for (DecompressTask task : mTasks.values()) {
+            if (srcUri.equals(task.mSrcUri)
+                    && (TextUtils.isEmpty(dstUri) || dstUri.equals(task.mDstUri))) {
+                task.mCancelled = true;
+                found = true;
+            }
+        }
+        if (!found) {
+            return new Response(Response.CODE_GENERIC_ERROR, "no decompress task of " + srcUri);
         }
         return Response.SUCCESS;
     }
 
+    private static String getTaskKey(String srcUri, String dstUri) {
+        return srcUri + '\n' + dstUri;
+    }
+
     private void doDecompress(Request request) throws SerializeException {
         SerializeObject params = request.getSerializeParams();
         String srcUri = params.optString(PARAMS_SRC_URI);
@@ -115,8 +173,24 @@ public class Zip extends FeatureExtension {
             return;
         }
 
-        boolean success = ZipUtils.unzip(srcFile, dstDir);
-        if (!success) {
+        String taskKey = getTaskKey(srcUri, destUri);
+        DecompressTask task = new DecompressTask(srcUri, destUri);
+        if (mTasks.putIfAbsent(taskKey, task) != null) {
+            reason = "srcUri " + srcUri + " is decompressing to " + destUri;
+            Log.w(TAG, reason);
+            request.getCallback().callback(new Response(Response.CODE_TOO_MANY_REQUEST, reason));
+            return;
+        }
+        boolean success;
+        try {
+            success = ZipUtils.unzip(srcFile, dstDir, task);
+        } finally {
+            mTasks.remove(taskKey);
+        }
+        if (task.mCancelled) {
+            request.getCallback()
+                    .callback(new Response(Response.CODE_CANCEL, "decompress is aborted"));
+        } else if (!success) {
             reason = "decompress file failed";
             Log.w(TAG, reason);
             request.getCallback().callback(new Response(Response.CODE_IO_ERROR, reason));
@@ -129,4 +203,53 @@ public class Zip extends FeatureExtension {
     public String getName() {
         return FEATURE_NAME;
     }
+
+    private class DecompressTask implements ZipUtils.UnzipListener {
+        private final String mSrcUri;
+        private final String mDstUri;
+        private volatile boolean mCancelled;
+        private long mLastNotifyTime;
+
+        DecompressTask(String srcUri, String dstUri) {
+            mSrcUri = srcUri;
+            mDstUri = dstUri;
+        }
+
+        @Override
+        public void onProgress(long unzippedSize, long totalSize) {
+            synchronized (this) {
+                long now = SystemClock.uptimeMillis();
+                if (unzippedSize < totalSize && now - mLastNotifyTime < PROGRESS_INTERVAL) {
+                    return;
+                }
+                mLastNotifyTime = now;
+            }
+            try {
+                JSONObject result = new JSONObject();
+                result.put(RESULT_SRC_URI, mSrcUri);
+                result.put(RESULT_DST_URI, mDstUri);
+                result.put(RESULT_PROGRESS, unzippedSize);
+                result.put(RESULT_TOTAL, totalSize);
+                runCallbackContext(ACTION_SUBSCRIBE_PROGRESS, 0, result);
+            } catch (JSONException e) {
+                Log.e(TAG, "failed to notify progress", e);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+
+    private class ProgressCallbackContext extends CallbackContext {
+        ProgressCallbackContext(Request request, boolean reserved) {
+            super(Zip.this, ACTION_SUBSCRIBE_PROGRESS, request, reserved);
+        }
+
+        @Override
+        public void callback(int what, Object obj) {
+            mRequest.getCallback().callback(new Response(obj));
+        }
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.features.storage.file;
+
+import android.os.SystemClock;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.hapjs.common.executors.Executors;
+import org.hapjs.common.utils.FileUtils;
+
+/**
+ * Keeps recently read files open, so that reading a file chunk by chunk doesn't reopen it for
+ * every chunk. A channel is reopened if its file was modified since it was opened, and closed
+ * after being idle for {@link #IDLE_TIMEOUT} ms.
+ */
+class FileChannelCache {
+    private static final int MAX_SIZE = 4;
+    private static final long IDLE_TIMEOUT = 5000;
+
+    private final Map<String, Entry> mEntries = new LinkedHashMap<>(MAX_SIZE, 0.75f, true);
+    private boolean mCleanupScheduled;
+
+    /**
+     * Get an opened channel of file, {@link #release(Entry)} must be called after use.
+     */
+    Entry acquire(File file) throws IOException {
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        synchronized (this) {
+            Entry entry = mEntries.get(path);
+            if (entry != null) {
+                if (entry.lastModified == lastModified && entry.length == length) {
+                    entry.refCount++;
+                    return entry;
+                }
+                mEntries.remove(path);
+                entry.evicted = true;
+                closeIfUnused(entry);
+            }
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        Entry entry = new Entry(path, raf, lastModified, length);
+        synchronized (this) {
+            Entry old = mEntries.put(path, entry);
+            if (old != null) {
+                old.evicted = true;
+                closeIfUnused(old);
+            }
+            trimToSize();
+            scheduleCleanup();
+        }
+        return entry;
+    }
+
+    synchronized void release(Entry entry) {
+        entry.refCount--;
+        entry.lastAccessTime = SystemClock.uptimeMillis();
+        closeIfUnused(entry);
+    }
+
+    /**
+     * Close all the channels, called when files may be moved or deleted.
+     */
+    synchronized void clear() {
+        for (Entry entry : mEntries.values()) {
+            entry.evicted = true;
+            closeIfUnused(entry);
+        }
+        mEntries.clear();
+    }
+
+    private void trimToSize() {
+        Iterator<Entry> it = mEntries.values().iterator();
+        while (mEntries.size() > MAX_SIZE && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            eldest.evicted = true;
+            closeIfUnused(eldest);
+        }
+    }
+
+    private void scheduleCleanup() {
+        if (mCleanupScheduled) {
+            return;
+        }
+        mCleanupScheduled = true;
+        Executors.scheduled().executeWithDelay(this::cleanup, IDLE_TIMEOUT);
+    }
+
+    private synchronized void cleanup() {
+        mCleanupScheduled = false;
+        long now = SystemClock.uptimeMillis();
+        Iterator<Entry> it = mEntries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.refCount == 0 && now - entry.lastAccessTime >= IDLE_TIMEOUT) {
+                it.remove();
+                entry.evicted = true;
+                closeIfUnused(entry);
+            }
+        }
+        if (!mEntries.isEmpty()) {
+            scheduleCleanup();
+        }
+    }
+
+    private static void closeIfUnused(Entry entry) {
+        if (entry.evicted && entry.refCount == 0) {
+            FileUtils.closeQuietly(entry.file);
+        }
+    }
+
+    static class Entry {
+        final String path;
+        final long lastModified;
+        final long length;
+        private final RandomAccessFile file;
+        private int refCount = 1;
+        private long lastAccessTime = SystemClock.uptimeMillis();
+        private boolean evicted;
+
+        Entry(String path, RandomAccessFile file, long lastModified, long length) {
+            this.path = path;
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        FileChannel getChannel() {
+            return file.getChannel();
+        }
+    }
+}
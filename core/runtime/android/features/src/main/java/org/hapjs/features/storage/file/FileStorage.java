@@ -30,9 +30,12 @@ import org.json.JSONObject;
 public class FileStorage {
     private static final String TAG = "FileStorage";
 
+    private final FileChannelCache mChannelCache = new FileChannelCache();
+
     public Response move(
             IResourceFactory resourceFactory, String srcInternalUri, String dstInternalUri) {
         Log.v(TAG, "move: srcUri=" + srcInternalUri + ", dstUri=" + dstInternalUri);
+        mChannelCache.clear();
         String reason;
         Resource srcRes = resourceFactory.create(srcInternalUri);
         if (srcRes == null) {
@@ -77,6 +80,7 @@ public class FileStorage {
     public Response copy(
             IResourceFactory resourceFactory, String srcInternalUri, String dstInternalUri) {
         Log.v(TAG, "copy: srcUri=" + srcInternalUri + ", dstUri=" + dstInternalUri);
+        mChannelCache.clear();
         String reason;
         Resource srcRes = resourceFactory.create(srcInternalUri);
         if (srcRes == null) {
@@ -159,6 +163,7 @@ public class FileStorage {
 
     public Response delete(IResourceFactory resourceFactory, String internalUri) {
         Log.v(TAG, "delete: uri=" + internalUri);
+        mChannelCache.clear();
         String reason;
         Resource resource = resourceFactory.create(internalUri);
         if (resource == null) {
@@ -277,8 +282,20 @@ public class FileStorage {
                 return new Response(Response.CODE_IO_ERROR,
                         "Fail to get resource by " + internalUri);
             }
-            InputStream input = resource.openInputStream();
-            ByteBuffer byteBuffer = FileUtils.readStreamAsBuffer(input, position, length, true);
+            ByteBuffer byteBuffer;
+            File file = resource.getUnderlyingFile();
+            if (file != null) {
+                FileChannelCache.Entry entry = mChannelCache.acquire(file);
+                try {
+                    byteBuffer =
+                            FileUtils.readChannelAsBuffer(entry.getChannel(), position, length);
+                } finally {
+                    mChannelCache.release(entry);
+                }
+            } else {
+                InputStream input = resource.openInputStream();
+                byteBuffer = FileUtils.readStreamAsBuffer(input, position, length, true);
+            }
             UInt8Array array = new UInt8Array(new ArrayBuffer(byteBuffer));
             SerializeObject result = new JavaSerializeObject();
             result.put(FileStorageFeature.RESULT_BUFFER, array);
@@ -310,6 +327,7 @@ public class FileStorage {
     }
 
     public Response rmDir(IResourceFactory resourceFactory, String internalUri, boolean recursive) {
+        mChannelCache.clear();
         Resource resource = resourceFactory.create(internalUri);
         if (resource == null) {
             return new Response(Response.CODE_IO_ERROR, "Fail to get resource by " + internalUri);
@@ -7,6 +7,7 @@ package org.hapjs.features.websocket;
 
 import android.util.Log;
 import com.eclipsesource.v8.utils.typedarrays.ArrayBuffer;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -177,13 +178,24 @@ public class SocketTask implements InstanceManager.IInstance {
     private void onSocketMessage(ByteString byteString) {
         Request request = mRequestMap.get(WebSocket.EVENT_MESSAGE);
         if (request != null) {
-            byte[] bytes = byteString != null ? byteString.toByteArray() : new byte[0];
             SerializeObject serializeObject = new JavaSerializeObject();
-            serializeObject.put(WebSocket.RESULT_DATA, new ArrayBuffer(bytes));
+            serializeObject.put(WebSocket.RESULT_DATA, toArrayBuffer(byteString));
             request.getCallback().callback(new Response(serializeObject));
         }
     }
 
+    /**
+     * Copy the frame into a direct buffer once, which is handed to js as is.
+     */
+    static ArrayBuffer toArrayBuffer(ByteString byteString) {
+        int size = byteString != null ? byteString.size() : 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        if (size > 0) {
+            buffer.put(byteString.asByteBuffer());
+        }
+        return new ArrayBuffer(buffer);
+    }
+
     private void onSocketClose(int code, String reason, boolean wasClean) {
         Request request = mRequestMap.get(WebSocket.EVENT_CLOSE);
         if (request != null) {
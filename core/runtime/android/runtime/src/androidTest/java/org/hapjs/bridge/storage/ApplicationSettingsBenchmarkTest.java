@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.bridge.storage;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import org.hapjs.bridge.ApplicationContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measure reads and writes of {@link ApplicationSettings} compared with querying and writing the
+ * database for each of them, as the settings did before values were kept in memory. Results are
+ * printed to logcat with tag "SettingsBenchmark".
+ */
+@RunWith(AndroidJUnit4.class)
+public class ApplicationSettingsBenchmarkTest {
+    private static final String TAG = "SettingsBenchmark";
+    private static final String APP = "com.example.benchmark";
+    private static final int KEYS = 20;
+    private static final int ITERATIONS = 50;
+
+    private ApplicationContext mApplicationContext;
+    private ApplicationSettingsDatabaseHelper mDbHelper;
+    private ApplicationSettings mSettings;
+
+    @Before
+    public void setup() {
+        mApplicationContext =
+                new ApplicationContext(InstrumentationRegistry.getTargetContext(), APP);
+        mDbHelper = new ApplicationSettingsDatabaseHelper(mApplicationContext);
+        mDbHelper.getWritableDatabase()
+                .delete(ApplicationSettingsDatabaseHelper.TABLE_SETTINGS, null, null);
+        mSettings = ApplicationSettings.getInstance(mApplicationContext);
+    }
+
+    @After
+    public void tearDown() {
+        mSettings.close();
+        mDbHelper.close();
+    }
+
+    @Test
+    public void compareReads() {
+        for (int i = 0; i < KEYS; i++) {
+            mSettings.putString(key(i), "value" + i);
+        }
+        ApplicationSettings.flushAll();
+        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals("value" + i, queryValue(db, key(i)));
+            assertEquals("value" + i, mSettings.getString(key(i), null));
+        }
+
+        long start = System.nanoTime();
+        for (int n = 0; n < ITERATIONS; n++) {
+            for (int i = 0; i < KEYS; i++) {
+                queryValue(db, key(i));
+            }
+        }
+        long queryNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int n = 0; n < ITERATIONS; n++) {
+            // the version is checked on the first read after resumed
+            ApplicationSettings.checkChangesAll();
+            for (int i = 0; i < KEYS; i++) {
+                mSettings.getString(key(i), null);
+            }
+        }
+        long memoryNanos = System.nanoTime() - start;
+
+        int reads = ITERATIONS * KEYS;
+        Log.i(TAG, "query per read: " + queryNanos / reads + " ns/read, memory: "
+                + memoryNanos / reads + " ns/read");
+    }
+
+    @Test
+    public void compareWrites() {
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        long start = System.nanoTime();
+        for (int n = 0; n < ITERATIONS; n++) {
+            for (int i = 0; i < KEYS; i++) {
+                ContentValues values = new ContentValues();
+                values.put(ApplicationSettingsDatabaseHelper.SettingsColumns.NAME, key(i));
+                values.put(ApplicationSettingsDatabaseHelper.SettingsColumns.VALUE, "v" + n);
+                db.insertWithOnConflict(ApplicationSettingsDatabaseHelper.TABLE_SETTINGS,
+                        null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+        }
+        long insertNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int n = 0; n < ITERATIONS; n++) {
+            for (int i = 0; i < KEYS; i++) {
+                mSettings.putString(key(i), "v" + n);
+            }
+            // a batch is flushed when the app is paused
+            ApplicationSettings.flushAll();
+        }
+        long batchNanos = System.nanoTime() - start;
+        assertEquals("v" + (ITERATIONS - 1), queryValue(db, key(0)));
+
+        int writes = ITERATIONS * KEYS;
+        Log.i(TAG, "insert per write: " + insertNanos / writes + " ns/write, batched: "
+                + batchNanos / writes + " ns/write");
+    }
+
+    private static String key(int index) {
+        return "key" + index;
+    }
+
+    private static String queryValue(SQLiteDatabase db, String name) {
+        Cursor cursor =
+                db.query(
+                        ApplicationSettingsDatabaseHelper.TABLE_SETTINGS,
+                        new String[] {ApplicationSettingsDatabaseHelper.SettingsColumns.VALUE},
+                        ApplicationSettingsDatabaseHelper.SettingsColumns.NAME + "=?",
+                        new String[] {name},
+                        null,
+                        null,
+                        null);
+        try {
+            return cursor != null && cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.common.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Debug;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measure the peak memory of decoded images while navigating a deep page stack, with hidden images
+ * evicted by {@link ImageMemoryTracker} compared with all images kept. Decoded images are real
+ * bitmaps, evicting one recycles it the way the bitmap memory cache releases it. Results are
+ * printed to logcat with tag "ImageMemoryBenchmark".
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImageMemoryBenchmarkTest {
+    private static final String TAG = "ImageMemoryBenchmark";
+    private static final String PKG = "org.hapjs.benchmark";
+    private static final int PAGES = 8;
+    private static final int IMAGES_PER_PAGE = 10;
+    private static final int IMAGE_SIZE = 400;
+    private static final long IMAGE_BYTES = (long) IMAGE_SIZE * IMAGE_SIZE * 4;
+    private static final long BUDGET = 16 * 1024 * 1024;
+
+    @Test
+    public void compareEvictedAndKept() {
+        long keptPeak = navigate(false);
+        long evictedPeak = navigate(true);
+        Log.i(TAG, "kept: peak " + keptPeak / 1024 + " KB, evicted: peak "
+                + evictedPeak / 1024 + " KB");
+        assertTrue(evictedPeak < keptPeak);
+    }
+
+    private long navigate(boolean evict) {
+        Map<Uri, Bitmap> bitmaps = new HashMap<>();
+        ImageMemoryTracker tracker =
+                new ImageMemoryTracker(
+                        uri -> {
+                            Bitmap bitmap = bitmaps.remove(uri);
+                            if (bitmap != null) {
+                                bitmap.recycle();
+                            }
+                        });
+        if (evict) {
+            tracker.setBudget(BUDGET);
+        }
+        Object[][] views = new Object[PAGES][IMAGES_PER_PAGE];
+        long base = usedMemory();
+        long peak = 0;
+        try {
+            for (int page = 0; page < PAGES; page++) {
+                // 打开新页面时, 前一个页面的视图被移除
+                if (page > 0) {
+                    for (Object view : views[page - 1]) {
+                        tracker.onDetach(view);
+                    }
+                }
+                for (int i = 0; i < IMAGES_PER_PAGE; i++) {
+                    Uri uri = Uri.parse("file:///benchmark/" + page + "/" + i + ".png");
+                    bitmaps.put(uri,
+                            Bitmap.createBitmap(IMAGE_SIZE, IMAGE_SIZE, Bitmap.Config.ARGB_8888));
+                    views[page][i] = new Object();
+                    tracker.onImageSet(views[page][i], PKG, page, uri, IMAGE_BYTES);
+                    peak = Math.max(peak, usedMemory() - base);
+                }
+                assertEquals(IMAGE_BYTES * IMAGES_PER_PAGE, tracker.getPageBytes(PKG, page));
+            }
+            if (evict) {
+                assertTrue(tracker.getAppBytes(PKG) <= BUDGET);
+            } else {
+                assertEquals(IMAGE_BYTES * IMAGES_PER_PAGE * PAGES, tracker.getAppBytes(PKG));
+            }
+            return peak;
+        } finally {
+            for (Bitmap bitmap : bitmaps.values()) {
+                bitmap.recycle();
+            }
+        }
+    }
+
+    // bitmap pixels are in java heap before android 8.0 and in native heap since
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return Debug.getNativeHeapAllocatedSize() + runtime.totalMemory() - runtime.freeMemory();
+    }
+}
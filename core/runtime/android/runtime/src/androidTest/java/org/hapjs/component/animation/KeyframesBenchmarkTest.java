@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.component.animation;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import org.json.JSONArray;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measure parsing keyframes for every animation start, as AnimationParser did, compared with the
+ * cached {@link CompiledKeyframes}. Results are printed to logcat with tag
+ * "KeyframesBenchmarkTest".
+ */
+@RunWith(AndroidJUnit4.class)
+public class KeyframesBenchmarkTest {
+    private static final String TAG = "KeyframesBenchmarkTest";
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 2000;
+
+    // the same form as keyframes sent by js framework, e.g. a spinner
+    private static final String KEYFRAMES =
+            "[{\"time\":0,\"opacity\":\"1\",\"transform\":{\"rotate\":\"0deg\","
+                    + "\"scaleX\":\"1\",\"scaleY\":\"1\",\"translateX\":\"0px\"},"
+                    + "\"transformOrigin\":\"50% 50%\"},"
+                    + "{\"time\":50,\"opacity\":\"0.5\",\"transform\":{\"rotate\":\"180deg\","
+                    + "\"scaleX\":\"1.2\",\"scaleY\":\"1.2\",\"translateX\":\"20px\"},"
+                    + "\"transformOrigin\":\"50% 50%\"},"
+                    + "{\"time\":100,\"opacity\":\"1\",\"transform\":{\"rotate\":\"360deg\","
+                    + "\"scaleX\":\"1\",\"scaleY\":\"1\",\"translateX\":\"0px\"},"
+                    + "\"transformOrigin\":\"50% 50%\"}]";
+
+    @Test
+    public void compareParsedAndCached() throws Exception {
+        CompiledKeyframes cached = CompiledKeyframes.get(KEYFRAMES);
+        assertSame(cached, CompiledKeyframes.get(KEYFRAMES));
+        assertTrue(cached.transformOnly);
+
+        long parseNanos = measure(false);
+        long cachedNanos = measure(true);
+        Log.i(TAG, "parse: " + parseNanos + " ns/op, cached: " + cachedNanos + " ns/op");
+        assertTrue(cachedNanos < parseNanos);
+    }
+
+    private long measure(boolean cached) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            assertNotNull(run(cached));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertNotNull(run(cached));
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private CompiledKeyframes run(boolean cached) throws Exception {
+        return cached
+                ? CompiledKeyframes.get(KEYFRAMES)
+                : CompiledKeyframes.compile(new JSONArray(KEYFRAMES));
+    }
+}
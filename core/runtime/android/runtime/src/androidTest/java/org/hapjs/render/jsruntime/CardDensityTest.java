@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.jsruntime;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measure the cost of showing many cards at the same time, with card runtimes sharing one thread
+ * compared to one thread per card. Results are printed to logcat with tag "CardDensityTest".
+ */
+@RunWith(AndroidJUnit4.class)
+public class CardDensityTest {
+    private static final String TAG = "CardDensityTest";
+    private static final int CARD_COUNT = 20;
+    private static final long INIT_TIMEOUT = 10_000;
+
+    @Test
+    public void compareSharedAndDedicatedThreads() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        Result dedicated = measure(context, false);
+        Result shared = measure(context, true);
+        Log.i(TAG, "dedicated: " + dedicated);
+        Log.i(TAG, "shared: " + shared);
+        assertTrue(shared.threads < dedicated.threads);
+    }
+
+    private Result measure(Context context, boolean shared) throws Exception {
+        Runtime.getRuntime().gc();
+        int threadsBefore = Thread.activeCount();
+        long nativeBefore = Debug.getNativeHeapAllocatedSize();
+        long start = System.nanoTime();
+
+        List<JsThread> threads = new ArrayList<>(CARD_COUNT);
+        for (int i = 0; i < CARD_COUNT; ++i) {
+            JsThread thread =
+                    shared
+                            ? JsThreadFactory.getInstance()
+                                    .create(context, "com.example.card" + i, true)
+                            : new JsThread(context);
+            threads.add(thread);
+        }
+        awaitInit(threads);
+
+        Result result = new Result();
+        result.initMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        result.threads = Thread.activeCount() - threadsBefore;
+        result.nativeHeapKb = (Debug.getNativeHeapAllocatedSize() - nativeBefore) / 1024;
+
+        for (JsThread thread : threads) {
+            thread.shutdown(0);
+        }
+        return result;
+    }
+
+    private void awaitInit(List<JsThread> threads) throws InterruptedException {
+        // MSG_INIT is the first message of each runtime, so a later message runs after it
+        CountDownLatch latch = new CountDownLatch(threads.size());
+        for (JsThread thread : threads) {
+            thread.getHandler().post(latch::countDown);
+        }
+        assertTrue(latch.await(INIT_TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    private static class Result {
+        long initMillis;
+        int threads;
+        long nativeHeapKb;
+
+        @Override
+        public String toString() {
+            return "cards="
+                    + CARD_COUNT
+                    + ", init="
+                    + initMillis
+                    + "ms, threads="
+                    + threads
+                    + ", nativeHeap="
+                    + nativeHeapKb
+                    + "KB";
+        }
+    }
+}
@@ -40,6 +40,13 @@ public abstract class ExtensionBridge {
 
     protected AbstractExtension createExtension(
             ClassLoader classLoader, ExtensionMetaData extensionMetaData) {
+        if (classLoader == ExtensionBridge.class.getClassLoader()) {
+            AbstractExtension extension =
+                    MetaDataSet.getInstance().createExtension(extensionMetaData.getModule());
+            if (extension != null) {
+                return extension;
+            }
+        }
         try {
             @SuppressWarnings("unchecked")
             Class<AbstractExtension> hfc =
@@ -17,6 +17,7 @@ import org.hapjs.bridge.permission.HapPermissionManager;
 import org.hapjs.bridge.permission.PermissionCallback;
 import org.hapjs.common.executors.Executor;
 import org.hapjs.common.executors.Executors;
+import org.hapjs.logging.MetricsRegistry;
 import org.hapjs.logging.RuntimeLogManager;
 import org.hapjs.model.AppInfo;
 import org.hapjs.model.CardInfo;
@@ -44,6 +45,8 @@ public class ExtensionManager {
      * callback would be set as -1 when unset event
      */
     private static final String UNSET_JS_CALLBACK = "-1";
+    private static final MetricsRegistry.Timer INVOKE_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_BRIDGE_INVOKE);
     protected Context mContext;
     protected FeatureBridge mFeatureBridge;
     protected ModuleBridge mModuleBridge;
@@ -157,7 +160,12 @@ public class ExtensionManager {
         RuntimeLogManager.getDefault()
                 .logFeatureInvoke(mHybridManager.getApplicationContext().getPackage(), name,
                         action);
-        return onInvoke(name, action, rawParams, jsCallback, instanceId, null);
+        long start = MetricsRegistry.start();
+        try {
+            return onInvoke(name, action, rawParams, jsCallback, instanceId, null);
+        } finally {
+            INVOKE_TIMER.stop(start);
+        }
     }
 
     public Response invokeWithCallback(
@@ -225,6 +233,7 @@ public class ExtensionManager {
                 request.setCallback(callback);
             }
             Executor executor = f.getExecutor(request);
+            // 接口调用可能长时间阻塞在网络或对话框上, 不放入有界的 priority 线程池
             executor = executor == null ? Executors.io() : executor;
             new AsyncInvocation(f, request, executor).execute();
             if (mode == AbstractExtension.Mode.ASYNC) {
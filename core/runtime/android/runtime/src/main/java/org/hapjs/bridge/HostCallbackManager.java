@@ -7,7 +7,11 @@ package org.hapjs.bridge;
 
 import android.util.Log;
 import android.util.SparseArray;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -15,18 +19,31 @@ import org.hapjs.bridge.HostConnectionMessageCache.HostMessage;
 import org.hapjs.bridge.HostConnectionMessageCache.JsMessage;
 import org.hapjs.bridge.HostConnectionMessageCache.Message;
 import org.hapjs.card.api.CardLifecycleCallback;
+import org.hapjs.card.api.CardMessageBatchCallback;
 import org.hapjs.card.api.CardMessageCallback;
 import org.hapjs.common.executors.Executors;
 
+/**
+ * Routes messages between the host and the cards.
+ *
+ * <p>Each {@link HybridManager} has its own entity, looked up without a lock, so messages of
+ * different cards never contend. Messages cached before the receiver is registered are kept by
+ * the entity as well. Messages of a card are delivered in order by an {@link Outbox} of each
+ * direction, all the messages posted before the outbox is drained are delivered in one task, and
+ * to a {@link CardMessageBatchCallback} with one call. Entities are removed when the
+ * {@link HybridManager} is destroyed, and messages sent for a destroyed {@link HybridManager}
+ * afterwards are dropped instead of creating the entity again.
+ */
 public class HostCallbackManager {
     public static final String ACTION_REGISTER_CALLBACK = "__onregistercallback";
     private static final String TAG = "HostCallbackManager";
-    private WeakHashMap<HybridManager, HostEntity> mCallbacks = new WeakHashMap<>();
+    private final ConcurrentHashMap<HybridManager, HostEntity> mCallbacks =
+            new ConcurrentHashMap<>();
     private ConcurrentHashMap<Integer, CardLifecycleCallback> mLifecycleCallbacks =
             new ConcurrentHashMap<>();
-
-    private HostConnectionMessageCache mHostMessageCache = new HostConnectionMessageCache();
-    private HostConnectionMessageCache mJsMessageCache = new HostConnectionMessageCache();
+    // guarded by itself, entities of these managers are never created again
+    private final Set<HybridManager> mDestroyedManagers =
+            Collections.newSetFromMap(new WeakHashMap<>());
 
     private HostCallbackManager() {
     }
@@ -35,136 +52,142 @@ public class HostCallbackManager {
         return HostCallbackManagerHolder.INSTANCE;
     }
 
-    public synchronized void addHostCallback(HybridManager manager, CardMessageCallback callback) {
-        HostEntity entity;
-        if (mCallbacks.containsKey(manager)) {
-            entity = mCallbacks.get(manager);
-        } else {
-            entity = new HostEntity();
-            mCallbacks.put(manager, entity);
+    public void addHostCallback(HybridManager manager, CardMessageCallback callback) {
+        HostEntity entity = getOrCreateEntity(manager);
+        if (entity == null) {
+            Log.w(TAG, "addHostCallback after destroyed");
+            return;
         }
-        if (entity != null) {
+        synchronized (entity) {
+            if (entity.destroyed) {
+                return;
+            }
             entity.mHostCallback = callback;
             entity.counter = new AtomicInteger(1);
             entity.array = new SparseArray<>();
-        } else {
-            Log.w(TAG, "addHostCallback: entity is null");
-        }
-
-        List<Message> pendingMessages = mHostMessageCache.retriveMessage(manager);
-        if (pendingMessages != null) {
-            for (Message message : pendingMessages) {
-                doHostCallback(manager, message.content, ((HostMessage) message).callback);
+            List<Message> pendingMessages = entity.hostMessageCache.retriveMessage();
+            if (pendingMessages != null) {
+                for (Message message : pendingMessages) {
+                    postHostMessage(entity, message.content, ((HostMessage) message).callback);
+                }
             }
         }
     }
 
-    public synchronized void removeHostCallback(HybridManager manager) {
-        if (mCallbacks.containsKey(manager)) {
-            HostEntity hostEntity = mCallbacks.get(manager);
-            if (hostEntity != null) {
-                hostEntity.mHostCallback = null;
-            } else {
-                Log.w(TAG, "removeHostCallback: hostEntity is null");
+    public void removeHostCallback(HybridManager manager) {
+        HostEntity entity = getEntity(manager);
+        if (entity != null) {
+            synchronized (entity) {
+                entity.mHostCallback = null;
+                entity.hostMessageCache.clear();
             }
         }
-
-        mHostMessageCache.retriveMessage(manager);
-    }
-
-    public synchronized void removeCallback(HybridManager manager) {
-        mCallbacks.remove(manager);
-        mHostMessageCache.retriveMessage(manager);
-        mJsMessageCache.retriveMessage(manager);
     }
 
-    public synchronized void addJsCallback(
-            HybridManager manager, CallbackContextHolder jsCallbackHolder) {
+    public void removeCallback(HybridManager manager) {
         HostEntity entity;
-        if (!mCallbacks.containsKey(manager)) {
-            entity = new HostEntity();
-            mCallbacks.put(manager, entity);
-        } else {
-            entity = mCallbacks.get(manager);
+        synchronized (mDestroyedManagers) {
+            mDestroyedManagers.add(manager);
+            entity = mCallbacks.remove(manager);
         }
         if (entity != null) {
-            entity.jsCallbackHolder = jsCallbackHolder;
-        } else {
-            Log.w(TAG, "addJsCallback: entity is null");
+            synchronized (entity) {
+                entity.destroyed = true;
+                entity.hostMessageCache.clear();
+                entity.jsMessageCache.clear();
+            }
         }
+    }
 
-        List<Message> pendingMessages = mJsMessageCache.retriveMessage(manager);
-        if (pendingMessages != null) {
-            for (Message message : pendingMessages) {
-                doJsCallback(manager, ((JsMessage) message).code, message.content);
+    public void addJsCallback(HybridManager manager, CallbackContextHolder jsCallbackHolder) {
+        HostEntity entity = getOrCreateEntity(manager);
+        if (entity == null) {
+            Log.w(TAG, "addJsCallback after destroyed");
+            return;
+        }
+        synchronized (entity) {
+            if (entity.destroyed) {
+                return;
+            }
+            entity.jsCallbackHolder = jsCallbackHolder;
+            List<Message> pendingMessages = entity.jsMessageCache.retriveMessage();
+            if (pendingMessages != null) {
+                for (Message message : pendingMessages) {
+                    postJsMessage(entity, message.content);
+                }
             }
         }
     }
 
-    public synchronized void removeJsCallback(HybridManager manager) {
-        if (mCallbacks.containsKey(manager)) {
-            HostEntity hostEntity = mCallbacks.get(manager);
-            if (hostEntity != null) {
-                hostEntity.jsCallbackHolder = null;
-            } else {
-                Log.w(TAG, "removeJsCallback: hostEntity is null");
+    public void removeJsCallback(HybridManager manager) {
+        HostEntity entity = getEntity(manager);
+        if (entity != null) {
+            synchronized (entity) {
+                entity.jsCallbackHolder = null;
+                entity.jsMessageCache.clear();
             }
         }
-
-        mJsMessageCache.retriveMessage(manager);
     }
 
-    public synchronized void clearAll() {
+    public void clearAll() {
         mCallbacks.clear();
-        mHostMessageCache.clear();
-        mJsMessageCache.clear();
     }
 
-    public synchronized void doHostCallback(
-            HybridManager manager, String content, Callback jsCallback) {
-        HostEntity entity = mCallbacks.get(manager);
-        if (entity == null || entity.mHostCallback == null) {
-            mHostMessageCache.addMessage(manager, new HostMessage(content, jsCallback));
-            Log.d(TAG, "cache host message");
+    public void doHostCallback(HybridManager manager, String content, Callback jsCallback) {
+        HostEntity entity = getOrCreateEntity(manager);
+        if (entity == null) {
+            Log.w(TAG, "drop host message after destroyed");
             return;
         }
-        CardMessageCallback callback = entity.mHostCallback;
-        int code = entity.counter.getAndIncrement();
-        SparseArray<Callback> array = entity.array;
-        array.put(code, jsCallback);
-        Executors.io().execute(() -> callback.onMessage(code, content));
+        synchronized (entity) {
+            if (entity.destroyed) {
+                Log.w(TAG, "drop host message after destroyed");
+                return;
+            }
+            if (entity.mHostCallback == null) {
+                entity.hostMessageCache.addMessage(new HostMessage(content, jsCallback));
+                Log.d(TAG, "cache host message");
+                return;
+            }
+            postHostMessage(entity, content, jsCallback);
+        }
     }
 
-    public synchronized void doJsCallback(HybridManager manager, int code, String data) {
-        HostEntity entity = mCallbacks.get(manager);
-        if (entity == null) {
-            if (code == 0) {
-                mJsMessageCache.addMessage(manager, new JsMessage(code, data));
-                Log.d(TAG, "cache js message");
-            } else {
-                Log.w(TAG, "no js callback for code=" + code);
+    public void doJsCallback(HybridManager manager, int code, String data) {
+        if (code == 0) {
+            HostEntity entity = getOrCreateEntity(manager);
+            if (entity == null) {
+                Log.w(TAG, "drop js message after destroyed");
+                return;
+            }
+            synchronized (entity) {
+                if (entity.destroyed) {
+                    Log.w(TAG, "drop js message after destroyed");
+                    return;
+                }
+                if (entity.jsCallbackHolder == null) {
+                    entity.jsMessageCache.addMessage(new JsMessage(code, data));
+                    Log.d(TAG, "cache js message");
+                    return;
+                }
+                postJsMessage(entity, data);
             }
             return;
         }
-        if (code == 0) {
-            CallbackContextHolder jsCallbackHolder = entity.jsCallbackHolder;
-            if (jsCallbackHolder != null) {
-                Executors.io()
-                        .execute(() -> jsCallbackHolder
-                                .runCallbackContext(ACTION_REGISTER_CALLBACK, 0, data));
-            } else {
-                mJsMessageCache.addMessage(manager, new JsMessage(code, data));
-                Log.d(TAG, "cache js message");
-            }
-        } else {
-            if (entity.array != null) {
-                Callback callback = entity.array.get(code);
-                if (callback != null) {
-                    callback.callback(new Response(data));
+
+        HostEntity entity = getEntity(manager);
+        Callback callback = null;
+        if (entity != null) {
+            synchronized (entity) {
+                if (entity.array != null) {
+                    callback = entity.array.get(code);
                     entity.array.remove(code);
-                    return;
                 }
             }
+        }
+        if (callback != null) {
+            callback.callback(new Response(data));
+        } else {
             Log.w(TAG, "no js callback for code=" + code);
         }
     }
@@ -209,14 +232,154 @@ public class HostCallbackManager {
         }
     }
 
+    private HostEntity getEntity(HybridManager manager) {
+        return mCallbacks.get(manager);
+    }
+
+    /**
+     * @return the entity of manager, or null if the manager is destroyed
+     */
+    private HostEntity getOrCreateEntity(HybridManager manager) {
+        HostEntity entity = mCallbacks.get(manager);
+        if (entity != null) {
+            return entity;
+        }
+        // 与 removeCallback 互斥, 避免销毁后又创建
+        synchronized (mDestroyedManagers) {
+            if (mDestroyedManagers.contains(manager)) {
+                return null;
+            }
+            HostEntity newEntity = new HostEntity();
+            entity = mCallbacks.putIfAbsent(manager, newEntity);
+            return entity == null ? newEntity : entity;
+        }
+    }
+
+    // must be called with the lock of entity held
+    private void postHostMessage(HostEntity entity, String content, Callback jsCallback) {
+        CardMessageCallback callback = entity.mHostCallback;
+        int code = entity.counter.getAndIncrement();
+        entity.array.put(code, jsCallback);
+        entity.hostOutbox.post(new HostDelivery(callback, code, content));
+    }
+
+    // must be called with the lock of entity held
+    private void postJsMessage(HostEntity entity, String data) {
+        CallbackContextHolder jsCallbackHolder = entity.jsCallbackHolder;
+        entity.jsOutbox.post(
+                () -> jsCallbackHolder.runCallbackContext(ACTION_REGISTER_CALLBACK, 0, data));
+    }
+
+    private static void deliverToHost(List<HostDelivery> batch) {
+        int start = 0;
+        while (start < batch.size()) {
+            // messages posted to the same callback are delivered together
+            CardMessageCallback callback = batch.get(start).callback;
+            int end = start + 1;
+            while (end < batch.size() && batch.get(end).callback == callback) {
+                end++;
+            }
+            try {
+                if (callback instanceof CardMessageBatchCallback && end - start > 1) {
+                    int[] codes = new int[end - start];
+                    String[] data = new String[end - start];
+                    for (int i = start; i < end; i++) {
+                        codes[i - start] = batch.get(i).code;
+                        data[i - start] = batch.get(i).content;
+                    }
+                    ((CardMessageBatchCallback) callback).onMessages(codes, data);
+                } else {
+                    for (int i = start; i < end; i++) {
+                        callback.onMessage(batch.get(i).code, batch.get(i).content);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "failed to deliver message", e);
+            }
+            start = end;
+        }
+    }
+
+    private static void deliverToJs(List<Runnable> batch) {
+        for (Runnable delivery : batch) {
+            try {
+                delivery.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "failed to deliver message", e);
+            }
+        }
+    }
+
     private static class HostCallbackManagerHolder {
         private static final HostCallbackManager INSTANCE = new HostCallbackManager();
     }
 
     private static class HostEntity {
+        final Outbox<HostDelivery> hostOutbox = new Outbox<>(HostCallbackManager::deliverToHost);
+        final Outbox<Runnable> jsOutbox = new Outbox<>(HostCallbackManager::deliverToJs);
+        final HostConnectionMessageCache hostMessageCache = new HostConnectionMessageCache();
+        final HostConnectionMessageCache jsMessageCache = new HostConnectionMessageCache();
         CardMessageCallback mHostCallback;
         AtomicInteger counter;
         SparseArray<Callback> array;
         CallbackContextHolder jsCallbackHolder;
+        // guarded by this, set when the manager is destroyed
+        boolean destroyed;
+    }
+
+    private static class HostDelivery {
+        final CardMessageCallback callback;
+        final int code;
+        final String content;
+
+        HostDelivery(CardMessageCallback callback, int code, String content) {
+            this.callback = callback;
+            this.code = code;
+            this.content = content;
+        }
+    }
+
+    private interface Deliverer<T> {
+        void deliver(List<T> batch);
+    }
+
+    /**
+     * Delivers the posted messages in order, the messages posted while a delivery is pending are
+     * delivered in the same task.
+     */
+    private static class Outbox<T> {
+        private final ArrayDeque<T> mPending = new ArrayDeque<>();
+        private final Deliverer<T> mDeliverer;
+        private boolean mDraining;
+
+        Outbox(Deliverer<T> deliverer) {
+            mDeliverer = deliverer;
+        }
+
+        void post(T message) {
+            synchronized (mPending) {
+                mPending.add(message);
+                if (mDraining) {
+                    return;
+                }
+                mDraining = true;
+            }
+            Executors.io().execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                List<T> batch;
+                synchronized (mPending) {
+                    if (mPending.isEmpty()) {
+                        mDraining = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(mPending);
+                    mPending.clear();
+                }
+                mDeliverer.deliver(batch);
+            }
+        }
     }
 }
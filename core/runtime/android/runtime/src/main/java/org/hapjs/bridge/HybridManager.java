@@ -19,6 +19,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import org.hapjs.bridge.storage.ApplicationSettings;
 import org.hapjs.common.resident.ResidentManager;
 import org.hapjs.debug.DebugUtils;
 import org.hapjs.model.CardInfo;
@@ -197,6 +198,8 @@ public class HybridManager implements HybridView.OnVisibilityChangedListener {
             return;
         }
 
+        // 在后台期间其他进程可能修改过 settings
+        ApplicationSettings.checkChangesAll();
         for (LifecycleListener listener : mListeners) {
             listener.onResume();
         }
@@ -213,6 +216,7 @@ public class HybridManager implements HybridView.OnVisibilityChangedListener {
             listener.onPause();
         }
         mResumed = false;
+        ApplicationSettings.flushAll();
     }
 
     public void onStop() {
@@ -231,6 +235,7 @@ public class HybridManager implements HybridView.OnVisibilityChangedListener {
         for (LifecycleListener listener : mListeners) {
             listener.onDestroy();
         }
+        HostCallbackManager.getInstance().removeCallback(this);
     }
 
     public void onActivityResult(int requestCode, int resultCode, Intent data) {
@@ -5,10 +5,15 @@
 
 package org.hapjs.bridge;
 
+import android.content.Context;
 import android.util.Log;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import org.hapjs.component.Component;
+import org.hapjs.component.Container;
+import org.hapjs.component.bridge.RenderEventCallback;
+import org.hapjs.runtime.HapEngine;
 
 public abstract class MetaDataSet {
     private static final String TAG = "MetaDataSet";
@@ -66,6 +71,31 @@ public abstract class MetaDataSet {
 
     public abstract List<Widget> getWidgetList();
 
+    /**
+     * Create the extension of classname without reflection.
+     *
+     * @return the extension, or null if the class is unknown and should be created by reflection
+     */
+    public AbstractExtension createExtension(String classname) {
+        return null;
+    }
+
+    /**
+     * Create the component of classname without reflection.
+     *
+     * @return the component, or null if the class is unknown and should be created by reflection
+     */
+    public Component createComponent(
+            String classname,
+            HapEngine hapEngine,
+            Context context,
+            Container parent,
+            int ref,
+            RenderEventCallback callback,
+            Map<String, Object> savedState) {
+        return null;
+    }
+
     private static class EmptyMetaDataSet extends MetaDataSet {
         @Override
         public ExtensionMetaData getFeatureMetaData(String name) {
@@ -17,6 +17,7 @@ import org.hapjs.component.Component;
 import org.hapjs.component.ComponentCreator;
 import org.hapjs.component.Container;
 import org.hapjs.component.bridge.RenderEventCallback;
+import org.hapjs.logging.MetricsRegistry;
 import org.hapjs.runtime.HapEngine;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -28,11 +29,15 @@ public class Widget implements ComponentCreator {
     private static final String KEY_METHODS = "methods";
 
     private static final String COMPONENT_KEY_DELIMITER = "::";
+    private static final MetricsRegistry.Timer CREATE_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_COMPONENT_CREATE);
     private String name;
     private Class<? extends Component> clazz;
     private Map<String, Type> types = new HashMap<>();
     private Set<String> methods = new HashSet<>();
     private Constructor<? extends Component> constructor;
+    // 没有生成的工厂方法, 如第三方组件, 通过反射创建
+    private boolean noFactory;
 
     public Widget(String name, Class<? extends Component> clazz) {
         this.name = name;
@@ -127,11 +132,22 @@ public class Widget implements ComponentCreator {
             RenderEventCallback callback,
             Map<String, Object> componentInfo,
             Map<String, Object> savedState) {
+        long start = MetricsRegistry.start();
         try {
+            if (!noFactory) {
+                Component component = MetaDataSet.getInstance().createComponent(
+                        clazz.getName(), hapEngine, context, parent, ref, callback, savedState);
+                if (component != null) {
+                    return component;
+                }
+                noFactory = true;
+            }
             return getConstructor()
                     .newInstance(hapEngine, context, parent, ref, callback, savedState);
         } catch (Exception e) {
             throw new IllegalStateException("failed to create element", e);
+        } finally {
+            CREATE_TIMER.stop(start);
         }
     }
 
@@ -7,18 +7,54 @@ package org.hapjs.bridge.storage;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 import androidx.collection.LruCache;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.hapjs.bridge.ApplicationContext;
 import org.hapjs.bridge.provider.AbstractSettings;
+import org.hapjs.common.executors.Executors;
 import org.hapjs.common.utils.FileUtils;
 
+/**
+ * Settings of an app, all the values are loaded into memory on first access.
+ *
+ * <p>Writes are applied to memory immediately, and written to database in one transaction on a
+ * background thread about {@link #FLUSH_DELAY} ms later, together with the other writes made
+ * in the meantime. Pending writes are written synchronously on {@link #close()}, {@link
+ * #query(String[], String, String[])} and {@link #flushAll()}, which is called when the app is
+ * paused or the runtime is trimmed in background. So a write is lost only if the process is killed
+ * in the foreground within {@link #FLUSH_DELAY} ms after it.
+ *
+ * <p>The database may also be written by other processes. Triggers of the database bump a version
+ * on every change of the settings table. The version is checked on the first read after loading
+ * and after {@link #checkChangesAll()}, which is called when the app is resumed, and the values
+ * are reloaded when it differs from the one they were loaded or written at. Other reads are served
+ * from memory without querying the database, so changes made by other processes while the app is
+ * in the foreground are seen after the app is resumed again.
+ */
 public class ApplicationSettings extends AbstractSettings implements AutoCloseable {
     private static final String TAG = "ApplicationSettings";
+    private static final long FLUSH_DELAY = 100;
+    // 卡片宿主进程中同时运行多个卡片, 每个卡片各自的 settings 都保留在内存中
+    private static final int CACHE_SIZE = 8;
+    private static final String QUERY_VERSION =
+            "SELECT "
+                    + ApplicationSettingsDatabaseHelper.VersionColumns.VERSION
+                    + " FROM "
+                    + ApplicationSettingsDatabaseHelper.TABLE_VERSION;
+    private static final String[] COLUMNS =
+            new String[] {
+                    ApplicationSettingsDatabaseHelper.SettingsColumns.NAME,
+                    ApplicationSettingsDatabaseHelper.SettingsColumns.VALUE
+            };
     private static LruCache<ApplicationContext, ApplicationSettings> sCache =
-            new LruCache<ApplicationContext, ApplicationSettings>(1) {
+            new LruCache<ApplicationContext, ApplicationSettings>(CACHE_SIZE) {
                 @Override
                 protected void entryRemoved(
                         boolean evicted,
@@ -38,6 +74,15 @@ public class ApplicationSettings extends AbstractSettings implements AutoCloseab
             };
     private ApplicationSettingsDatabaseHelper mDbHelper;
     private AtomicInteger mReferenceCounter;
+    private final Object mLock = new Object();
+    private final Object mFlushLock = new Object();
+    // guarded by mLock
+    private Map<String, String> mValues;
+    private final Map<String, String> mDirtyValues = new LinkedHashMap<>();
+    private boolean mFlushScheduled;
+    private long mVersion;
+    // whether the version is checked since the values are loaded or the app is resumed
+    private boolean mVersionChecked;
 
     private ApplicationSettings(ApplicationContext context) {
         mDbHelper = new ApplicationSettingsDatabaseHelper(context);
@@ -54,7 +99,27 @@ public class ApplicationSettings extends AbstractSettings implements AutoCloseab
         return null;
     }
 
+    /**
+     * Write pending values of the opened settings synchronously.
+     */
+    public static void flushAll() {
+        for (ApplicationSettings settings : sCache.snapshot().values()) {
+            settings.flush();
+        }
+    }
+
+    /**
+     * Check the version of the opened settings again on the next read, to see the changes made by
+     * other processes.
+     */
+    public static void checkChangesAll() {
+        for (ApplicationSettings settings : sCache.snapshot().values()) {
+            settings.checkChanges();
+        }
+    }
+
     public Cursor query(String[] projection, String selection, String[] selectionArgs) {
+        flush();
         return mDbHelper
                 .getReadableDatabase()
                 .query(
@@ -69,59 +134,156 @@ public class ApplicationSettings extends AbstractSettings implements AutoCloseab
 
     @Override
     protected String getValue(String name) {
-        String[] projections =
-                new String[] {ApplicationSettingsDatabaseHelper.SettingsColumns.VALUE};
-        String selection = ApplicationSettingsDatabaseHelper.SettingsColumns.NAME + "=?";
-        String[] selectionArgs = new String[] {name};
-        Cursor cursor =
-                mDbHelper
-                        .getReadableDatabase()
-                        .query(
-                                ApplicationSettingsDatabaseHelper.TABLE_SETTINGS,
-                                projections,
-                                selection,
-                                selectionArgs,
-                                null,
-                                null,
-                                null);
-        if (cursor != null) {
-            try {
-                if (cursor.moveToNext()) {
-                    return cursor.getString(0);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "getValue: ", e);
-            } finally {
-                FileUtils.closeQuietly(cursor);
-            }
+        synchronized (mLock) {
+            ensureLoadedLocked();
+            return mValues.get(name);
         }
-        return null;
     }
 
     @Override
     protected boolean putValue(String name, String value) {
-        ContentValues values = new ContentValues();
-        values.put(ApplicationSettingsDatabaseHelper.SettingsColumns.NAME, name);
-        values.put(ApplicationSettingsDatabaseHelper.SettingsColumns.VALUE, value);
-        long id =
-                mDbHelper
-                        .getWritableDatabase()
-                        .insertWithOnConflict(
-                                ApplicationSettingsDatabaseHelper.TABLE_SETTINGS,
-                                null,
-                                values,
-                                SQLiteDatabase.CONFLICT_REPLACE);
-        return id >= 0;
+        synchronized (mLock) {
+            ensureLoadedLocked();
+            mValues.put(name, value);
+            mDirtyValues.put(name, value);
+            if (!mFlushScheduled) {
+                mFlushScheduled = true;
+                Executors.scheduled()
+                        .executeWithDelay(() -> Executors.io().execute(this::flush), FLUSH_DELAY);
+            }
+        }
+        return true;
     }
 
     @Override
     public void close() {
         int count = mReferenceCounter.decrementAndGet();
         if (count == 0) {
+            flush();
             mDbHelper.close();
         }
     }
 
+    private void checkChanges() {
+        synchronized (mLock) {
+            mVersionChecked = false;
+        }
+    }
+
+    private void ensureLoadedLocked() {
+        if (mValues != null && mVersionChecked) {
+            return;
+        }
+        long version;
+        try {
+            version = queryVersion(mDbHelper.getReadableDatabase());
+        } catch (SQLException e) {
+            Log.e(TAG, "failed to query version of settings", e);
+            if (mValues != null) {
+                return;
+            }
+            version = -1;
+        }
+        mVersionChecked = true;
+        if (mValues != null && mVersion == version) {
+            return;
+        }
+        // 先读版本再读数据, 期间其他写入只会导致下次多加载一次
+        Map<String, String> values = new HashMap<>();
+        Cursor cursor = null;
+        try {
+            cursor =
+                    mDbHelper
+                            .getReadableDatabase()
+                            .query(
+                                    ApplicationSettingsDatabaseHelper.TABLE_SETTINGS,
+                                    COLUMNS,
+                                    null,
+                                    null,
+                                    null,
+                                    null,
+                                    null);
+            while (cursor != null && cursor.moveToNext()) {
+                values.put(cursor.getString(0), cursor.getString(1));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "failed to load settings", e);
+        } finally {
+            FileUtils.closeQuietly(cursor);
+        }
+        // 尚未写入数据库的值以内存为准
+        values.putAll(mDirtyValues);
+        mValues = values;
+        mVersion = version;
+    }
+
+    private void flush() {
+        synchronized (mFlushLock) {
+            Map<String, String> batch;
+            synchronized (mLock) {
+                mFlushScheduled = false;
+                if (mDirtyValues.isEmpty()) {
+                    return;
+                }
+                batch = new LinkedHashMap<>(mDirtyValues);
+            }
+
+            long oldVersion;
+            long newVersion;
+            try {
+                SQLiteDatabase db = mDbHelper.getWritableDatabase();
+                // 独占事务, 读取的版本号与本次写入之间不会有其他写入
+                db.beginTransaction();
+                try {
+                    oldVersion = queryVersion(db);
+                    ContentValues values = new ContentValues();
+                    for (Map.Entry<String, String> entry : batch.entrySet()) {
+                        values.put(
+                                ApplicationSettingsDatabaseHelper.SettingsColumns.NAME,
+                                entry.getKey());
+                        values.put(
+                                ApplicationSettingsDatabaseHelper.SettingsColumns.VALUE,
+                                entry.getValue());
+                        db.insertWithOnConflict(
+                                ApplicationSettingsDatabaseHelper.TABLE_SETTINGS,
+                                null,
+                                values,
+                                SQLiteDatabase.CONFLICT_REPLACE);
+                    }
+                    newVersion = queryVersion(db);
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            } catch (SQLException e) {
+                // 保留未写入的值, 下次写入或 close 时重试
+                Log.e(TAG, "failed to flush settings", e);
+                return;
+            }
+
+            synchronized (mLock) {
+                for (Map.Entry<String, String> entry : batch.entrySet()) {
+                    String name = entry.getKey();
+                    if (mDirtyValues.containsKey(name)
+                            && mDirtyValues.get(name) == entry.getValue()) {
+                        mDirtyValues.remove(name);
+                    }
+                }
+                if (mVersion == oldVersion) {
+                    // 自身的写入不需要重新加载
+                    mVersion = newVersion;
+                } else {
+                    // 其他写入者在上次加载后修改过数据库
+                    mValues = null;
+                }
+            }
+        }
+    }
+
+    private static long queryVersion(SQLiteDatabase db) {
+        return DatabaseUtils.longForQuery(db, QUERY_VERSION, null);
+    }
+
     private ApplicationSettings incrementReference() {
         mReferenceCounter.incrementAndGet();
         return this;
@@ -7,13 +7,15 @@ package org.hapjs.bridge.storage;
 
 import android.database.sqlite.SQLiteDatabase;
 import android.provider.BaseColumns;
+import java.util.Locale;
 import org.hapjs.bridge.ApplicationContext;
 import org.hapjs.common.AbsSQLiteOpenHelper;
 
 public class ApplicationSettingsDatabaseHelper extends AbsSQLiteOpenHelper {
     public static final String TABLE_SETTINGS = "settings";
-    private static final String DB_NAME = "settings.db";
-    private static final int DB_VERSION = 1;
+    static final String TABLE_VERSION = "settings_version";
+    static final String DB_NAME = "settings.db";
+    private static final int DB_VERSION = 2;
     private static final String CREATE_TABLE_SETTINGS =
             "CREATE TABLE "
                     + TABLE_SETTINGS
@@ -25,6 +27,17 @@ public class ApplicationSettingsDatabaseHelper extends AbsSQLiteOpenHelper {
                     + SettingsColumns.VALUE
                     + " TEXT"
                     + ")";
+    private static final String CREATE_TABLE_VERSION =
+            "CREATE TABLE "
+                    + TABLE_VERSION
+                    + "("
+                    + VersionColumns.VERSION
+                    + " INTEGER NOT NULL"
+                    + ")";
+    private static final String INIT_VERSION =
+            "INSERT INTO " + TABLE_VERSION + "(" + VersionColumns.VERSION + ") VALUES(0)";
+    // 任何写入者 (包括其他进程和直接操作数据库的代码) 修改 settings 时都会增加版本号
+    private static final String[] VERSION_TRIGGER_EVENTS = {"INSERT", "UPDATE", "DELETE"};
 
     public ApplicationSettingsDatabaseHelper(ApplicationContext context) {
         super(context.getContext(), context.getDatabasePath(DB_NAME).getPath(), null, DB_VERSION);
@@ -33,14 +46,45 @@ public class ApplicationSettingsDatabaseHelper extends AbsSQLiteOpenHelper {
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(CREATE_TABLE_SETTINGS);
+        createVersionTable(db);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createVersionTable(db);
+        }
+    }
+
+    private void createVersionTable(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_VERSION);
+        db.execSQL(INIT_VERSION);
+        for (String event : VERSION_TRIGGER_EVENTS) {
+            db.execSQL(
+                    "CREATE TRIGGER "
+                            + TABLE_VERSION
+                            + "_"
+                            + event.toLowerCase(Locale.ROOT)
+                            + " AFTER "
+                            + event
+                            + " ON "
+                            + TABLE_SETTINGS
+                            + " BEGIN UPDATE "
+                            + TABLE_VERSION
+                            + " SET "
+                            + VersionColumns.VERSION
+                            + " = "
+                            + VersionColumns.VERSION
+                            + " + 1; END");
+        }
     }
 
     public interface SettingsColumns extends BaseColumns {
         String NAME = "name";
         String VALUE = "value";
     }
+
+    interface VersionColumns {
+        String VERSION = "version";
+    }
 }
@@ -7,6 +7,7 @@ package org.hapjs.cache;
 
 import android.content.Context;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Base64;
 import android.util.Log;
@@ -19,13 +20,19 @@ import org.hapjs.cache.utils.SignatureStore;
 import org.hapjs.common.compat.BuildPlatform;
 import org.hapjs.common.utils.FileHelper;
 import org.hapjs.common.utils.FileUtils;
+import org.hapjs.logging.MetricsRegistry;
 import org.hapjs.logging.RuntimeLogManager;
 import org.hapjs.model.AppInfo;
+import org.hapjs.render.skeleton.SkeletonDisplayList;
 import org.hapjs.runtime.HapEngine;
 import org.hapjs.runtime.ProviderManager;
 
 public class Cache {
     private static final String TAG = "Cache";
+    private static final MetricsRegistry.Timer INSTALL_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_INSTALL);
+    // changes made by other processes are noticed after this interval
+    private static final long APP_INFO_REVALIDATE_INTERVAL = 1000;
     private static FileNotFoundHandler sDefaultFileNotFoundHandler;
     private CacheStorage mCacheStorage;
     private Context mContext;
@@ -33,8 +40,10 @@ public class Cache {
     private File mResourceDir;
     private File mArchiveFile;
     private File mSignatureFile;
+    private File mManifestFile;
     private AppInfo mAppInfo;
     private long mLastManifestUpdateTime;
+    private volatile AppInfoSnapshot mAppInfoSnapshot;
 
     public Cache(CacheStorage cacheStorage, String packageName) {
         mCacheStorage = cacheStorage;
@@ -101,6 +110,15 @@ public class Cache {
     }
 
     private File getManifestFile() {
+        File manifestFile = mManifestFile;
+        if (manifestFile == null) {
+            manifestFile = resolveManifestFile();
+            mManifestFile = manifestFile;
+        }
+        return manifestFile;
+    }
+
+    private File resolveManifestFile() {
         if (BuildPlatform.isTV()) {
             File file = new File(getResourceDir(), PackageUtils.FILENAME_MANIFEST_TV);
             boolean exists = file.exists();
@@ -176,7 +194,11 @@ public class Cache {
     }
 
     public void install(PackageInstaller installer) throws CacheException {
+        long start = MetricsRegistry.start();
         installer.install(getResourceDir(), getSignatureFile());
+        INSTALL_TIMER.stop(start);
+        SkeletonDisplayList.compileAll(mContext, mPackageName);
+        clearAppInfo();
         if (installer.isSubpackage()) {
             mCacheStorage.dispatchSubpackageInstalled(
                     owner(), installer.getSubpackageInfo(), installer.getVersionCode());
@@ -197,6 +219,10 @@ public class Cache {
     }
 
     public boolean ready() {
+        AppInfoSnapshot snapshot = mAppInfoSnapshot;
+        if (snapshot != null && !snapshot.isExpired()) {
+            return snapshot.manifestLastModified > 0;
+        }
         boolean result = getManifestFile().exists();
         Log.d(TAG, "ready: " + result + ", app: " + mPackageName);
         return result;
@@ -220,19 +246,40 @@ public class Cache {
 
     public synchronized void clearAppInfo() {
         mAppInfo = null;
+        mAppInfoSnapshot = null;
+        mManifestFile = null;
     }
 
-    public synchronized AppInfo getAppInfo(boolean useCache) {
-        if (mAppInfo == null || !useCache) {
-            return getAppInfo();
+    public AppInfo getAppInfo(boolean useCache) {
+        if (!useCache) {
+            return loadAppInfo();
         }
-        return mAppInfo;
+        AppInfoSnapshot snapshot = mAppInfoSnapshot;
+        if (snapshot != null && snapshot.appInfo != null) {
+            return snapshot.appInfo;
+        }
+        return getAppInfo();
     }
 
-    public synchronized AppInfo getAppInfo() {
+    /**
+     * Return the app info of this package. The parsed manifest is kept as a snapshot, which is
+     * dropped when this package is installed or removed in this process, and revalidated against
+     * the manifest file at most once per {@link #APP_INFO_REVALIDATE_INTERVAL}.
+     */
+    public AppInfo getAppInfo() {
+        AppInfoSnapshot snapshot = mAppInfoSnapshot;
+        if (snapshot != null && !snapshot.isExpired()) {
+            return snapshot.appInfo;
+        }
+        return loadAppInfo();
+    }
+
+    private synchronized AppInfo loadAppInfo() {
+        // the platform specific manifest may come with an update from another process
+        mManifestFile = null;
         File file = getManifestFile();
-        if (file.exists()) {
-            long lastManifestUpdateTime = file.lastModified();
+        long lastManifestUpdateTime = file.lastModified();
+        if (lastManifestUpdateTime > 0) {
             if (mAppInfo == null || mLastManifestUpdateTime < lastManifestUpdateTime) {
                 AppInfo appInfo = AppInfoProviderHolder.get().fromFile(file);
                 if (appInfo != null) {
@@ -247,6 +294,7 @@ public class Cache {
                 mAppInfo = AppInfoProviderHolder.get().create(mContext, mPackageName);
             }
         }
+        mAppInfoSnapshot = new AppInfoSnapshot(mAppInfo, lastManifestUpdateTime);
         return mAppInfo;
     }
 
@@ -312,6 +360,8 @@ public class Cache {
         for (File f : files) {
             FileUtils.rmRF(f);
         }
+        SkeletonDisplayList.remove(mContext, mPackageName);
+        clearAppInfo();
         mCacheStorage.dispatchPackageRemoved(owner());
     }
 
@@ -326,6 +376,23 @@ public class Cache {
         Uri handleFileNotFound(String pkg, String resourcePath);
     }
 
+    private static class AppInfoSnapshot {
+        final AppInfo appInfo;
+        // 0 if manifest doesn't exist
+        final long manifestLastModified;
+        final long checkTime;
+
+        AppInfoSnapshot(AppInfo appInfo, long manifestLastModified) {
+            this.appInfo = appInfo;
+            this.manifestLastModified = manifestLastModified;
+            this.checkTime = SystemClock.uptimeMillis();
+        }
+
+        boolean isExpired() {
+            return SystemClock.uptimeMillis() - checkTime > APP_INFO_REVALIDATE_INTERVAL;
+        }
+    }
+
     private static class AppInfoProviderHolder {
         private static volatile AppInfoProvider sAppInfoProvider;
 
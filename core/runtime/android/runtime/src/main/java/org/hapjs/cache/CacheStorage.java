@@ -6,13 +6,14 @@
 package org.hapjs.cache;
 
 import android.content.Context;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Log;
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.hapjs.common.executors.Executors;
 import org.hapjs.logging.RuntimeLogManager;
@@ -21,15 +22,19 @@ import org.hapjs.model.SubpackageInfo;
 
 public class CacheStorage {
     private static final String TAG = "CacheStorage";
+    // changes made by other processes are noticed after this interval
+    private static final long PACKAGE_LIST_REVALIDATE_INTERVAL = 1000;
     private static volatile CacheStorage sInstance;
     private Context mContext;
     private Map<String, Cache> mCaches;
     private CacheLimitStrategy mCacheLimitStrategy;
     private CopyOnWriteArrayList<PackageListener> mPackageListeners;
+    private volatile String[] mPackageList;
+    private volatile long mPackageListCheckTime;
 
     private CacheStorage(Context context) {
         mContext = context;
-        mCaches = new HashMap<String, Cache>();
+        mCaches = new ConcurrentHashMap<>();
         mPackageListeners = new CopyOnWriteArrayList<>();
         mCacheLimitStrategy = CacheLimitStrategies.simpleCacheLimitStrategy();
     }
@@ -45,11 +50,16 @@ public class CacheStorage {
         return mContext;
     }
 
-    public synchronized Cache getCache(String pkg) {
+    public Cache getCache(String pkg) {
         Cache cache = mCaches.get(pkg);
         if (cache == null) {
-            cache = new Cache(this, pkg);
-            mCaches.put(pkg, cache);
+            synchronized (this) {
+                cache = mCaches.get(pkg);
+                if (cache == null) {
+                    cache = new Cache(this, pkg);
+                    mCaches.put(pkg, cache);
+                }
+            }
         }
         return cache;
     }
@@ -83,19 +93,32 @@ public class CacheStorage {
 
     public List<Cache> availableCaches() {
         List<Cache> caches = new ArrayList<Cache>();
-        File baseCacheDir = Cache.getResourceRootDir(mContext);
-        File[] cacheFiles = baseCacheDir.listFiles();
-        if (cacheFiles != null && cacheFiles.length > 0) {
-            for (File cacheFile : cacheFiles) {
-                Cache cache = getCache(cacheFile.getName());
-                if (cache.ready()) {
-                    caches.add(cache);
-                }
+        for (String pkg : getPackageList()) {
+            Cache cache = getCache(pkg);
+            if (cache.ready()) {
+                caches.add(cache);
             }
         }
         return caches;
     }
 
+    private String[] getPackageList() {
+        String[] packageList = mPackageList;
+        if (packageList == null
+                || SystemClock.uptimeMillis() - mPackageListCheckTime
+                > PACKAGE_LIST_REVALIDATE_INTERVAL) {
+            String[] names = Cache.getResourceRootDir(mContext).list();
+            packageList = names == null ? new String[0] : names;
+            mPackageList = packageList;
+            mPackageListCheckTime = SystemClock.uptimeMillis();
+        }
+        return packageList;
+    }
+
+    private void invalidatePackageList() {
+        mPackageList = null;
+    }
+
     protected long size() {
         long total = 0;
         for (Cache cache : availableCaches()) {
@@ -136,6 +159,7 @@ public class CacheStorage {
 
     public void dispatchPackageInstalled(
             final String pkg, final AppInfo appInfo, final boolean update) {
+        invalidatePackageList();
         if (mPackageListeners.isEmpty()) {
             return;
         }
@@ -179,6 +203,7 @@ public class CacheStorage {
     }
 
     protected void dispatchPackageRemoved(final String pkg) {
+        invalidatePackageList();
         if (mPackageListeners.isEmpty()) {
             return;
         }
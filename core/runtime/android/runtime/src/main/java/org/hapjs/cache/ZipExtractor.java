@@ -18,10 +18,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import org.hapjs.common.executors.Executors;
-import org.hapjs.common.executors.Future;
+import org.hapjs.common.executors.PriorityScheduler;
 import org.hapjs.common.utils.FileUtils;
 
 public class ZipExtractor {
@@ -52,7 +53,7 @@ public class ZipExtractor {
     public void extract(File outDir) throws IOException, CacheException {
         long unzipStart = System.currentTimeMillis();
         ZipEntry ze;
-        List<Future<Boolean>> futures = new ArrayList<>();
+        List<FutureTask<Boolean>> futures = new ArrayList<>();
         try {
             while ((ze = mStream.getNextEntry()) != null) {
                 String name = ze.getName();
@@ -77,15 +78,17 @@ public class ZipExtractor {
                     ByteArrayOutputStream out = readFile(mStream, ze.getName(), ze.getSize());
                     byte[] content = out.toByteArray();
                     SaveFileTask saveFileTask = generateSaveFileTask(content, file);
-                    Future<Boolean> future = Executors.io().submit(saveFileTask);
+                    FutureTask<Boolean> future = new FutureTask<>(saveFileTask);
+                    Executors.priority(PriorityScheduler.Priority.BULK).execute(future);
                     futures.add(future);
                     out.close();
                 }
                 mStream.closeEntry();
             }
             if (futures != null) {
-                // blocking wait all task finish
-                for (Future<Boolean> future : futures) {
+                // 未开始的任务由当前线程执行, bulk 线程都被占用时也不会一直等待
+                for (FutureTask<Boolean> future : futures) {
+                    future.run();
                     future.get();
                 }
             }
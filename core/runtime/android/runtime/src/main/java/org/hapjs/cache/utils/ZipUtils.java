@@ -28,9 +28,19 @@ import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
+import org.hapjs.common.executors.Executors;
+import org.hapjs.common.executors.PriorityScheduler;
 import org.hapjs.common.utils.FileUtils;
 
 /**
@@ -267,22 +277,29 @@ public abstract class ZipUtils {
     }
 
     public static boolean unzip(File zipFile, File targetDirectory) {
+        return unzip(zipFile, targetDirectory, null);
+    }
+
+    /**
+     * Unzip entries of zipFile into targetDirectory. Entries are extracted in parallel, each file
+     * is written to a temporary file first and renamed to its target name once completed.
+     *
+     * @param listener listener of progress and cancellation, may be null
+     */
+    public static boolean unzip(File zipFile, File targetDirectory, UnzipListener listener) {
         Log.d(TAG,
                 "unzip: " + zipFile.getAbsolutePath() + ", " + targetDirectory.getAbsolutePath());
-        InputStream is;
-        ZipInputStream zis = null;
-        FileOutputStream fos = null;
+        ZipFile zip = null;
         try {
-            String filename;
-            is = new FileInputStream(zipFile);
-            zis = new ZipInputStream(new BufferedInputStream(is));
-            ZipEntry ze;
-            byte[] buffer = new byte[1024];
-            int count;
-
-            while ((ze = zis.getNextEntry()) != null) {
-                filename = ze.getName();
-                Log.d(TAG, "unzip entry: " + filename);
+            zip = new ZipFile(zipFile);
+            String targetPath = targetDirectory.getCanonicalPath();
+            // entries may have the same name, the last one wins as if they were extracted in order
+            Map<String, ZipEntry> fileEntries = new LinkedHashMap<>();
+            long totalSize = 0;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry ze = entries.nextElement();
+                String filename = ze.getName();
 
                 // fix ZipperDown issue
                 if (!TextUtils.isEmpty(filename) && filename.contains("../")) {
@@ -290,7 +307,7 @@ public abstract class ZipUtils {
                 }
 
                 File targetFile = new File(targetDirectory, filename);
-                if (!targetFile.getCanonicalPath().startsWith(targetDirectory.getCanonicalPath())) {
+                if (!targetFile.getCanonicalPath().startsWith(targetPath)) {
                     Log.e(TAG, "seems a Zip Path Traversal attack! filename=" + filename);
                     return false;
                 }
@@ -299,28 +316,20 @@ public abstract class ZipUtils {
                     targetFile.mkdirs();
                     continue;
                 }
-
-                File targetParentFile = targetFile.getParentFile();
-                if (!targetParentFile.exists()) {
-                    targetParentFile.mkdirs();
+                ZipEntry replaced = fileEntries.put(filename, ze);
+                if (replaced != null) {
+                    totalSize -= Math.max(0, replaced.getSize());
                 }
-
-                fos = new FileOutputStream(targetFile);
-
-                while ((count = zis.read(buffer)) != -1) {
-                    fos.write(buffer, 0, count);
-                }
-                zis.closeEntry();
+                totalSize += Math.max(0, ze.getSize());
             }
+            return new UnzipTask(zip, targetDirectory, new ArrayList<>(fileEntries.values()),
+                    totalSize, listener).run();
         } catch (IOException e) {
             Log.e(TAG, "IO exception.", e);
             return false;
         } finally {
-            FileUtils.closeQuietly(fos);
-            FileUtils.closeQuietly(zis);
+            FileUtils.closeQuietly(zip);
         }
-
-        return true;
     }
 
     public static long getUncompressedSize(File zipFile) {
@@ -445,4 +454,158 @@ public abstract class ZipUtils {
             return result;
         }
     }
+
+    public interface UnzipListener {
+        /**
+         * Called on the unzipping threads, may be called concurrently.
+         */
+        void onProgress(long unzippedSize, long totalSize);
+
+        boolean isCancelled();
+    }
+
+    private static class UnzipTask {
+        private static final int BUFFER_SIZE = 64 * 1024;
+        private static final int MAX_CONCURRENCY = 4;
+        private static final int PROGRESS_STEP = 1024 * 1024;
+        private static final String TEMP_FILE_SUFFIX = ".unzipping";
+
+        private final ZipFile mZipFile;
+        private final File mTargetDirectory;
+        private final List<ZipEntry> mEntries;
+        private final long mTotalSize;
+        private final UnzipListener mListener;
+        private final AtomicInteger mNextEntry = new AtomicInteger();
+        private final AtomicLong mUnzippedSize = new AtomicLong();
+        private volatile boolean mFailed;
+        // guarded by this
+        private int mActiveHelpers;
+        private boolean mClosed;
+
+        UnzipTask(ZipFile zipFile, File targetDirectory, List<ZipEntry> entries, long totalSize,
+                  UnzipListener listener) {
+            mZipFile = zipFile;
+            mTargetDirectory = targetDirectory;
+            mEntries = entries;
+            mTotalSize = totalSize;
+            mListener = listener;
+        }
+
+        boolean run() {
+            int concurrency =
+                    Math.min(MAX_CONCURRENCY, Runtime.getRuntime().availableProcessors());
+            int helpers = Math.min(concurrency, mEntries.size()) - 1;
+            for (int i = 0; i < helpers; i++) {
+                Executors.priority(PriorityScheduler.Priority.BULK).execute(this::runHelper);
+            }
+
+            // the calling thread works as well, so the task completes even if no helper runs
+            work();
+
+            boolean interrupted = false;
+            synchronized (this) {
+                mClosed = true;
+                while (mActiveHelpers > 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return !mFailed && !isCancelled();
+        }
+
+        private void runHelper() {
+            synchronized (this) {
+                if (mClosed) {
+                    return;
+                }
+                mActiveHelpers++;
+            }
+            try {
+                work();
+            } finally {
+                synchronized (this) {
+                    mActiveHelpers--;
+                    notifyAll();
+                }
+            }
+        }
+
+        private void work() {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int index;
+            while (!mFailed
+                    && !isCancelled()
+                    && (index = mNextEntry.getAndIncrement()) < mEntries.size()) {
+                if (!extract(mEntries.get(index), index, buffer)) {
+                    mFailed = true;
+                }
+            }
+        }
+
+        private boolean extract(ZipEntry ze, int index, byte[] buffer) {
+            File targetFile = new File(mTargetDirectory, ze.getName());
+            File parentFile = targetFile.getParentFile();
+            if (!parentFile.mkdirs() && !parentFile.isDirectory()) {
+                Log.e(TAG, "failed to create dir: " + parentFile);
+                return false;
+            }
+            // the index keeps the temporary name apart from names of other entries
+            File tempFile =
+                    new File(parentFile, targetFile.getName() + "." + index + TEMP_FILE_SUFFIX);
+            InputStream input = null;
+            FileOutputStream output = null;
+            boolean success = false;
+            try {
+                input = mZipFile.getInputStream(ze);
+                output = new FileOutputStream(tempFile);
+                long pendingSize = 0;
+                int count;
+                while ((count = input.read(buffer)) != -1) {
+                    if (isCancelled()) {
+                        return false;
+                    }
+                    output.write(buffer, 0, count);
+                    pendingSize += count;
+                    if (pendingSize >= PROGRESS_STEP) {
+                        notifyProgress(pendingSize);
+                        pendingSize = 0;
+                    }
+                }
+                output.close();
+                output = null;
+                if (!tempFile.renameTo(targetFile)) {
+                    Log.e(TAG, "failed to rename to " + targetFile);
+                    return false;
+                }
+                notifyProgress(pendingSize);
+                success = true;
+                return true;
+            } catch (IOException e) {
+                Log.e(TAG, "failed to unzip entry: " + ze.getName(), e);
+                return false;
+            } finally {
+                FileUtils.closeQuietly(input, output);
+                if (!success) {
+                    tempFile.delete();
+                }
+            }
+        }
+
+        private void notifyProgress(long size) {
+            long unzippedSize = mUnzippedSize.addAndGet(size);
+            if (mListener != null) {
+                mListener.onProgress(unzippedSize, mTotalSize);
+            }
+        }
+
+        private boolean isCancelled() {
+            return mListener != null && mListener.isCancelled();
+        }
+    }
 }
@@ -16,12 +16,21 @@ public class Executors {
     private static final int MAX_POOL_SIZE_BACKGROUND = 10;
     private static final int MAX_POOL_SIZE_IO = 256 - MAX_POOL_SIZE_BACKGROUND;
     private static final int MAX_POOL_SIZE_COMPUTATION = CPU_COUNT * 2 + 1;
+    // 阻塞在 io 上的线程不占用 cpu, 在核数之外额外允许的并发数
+    private static final int IO_PARALLELISM = 4;
+    private static final int MAX_POOL_SIZE_PRIORITY = CPU_COUNT + IO_PARALLELISM;
     private static final String THREAD_NAME_IO = "[io]-";
     private static final String THREAD_NAME_COMPUTATION = "[computation]-";
     private static final String THREAD_NAME_SINGLE_THREAD = "[single]-";
     private static final String THREAD_NAME_SCHEDULED_EXECUTOR = "[scheduled-executor]-";
+    private static final String THREAD_NAME_PRIORITY = "[priority]-";
     private static final long KEEP_ALIVE_TIME = 3000L;
 
+    /**
+     * Get the unbounded executor for work that may block for long, such as feature invocations
+     * waiting for network or user dialogs. Such work would hold the threads of the bounded
+     * {@link #priority(PriorityScheduler.Priority)} pool.
+     */
     public static Executor io() {
         return IoHolder.INSTANCE;
     }
@@ -30,6 +39,13 @@ public class Executors {
         return ComputationHolder.INSTANCE;
     }
 
+    /**
+     * Get the executor of priority class, all the classes share a pool bounded by the cpu count.
+     */
+    public static Executor priority(PriorityScheduler.Priority priority) {
+        return PriorityHolder.INSTANCE.executor(priority);
+    }
+
     public static ScheduledExecutor scheduled() {
         return ScheduledExecutorHolder.INSTANCE;
     }
@@ -68,6 +84,12 @@ public class Executors {
                         new DefaultThreadFactory(THREAD_NAME_COMPUTATION));
     }
 
+    private static class PriorityHolder {
+        private static final PriorityScheduler INSTANCE =
+                new PriorityScheduler(
+                        MAX_POOL_SIZE_PRIORITY, new DefaultThreadFactory(THREAD_NAME_PRIORITY));
+    }
+
     private static class ScheduledExecutorHolder {
         private static final ScheduledExecutor INSTANCE =
                 new ScheduledExecutorImpl(
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.common.executors;
+
+import android.os.Process;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import org.hapjs.logging.MetricsRegistry;
+
+/**
+ * A bounded pool running tasks by priority class.
+ *
+ * <p>Tasks of higher class run first, tasks of the same class run in submission order. Lower
+ * classes are limited to a part of the threads, so a burst of bulk work (e.g. install) always
+ * leaves threads for the work of the visible page. A task waiting longer than
+ * {@link #STARVATION_TIMEOUT} runs before tasks of higher class, as long as its class has free
+ * threads. The queue wait time of each class is recorded in {@link MetricsRegistry}.
+ */
+public class PriorityScheduler {
+    private static final long KEEP_ALIVE_TIME = 3000L;
+    private static final long STARVATION_TIMEOUT = 1000L;
+
+    private final Object mLock = new Object();
+    private final int mMaxThreads;
+    private final int[] mClassLimits;
+    private final ArrayDeque<Task>[] mQueues;
+    private final int[] mRunning;
+    private final Executor[] mExecutors;
+    private final ThreadFactory mThreadFactory;
+    private int mThreadCount;
+    private int mIdleCount;
+
+    @SuppressWarnings("unchecked")
+    PriorityScheduler(int maxThreads, ThreadFactory threadFactory) {
+        mMaxThreads = maxThreads;
+        mThreadFactory = threadFactory;
+        Priority[] priorities = Priority.values();
+        mClassLimits = new int[priorities.length];
+        mQueues = new ArrayDeque[priorities.length];
+        mRunning = new int[priorities.length];
+        mExecutors = new Executor[priorities.length];
+        for (Priority priority : priorities) {
+            int index = priority.ordinal();
+            mClassLimits[index] = Math.max(1, maxThreads * priority.threadPercent / 100);
+            mQueues[index] = new ArrayDeque<>();
+            mExecutors[index] = new PriorityExecutor(priority);
+        }
+    }
+
+    public Executor executor(Priority priority) {
+        return mExecutors[priority.ordinal()];
+    }
+
+    private void enqueue(Task task) {
+        boolean startThread = false;
+        synchronized (mLock) {
+            mQueues[task.priority.ordinal()].add(task);
+            if (mIdleCount > 0) {
+                mLock.notifyAll();
+            } else if (mThreadCount < mMaxThreads && isRunnable(task.priority)) {
+                mThreadCount++;
+                startThread = true;
+            }
+        }
+        if (startThread) {
+            mThreadFactory.newThread(this::runWorker).start();
+        }
+    }
+
+    private void runWorker() {
+        boolean idleExit = false;
+        try {
+            idleExit = workLoop();
+        } finally {
+            if (!idleExit) {
+                // 任务抛出异常, 线程退出
+                synchronized (mLock) {
+                    mThreadCount--;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the worker exits after idle for {@link #KEEP_ALIVE_TIME}
+     */
+    private boolean workLoop() {
+        int threadPriority = Process.THREAD_PRIORITY_DEFAULT;
+        while (true) {
+            Task task;
+            synchronized (mLock) {
+                task = pollLocked();
+                long idleStart = SystemClock.uptimeMillis();
+                while (task == null) {
+                    long remaining = KEEP_ALIVE_TIME - (SystemClock.uptimeMillis() - idleStart);
+                    if (remaining <= 0) {
+                        mThreadCount--;
+                        return true;
+                    }
+                    mIdleCount++;
+                    try {
+                        mLock.wait(remaining);
+                    } catch (InterruptedException e) {
+                        // ignore, check the queue again
+                    } finally {
+                        mIdleCount--;
+                    }
+                    task = pollLocked();
+                }
+                mRunning[task.priority.ordinal()]++;
+            }
+
+            task.priority.waitTimer.stop(task.metricsStart);
+            if (threadPriority != task.priority.threadPriority) {
+                threadPriority = task.priority.threadPriority;
+                Process.setThreadPriority(threadPriority);
+            }
+            try {
+                task.runnable.run();
+            } finally {
+                synchronized (mLock) {
+                    mRunning[task.priority.ordinal()]--;
+                    // 低优先级任务结束后, 被限流的同类任务可以继续执行
+                    if (mIdleCount > 0 && task.priority.threadPercent < 100) {
+                        mLock.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    private Task pollLocked() {
+        long now = SystemClock.uptimeMillis();
+        Task starving = null;
+        for (int i = mQueues.length - 1; i > 0; i--) {
+            Task head = mQueues[i].peek();
+            if (head != null
+                    && now - head.enqueueTime > STARVATION_TIMEOUT
+                    && isRunnable(head.priority)
+                    && (starving == null || head.enqueueTime < starving.enqueueTime)) {
+                starving = head;
+            }
+        }
+        if (starving != null) {
+            return mQueues[starving.priority.ordinal()].poll();
+        }
+        for (Priority priority : Priority.values()) {
+            ArrayDeque<Task> queue = mQueues[priority.ordinal()];
+            if (!queue.isEmpty() && isRunnable(priority)) {
+                return queue.poll();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Each class may use up to its limit of threads together with all the lower classes.
+     */
+    private boolean isRunnable(Priority priority) {
+        int running = 0;
+        for (int i = mRunning.length - 1; i >= 0; i--) {
+            running += mRunning[i];
+            if (i <= priority.ordinal() && running >= mClassLimits[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public enum Priority {
+        /**
+         * Work the user is waiting for, such as loading the page being opened.
+         */
+        USER_BLOCKING(100, Process.THREAD_PRIORITY_DEFAULT, "UserBlocking"),
+        /**
+         * Work for rendering the visible page.
+         */
+        VISIBLE_RENDER(100, Process.THREAD_PRIORITY_DEFAULT, "VisibleRender"),
+        /**
+         * Work that may be used soon, such as preparing the next pages.
+         */
+        BACKGROUND(50, Process.THREAD_PRIORITY_BACKGROUND, "Background"),
+        /**
+         * Large amount of work nobody is waiting for, such as install and statistics.
+         */
+        BULK(25, Process.THREAD_PRIORITY_BACKGROUND, "Bulk");
+
+        final int threadPercent;
+        final int threadPriority;
+        final MetricsRegistry.Timer waitTimer;
+
+        Priority(int threadPercent, int threadPriority, String name) {
+            this.threadPercent = threadPercent;
+            this.threadPriority = threadPriority;
+            this.waitTimer =
+                    MetricsRegistry.get().timer(MetricsRegistry.TIMER_SCHEDULER_WAIT + name);
+        }
+    }
+
+    private static class Task {
+        final Priority priority;
+        final Runnable runnable;
+        final long enqueueTime = SystemClock.uptimeMillis();
+        final long metricsStart = MetricsRegistry.start();
+
+        Task(Priority priority, Runnable runnable) {
+            this.priority = priority;
+            this.runnable = runnable;
+        }
+    }
+
+    private class PriorityExecutor implements Executor {
+        private final Priority mPriority;
+
+        PriorityExecutor(Priority priority) {
+            mPriority = priority;
+        }
+
+        @Override
+        public void execute(@NonNull Runnable runnable) {
+            enqueue(new Task(mPriority, runnable));
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            FutureTask<T> futureTask = new FutureTask<>(task);
+            execute(futureTask);
+            return new FutureImpl<>(futureTask);
+        }
+    }
+}
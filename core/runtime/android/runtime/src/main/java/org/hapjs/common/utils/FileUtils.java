@@ -346,6 +346,33 @@ public class FileUtils {
         return byteBuffer;
     }
 
+    /**
+     * Read a range of channel into a direct buffer. The channel is read at the given position
+     * without changing its own position, so the same channel can be shared by concurrent readers.
+     */
+    public static ByteBuffer readChannelAsBuffer(FileChannel channel, long position, int length)
+            throws IOException {
+        if (position < 0 || length < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        int size = (int) Math.max(0, Math.min(length, channel.size() - position));
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(size);
+        while (byteBuffer.hasRemaining()) {
+            int byteCount = channel.read(byteBuffer, position + byteBuffer.position());
+            if (byteCount < 0) {
+                break;
+            }
+        }
+        if (byteBuffer.hasRemaining()) {
+            // file is truncated while reading
+            byteBuffer.flip();
+            ByteBuffer truncated = ByteBuffer.allocateDirect(byteBuffer.remaining());
+            truncated.put(byteBuffer);
+            return truncated;
+        }
+        return byteBuffer;
+    }
+
     public static byte[] readStreamAsBytes(InputStream input, int length, boolean autoClose)
             throws IOException {
         try {
@@ -68,12 +68,15 @@ public class FrescoUtils {
             SoLoaderHelper.initialize(context);
 
             SvgDecoderUtil.setAppContext(context);
+            BitmapMemoryCacheParamsSupplier bitmapCacheParamsSupplier =
+                    new BitmapMemoryCacheParamsSupplier(context);
+            // 页面图片预算为 bitmap 缓存的一半, 超出后先淘汰不可见页面的图片
+            ImageMemoryTracker.get().setBudget(bitmapCacheParamsSupplier.getMaxCacheSize() / 2);
             ImagePipelineConfig config =
                     ImagePipelineConfig.newBuilder(context)
                             .setImageDecoderConfig(createImageDecoderConfig())
                             .setMemoryTrimmableRegistry(new DefaultMemoryTrimmableRegistry())
-                            .setBitmapMemoryCacheParamsSupplier(
-                                    new BitmapMemoryCacheParamsSupplier(context))
+                            .setBitmapMemoryCacheParamsSupplier(bitmapCacheParamsSupplier)
                             .setNetworkFetcher(
                                     new OkHttpNetworkFetcher(HttpConfig.get().getOkHttpClient()))
                             .setDownsampleEnabled(true)
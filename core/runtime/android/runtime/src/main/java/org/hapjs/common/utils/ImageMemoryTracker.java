@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.common.utils;
+
+import android.content.ComponentCallbacks2;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+import com.facebook.drawee.backends.pipeline.Fresco;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Accounts decoded image memory by page.
+ *
+ * <p>The bitmap memory cache of fresco is shared by all the pages of the process, which may host
+ * several apps, e.g. the cards of the card host. The images of pages in back stack compete with
+ * the images of the foreground page. Each image view reports the image it shows, the app and page
+ * it belongs to and whether it's attached, images only shown by detached views (hidden pages,
+ * cards out of screen) are evicted from the bitmap memory cache first, when the decoded images
+ * exceed the budget or the system is running low on memory. Pages and cards holding more hidden
+ * images are evicted before the others. The encoded cache is kept, so an evicted image is decoded
+ * again from it when its view is attached again.
+ *
+ * <p>The sizes of all, of hidden images and of each page are kept as running totals. Records of
+ * views collected without being released are dropped silently by the weak map, so the totals may
+ * be larger than the real ones, they are recomputed whenever the records are scanned for
+ * eviction.
+ */
+public class ImageMemoryTracker {
+    private static final String TAG = "ImageMemoryTracker";
+
+    // trim 后一段时间内保持较低的预算
+    private static final long BUDGET_RESTORE_DELAY = 60 * 1000;
+
+    private final Map<Object, Record> mRecords = new WeakHashMap<>();
+    private final Map<Scope, Usage> mUsages = new HashMap<>();
+    private final Evictor mEvictor;
+    private long mBaseBudget = Long.MAX_VALUE;
+    private long mBudget = Long.MAX_VALUE;
+    private long mLastTrimTime;
+    // bytes of the images not evicted
+    private long mTotalBytes;
+    // bytes of the images not evicted and shown by detached views
+    private long mHiddenBytes;
+
+    private ImageMemoryTracker() {
+        this(new FrescoEvictor());
+    }
+
+    ImageMemoryTracker(Evictor evictor) {
+        mEvictor = evictor;
+    }
+
+    public static ImageMemoryTracker get() {
+        return Holder.INSTANCE;
+    }
+
+    synchronized void setBudget(long budget) {
+        mBaseBudget = budget;
+        mBudget = budget;
+    }
+
+    /**
+     * Called when an image is decoded and set to its view.
+     *
+     * @param owner  the view showing the image
+     * @param pkg    package of the app or card the view belongs to
+     * @param pageId id of the page the view belongs to
+     * @param uri    uri of the image
+     * @param bytes  size of the decoded image
+     */
+    public synchronized void onImageSet(Object owner, String pkg, int pageId, Uri uri,
+                                        long bytes) {
+        Record record = mRecords.get(owner);
+        if (record == null) {
+            record = new Record();
+            record.attached = true;
+            mRecords.put(owner, record);
+        } else {
+            removeBytes(record);
+        }
+        if (record.scope == null || !record.scope.matches(pkg, pageId)) {
+            record.scope = new Scope(pkg, pageId);
+        }
+        record.uri = uri;
+        record.bytes = bytes;
+        record.evicted = false;
+        addBytes(record);
+
+        if (mBudget < mBaseBudget
+                && SystemClock.uptimeMillis() - mLastTrimTime > BUDGET_RESTORE_DELAY) {
+            mBudget = mBaseBudget;
+        }
+        if (mTotalBytes > mBudget && mHiddenBytes > 0) {
+            evictHidden(mBudget);
+        }
+    }
+
+    public synchronized void onImageReleased(Object owner) {
+        Record record = mRecords.remove(owner);
+        if (record != null) {
+            removeBytes(record);
+        }
+    }
+
+    public synchronized void onAttach(Object owner) {
+        Record record = mRecords.get(owner);
+        if (record != null && !record.attached) {
+            removeBytes(record);
+            record.attached = true;
+            addBytes(record);
+        }
+    }
+
+    public synchronized void onDetach(Object owner) {
+        Record record = mRecords.get(owner);
+        if (record != null && record.attached) {
+            removeBytes(record);
+            record.attached = false;
+            addBytes(record);
+        }
+    }
+
+    /**
+     * @return bytes of the decoded images not evicted of a page
+     */
+    public synchronized long getPageBytes(String pkg, int pageId) {
+        Usage usage = mUsages.get(new Scope(pkg, pageId));
+        return usage == null ? 0 : usage.bytes;
+    }
+
+    /**
+     * @return bytes of the decoded images not evicted of all the pages of an app or card
+     */
+    public synchronized long getAppBytes(String pkg) {
+        long bytes = 0;
+        for (Map.Entry<Scope, Usage> entry : mUsages.entrySet()) {
+            if (TextUtils.equals(entry.getKey().pkg, pkg)) {
+                bytes += entry.getValue().bytes;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Lower the budget on memory pressure, and evict the images of hidden pages.
+     *
+     * @param level level from {@link ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public synchronized void trim(int level) {
+        if (mBaseBudget == Long.MAX_VALUE) {
+            return;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            mBudget = 0;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mBudget = mBaseBudget / 4;
+        } else {
+            mBudget = mBaseBudget / 2;
+        }
+        mLastTrimTime = SystemClock.uptimeMillis();
+        evictHidden(mBudget);
+    }
+
+    private void addBytes(Record record) {
+        if (record.evicted) {
+            return;
+        }
+        mTotalBytes += record.bytes;
+        if (!record.attached) {
+            mHiddenBytes += record.bytes;
+        }
+        addUsage(record);
+    }
+
+    private void removeBytes(Record record) {
+        if (record.evicted) {
+            return;
+        }
+        mTotalBytes -= record.bytes;
+        if (!record.attached) {
+            mHiddenBytes -= record.bytes;
+        }
+        removeUsage(record);
+    }
+
+    private void evictHidden(long budget) {
+        Set<Uri> visibleUris = new HashSet<>();
+        List<Record> hidden = new ArrayList<>();
+        long total = 0;
+        long hiddenBytes = 0;
+        mUsages.clear();
+        for (Record record : mRecords.values()) {
+            if (record.attached) {
+                visibleUris.add(record.uri);
+            } else if (!record.evicted) {
+                hidden.add(record);
+                hiddenBytes += record.bytes;
+            }
+            if (!record.evicted) {
+                total += record.bytes;
+                addUsage(record);
+            }
+        }
+
+        // 隐藏图片占用最多的页面或卡片优先回收
+        Collections.sort(hidden, (r1, r2) -> Long.compare(
+                mUsages.get(r2.scope).hiddenBytes, mUsages.get(r1.scope).hiddenBytes));
+        int evictedCount = 0;
+        for (Record record : hidden) {
+            if (total <= budget) {
+                break;
+            }
+            removeUsage(record);
+            record.evicted = true;
+            total -= record.bytes;
+            hiddenBytes -= record.bytes;
+            if (!visibleUris.contains(record.uri)) {
+                mEvictor.evict(record.uri);
+                evictedCount++;
+            }
+        }
+        mTotalBytes = total;
+        mHiddenBytes = hiddenBytes;
+        if (evictedCount > 0) {
+            Log.d(TAG, "evicted " + evictedCount + " hidden images, remaining bytes=" + total);
+        }
+    }
+
+    private void addUsage(Record record) {
+        Usage usage = mUsages.get(record.scope);
+        if (usage == null) {
+            usage = new Usage();
+            mUsages.put(record.scope, usage);
+        }
+        usage.add(record);
+    }
+
+    private void removeUsage(Record record) {
+        Usage usage = mUsages.get(record.scope);
+        if (usage != null) {
+            usage.remove(record);
+            if (usage.count <= 0) {
+                mUsages.remove(record.scope);
+            }
+        }
+    }
+
+    /**
+     * Removes a decoded image from memory.
+     */
+    interface Evictor {
+        void evict(Uri uri);
+    }
+
+    private static class FrescoEvictor implements Evictor {
+        @Override
+        public void evict(Uri uri) {
+            if (!Fresco.hasBeenInitialized()) {
+                return;
+            }
+            // 仅移除解码后的图片, 保留 encoded 缓存以便重新显示时解码
+            Fresco.getImagePipeline()
+                    .getBitmapMemoryCache()
+                    .removeAll(key -> key.containsUri(uri));
+        }
+    }
+
+    private static class Record {
+        Scope scope;
+        Uri uri;
+        long bytes;
+        boolean attached;
+        boolean evicted;
+    }
+
+    /**
+     * A page of an app or card.
+     */
+    private static class Scope {
+        final String pkg;
+        final int pageId;
+
+        Scope(String pkg, int pageId) {
+            this.pkg = pkg;
+            this.pageId = pageId;
+        }
+
+        boolean matches(String pkg, int pageId) {
+            return this.pageId == pageId && TextUtils.equals(this.pkg, pkg);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Scope && ((Scope) o).matches(pkg, pageId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (pkg == null ? 0 : pkg.hashCode()) + pageId;
+        }
+    }
+
+    private static class Usage {
+        long bytes;
+        long hiddenBytes;
+        int count;
+
+        void add(Record record) {
+            bytes += record.bytes;
+            if (!record.attached) {
+                hiddenBytes += record.bytes;
+            }
+            count++;
+        }
+
+        void remove(Record record) {
+            bytes -= record.bytes;
+            if (!record.attached) {
+                hiddenBytes -= record.bytes;
+            }
+            count--;
+        }
+    }
+
+    private static class Holder {
+        static final ImageMemoryTracker INSTANCE = new ImageMemoryTracker();
+    }
+}
@@ -13,7 +13,6 @@ import android.animation.ObjectAnimator;
 import android.animation.PropertyValuesHolder;
 import android.animation.TimeInterpolator;
 import android.animation.ValueAnimator;
-import android.graphics.Color;
 import android.os.Build;
 import android.text.TextUtils;
 import android.util.ArrayMap;
@@ -25,7 +24,6 @@ import com.facebook.yoga.YogaNode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import org.hapjs.common.utils.ColorUtil;
 import org.hapjs.common.utils.FloatUtil;
 import org.hapjs.component.Component;
 import org.hapjs.component.ComponentBackgroundComposer;
@@ -34,9 +32,7 @@ import org.hapjs.component.utils.YogaUtil;
 import org.hapjs.component.view.YogaLayout;
 import org.hapjs.component.view.drawable.SizeBackgroundDrawable.Position;
 import org.hapjs.runtime.HapEngine;
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
 /**
  * 解析动画的工具类，待解析 JSONArray 关键帧序列如下：
@@ -76,11 +72,8 @@ public class AnimationParser {
     static final String PROPERTY_PIVOT_X = "pivotX";
     static final String PROPERTY_PIVOT_Y = "pivotY";
     private static final String TAG = "AnimationParser";
-    private static final String TAG_TIME = "time";
-    private static final String TAG_TRANSFORM = "transform";
     private static final String TAG_TIME_MILLISECOND = "ms";
     private static final String TAG_TIME_SECOND = "s";
-    private static final String TAG_TRANSFORM_ORIGIN = "transform-origin";
 
     private AnimationParser() {
     }
@@ -100,8 +93,9 @@ public class AnimationParser {
         }
 
         try {
-            JSONArray keyframes = new JSONArray(keyframesStr);
-            if (keyframes.length() == 0) {
+            CompiledKeyframes compiled = CompiledKeyframes.get(keyframesStr);
+            List<CompiledKeyframes.Frame> frames = compiled.frames;
+            if (frames.isEmpty()) {
                 return null;
             }
 
@@ -121,42 +115,36 @@ public class AnimationParser {
             // 动画name属性集合，用于保存各属性动画帧
             Map<String, List<Keyframe>> keyframeMap = new ArrayMap<>(1);
             TimeInterpolator interpolator = animatorSet.getKeyFrameInterpolator();
-            int len = keyframes.length();
+            int len = frames.size();
             for (int i = 0; i < len; i++) {
-                JSONObject keyframe = keyframes.getJSONObject(i);
+                CompiledKeyframes.Frame keyframe = frames.get(i);
                 // 标志某个动画帧结束的哨兵帧
-                String animationName = keyframe.optString(TAG_ANIMATION_NAME, "");
+                String animationName = keyframe.animationName;
                 boolean shouldCreateAnimators = !TextUtils.isEmpty(animationName);
 
                 if (!shouldCreateAnimators) {
 
-                    int time = keyframe.getInt(TAG_TIME);
-                    float fraction = ((float) time) / 100;
+                    float fraction = keyframe.fraction;
 
-                    double opacity =
-                            Attributes.getDouble(keyframe.optString(TAG_OPACITY), Double.NaN);
-                    if (!Double.isNaN(opacity)) {
+                    if (!Double.isNaN(keyframe.opacity)) {
                         getKeyframeList(PROPERTY_ALPHA, keyframeMap)
                                 .add(
                                         keyframeWithInterpolator(
-                                                Keyframe.ofFloat(fraction, (float) opacity),
+                                                Keyframe.ofFloat(fraction,
+                                                        (float) keyframe.opacity),
                                                 interpolator));
                     }
 
-                    String backgroundColorStr = keyframe.optString(TAG_BACKGROUND_COLOR);
-                    if (!TextUtils.isEmpty(backgroundColorStr)) {
+                    if (keyframe.hasBackgroundColor) {
                         getKeyframeList(PROPERTY_BACKGROUND_COLOR, keyframeMap)
                                 .add(
                                         keyframeWithInterpolator(
-                                                Keyframe.ofInt(
-                                                        fraction, ColorUtil
-                                                                .getColor(backgroundColorStr,
-                                                                        Color.TRANSPARENT)),
+                                                Keyframe.ofInt(fraction,
+                                                        keyframe.backgroundColor),
                                                 interpolator));
                     }
 
-                    String backgroundPositionStr = keyframe.optString(TAG_BACKGROUND_POSITION);
-                    if (!TextUtils.isEmpty(backgroundPositionStr)) {
+                    if (keyframe.backgroundPosition != null) {
                         ComponentBackgroundComposer backgroundComposer =
                                 component.getOrCreateBackgroundComposer();
                         int[] currentBgRelativeWidthHeight =
@@ -166,7 +154,7 @@ public class AnimationParser {
                             animatorSet.destroy();
                             return oldAnimatorSet;
                         }
-                        Position bgPosition = Position.parse(backgroundPositionStr);
+                        Position bgPosition = Position.parse(keyframe.backgroundPosition);
                         bgPosition.setRelativeSize(
                                 currentBgRelativeWidthHeight[0], currentBgRelativeWidthHeight[1]);
                         bgPosition.calculatePx(hapEngine);
@@ -177,81 +165,73 @@ public class AnimationParser {
                                                 interpolator));
                     }
 
-                    int width = Attributes.getInt(hapEngine, keyframe.optString(TAG_WIDTH), -1);
+                    int width = keyframe.width == null
+                            ? -1 : Attributes.getInt(hapEngine, keyframe.width, -1);
                     if (width >= 0) {
                         getKeyframeList(PROPERTY_WIDTH, keyframeMap)
                                 .add(keyframeWithInterpolator(Keyframe.ofInt(fraction, width),
                                         interpolator));
                     }
 
-                    int height = Attributes.getInt(hapEngine, keyframe.optString(TAG_HEIGHT), -1);
+                    int height = keyframe.height == null
+                            ? -1 : Attributes.getInt(hapEngine, keyframe.height, -1);
                     if (height >= 0) {
                         getKeyframeList(PROPERTY_HEIGHT, keyframeMap)
                                 .add(keyframeWithInterpolator(Keyframe.ofInt(fraction, height),
                                         interpolator));
                     }
 
-                    JSONObject transformObject = keyframe.optJSONObject(TAG_TRANSFORM);
-                    if (transformObject == null) {
-                        transformObject = Transform.toJsonObject(keyframe.opt(TAG_TRANSFORM));
-                    }
-                    if (transformObject != null) {
-                        double rotate = getRotate(transformObject.optString(TAG_ROTATE));
-                        if (!Double.isNaN(rotate)) {
+                    if (keyframe.hasTransform) {
+                        if (!Double.isNaN(keyframe.rotate)) {
                             getKeyframeList(PROPERTY_ROTATION, keyframeMap)
                                     .add(
                                             keyframeWithInterpolator(
-                                                    Keyframe.ofFloat(fraction, (float) rotate),
+                                                    Keyframe.ofFloat(fraction,
+                                                            (float) keyframe.rotate),
                                                     interpolator));
                         }
 
-                        double rotateX = getRotate(transformObject.optString(TAG_ROTATE_X));
-                        if (!Double.isNaN(rotateX)) {
+                        if (!Double.isNaN(keyframe.rotateX)) {
                             getKeyframeList(PROPERTY_ROTATION_X, keyframeMap)
                                     .add(
                                             keyframeWithInterpolator(
-                                                    Keyframe.ofFloat(fraction, (float) rotateX),
+                                                    Keyframe.ofFloat(fraction,
+                                                            (float) keyframe.rotateX),
                                                     interpolator));
                         }
 
-                        double rotateY = getRotate(transformObject.optString(TAG_ROTATE_Y));
-                        if (!Double.isNaN(rotateY)) {
+                        if (!Double.isNaN(keyframe.rotateY)) {
                             getKeyframeList(PROPERTY_ROTATION_Y, keyframeMap)
                                     .add(
                                             keyframeWithInterpolator(
-                                                    Keyframe.ofFloat(fraction, (float) rotateY),
+                                                    Keyframe.ofFloat(fraction,
+                                                            (float) keyframe.rotateY),
                                                     interpolator));
                         }
 
-                        double scaleX =
-                                Attributes.getDouble(transformObject.optString(TAG_SCALE_X),
-                                        Double.NaN);
-                        if (!Double.isNaN(scaleX)) {
+                        if (!Double.isNaN(keyframe.scaleX)) {
                             List<Keyframe> keyframeList =
                                     getKeyframeList(PROPERTY_SCALE_X, keyframeMap);
                             Keyframe interpolatorKeyframe =
                                     keyframeWithInterpolator(
-                                            Keyframe.ofFloat(fraction, (float) scaleX),
+                                            Keyframe.ofFloat(fraction, (float) keyframe.scaleX),
                                             interpolator);
                             resolveDuplicate(hapEngine, interpolatorKeyframe, keyframeList);
                         }
 
-                        double scaleY =
-                                Attributes.getDouble(transformObject.optString(TAG_SCALE_Y),
-                                        Double.NaN);
-                        if (!Double.isNaN(scaleY)) {
+                        if (!Double.isNaN(keyframe.scaleY)) {
                             List<Keyframe> keyframeList =
                                     getKeyframeList(PROPERTY_SCALE_Y, keyframeMap);
                             Keyframe interpolatorKeyframe =
                                     keyframeWithInterpolator(
-                                            Keyframe.ofFloat(fraction, (float) scaleY),
+                                            Keyframe.ofFloat(fraction, (float) keyframe.scaleY),
                                             interpolator);
                             resolveDuplicate(hapEngine, interpolatorKeyframe, keyframeList);
                         }
 
-                        String strX = transformObject.optString(TAG_TRANSLATE_X);
+                        String strX = keyframe.translateX;
                         float translateX = FloatUtil.UNDEFINED;
-                        if (!TextUtils.isEmpty(strX)) {
+                        if (strX != null) {
                             if (strX.endsWith(Attributes.Unit.PERCENT)) {
                                 int componentWidth = component.getHostView().getWidth();
                                 // 判断自身的宽高此时是否能取到，取不到直接返回旧值
@@ -279,9 +259,9 @@ public class AnimationParser {
                                                     interpolator));
                         }
 
-                        String strY = transformObject.optString(TAG_TRANSLATE_Y);
+                        String strY = keyframe.translateY;
                         float translateY = FloatUtil.UNDEFINED;
-                        if (!TextUtils.isEmpty(strY)) {
+                        if (strY != null) {
                             if (strY.endsWith(Attributes.Unit.PERCENT)) {
                                 int componentHeight = component.getHostView().getHeight();
                                 // 判断自身的宽高此时是否能取到，取不到直接返回旧值
@@ -311,14 +291,10 @@ public class AnimationParser {
                     }
 
                     // support transform origin
-                    String transformOriginStr =
-                            keyframe.optString(Attributes.Style.TRANSFORM_ORIGIN);
-                    if (TextUtils.isEmpty(transformOriginStr)) {
-                        transformOriginStr = keyframe.optString(TAG_TRANSFORM_ORIGIN);
-                    }
+                    String transformOriginStr = keyframe.transformOrigin;
                     float pivotX = FloatUtil.UNDEFINED;
                     float pivotY = FloatUtil.UNDEFINED;
-                    if (!TextUtils.isEmpty(transformOriginStr)) {
+                    if (transformOriginStr != null) {
                         pivotX = Origin.parseOrigin(transformOriginStr, Origin.ORIGIN_X, target,
                                 hapEngine);
                         pivotY = Origin.parseOrigin(transformOriginStr, Origin.ORIGIN_Y, target,
@@ -352,6 +328,7 @@ public class AnimationParser {
             }
 
             animatorSet.playTogether(animators);
+            animatorSet.setHardwareLayerEnabled(compiled.transformOnly);
             if (oldAnimatorSet != null) {
                 oldAnimatorSet.destroy();
             }
@@ -57,6 +57,7 @@ public class CSSAnimatorSet {
     private boolean mIsPercent = false;
     private boolean mIsCanceled = false;
     private boolean mIsFinished = false;
+    private boolean mHardwareLayerEnabled = false;
 
     private long mStartTime = 0;
     private long mDelay = 0;
@@ -125,6 +126,7 @@ public class CSSAnimatorSet {
         mWrapped = new AnimatorSet();
         mWrapped.setInterpolator(new LinearInterpolator());
         mWrapped.addListener(new CssAnimationListener(this));
+        mWrapped.addListener(new HardwareLayerListener(this));
     }
 
     public static CSSAnimatorSet createNewAnimator(
@@ -327,6 +329,14 @@ public class CSSAnimatorSet {
         mDirty = dirty;
     }
 
+    /**
+     * Run the animation on a hardware layer, so that each frame only updates the layer
+     * properties instead of redrawing the view. Only for animations of transform and opacity.
+     */
+    public void setHardwareLayerEnabled(boolean enabled) {
+        mHardwareLayerEnabled = enabled;
+    }
+
     public void destroy() {
         cancel();
         Component component = mComponent;
@@ -428,6 +438,42 @@ public class CSSAnimatorSet {
         String ALTERNATE_REVERSE = "alternate-reverse";
     }
 
+    private static class HardwareLayerListener extends AnimatorListenerAdapter {
+        private WeakReference<CSSAnimatorSet> mAnimationSetRef;
+        private View mLayerView;
+
+        HardwareLayerListener(CSSAnimatorSet cssAnimatorSet) {
+            mAnimationSetRef = new WeakReference<>(cssAnimatorSet);
+        }
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            CSSAnimatorSet cssAnimatorSet = mAnimationSetRef.get();
+            if (cssAnimatorSet == null
+                    || !cssAnimatorSet.mHardwareLayerEnabled
+                    || cssAnimatorSet.mComponent == null
+                    || mLayerView != null) {
+                return;
+            }
+            View view = cssAnimatorSet.mComponent.getHostView();
+            // 已设置了 layer 的视图 (如软件绘制的 svg) 保持原样
+            if (view != null && view.getLayerType() == View.LAYER_TYPE_NONE) {
+                view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+                mLayerView = view;
+            }
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (mLayerView != null) {
+                if (mLayerView.getLayerType() == View.LAYER_TYPE_HARDWARE) {
+                    mLayerView.setLayerType(View.LAYER_TYPE_NONE, null);
+                }
+                mLayerView = null;
+            }
+        }
+    }
+
     private static class CssAnimationListener extends AnimatorListenerAdapter {
         private WeakReference<CSSAnimatorSet> mAnimationSetRef;
 
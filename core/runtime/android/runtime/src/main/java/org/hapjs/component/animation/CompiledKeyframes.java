@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.component.animation;
+
+import android.graphics.Color;
+import android.text.TextUtils;
+import android.util.LruCache;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.hapjs.common.utils.ColorUtil;
+import org.hapjs.component.constants.Attributes;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Keyframes parsed from the json string of {@link AnimationParser}.
+ *
+ * <p>The same keyframes are usually applied to many components, or restarted again and again, so
+ * they are parsed once and cached by their json string. Only the values independent of component
+ * and engine are resolved here, lengths and percents are still resolved against the component
+ * when the animators are created.
+ */
+class CompiledKeyframes {
+    private static final String TAG_TIME = "time";
+    private static final String TAG_TRANSFORM = "transform";
+    private static final String TAG_TRANSFORM_ORIGIN = "transform-origin";
+
+    private static final int MAX_CACHE_SIZE = 64;
+    private static final LruCache<String, CompiledKeyframes> sCache =
+            new LruCache<>(MAX_CACHE_SIZE);
+
+    final List<Frame> frames;
+    /**
+     * Whether only transform and opacity are animated, such animations don't need redrawing the
+     * view content and can run on a hardware layer.
+     */
+    final boolean transformOnly;
+
+    private CompiledKeyframes(List<Frame> frames, boolean transformOnly) {
+        this.frames = frames;
+        this.transformOnly = transformOnly;
+    }
+
+    static CompiledKeyframes get(String keyframesStr) throws JSONException {
+        CompiledKeyframes compiled = sCache.get(keyframesStr);
+        if (compiled == null) {
+            compiled = compile(new JSONArray(keyframesStr));
+            sCache.put(keyframesStr, compiled);
+        }
+        return compiled;
+    }
+
+    static CompiledKeyframes compile(JSONArray keyframes) throws JSONException {
+        int len = keyframes.length();
+        if (len == 0) {
+            return new CompiledKeyframes(Collections.emptyList(), false);
+        }
+        List<Frame> frames = new ArrayList<>(len);
+        boolean transformOnly = true;
+        for (int i = 0; i < len; i++) {
+            JSONObject keyframe = keyframes.getJSONObject(i);
+            Frame frame = new Frame();
+            frame.animationName = keyframe.optString(AnimationParser.TAG_ANIMATION_NAME, "");
+            frames.add(frame);
+            // 标志某个动画帧结束的哨兵帧
+            if (!TextUtils.isEmpty(frame.animationName)) {
+                continue;
+            }
+
+            frame.fraction = ((float) keyframe.getInt(TAG_TIME)) / 100;
+            frame.opacity =
+                    Attributes.getDouble(keyframe.optString(AnimationParser.TAG_OPACITY),
+                            Double.NaN);
+
+            String backgroundColorStr = keyframe.optString(AnimationParser.TAG_BACKGROUND_COLOR);
+            if (!TextUtils.isEmpty(backgroundColorStr)) {
+                frame.hasBackgroundColor = true;
+                frame.backgroundColor = ColorUtil.getColor(backgroundColorStr, Color.TRANSPARENT);
+            }
+            frame.backgroundPosition =
+                    optNonEmpty(keyframe.optString(AnimationParser.TAG_BACKGROUND_POSITION));
+            frame.width = optNonEmpty(keyframe.optString(AnimationParser.TAG_WIDTH));
+            frame.height = optNonEmpty(keyframe.optString(AnimationParser.TAG_HEIGHT));
+            if (frame.hasBackgroundColor
+                    || frame.backgroundPosition != null
+                    || frame.width != null
+                    || frame.height != null) {
+                transformOnly = false;
+            }
+
+            JSONObject transformObject = keyframe.optJSONObject(TAG_TRANSFORM);
+            if (transformObject == null) {
+                transformObject = Transform.toJsonObject(keyframe.opt(TAG_TRANSFORM));
+            }
+            if (transformObject != null) {
+                frame.hasTransform = true;
+                frame.rotate =
+                        AnimationParser.getRotate(
+                                transformObject.optString(AnimationParser.TAG_ROTATE));
+                frame.rotateX =
+                        AnimationParser.getRotate(
+                                transformObject.optString(AnimationParser.TAG_ROTATE_X));
+                frame.rotateY =
+                        AnimationParser.getRotate(
+                                transformObject.optString(AnimationParser.TAG_ROTATE_Y));
+                frame.scaleX =
+                        Attributes.getDouble(
+                                transformObject.optString(AnimationParser.TAG_SCALE_X),
+                                Double.NaN);
+                frame.scaleY =
+                        Attributes.getDouble(
+                                transformObject.optString(AnimationParser.TAG_SCALE_Y),
+                                Double.NaN);
+                frame.translateX =
+                        optNonEmpty(transformObject.optString(AnimationParser.TAG_TRANSLATE_X));
+                frame.translateY =
+                        optNonEmpty(transformObject.optString(AnimationParser.TAG_TRANSLATE_Y));
+            }
+
+            String transformOriginStr = keyframe.optString(Attributes.Style.TRANSFORM_ORIGIN);
+            if (TextUtils.isEmpty(transformOriginStr)) {
+                transformOriginStr = keyframe.optString(TAG_TRANSFORM_ORIGIN);
+            }
+            frame.transformOrigin = optNonEmpty(transformOriginStr);
+        }
+        return new CompiledKeyframes(Collections.unmodifiableList(frames), transformOnly);
+    }
+
+    private static String optNonEmpty(String value) {
+        return TextUtils.isEmpty(value) ? null : value;
+    }
+
+    /**
+     * A keyframe, or a sentinel frame ending the keyframes of an animation if animationName is not
+     * empty.
+     */
+    static class Frame {
+        String animationName;
+        float fraction;
+        double opacity = Double.NaN;
+        boolean hasBackgroundColor;
+        int backgroundColor;
+        String backgroundPosition;
+        String width;
+        String height;
+        boolean hasTransform;
+        double rotate = Double.NaN;
+        double rotateX = Double.NaN;
+        double rotateY = Double.NaN;
+        double scaleX = Double.NaN;
+        double scaleY = Double.NaN;
+        String translateX;
+        String translateY;
+        String transformOrigin;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free registry of runtime metrics.
+ *
+ * <p>Metrics are created once and cached by callers, recording only touches atomic counters.
+ * When the registry is disabled {@link #start()} returns 0 and recording returns immediately, so
+ * hot paths can stay instrumented.
+ */
+public class MetricsRegistry {
+    public static final String TIMER_RENDER_ACTION_PARSE = "renderActionParse";
+    public static final String TIMER_RENDER_ACTION_APPLY = "renderActionApply";
+    public static final String TIMER_CSS_MATCH = "cssMatch";
+    public static final String TIMER_BRIDGE_INVOKE = "bridgeInvoke";
+    public static final String TIMER_JS_CALLBACK = "jsCallback";
+    public static final String TIMER_JS_EVENT = "jsEvent";
+    public static final String COUNTER_JS_EVENT_MERGED = "jsEventMerged";
+    public static final String TIMER_INSTALL = "install";
+    public static final String TIMER_TEXT_LAYOUT = "textLayout";
+    public static final String COUNTER_TEXT_LAYOUT_CACHE_HIT = "textLayoutCacheHit";
+    public static final String COUNTER_TEXT_LAYOUT_CACHE_MISS = "textLayoutCacheMiss";
+    public static final String TIMER_TIME_TO_SKELETON = "timeToSkeleton";
+    public static final String TIMER_COMPONENT_CREATE = "componentCreate";
+    public static final String TIMER_PAGE_FIRST_FRAME_COLD = "pageFirstFrameCold";
+    public static final String TIMER_PAGE_FIRST_FRAME_PRERENDERED = "pageFirstFramePrerendered";
+    // 后接优先级名, 如 schedulerWaitBulk
+    public static final String TIMER_SCHEDULER_WAIT = "schedulerWait";
+    public static final String TIMER_LAUNCHER_SELECT = "launcherSelect";
+
+    private static volatile boolean sEnabled;
+
+    private final ConcurrentMap<String, Timer> mTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> mCounters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Gauge> mGauges = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry get() {
+        return Holder.INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * @return the start time in nanoseconds, or 0 if metrics is disabled
+     */
+    public static long start() {
+        return sEnabled ? System.nanoTime() : 0;
+    }
+
+    public Timer timer(String name) {
+        Timer timer = mTimers.get(name);
+        if (timer == null) {
+            Timer newTimer = new Timer(name);
+            timer = mTimers.putIfAbsent(name, newTimer);
+            if (timer == null) {
+                timer = newTimer;
+            }
+        }
+        return timer;
+    }
+
+    public Counter counter(String name) {
+        Counter counter = mCounters.get(name);
+        if (counter == null) {
+            Counter newCounter = new Counter(name);
+            counter = mCounters.putIfAbsent(name, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    public Gauge gauge(String name) {
+        Gauge gauge = mGauges.get(name);
+        if (gauge == null) {
+            Gauge newGauge = new Gauge(name);
+            gauge = mGauges.putIfAbsent(name, newGauge);
+            if (gauge == null) {
+                gauge = newGauge;
+            }
+        }
+        return gauge;
+    }
+
+    /**
+     * Take snapshots of all the timers with records since last snapshot and reset them.
+     */
+    List<TimerSnapshot> snapshotAndReset() {
+        List<TimerSnapshot> snapshots = new ArrayList<>();
+        for (Timer timer : mTimers.values()) {
+            TimerSnapshot snapshot = timer.snapshotAndReset();
+            if (snapshot.count > 0) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    Iterable<Counter> counters() {
+        return mCounters.values();
+    }
+
+    Iterable<Gauge> gauges() {
+        return mGauges.values();
+    }
+
+    /**
+     * Timer with a log-linear histogram like HdrHistogram: each power of two is split into {@link
+     * #SUB_BUCKET_COUNT} linear sub buckets, so a percentile is accurate to 1/16 of its value.
+     * Durations below {@link #SUB_BUCKET_COUNT} ns have a bucket each.
+     */
+    public static class Timer {
+        static final int SUB_BUCKET_BITS = 4;
+        static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+        static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+        public final String name;
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong mTotal = new AtomicLong();
+        private final AtomicLong mMax = new AtomicLong();
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param startNanos value returned by {@link MetricsRegistry#start()}
+         */
+        public void stop(long startNanos) {
+            if (startNanos == 0 || !sEnabled) {
+                return;
+            }
+            record(System.nanoTime() - startNanos);
+        }
+
+        public void record(long durationNanos) {
+            if (durationNanos < 0) {
+                return;
+            }
+            mBuckets.incrementAndGet(bucketOf(durationNanos));
+            mTotal.addAndGet(durationNanos);
+            long max;
+            while ((max = mMax.get()) < durationNanos) {
+                if (mMax.compareAndSet(max, durationNanos)) {
+                    break;
+                }
+            }
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKET_COUNT) {
+                return (int) value;
+            }
+            // shift keeps the highest SUB_BUCKET_BITS + 1 bits, the leading one selects the range
+            int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+            return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+        }
+
+        /**
+         * @return the largest value recorded to the given bucket
+         */
+        static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKET_COUNT) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKET_COUNT - 1;
+            long lower = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+            return lower + (1L << shift) - 1;
+        }
+
+        TimerSnapshot snapshotAndReset() {
+            long[] buckets = new long[BUCKET_COUNT];
+            long count = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = mBuckets.getAndSet(i, 0);
+                count += buckets[i];
+            }
+            long total = mTotal.getAndSet(0);
+            long max = mMax.getAndSet(0);
+            return new TimerSnapshot(name, count, total, max, buckets);
+        }
+    }
+
+    public static class TimerSnapshot {
+        public final String name;
+        public final long count;
+        public final long totalNanos;
+        public final long maxNanos;
+        private final long[] mBuckets;
+
+        TimerSnapshot(String name, long count, long totalNanos, long maxNanos, long[] buckets) {
+            this.name = name;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            mBuckets = buckets;
+        }
+
+        /**
+         * @return upper bound of the bucket holding the given percentile, in nanoseconds
+         */
+        public long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long threshold = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < mBuckets.length; i++) {
+                seen += mBuckets[i];
+                if (seen >= threshold) {
+                    return Math.min(Timer.upperBoundOf(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    public static class Counter {
+        public final String name;
+        private final AtomicLong mValue = new AtomicLong();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            if (sEnabled) {
+                mValue.incrementAndGet();
+            }
+        }
+
+        public void add(long delta) {
+            if (sEnabled) {
+                mValue.addAndGet(delta);
+            }
+        }
+
+        long getAndReset() {
+            return mValue.getAndSet(0);
+        }
+    }
+
+    public static class Gauge {
+        public final String name;
+        private final AtomicLong mValue = new AtomicLong();
+
+        Gauge(String name) {
+            this.name = name;
+        }
+
+        public void set(long value) {
+            if (sEnabled) {
+                mValue.set(value);
+            }
+        }
+
+        long get() {
+            return mValue.get();
+        }
+    }
+
+    private static class Holder {
+        static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    }
+}
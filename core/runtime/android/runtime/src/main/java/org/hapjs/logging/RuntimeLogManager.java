@@ -10,9 +10,12 @@ import android.text.TextUtils;
 import android.util.Log;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.hapjs.bridge.Request;
 import org.hapjs.cache.CacheStorage;
 import org.hapjs.common.executors.Executors;
+import org.hapjs.common.executors.PriorityScheduler;
 import org.hapjs.common.json.JSONObject;
 import org.hapjs.common.utils.LogUtils;
 import org.hapjs.model.AppInfo;
@@ -62,9 +65,9 @@ public class RuntimeLogManager {
     private static final String CATEGORY_UI_THREAD = "uiThread";
     private static final String CATEGORY_JS_THREAD = "jsThread";
     private static final String CATEGORY_APP_JS_LOAD = "appJsLoad";
-    private static final String CATEGORY_RENDER_ACTION_THREAD = "renderActionThread";
     private static final String CATEGORY_IO = "IO";
     private static final String CATEGORY_LAUNCHER_CREATE = "launcherCreate";
+    private static final String CATEGORY_METRICS = "metrics";
     private static final String KEY_APP_LOAD = "load";
     private static final String KEY_APP_SHOW = "show";
     private static final String KEY_APP_ROUTER = "router";
@@ -114,6 +117,12 @@ public class RuntimeLogManager {
     private static final String PARAM_TASK_NAME = "taskName";
     private static final String PARAM_TASK_COST = "taskCost";
     private static final String PARAM_MENU_BAR_SHARE_PLATFORM = "menuBarSharePlatform";
+    private static final String PARAM_COUNT = "count";
+    private static final String PARAM_TOTAL = "total";
+    private static final String PARAM_P50 = "p50";
+    private static final String PARAM_P90 = "p90";
+    private static final String PARAM_P99 = "p99";
+    private static final String PARAM_MAX = "max";
     private static final String STATE_APP_LOAD = "appLoad";
     private static final String STATE_PAGE_VIEW = "pageView";
     private static final String STATE_PAGE_LOAD = "pageLoad";
@@ -125,14 +134,26 @@ public class RuntimeLogManager {
     private static final String STATE_LAUNCHER_ACTIVITY_CREATE = "launcherActivityCreate";
     private static final String KEY_APP_ROUTER_DIALOG_SHOW = "routerDialogShow";
     private static final String KEY_APP_ROUTER_DIALOG_CLICK = "routerDialogClick";
+    private static final long METRICS_REPORT_INTERVAL = 60;
     private LogProvider mProvider;
     private Map<Object, Object> mStates;
     private Object mStateLock;
+    private Map<String, TaskRecord> mTaskRecords;
 
     private RuntimeLogManager() {
         mStates = new HashMap<>();
         mStateLock = new Object();
+        mTaskRecords = new ConcurrentHashMap<>();
         mProvider = (LogProvider) ProviderManager.getDefault().getProvider(LogProvider.NAME);
+        if (mProvider != null) {
+            MetricsRegistry.setEnabled(true);
+            Executors.scheduled()
+                    .scheduleWithFixedDelay(
+                            this::reportMetrics,
+                            METRICS_REPORT_INTERVAL,
+                            METRICS_REPORT_INTERVAL,
+                            TimeUnit.SECONDS);
+        }
     }
 
     public static RuntimeLogManager getDefault() {
@@ -187,7 +208,7 @@ public class RuntimeLogManager {
             return;
         }
 
-        Executors.io().execute(new DiskUsageTask(pkg));
+        Executors.priority(PriorityScheduler.Priority.BULK).execute(new DiskUsageTask(pkg));
     }
 
     private void doLogAppDiskUsage(String pkg, long size) {
@@ -753,10 +774,7 @@ public class RuntimeLogManager {
         if (mProvider == null) {
             return;
         }
-        Object[] data = new Object[] {pkg, System.currentTimeMillis()};
-        synchronized (mStateLock) {
-            mStates.put(taskName, data);
-        }
+        mTaskRecords.put(taskName, new TaskRecord(pkg));
     }
 
     private void logTaskEnd(String category, String pkg, String taskName) {
@@ -879,14 +897,6 @@ public class RuntimeLogManager {
         mProvider.logCalculateEvent(pkg, CATEGORY_APP_JS_LOAD, KEY_APP_JS_LOAD, loadCost, params);
     }
 
-    public void logRenderTaskStart(String pkg, String taskName) {
-        logTaskStart(pkg, taskName);
-    }
-
-    public void logRenderTaskEnd(String pkg, String taskName) {
-        logTaskEnd(CATEGORY_RENDER_ACTION_THREAD, pkg, taskName);
-    }
-
     public void logAsyncThreadTaskStart(String pkg, String taskName) {
         logTaskStart(pkg, taskName);
     }
@@ -896,29 +906,23 @@ public class RuntimeLogManager {
     }
 
     private Map<String, String> generateParams(String pkg, String taskName) {
-        long taskEnd = System.currentTimeMillis();
-        Object[] data;
-        synchronized (mStateLock) {
-            data = (Object[]) mStates.remove(taskName);
-        }
-
-        if (data == null) {
+        long endNanos = System.nanoTime();
+        TaskRecord record = mTaskRecords.remove(taskName);
+        if (record == null) {
             return null;
         }
 
-        String dataPkg = (String) data[0];
-        if (!TextUtils.isEmpty(pkg) && !pkg.equals(dataPkg)) {
+        if (!TextUtils.isEmpty(pkg) && !pkg.equals(record.pkg)) {
             return null;
         }
 
-        long taskStart = (long) data[1];
-        long taskCost = taskEnd - taskStart;
+        long taskCost = TimeUnit.NANOSECONDS.toMillis(endNanos - record.startNanos);
         if (taskCost < 0) {
             return null;
         }
         Map<String, String> params = new HashMap<>();
-        params.put(PARAM_TIME_START, String.valueOf(taskStart));
-        params.put(PARAM_TIME_END, String.valueOf(taskEnd));
+        params.put(PARAM_TIME_START, String.valueOf(record.startMillis));
+        params.put(PARAM_TIME_END, String.valueOf(record.startMillis + taskCost));
         params.put(PARAM_TASK_NAME, taskName);
         params.put(PARAM_TASK_COST, String.valueOf(taskCost));
         return params;
@@ -954,10 +958,46 @@ public class RuntimeLogManager {
         mProvider.logCountEvent(pkg, CATEGORY_APP, KEY_MENU_BAR_SHARE_CANCEL, params);
     }
 
+    private void reportMetrics() {
+        String pkg = System.getProperty(RuntimeActivity.PROP_APP);
+        for (MetricsRegistry.TimerSnapshot snapshot : MetricsRegistry.get().snapshotAndReset()) {
+            Map<String, String> params = new HashMap<>();
+            params.put(PARAM_COUNT, String.valueOf(snapshot.count));
+            params.put(PARAM_TOTAL, String.valueOf(snapshot.totalNanos));
+            params.put(PARAM_P50, String.valueOf(snapshot.percentile(50)));
+            params.put(PARAM_P90, String.valueOf(snapshot.percentile(90)));
+            params.put(PARAM_P99, String.valueOf(snapshot.percentile(99)));
+            params.put(PARAM_MAX, String.valueOf(snapshot.maxNanos));
+            mProvider.logCalculateEvent(
+                    pkg, CATEGORY_METRICS, snapshot.name, snapshot.percentile(50), params);
+        }
+        for (MetricsRegistry.Counter counter : MetricsRegistry.get().counters()) {
+            long value = counter.getAndReset();
+            if (value > 0) {
+                mProvider.logNumericPropertyEvent(pkg, CATEGORY_METRICS, counter.name, value);
+            }
+        }
+        for (MetricsRegistry.Gauge gauge : MetricsRegistry.get().gauges()) {
+            mProvider.logNumericPropertyEvent(pkg, CATEGORY_METRICS, gauge.name, gauge.get());
+        }
+    }
+
     private static class Holder {
         static final RuntimeLogManager INSTANCE = new RuntimeLogManager();
     }
 
+    private static class TaskRecord {
+        final String pkg;
+        final long startNanos;
+        final long startMillis;
+
+        TaskRecord(String pkg) {
+            this.pkg = pkg;
+            this.startNanos = System.nanoTime();
+            this.startMillis = System.currentTimeMillis();
+        }
+    }
+
     private static class DiskUsageTask implements Runnable {
         private String pkg;
 
@@ -5,9 +5,13 @@
 
 package org.hapjs.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.hapjs.bridge.HybridRequest;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -19,12 +23,14 @@ public class PageInfo implements RoutableInfo {
     private static final String KEY_PATH = "path";
     private static final String KEY_FILTER = "filter";
     private static final String KEY_LAUNCH_MODE = "launchMode";
+    private static final String KEY_PRERENDER = "prerender";
     private String mName;
     private String mPath;
     private String mUri;
     private String mComponent;
     private Map<String, FilterInfo> mFilterMap;
     private String mLaunchMode;
+    private List<String> mPrerenderPages = Collections.emptyList();
 
     public PageInfo(
             String name,
@@ -72,7 +78,19 @@ public class PageInfo implements RoutableInfo {
                 launchMode = MODE_STANDARD;
                 break;
         }
-        return new PageInfo(name, path, uri, component, filterMap, launchMode);
+        PageInfo pageInfo = new PageInfo(name, path, uri, component, filterMap, launchMode);
+        JSONArray prerenderJSON = pageObject.optJSONArray(KEY_PRERENDER);
+        if (prerenderJSON != null) {
+            List<String> prerenderPages = new ArrayList<>(prerenderJSON.length());
+            for (int i = 0; i < prerenderJSON.length(); i++) {
+                String prerenderPage = prerenderJSON.optString(i);
+                if (!prerenderPage.isEmpty()) {
+                    prerenderPages.add(prerenderPage);
+                }
+            }
+            pageInfo.mPrerenderPages = prerenderPages;
+        }
+        return pageInfo;
     }
 
     @Override
@@ -100,6 +118,13 @@ public class PageInfo implements RoutableInfo {
         return mLaunchMode;
     }
 
+    /**
+     * @return names of the pages likely opened next, declared by "prerender" in manifest
+     */
+    public List<String> getPrerenderPages() {
+        return mPrerenderPages;
+    }
+
     public boolean match(HybridRequest request) {
         FilterInfo filterInfo = mFilterMap.get(request.getAction());
         return filterInfo != null && filterInfo.match(request);
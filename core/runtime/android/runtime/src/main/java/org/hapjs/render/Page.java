@@ -113,6 +113,9 @@ public class Page implements IPage {
     private String mTargetPageUri;
     private long mPageLastUsedTime;
     private boolean mCleanCache = false;
+    private boolean mWaitingFirstFrame;
+    private long mLoadStartTime;
+    private boolean mPrerendered;
 
     public Page(
             AppInfo appInfo,
@@ -661,6 +664,34 @@ public class Page implements IPage {
         return mPageLastUsedTime;
     }
 
+    /**
+     * Called when page starts loading, until its first frame is rendered.
+     *
+     * @param loadStartTime start time from {@link org.hapjs.logging.MetricsRegistry#start()}
+     * @param prerendered   whether the page sources were prepared before navigation
+     */
+    public void onLoadStart(long loadStartTime, boolean prerendered) {
+        mWaitingFirstFrame = true;
+        mLoadStartTime = loadStartTime;
+        mPrerendered = prerendered;
+    }
+
+    public boolean isWaitingFirstFrame() {
+        return mWaitingFirstFrame;
+    }
+
+    public void onFirstFrame() {
+        mWaitingFirstFrame = false;
+    }
+
+    public long getLoadStartTime() {
+        return mLoadStartTime;
+    }
+
+    public boolean isPrerendered() {
+        return mPrerendered;
+    }
+
     private int getColor(String key, String extraValue, int defaultValue) {
         String parseValue = getStyle(key, extraValue, null);
 
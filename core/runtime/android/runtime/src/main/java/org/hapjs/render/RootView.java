@@ -78,6 +78,7 @@ import org.hapjs.io.JavascriptReader;
 import org.hapjs.io.RpkSource;
 import org.hapjs.io.Source;
 import org.hapjs.io.TextReader;
+import org.hapjs.logging.MetricsRegistry;
 import org.hapjs.logging.RuntimeLogManager;
 import org.hapjs.model.AppInfo;
 import org.hapjs.model.DisplayInfo;
@@ -90,6 +91,7 @@ import org.hapjs.render.jsruntime.JsThread;
 import org.hapjs.render.jsruntime.JsThreadFactory;
 import org.hapjs.render.jsruntime.Profiler;
 import org.hapjs.render.skeleton.SkeletonProvider;
+import org.hapjs.render.skeleton.SkeletonDisplayList;
 import org.hapjs.render.skeleton.SkeletonSvgView;
 import org.hapjs.render.vdom.DocAnimator;
 import org.hapjs.render.vdom.DocComponent;
@@ -125,6 +127,12 @@ public class RootView extends FrameLayout
     public static final int MSG_CHECK_IS_SHOW = 8;
     public static final int MSG_APP_LOAD_END = 1000;
     private static final String TAG = "RootView";
+    private static final MetricsRegistry.Timer APPLY_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_RENDER_ACTION_APPLY);
+    private static final MetricsRegistry.Timer COLD_FIRST_FRAME_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_PAGE_FIRST_FRAME_COLD);
+    private static final MetricsRegistry.Timer PRERENDERED_FIRST_FRAME_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_PAGE_FIRST_FRAME_PRERENDERED);
     private static final int PAGE_CACHE_NUM_MAX = 5;
     private static final int SUCCESS = 0;
     private static final int GET_APP_INFO_NULL = -1;
@@ -145,6 +153,7 @@ public class RootView extends FrameLayout
     CallingComponent mCallingComponent = new CallingComponent();
     List<ActivityStateListener> mActivityStateListeners = new ArrayList<>();
     private boolean mExceptionCaught;
+    private long mLaunchStartTime;
     private AndroidViewClient mAndroidViewClient;
     private RuntimeLifecycleCallbackImpl mRuntimeLifecycleCallback;
     private RootViewDialogManager mDialogManager;
@@ -501,6 +510,7 @@ public class RootView extends FrameLayout
 
     private void launchApp(HybridRequest.HapRequest request) {
         mPackage = request.getPackage();
+        mLaunchStartTime = MetricsRegistry.start();
         RuntimeLogManager.getDefault().logAppLoadStart(mPackage);
         // DisplayUtil增加版本兼容
         DisplayUtil.setHapEngine(HapEngine.getInstance(mPackage));
@@ -642,7 +652,7 @@ public class RootView extends FrameLayout
         Log.d(TAG, "destroy: this=" + this + ", js=" + mJsThread + ", immediately=" + immediately);
 
         if (mIsDestroyed) {
-            if (immediately && mJsThread != null && mJsThread.isAlive()) {
+            if (immediately && mJsThread != null && mJsThread.isRunning()) {
                 mJsThread.shutdown(0);
             }
             return;
@@ -868,7 +878,8 @@ public class RootView extends FrameLayout
                                 if (mWaitDevTools && mRequest != null) {
                                     mRequest = null;
                                 } else {
-                                    mJsThread = JsThreadFactory.getInstance().create(getContext());
+                                    mJsThread = JsThreadFactory.getInstance().create(getContext(),
+                                            mPackage, HapEngine.getInstance(mPackage).isCardMode());
                                 }
                                 mJsThread.getJsChunksManager().initialize(mAppInfo);
 
@@ -1075,6 +1086,16 @@ public class RootView extends FrameLayout
         }
 
         applyActions();
+
+        if (page.isWaitingFirstFrame()
+                && renderActionPackage.type != RenderActionPackage.TYPE_PRE_CREATE_BODY
+                && page == mPageManager.getCurrPage()) {
+            page.onFirstFrame();
+            MetricsRegistry.Timer timer =
+                    page.isPrerendered() ? PRERENDERED_FIRST_FRAME_TIMER : COLD_FIRST_FRAME_TIMER;
+            timer.stop(page.getLoadStartTime());
+            mJsThread.onPageFirstFrame(page);
+        }
     }
 
     public void applyActions() {
@@ -1086,13 +1107,13 @@ public class RootView extends FrameLayout
             return;
         }
 
-        RuntimeLogManager.getDefault().logUIThreadTaskStart(mPackage, "applyActions");
+        long start = MetricsRegistry.start();
         RenderAction action = currentPage.pollRenderAction();
         while (action != null) {
             applyAction(action);
             action = currentPage.pollRenderAction();
         }
-        RuntimeLogManager.getDefault().logUIThreadTaskEnd(mPackage, "applyActions");
+        APPLY_TIMER.stop(start);
     }
 
     public void applyAction(RenderAction action) {
@@ -1132,13 +1153,13 @@ public class RootView extends FrameLayout
                 && renderActionPackage.type != RenderActionPackage.TYPE_PRE_CREATE_BODY) {
             mFirstRenderActionReceived = true;
             EventBus.getDefault().post(new FirstRenderActionEvent());
-            Profiler.recordFirstFrameRendered(System.nanoTime(), mJsThread.getId());
+            Profiler.recordFirstFrameRendered(System.nanoTime());
         }
     }
 
     @Override
-    public void onRenderSkeleton(String packageName, org.json.JSONObject parseResult) {
-        if (mDocument == null || parseResult == null || TextUtils.isEmpty(packageName)) {
+    public void onRenderSkeleton(String packageName, SkeletonDisplayList.Clip skeleton) {
+        if (mDocument == null || skeleton == null || TextUtils.isEmpty(packageName)) {
             return;
         }
         Component component = mDocument.getComponent();
@@ -1171,6 +1192,7 @@ public class RootView extends FrameLayout
             layoutParams.leftMargin += insets.left;
             skeletonSvgView.setLayoutParams(layoutParams);
             skeletonSvgView.setId(R.id.skeleton);
+            skeletonSvgView.setLaunchStartTime(mLaunchStartTime);
             skeletonSvgView.setClickable(true);
             Page currentPage = getCurrentPage();
             if (currentPage != null) {
@@ -1179,7 +1201,7 @@ public class RootView extends FrameLayout
                 skeletonSvgView.setBackgroundColor(Color.WHITE);
             }
             try {
-                skeletonSvgView.setup(parseResult, skeletonViewWidth, skeletonViewHeight);
+                skeletonSvgView.setup(skeleton, skeletonViewWidth, skeletonViewHeight);
                 // Before set and draw skeleton, check whether it has been called to hide
                 boolean isCpHideSkeleton = mDocument.isCpHideSkeleton();
                 boolean isCreateFinish = mDocument.isCreateFinish();
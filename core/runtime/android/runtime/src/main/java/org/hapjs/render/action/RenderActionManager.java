@@ -12,14 +12,14 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import org.hapjs.common.executors.Executors;
+import org.hapjs.common.executors.PriorityScheduler;
 import org.hapjs.common.json.JSONArray;
 import org.hapjs.common.json.JSONObject;
-import org.hapjs.logging.RuntimeLogManager;
+import org.hapjs.logging.MetricsRegistry;
 import org.hapjs.render.ComponentAction;
 import org.hapjs.render.Page;
 import org.hapjs.render.RenderAction;
 import org.hapjs.render.RenderActionPackage;
-import org.hapjs.render.RootView;
 import org.hapjs.render.VDomChangeAction;
 import org.hapjs.render.css.CSSCalculator;
 import org.hapjs.render.css.CSSRuleList;
@@ -30,6 +30,7 @@ import org.hapjs.render.css.Node;
 import org.hapjs.render.css.media.MediaPropertyInfo;
 import org.hapjs.render.css.media.MediaPropertyInfoImpl;
 import org.hapjs.render.jsruntime.JsBridge;
+import org.hapjs.render.skeleton.SkeletonDisplayList;
 import org.json.JSONException;
 
 /**
@@ -37,10 +38,11 @@ import org.json.JSONException;
  */
 public class RenderActionManager {
     private static final String TAG = "RenderActionManager";
+    private static final MetricsRegistry.Timer PARSE_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_RENDER_ACTION_PARSE);
 
     private RenderActionThread mRenderActionThread;
     private JsBridge.JsBridgeCallback mCallback;
-    private String mPackage;
 
     private SparseArray<RenderActionDocument> mPages = new SparseArray<>();
 
@@ -52,9 +54,6 @@ public class RenderActionManager {
 
     public void attach(JsBridge.JsBridgeCallback callback) {
         mCallback = callback;
-        if (mCallback instanceof RootView) {
-            mPackage = ((RootView) mCallback).getPackage();
-        }
     }
 
     public void post(Runnable runnable) {
@@ -70,7 +69,8 @@ public class RenderActionManager {
 
         RenderWorker worker = new RenderWorker(pageId, argsString, document, mLastWorker);
         mLastWorker = worker;
-        Executors.io().execute(worker); // start render actions
+        // start render actions
+        Executors.priority(PriorityScheduler.Priority.VISIBLE_RENDER).execute(worker);
     }
 
     public void sendRenderActions(RenderActionPackage renderActionPackage) {
@@ -82,8 +82,7 @@ public class RenderActionManager {
             throws JSONException {
         switch (module) {
             case "dom":
-                return RenderActionParser
-                        .objToChangeActions(pageId, method, args, document, mPackage);
+                return RenderActionParser.objToChangeActions(pageId, method, args, document);
             default:
                 Log.e(TAG, "Unsupported callNative module:" + module);
                 break;
@@ -242,8 +241,8 @@ public class RenderActionManager {
                 });
     }
 
-    public void showSkeleton(String packageName, org.json.JSONObject parseResult) {
-        mCallback.onRenderSkeleton(packageName, parseResult);
+    public void showSkeleton(String packageName, SkeletonDisplayList.Clip skeleton) {
+        mCallback.onRenderSkeleton(packageName, skeleton);
     }
 
     public class RenderWorker implements Runnable {
@@ -268,9 +267,9 @@ public class RenderActionManager {
         @Override
         public void run() {
             try {
-                RuntimeLogManager.getDefault().logRenderTaskStart(mPackage, "renderActions");
+                long start = MetricsRegistry.start();
                 renderActions();
-                RuntimeLogManager.getDefault().logRenderTaskEnd(mPackage, "renderActions");
+                PARSE_TIMER.stop(start);
             } catch (JSONException e) {
                 Log.e(TAG, "render worker error", e);
                 e.printStackTrace();
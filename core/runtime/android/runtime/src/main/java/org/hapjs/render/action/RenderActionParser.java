@@ -11,7 +11,7 @@ import java.util.Iterator;
 import java.util.Map;
 import org.hapjs.common.json.JSONArray;
 import org.hapjs.common.json.JSONObject;
-import org.hapjs.logging.RuntimeLogManager;
+import org.hapjs.logging.MetricsRegistry;
 import org.hapjs.render.ComponentAction;
 import org.hapjs.render.DebugUtils;
 import org.hapjs.render.Page;
@@ -23,17 +23,16 @@ import org.hapjs.render.css.MatchedCSSRuleList;
 import org.json.JSONException;
 
 class RenderActionParser {
-
-    private static String sPackage;
+    private static final MetricsRegistry.Timer CSS_MATCH_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_CSS_MATCH);
 
     static VDomChangeAction objToChangeActions(
-            int pageId, String method, JSONArray args, RenderActionDocument document, String pkg)
+            int pageId, String method, JSONArray args, RenderActionDocument document)
             throws JSONException {
         if (TextUtils.isEmpty(method)) {
             return null;
         }
 
-        sPackage = pkg;
         VDomChangeAction action = new VDomChangeAction();
         action.pageId = pageId;
         switch (method) {
@@ -254,9 +253,9 @@ class RenderActionParser {
     }
 
     public static void updateStyles(RenderActionNode node, VDomChangeAction action) {
-        RuntimeLogManager.getDefault().logRenderTaskStart(sPackage, "CSSCalculator");
+        long start = MetricsRegistry.start();
         updateStyles(node, action, node.shouldRestyling());
-        RuntimeLogManager.getDefault().logRenderTaskEnd(sPackage, "CSSCalculator");
+        CSS_MATCH_TIMER.stop(start);
     }
 
     private static void updateStyles(
@@ -26,6 +26,7 @@ import org.hapjs.io.TextReader;
 import org.hapjs.render.RenderActionPackage;
 import org.hapjs.render.RootView;
 import org.hapjs.render.action.RenderActionManager;
+import org.hapjs.render.skeleton.SkeletonDisplayList;
 
 public class JsBridge {
 
@@ -155,6 +156,6 @@ public class JsBridge {
     public interface JsBridgeCallback {
         void onSendRenderActions(RenderActionPackage renderActionPackage);
 
-        void onRenderSkeleton(String packageName, org.json.JSONObject parseResult);
+        void onRenderSkeleton(String packageName, SkeletonDisplayList.Clip skeleton);
     }
 }
@@ -5,107 +5,89 @@
 
 package org.hapjs.render.jsruntime;
 
-import android.os.Handler;
 import android.os.SystemClock;
-import android.util.SparseArray;
 import android.view.Choreographer;
-import androidx.annotation.UiThread;
 import com.eclipsesource.v8.V8;
 import com.eclipsesource.v8.V8Array;
 import com.eclipsesource.v8.V8Object;
 import com.eclipsesource.v8.V8RuntimeException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import com.eclipsesource.v8.V8Value;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import org.hapjs.common.executors.Executors;
 
+/**
+ * Native timers of js runtime.
+ *
+ * <p>All the bookkeeping happens on js thread, which is the thread calling the native methods.
+ * Timers are kept in a queue ordered by fire time and dispatched by a single message, so that all
+ * the expired timers are fired in one batch. Timers of hidden pages, and timers of the app while
+ * it is in background, are throttled by {@link TimerQueue}. Animation frames share one vsync
+ * subscription, and all pending ids of a frame are delivered to js in one call with the same
+ * timestamp, see {@link #dispatchFrame(long)}.
+ */
 public class JsBridgeTimer extends V8Object {
     private JsContext mJsContext;
-    private Handler mJsThreadHandler;
-    private Map<Integer, CallbackData> mCallbackDatas;
-    private SparseArray<SparseArray<CallbackType>> mCallbackMap;
+    private JsThread.H mJsThreadHandler;
+
+    private final TimerQueue mTimerQueue = new TimerQueue();
+    private long mScheduledTime = Long.MAX_VALUE;
+    private final Runnable mTimerDispatcher =
+            new Runnable() {
+                @Override
+                public void run() {
+                    mScheduledTime = Long.MAX_VALUE;
+                    dispatchTimers();
+                }
+            };
 
-    public JsBridgeTimer(JsContext jsContext, Handler jsThreadHandler) {
+    private List<FrameRequest> mFrameRequests;
+    private boolean mFrameScheduled;
+    private Boolean mSupportBatchFrameCallback;
+    private final Choreographer.FrameCallback mFrameCallback =
+            new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    mJsThreadHandler.post(() -> dispatchFrame(frameTimeNanos));
+                }
+            };
+
+    public JsBridgeTimer(JsContext jsContext, JsThread.H jsThreadHandler) {
         super(jsContext.getV8());
         mJsContext = jsContext;
         mJsThreadHandler = jsThreadHandler;
-        mCallbackDatas = new ConcurrentHashMap<>();
-        mCallbackMap = new SparseArray<>();
+        mFrameRequests = new ArrayList<>();
     }
 
     public void requestAnimationFrameNative(int pageId, int id) {
-        Executors.ui()
-                .execute(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                CallbackData callbackData = new CallbackData(id, false, 0);
-                                Choreographer choreographer = Choreographer.getInstance();
-                                choreographer.postFrameCallback(callbackData);
-                                mCallbackDatas.put(id, callbackData);
-                                addCallback(pageId, id, CallbackType.Animation);
-                            }
-                        });
+        mFrameRequests.add(new FrameRequest(pageId, id));
+        scheduleFrameIfNeeded();
     }
 
     public void cancelAnimationFrameNative(int id) {
-        Executors.ui()
-                .execute(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                CallbackData callbackData = mCallbackDatas.remove(id);
-                                if (callbackData == null) {
-                                    return;
-                                }
-                                Choreographer choreographer = Choreographer.getInstance();
-                                choreographer.removeFrameCallback(callbackData);
-                                removeCallback(id);
-                            }
-                        });
+        Iterator<FrameRequest> it = mFrameRequests.iterator();
+        while (it.hasNext()) {
+            if (it.next().id == id) {
+                it.remove();
+                return;
+            }
+        }
     }
 
     public void setTimeoutNative(int pageId, int id, int time) {
-        Executors.ui()
-                .execute(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                CallbackData callbackData = new CallbackData(id, false, time);
-                                mJsThreadHandler.postDelayed(callbackData, time);
-                                mCallbackDatas.put(id, callbackData);
-                                addCallback(pageId, id, CallbackType.Timer);
-                            }
-                        });
+        mTimerQueue.add(pageId, id, false, time, SystemClock.uptimeMillis());
+        scheduleTimers();
     }
 
     public void clearTimeoutNative(int id) {
-        Executors.ui()
-                .execute(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                CallbackData callbackData = mCallbackDatas.remove(id);
-                                if (callbackData == null) {
-                                    return;
-                                }
-                                mJsThreadHandler.removeCallbacks(callbackData);
-                                removeCallback(id);
-                            }
-                        });
+        mTimerQueue.cancel(id);
+        scheduleTimers();
     }
 
     public void setIntervalNative(int pageId, int id, int time) {
-        Executors.ui()
-                .execute(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                CallbackData callbackData = new CallbackData(id, true, time);
-                                mJsThreadHandler.postDelayed(callbackData, time);
-                                mCallbackDatas.put(id, callbackData);
-                                addCallback(pageId, id, CallbackType.Timer);
-                            }
-                        });
+        mTimerQueue.add(pageId, id, true, time, SystemClock.uptimeMillis());
+        scheduleTimers();
     }
 
     public void clearIntervalNative(int id) {
@@ -113,136 +95,164 @@ public class JsBridgeTimer extends V8Object {
     }
 
     void clearTimers(int pageId) {
-        Executors.ui()
-                .execute(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                SparseArray<CallbackType> callbackIds = mCallbackMap.get(pageId);
-                                if (callbackIds != null) {
-                                    mCallbackMap.remove(pageId);
-
-                                    final int N = callbackIds.size();
-                                    for (int index = 0; index < N; ++index) {
-                                        int callbackId = callbackIds.keyAt(index);
-                                        CallbackType type = callbackIds.valueAt(index);
-                                        if (type == CallbackType.Timer) {
-                                            clearTimeoutNative(callbackId);
-                                        } else if (type == CallbackType.Animation) {
-                                            cancelAnimationFrameNative(callbackId);
-                                        }
-                                    }
-                                }
-                            }
-                        });
+        mTimerQueue.clearPage(pageId);
+        Iterator<FrameRequest> frameIt = mFrameRequests.iterator();
+        while (frameIt.hasNext()) {
+            if (frameIt.next().pageId == pageId) {
+                frameIt.remove();
+            }
+        }
+        scheduleTimers();
     }
 
-    private void removeDataInner(int id) {
-        Executors.ui()
-                .execute(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                mCallbackDatas.remove(id);
-                                removeCallback(id);
-                            }
-                        });
+    /**
+     * Timers of a hidden page, and timers of the app while no page is visible, are throttled by
+     * {@link TimerQueue}. Their animation frames are held until they become visible.
+     */
+    void setPageVisible(int pageId, boolean visible) {
+        if (mTimerQueue.setPageVisible(pageId, visible)) {
+            scheduleTimers();
+            scheduleFrameIfNeeded();
+        }
     }
 
-    @UiThread
-    private void addCallback(int pageId, int callbackId, CallbackType type) {
-        SparseArray<CallbackType> callbackIds = mCallbackMap.get(pageId);
-        if (callbackIds == null) {
-            callbackIds = new SparseArray<>();
-            mCallbackMap.append(pageId, callbackIds);
+    private void scheduleTimers() {
+        long fireTime = mTimerQueue.getNextFireTime();
+        if (fireTime == mScheduledTime) {
+            return;
         }
-        callbackIds.append(callbackId, type);
+        mJsThreadHandler.removeCallbacksAndHeld(mTimerDispatcher);
+        if (fireTime != Long.MAX_VALUE) {
+            mJsThreadHandler.postAtTime(mTimerDispatcher, fireTime);
+        }
+        mScheduledTime = fireTime;
     }
 
-    @UiThread
-    private void removeCallback(int callbackId) {
-        final int N = mCallbackMap.size();
-        for (int index = 0; index < N; ++index) {
-            SparseArray<CallbackType> callbackIds = mCallbackMap.valueAt(index);
-            callbackIds.remove(callbackId);
+    private void dispatchTimers() {
+        List<TimerQueue.Timer> expired = mTimerQueue.pollExpired(SystemClock.uptimeMillis());
+        scheduleTimers();
+
+        if (expired == null) {
+            return;
+        }
+        V8 v8 = mJsContext.getV8();
+        for (TimerQueue.Timer timer : expired) {
+            if (timer.cancelled) {
+                continue;
+            }
+            // 0 is illegal , could not be executed
+            if (timer.isRepeat && timer.time == 0) {
+                continue;
+            }
+            V8Array arr = new V8Array(v8);
+            arr.push(timer.id);
+            try {
+                if (!timer.isRepeat) {
+                    v8.executeFunction("setTimeoutCallback", arr);
+                } else {
+                    v8.executeFunction("setIntervalCallback", arr);
+                }
+            } catch (V8RuntimeException ex) {
+                mJsContext.getJsThread().processV8Exception(ex);
+            } finally {
+                JsUtils.release(arr);
+            }
         }
     }
 
-    private enum CallbackType {
-        Timer,
-        Animation
+    private void scheduleFrameIfNeeded() {
+        if (mFrameScheduled) {
+            return;
+        }
+        boolean hasVisibleRequest = false;
+        for (FrameRequest request : mFrameRequests) {
+            if (!mTimerQueue.isPageHidden(request.pageId)) {
+                hasVisibleRequest = true;
+                break;
+            }
+        }
+        if (!hasVisibleRequest) {
+            return;
+        }
+        mFrameScheduled = true;
+        Executors.ui().execute(() -> Choreographer.getInstance().postFrameCallback(mFrameCallback));
     }
 
-    class CallbackData implements Runnable, Choreographer.FrameCallback {
-        public final int id;
-        public final boolean isRepeat;
-        public final int time;
-        private long mEstimatedFireTime;
-
-        public CallbackData(int id, boolean isRepeat, int time) {
-            this.id = id;
-            this.isRepeat = isRepeat;
-            this.time = time;
-            if (this.isRepeat) {
-                mEstimatedFireTime = SystemClock.uptimeMillis() + time;
-            }
+    /**
+     * Deliver the animation frames of visible pages.
+     *
+     * <p>If the framework defines {@code requestAnimationFrameCallbacks(ids, timestamp)}, it is
+     * called once per frame with all the ids in request order and the frame time in milliseconds.
+     * The framework removes each callback from its timer map before calling it with the
+     * timestamp, as an animation frame is one-shot. Otherwise {@code
+     * requestAnimationFrameCallback(id, timestamp)} is called for each id, and the framework keeps
+     * its own bookkeeping: older frameworks ignore the timestamp and don't remove the callback.
+     */
+    private void dispatchFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        if (mFrameRequests.isEmpty()) {
+            return;
         }
 
-        @Override
-        public void run() {
-            if (isRepeat) {
-                // 0 is illegal , could not be executed
-                if (time == 0) {
-                    return;
-                }
-                long now = SystemClock.uptimeMillis();
-                long nextFireTime = mEstimatedFireTime + time;
-                if (now >= nextFireTime) {
-                    nextFireTime += ((now - nextFireTime) / time + 1) * time;
-                }
-                mJsThreadHandler.postAtTime(this, nextFireTime);
-                mEstimatedFireTime = nextFireTime;
+        List<FrameRequest> requests = mFrameRequests;
+        mFrameRequests = new ArrayList<>();
+        List<FrameRequest> ready = new ArrayList<>(requests.size());
+        for (FrameRequest request : requests) {
+            if (mTimerQueue.isPageHidden(request.pageId)) {
+                mFrameRequests.add(request);
             } else {
-                removeDataInner(id);
+                ready.add(request);
             }
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
 
-            V8 v8 = mJsContext.getV8();
+        V8 v8 = mJsContext.getV8();
+        double timestamp = ((double) frameTimeNanos) / 1000000.0D;
+        if (mSupportBatchFrameCallback == null) {
+            mSupportBatchFrameCallback =
+                    v8.getType("requestAnimationFrameCallbacks") == V8Value.V8_FUNCTION;
+        }
+        if (mSupportBatchFrameCallback) {
+            V8Array ids = new V8Array(v8);
             V8Array arr = new V8Array(v8);
-            arr.push(id);
+            for (FrameRequest request : ready) {
+                ids.push(request.id);
+            }
+            arr.push(ids);
+            arr.push(timestamp);
             try {
-                if (!isRepeat) {
-                    v8.executeFunction("setTimeoutCallback", arr);
-                } else {
-                    v8.executeFunction("setIntervalCallback", arr);
-                }
+                v8.executeVoidFunction("requestAnimationFrameCallbacks", arr);
             } catch (V8RuntimeException ex) {
                 mJsContext.getJsThread().processV8Exception(ex);
             } finally {
-                JsUtils.release(arr);
+                JsUtils.release(ids, arr);
+            }
+        } else {
+            for (FrameRequest request : ready) {
+                V8Array arr = new V8Array(v8);
+                arr.push(request.id);
+                arr.push(timestamp);
+                try {
+                    v8.executeFunction("requestAnimationFrameCallback", arr);
+                } catch (V8RuntimeException ex) {
+                    mJsContext.getJsThread().processV8Exception(ex);
+                } finally {
+                    JsUtils.release(arr);
+                }
             }
         }
+        scheduleFrameIfNeeded();
+    }
+
+    private static class FrameRequest {
+        final int pageId;
+        final int id;
 
-        @Override
-        public void doFrame(long frameTimeNanos) {
-            mJsThreadHandler.post(
-                    new Runnable() {
-                        @Override
-                        public void run() {
-                            V8 v8 = mJsContext.getV8();
-                            V8Array arr = new V8Array(v8);
-                            arr.push(id);
-                            arr.push(((double) frameTimeNanos) / 1000000.0D);
-                            try {
-                                v8.executeFunction("requestAnimationFrameCallback", arr);
-                            } catch (V8RuntimeException ex) {
-                                mJsContext.getJsThread().processV8Exception(ex);
-                            } finally {
-                                JsUtils.release(arr);
-                            }
-                        }
-                    });
-
-            removeDataInner(id);
+        FrameRequest(int pageId, int id) {
+            this.pageId = pageId;
+            this.id = id;
         }
     }
 }
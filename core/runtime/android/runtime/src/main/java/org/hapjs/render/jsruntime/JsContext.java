@@ -86,7 +86,7 @@ public class JsContext {
     public void dispose() {
         mV8.shutdownExecutors(true);
         if (DEBUG) {
-            mJsThread.getHandler().removeCallbacks(mPendingTimer);
+            mJsThread.getHandler().removeCallbacksAndHeld(mPendingTimer);
             mPendingTimer.run();
             for (Map.Entry<V8Value, Throwable> entry : mNativeObjects.entrySet()) {
                 V8Value object = entry.getKey();
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.jsruntime;
+
+import android.text.TextUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hapjs.component.constants.Attributes;
+
+/**
+ * Pending events waiting to be fired to js.
+ *
+ * <p>Continuous events such as scroll and touchmove only care about the latest state, so a new one
+ * replaces the pending event of the same page, element and type, as long as no discrete event was
+ * queued after it. Discrete events such as click are always kept in order.
+ *
+ * <p>Scroll events of list carry the distance scrolled since the previous event, which is summed
+ * up when merged. Events with a different scroll state are never merged, so js sees every state
+ * transition.
+ *
+ * <p>Each offered event is fired by its own message, so events keep their order relative to
+ * other messages of the js thread. A merged event is fired by the message of the newer one, the
+ * message of the replaced event finds nothing to fire.
+ */
+class JsEventQueue {
+    private static final String[] DELTA_KEYS = {"scrollX", "scrollY"};
+    private static final String KEY_SCROLL_STATE = "scrollState";
+    // a change of these values is never merged away
+    private static final String[] STATE_KEYS = {KEY_SCROLL_STATE, "state"};
+
+    private final List<JsThread.JsEventCallbackData> mEvents = new ArrayList<>();
+
+    static boolean isMergeable(String eventName) {
+        return Attributes.Event.SCROLL.equals(eventName)
+                || Attributes.Event.TOUCH_MOVE.equals(eventName)
+                || Attributes.Event.RESIZE.equals(eventName);
+    }
+
+    /**
+     * @return the event to be fired by a new message, which is either the given one or the result
+     *     of merging it into a pending event
+     */
+    synchronized JsThread.JsEventCallbackData offer(JsThread.JsEventCallbackData data) {
+        JsThread.JsEventCallbackData event = merge(mEvents, data);
+        mEvents.add(event);
+        return event;
+    }
+
+    /**
+     * @return whether the event is still pending and should be fired now
+     */
+    synchronized boolean remove(JsThread.JsEventCallbackData data) {
+        return mEvents.remove(data);
+    }
+
+    /**
+     * Coalesce continuous events in a batch that is about to be fired.
+     */
+    static List<JsThread.JsEventCallbackData> coalesce(List<JsThread.JsEventCallbackData> datas) {
+        if (datas.size() < 2) {
+            return datas;
+        }
+        List<JsThread.JsEventCallbackData> result = new ArrayList<>(datas.size());
+        for (JsThread.JsEventCallbackData data : datas) {
+            result.add(merge(result, data));
+        }
+        return result;
+    }
+
+    /**
+     * Remove the pending event the given one can be merged into.
+     *
+     * @return the merged event, or the given one if there is nothing to merge
+     */
+    private static JsThread.JsEventCallbackData merge(
+            List<JsThread.JsEventCallbackData> events, JsThread.JsEventCallbackData data) {
+        if (!isMergeable(data.eventName)) {
+            return data;
+        }
+        for (int i = events.size() - 1; i >= 0; i--) {
+            JsThread.JsEventCallbackData pending = events.get(i);
+            if (!isMergeable(pending.eventName)) {
+                break;
+            }
+            if (pending.pageId == data.pageId
+                    && pending.elementId == data.elementId
+                    && TextUtils.equals(pending.eventName, data.eventName)) {
+                if (!isSameState(pending.params, data.params)) {
+                    break;
+                }
+                events.remove(i);
+                return new JsThread.JsEventCallbackData(
+                        data.pageId,
+                        data.elementId,
+                        data.eventName,
+                        mergeParams(pending.params, data.params),
+                        data.attributes);
+            }
+        }
+        return data;
+    }
+
+    private static boolean isSameState(Map<String, Object> older, Map<String, Object> newer) {
+        for (String key : STATE_KEYS) {
+            Object olderValue = older == null ? null : older.get(key);
+            Object newerValue = newer == null ? null : newer.get(key);
+            if (olderValue == null ? newerValue != null : !olderValue.equals(newerValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, Object> mergeParams(
+            Map<String, Object> older, Map<String, Object> newer) {
+        if (older == null || newer == null || !newer.containsKey(KEY_SCROLL_STATE)) {
+            return newer;
+        }
+        Map<String, Object> params = null;
+        for (String key : DELTA_KEYS) {
+            Object olderValue = older.get(key);
+            Object newerValue = newer.get(key);
+            if (olderValue instanceof Number && newerValue instanceof Number) {
+                if (params == null) {
+                    params = new HashMap<>(newer);
+                }
+                params.put(key, sum((Number) olderValue, (Number) newerValue));
+            }
+        }
+        return params == null ? newer : params;
+    }
+
+    private static Number sum(Number a, Number b) {
+        if (a instanceof Integer && b instanceof Integer) {
+            return a.intValue() + b.intValue();
+        }
+        return a.floatValue() + b.floatValue();
+    }
+}
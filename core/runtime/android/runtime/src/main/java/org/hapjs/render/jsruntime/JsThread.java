@@ -16,6 +16,7 @@ import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.DisplayMetrics;
 import android.util.Log;
@@ -33,6 +34,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -45,10 +47,10 @@ import org.hapjs.chunk.JsChunksManager;
 import org.hapjs.common.compat.BuildPlatform;
 import org.hapjs.common.executors.AbsTask;
 import org.hapjs.common.executors.Executors;
+import org.hapjs.common.executors.PriorityScheduler;
 import org.hapjs.common.utils.FrescoUtils;
 import org.hapjs.common.utils.LogUtils;
 import org.hapjs.common.utils.RouterUtils;
-import org.hapjs.common.utils.UriUtils;
 import org.hapjs.component.ComponentRegistry;
 import org.hapjs.component.bridge.RenderEventCallback;
 import org.hapjs.component.constants.Attributes;
@@ -60,6 +62,7 @@ import org.hapjs.io.JavascriptReader;
 import org.hapjs.io.RpkSource;
 import org.hapjs.io.Source;
 import org.hapjs.io.TextReader;
+import org.hapjs.logging.MetricsRegistry;
 import org.hapjs.logging.RuntimeLogManager;
 import org.hapjs.model.AppInfo;
 import org.hapjs.model.RoutableInfo;
@@ -73,19 +76,17 @@ import org.hapjs.render.RootView;
 import org.hapjs.render.VDomChangeAction;
 import org.hapjs.render.action.RenderActionDocument;
 import org.hapjs.render.action.RenderActionManager;
-import org.hapjs.render.css.CSSParser;
 import org.hapjs.render.css.CSSStyleSheet;
 import org.hapjs.render.jsruntime.serialize.JavaSerializeObject;
 import org.hapjs.render.skeleton.DefaultSkeletonProviderImpl;
 import org.hapjs.render.skeleton.SkeletonConfigParser;
-import org.hapjs.render.skeleton.SkeletonDSLParser;
+import org.hapjs.render.skeleton.SkeletonDisplayList;
 import org.hapjs.render.skeleton.SkeletonProvider;
 import org.hapjs.runtime.ProviderManager;
 import org.hapjs.runtime.ResourceConfig;
 import org.hapjs.runtime.RuntimeActivity;
 import org.hapjs.runtime.inspect.InspectorManager;
 import org.hapjs.runtime.inspect.InspectorProvider;
-import org.json.JSONException;
 import org.json.JSONObject;
 
 public class JsThread extends HandlerThread {
@@ -95,10 +96,20 @@ public class JsThread extends HandlerThread {
     public static final String INFRASJS_SNAPSHOT_SO_NAME = "infrasjs_snapshot";
     public static final boolean HAS_INFRASJS_SNAPSHOT;
     private static final String TAG = "JsThread";
+    private static final MetricsRegistry.Timer CALLBACK_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_JS_CALLBACK);
+    private static final MetricsRegistry.Timer EVENT_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_JS_EVENT);
+    private static final MetricsRegistry.Counter EVENT_MERGED_COUNTER =
+            MetricsRegistry.get().counter(MetricsRegistry.COUNTER_JS_EVENT_MERGED);
     private static final int STATE_NONE = -1;
     private static final int STATE_RUNTIME_INITED = 0;
     private static final int STATE_DESTROYING = 1;
     private static final int STATE_DESTROYED = 2;
+    // time a card may run on the shared looper in each window before yielding to other cards
+    private static final long SHARED_SLICE_WINDOW_MS = 100;
+    private static final long SHARED_SLICE_BUDGET_MS = 50;
+    private static final long SHARED_LONG_TASK_MS = 1000;
 
     static {
         boolean hasInfraSnapshot;
@@ -114,6 +125,9 @@ public class JsThread extends HandlerThread {
     private final Context mContext;
     private final int mAppId;
     private final H mHandler;
+    // not null if this runtime runs on a looper shared with other cards
+    private final Looper mSharedLooper;
+    private volatile boolean mSharedLooperReleased;
     Handler mMainHandler;
     PageManager mPageManager;
     AppInfo mAppInfo;
@@ -142,6 +156,8 @@ public class JsThread extends HandlerThread {
     private ExtensionManager mExtensionManager;
     private RenderActionManager mRenderActionManager;
     private JsChunksManager mJsChunksManager;
+    private PagePrerenderer mPrerenderer;
+    private final JsEventQueue mEventQueue = new JsEventQueue();
     private ConditionVariable mBlocker = new ConditionVariable(true);
     private volatile boolean mBlocked;
     private String mSessionLastAppShow;
@@ -149,9 +165,20 @@ public class JsThread extends HandlerThread {
     private int mApplicationState = STATE_NONE;
 
     protected JsThread(Context context) {
+        this(context, null);
+    }
+
+    /**
+     * Create a runtime running on the given looper instead of a dedicated thread. Several card
+     * runtimes may share the same looper, each of them keeps its own v8 runtime.
+     */
+    protected JsThread(Context context, Looper sharedLooper) {
         super("JsThread");
 
-        start();
+        mSharedLooper = sharedLooper;
+        if (mSharedLooper == null) {
+            start();
+        }
 
         mContext = context;
         mAppId = IdGenerator.generateAppId();
@@ -172,6 +199,10 @@ public class JsThread extends HandlerThread {
         mRootView = rootView;
         mCallback = lifecycleCallback;
         mPageManager = pageManager;
+        if (mPrerenderer != null) {
+            mPrerenderer.release();
+        }
+        mPrerenderer = new PagePrerenderer(mContext, appInfo);
 
         Message.obtain(mHandler, H.MSG_ATTACH).sendToTarget();
     }
@@ -187,7 +218,7 @@ public class JsThread extends HandlerThread {
         mJsTimer = new JsBridgeTimer(mJsContext, mHandler);
         JsUtils.registerAllPublicMethodsToRoot(mJsTimer);
 
-        mProfiler = new Profiler(v8, getId());
+        mProfiler = new Profiler(v8);
         v8.add("profiler", mProfiler);
         mProfiler.registerJavaMethod(mProfiler.isEnabled, "isEnabled");
         mProfiler.registerJavaMethod(mProfiler.record, "record");
@@ -243,10 +274,36 @@ public class JsThread extends HandlerThread {
         mExtensionManager.onRuntimeCreate(mAppInfo);
     }
 
-    public Handler getHandler() {
+    public H getHandler() {
         return mHandler;
     }
 
+    @Override
+    public Looper getLooper() {
+        return mSharedLooper != null ? mSharedLooper : super.getLooper();
+    }
+
+    @Override
+    public boolean quit() {
+        if (mSharedLooper != null) {
+            if (!mSharedLooperReleased) {
+                mSharedLooperReleased = true;
+                mHandler.removeCallbacksAndMessages(null);
+                mHandler.clearHeld();
+                JsThreadFactory.getInstance().releaseSharedLooper(mSharedLooper);
+            }
+            return true;
+        }
+        return super.quit();
+    }
+
+    public boolean isRunning() {
+        if (mSharedLooper != null) {
+            return !mSharedLooperReleased && mSharedLooper.getThread().isAlive();
+        }
+        return isAlive();
+    }
+
     public JsContext getJsContext() {
         return mJsContext;
     }
@@ -669,6 +726,7 @@ public class JsThread extends HandlerThread {
                 }
                 requestFocus();
                 page.setState(Page.STATE_VISIBLE);
+                mHandler.post(() -> mJsTimer.setPageVisible(page.pageId, true));
                 postExecuteScript(
                         "changeVisiblePage(" + page.pageId + ", " + JsUtils.toJsBoolean(visible)
                                 + ");");
@@ -691,6 +749,7 @@ public class JsThread extends HandlerThread {
                         "changeVisiblePage(" + page.pageId + ", " + JsUtils.toJsBoolean(visible)
                                 + ");");
                 Log.d(TAG, "hide page: " + page.getName());
+                mHandler.post(() -> mJsTimer.setPageVisible(page.pageId, false));
                 RuntimeLogManager.getDefault()
                         .logPageViewEnd(mAppInfo.getPackage(), page.getName());
             } else {
@@ -737,21 +796,27 @@ public class JsThread extends HandlerThread {
         RuntimeLogManager.getDefault().logPageLoadStart(mAppInfo.getPackage(), page.getName());
         RoutableInfo routableInfo = page.getRoutableInfo();
         final String jsuri = routableInfo.getUri();
-        final Source jssource;
-        if (UriUtils.isAssetUri(jsuri)) {
-            jssource = new AssetSource(mContext, UriUtils.getAssetPath(jsuri));
-        } else {
-            jssource = new RpkSource(mContext, mAppInfo.getPackage(), jsuri);
+        final Source jssource =
+                PagePrerenderer.createJsSource(mContext, mAppInfo.getPackage(), jsuri);
+        final Source csssource =
+                PagePrerenderer.createCssSource(mContext, mAppInfo.getPackage(), jsuri);
+        final PagePrerenderer.Entry prerendered =
+                mPrerenderer == null ? null : mPrerenderer.take(jsuri);
+        if (mPrerenderer != null) {
+            mPrerenderer.recordNavigation(page.getReferrer(), page);
         }
-        final String cssuri = jsuri.replace(".js", ".css.json");
-        final Source csssource = new RpkSource(mContext, mAppInfo.getPackage(), cssuri);
+        page.onLoadStart(MetricsRegistry.start(), prerendered != null);
         mMainHandler.obtainMessage(RootView.MSG_LOAD_PAGE_JS_START, page).sendToTarget();
-        Executors.io()
+        Executors.priority(PriorityScheduler.Priority.USER_BLOCKING)
                 .execute(
                         new AbsTask<String[]>() {
                             @Override
                             protected String[] doInBackground() {
                                 mJsChunksManager.registerPageChunks(page);
+                                if (prerendered != null) {
+                                    registerStyleSheets(prerendered.styleSheets, page);
+                                    return new String[] {prerendered.js, prerendered.css};
+                                }
                                 String js = JavascriptReader.get().read(jssource);
                                 String css = TextReader.get().read(csssource);
                                 parseStyleSheets(css, page);
@@ -771,16 +836,26 @@ public class JsThread extends HandlerThread {
                                         .sendToTarget();
                                 postCreatePage(page, contents[0], jsuri, contents[1]);
                                 Log.d(TAG, "loadPage onPostExecute uri=" + jsuri + " result="
-                                        + result);
+                                        + result + " prerendered=" + (prerendered != null));
                             }
                         });
     }
 
+    /**
+     * Called in main thread when the first frame of page is rendered, the likely next pages are
+     * prepared from now on.
+     */
+    public void onPageFirstFrame(Page page) {
+        if (mPrerenderer != null) {
+            mPrerenderer.prerenderNext(page);
+        }
+    }
+
     private void parseStyleSheets(String css, Page page) {
         if (TextUtils.isEmpty(css)) {
             return;
         }
-        Executors.io()
+        Executors.priority(PriorityScheduler.Priority.USER_BLOCKING)
                 .execute(
                         new AbsTask<Void>() {
                             @Override
@@ -788,28 +863,7 @@ public class JsThread extends HandlerThread {
                                 RuntimeLogManager.getDefault()
                                         .logAsyncThreadTaskStart(mAppInfo.getPackage(),
                                                 "parseStyleSheets");
-                                try {
-                                    org.hapjs.common.json.JSONObject styles =
-                                            new org.hapjs.common.json.JSONObject(css);
-                                    org.hapjs.common.json.JSONArray styleList =
-                                            styles.getJSONArray("list");
-                                    int n = styleList.length();
-                                    for (int i = 0; i < n; i++) {
-                                        org.hapjs.common.json.JSONObject styleSheetPlain =
-                                                styleList.getJSONObject(i);
-                                        CSSStyleSheet styleSheet =
-                                                CSSParser.parseCSSStyleSheet(styleSheetPlain);
-
-                                        // 注册样式表
-                                        RenderActionDocument document =
-                                                mRenderActionManager
-                                                        .getOrCreateDocument(page.getPageId());
-                                        document.registerStyleSheet(styleSheet.getStyleObjectId(),
-                                                styleSheet);
-                                    }
-                                } catch (JSONException e) {
-                                    Log.e(TAG, "parse css failed: " + e.getMessage());
-                                }
+                                registerStyleSheets(PagePrerenderer.parseStyleSheets(css), page);
                                 RuntimeLogManager.getDefault()
                                         .logAsyncThreadTaskEnd(mAppInfo.getPackage(),
                                                 "parseStyleSheets");
@@ -818,6 +872,18 @@ public class JsThread extends HandlerThread {
                         });
     }
 
+    private void registerStyleSheets(List<CSSStyleSheet> styleSheets, Page page) {
+        if (styleSheets.isEmpty()) {
+            return;
+        }
+        // 注册样式表
+        RenderActionDocument document =
+                mRenderActionManager.getOrCreateDocument(page.getPageId());
+        for (CSSStyleSheet styleSheet : styleSheets) {
+            document.registerStyleSheet(styleSheet.getStyleObjectId(), styleSheet);
+        }
+    }
+
     private void postCreatePage(Page page, String js, String uri, String css) {
         Object[] params = new Object[] {page, js, uri, css};
         Message.obtain(mHandler, H.MSG_CREATE_PAGE, params).sendToTarget();
@@ -858,17 +924,17 @@ public class JsThread extends HandlerThread {
                 skeletonProvider = new DefaultSkeletonProviderImpl(mContext);
             }
             if (skeletonProvider.isSkeletonEnable(mAppInfo.getPackage())) {
-                Executors.io()
+                Executors.priority(PriorityScheduler.Priority.USER_BLOCKING)
                         .execute(
-                                new AbsTask<JSONObject>() {
+                                new AbsTask<SkeletonDisplayList.Clip>() {
                                     @Override
-                                    protected JSONObject doInBackground() {
+                                    protected SkeletonDisplayList.Clip doInBackground() {
                                         RpkSource skeletonConfigSource =
                                                 new RpkSource(mContext, mAppInfo.getPackage(),
                                                         "skeleton/config.json");
                                         String skeletonConfig =
                                                 TextReader.get().read(skeletonConfigSource);
-                                        JSONObject parseResult = null;
+                                        SkeletonDisplayList.Clip parseResult = null;
                                         if (!TextUtils.isEmpty(skeletonConfig)) {
                                             String skFileName =
                                                     SkeletonConfigParser.getSkeletonFileName(page,
@@ -878,35 +944,16 @@ public class JsThread extends HandlerThread {
                                                     "LOG_SKELETON parse skeleton config, current page is "
                                                             + page.getName());
                                             if (!TextUtils.isEmpty(skFileName)) {
-                                                // read and parse sk file
+                                                // load compiled sk file
                                                 String skFilePathName =
                                                         "skeleton/page/" + skFileName;
-                                                RpkSource skFileSource =
-                                                        new RpkSource(mContext,
+                                                Log.i(TAG,
+                                                        "LOG_SKELETON load sk file, path = "
+                                                                + skFilePathName);
+                                                parseResult =
+                                                        SkeletonDisplayList.load(mContext,
                                                                 mAppInfo.getPackage(),
                                                                 skFilePathName);
-                                                InputStream inputStream = null;
-                                                try {
-                                                    Log.i(TAG,
-                                                            "LOG_SKELETON parse sk file, path = "
-                                                                    + skFilePathName);
-                                                    inputStream = skFileSource.open();
-                                                    parseResult =
-                                                            SkeletonDSLParser.parse(inputStream);
-                                                } catch (Exception e) {
-                                                    Log.e(TAG, "LOG_SKELETON parse sk file fail, ",
-                                                            e);
-                                                } finally {
-                                                    if (inputStream != null) {
-                                                        try {
-                                                            inputStream.close();
-                                                        } catch (IOException ioe) {
-                                                            Log.e(TAG,
-                                                                    "LOG_SKELETON close sk inputStream fail, ",
-                                                                    ioe);
-                                                        }
-                                                    }
-                                                }
                                             } else {
                                                 Log.i(TAG,
                                                         "LOG_SKELETON no matching sk file for current page");
@@ -919,7 +966,8 @@ public class JsThread extends HandlerThread {
                                     }
 
                                     @Override
-                                    protected void onPostExecute(JSONObject parseResult) {
+                                    protected void onPostExecute(
+                                            SkeletonDisplayList.Clip parseResult) {
                                         if (mRenderActionManager != null) {
                                             mRenderActionManager.showSkeleton(mAppInfo.getPackage(),
                                                     parseResult);
@@ -1043,7 +1091,11 @@ public class JsThread extends HandlerThread {
     }
 
     public void postFireEvent(JsEventCallbackData data) {
-        Message.obtain(mHandler, JsThread.H.MSG_FIRE_EVENT, data).sendToTarget();
+        JsEventCallbackData event = mEventQueue.offer(data);
+        if (event != data) {
+            EVENT_MERGED_COUNTER.increment();
+        }
+        Message.obtain(mHandler, JsThread.H.MSG_FIRE_EVENT, event).sendToTarget();
     }
 
     public void postFireEvent(
@@ -1063,15 +1115,26 @@ public class JsThread extends HandlerThread {
         mHandler.postAtFrontOfQueue(runnable);
     }
 
+    private void fireQueuedEvent(JsEventCallbackData data) {
+        // merged into a newer event, which is fired by its own message
+        if (!mEventQueue.remove(data)) {
+            return;
+        }
+        long start = MetricsRegistry.start();
+        fireEvent(data.pageId, Collections.singletonList(data), null);
+        EVENT_TIMER.stop(start);
+    }
+
     private void fireEvent(
             int pageId, List<JsEventCallbackData> datas,
             RenderEventCallback.EventPostListener listener) {
+        datas = JsEventQueue.coalesce(datas);
         V8 v8 = mJsContext.getV8();
         V8Array args = new V8Array(v8);
         args.push(pageId); // pageId
 
         V8Array events = new V8Array(v8);
-        List<V8Value> releaseObj = new ArrayList<>();
+        List<V8Value> releaseObj = new ArrayList<>(datas.size() * 4 + 1);
         for (JsEventCallbackData data : datas) {
             V8Object event = new V8Object(v8);
             event.add("action", 1); // action
@@ -1113,36 +1176,6 @@ public class JsThread extends HandlerThread {
         }
     }
 
-    private void fireEvent(JsEventCallbackData data) {
-        V8 v8 = mJsContext.getV8();
-        V8Array args = new V8Array(v8);
-        args.push(data.pageId);
-
-        V8Array events = new V8Array(v8);
-        V8Object event = new V8Object(v8);
-
-        event.add("action", 1);
-
-        V8Array eventArg = new V8Array(v8);
-        eventArg.push(data.elementId);
-        eventArg.push(data.eventName);
-        V8Object paramsObj = JsUtils.mapToV8Object(v8, data.params);
-        eventArg.push(paramsObj);
-        V8Object attributesObj = JsUtils.mapToV8Object(v8, data.attributes);
-        eventArg.push(attributesObj);
-        event.add("args", eventArg);
-        events.push(event);
-        args.push(events);
-
-        try {
-            v8.executeVoidFunction("execJSBatch", args);
-        } catch (V8RuntimeException ex) {
-            processV8Exception(ex);
-        } finally {
-            JsUtils.release(args, events, event, eventArg, paramsObj, attributesObj);
-        }
-    }
-
     private void fireKeyEvent(JsEventCallbackData data) {
         V8 v8 = mJsContext.getV8();
         V8Array args = new V8Array(v8);
@@ -1177,6 +1210,7 @@ public class JsThread extends HandlerThread {
     }
 
     void fireCallback(JsMethodCallbackData data) {
+        long start = MetricsRegistry.start();
         V8 v8 = mJsContext.getV8();
         V8Array args = new V8Array(v8);
         args.push(data.pageId);
@@ -1204,6 +1238,7 @@ public class JsThread extends HandlerThread {
             processV8Exception(ex);
         } finally {
             JsUtils.release(args, methodArray, methodObject, callbackArgs, callbackArgsParams);
+            CALLBACK_TIMER.stop(start);
         }
     }
 
@@ -1226,12 +1261,20 @@ public class JsThread extends HandlerThread {
     }
 
     private void doBlock() {
+        if (mSharedLooper != null) {
+            // blocking the shared looper would stop other cards, hold our messages instead
+            mHandler.suspend();
+            return;
+        }
         mBlocker.close();
         mBlocker.block();
     }
 
     public void unblock() {
-        mHandler.removeMessages(H.MSG_BLOCK);
+        mHandler.removeMessagesAndHeld(H.MSG_BLOCK);
+        if (mSharedLooper != null) {
+            mHandler.sendMessageAtFrontOfQueue(Message.obtain(mHandler, H.MSG_UNBLOCK));
+        }
         mBlocker.open();
         mBlocked = false;
     }
@@ -1264,6 +1307,9 @@ public class JsThread extends HandlerThread {
             mCallback.onRuntimeDestroy();
         }
         mRenderActionManager.release();
+        if (mPrerenderer != null) {
+            mPrerenderer.release();
+        }
         JsUtils.release(mJsTimer, mJsBridgeHistory, mProfiler);
         mExtensionManager.dispose();
         mJsContext.dispose();
@@ -1443,6 +1489,7 @@ public class JsThread extends HandlerThread {
         private static final int MSG_PAGE_REACH_BOTTOM = 30;
         private static final int MSG_FIRE_KEY_EVENT = 31;
         private static final int MSG_ON_MENU_BUTTON_PRESS = 32;
+        private static final int MSG_UNBLOCK = 33;
 
         private final List<Integer> mApplicationMessages =
                 Arrays.asList(
@@ -1460,15 +1507,154 @@ public class JsThread extends HandlerThread {
                         MSG_FIRE_CALLBACK,
                         MSG_ORIENTATION_CHANGE);
 
+        // messages of this runtime held while it is blocked, replayed in order on unblock
+        private List<Message> mHeldMessages;
+        private boolean mSuspended;
+        // messages dispatched before this time are put back to the queue at this time
+        private long mThrottledUntil;
+        private long mSliceStart;
+        private long mSliceUsed;
+
         H(Looper looper) {
             super(looper);
         }
 
+        void suspend() {
+            mSuspended = true;
+        }
+
+        /**
+         * Remove the messages of {@code what} in the queue and the ones held while blocked.
+         */
+        public void removeMessagesAndHeld(int what) {
+            removeMessages(what);
+            if (mHeldMessages == null) {
+                return;
+            }
+            Iterator<Message> it = mHeldMessages.iterator();
+            while (it.hasNext()) {
+                Message msg = it.next();
+                if (msg.what == what && msg.getCallback() == null) {
+                    it.remove();
+                    msg.recycle();
+                }
+            }
+        }
+
+        /**
+         * Remove the pending posts of {@code r} in the queue and the ones held while blocked.
+         */
+        public void removeCallbacksAndHeld(Runnable r) {
+            removeCallbacks(r);
+            if (mHeldMessages == null) {
+                return;
+            }
+            Iterator<Message> it = mHeldMessages.iterator();
+            while (it.hasNext()) {
+                Message msg = it.next();
+                if (msg.getCallback() == r) {
+                    it.remove();
+                    msg.recycle();
+                }
+            }
+        }
+
+        void clearHeld() {
+            if (mHeldMessages == null) {
+                return;
+            }
+            for (Message msg : mHeldMessages) {
+                msg.recycle();
+            }
+            mHeldMessages = null;
+        }
+
+        /**
+         * Dispatch the held messages in place, before anything else of this runtime in the queue.
+         */
+        private void dispatchHeld() {
+            mSuspended = false;
+            List<Message> messages = mHeldMessages;
+            mHeldMessages = null;
+            if (messages == null) {
+                return;
+            }
+            for (Message msg : messages) {
+                dispatchMessage(msg);
+                msg.recycle();
+            }
+        }
+
+        @Override
+        public void dispatchMessage(Message msg) {
+            if (mSharedLooper == null) {
+                super.dispatchMessage(msg);
+                return;
+            }
+            if (mSharedLooperReleased) {
+                // the looper is still serving other cards, drop what's left for this runtime
+                return;
+            }
+            if (msg.what == MSG_UNBLOCK && msg.getCallback() == null) {
+                dispatchHeld();
+                return;
+            }
+            if (msg.what == MSG_SHUTDOWN && msg.getCallback() == null) {
+                // destroy messages queued before shutdown must run first
+                dispatchHeld();
+            } else if (mSuspended) {
+                if (mHeldMessages == null) {
+                    mHeldMessages = new ArrayList<>();
+                }
+                mHeldMessages.add(Message.obtain(msg));
+                return;
+            }
+            long start = SystemClock.uptimeMillis();
+            if (start < mThrottledUntil) {
+                // stay in the queue, so it can still be removed, behind what other cards queued
+                sendMessageAtTime(Message.obtain(msg), mThrottledUntil);
+                return;
+            }
+            try {
+                super.dispatchMessage(msg);
+            } finally {
+                onSharedMessageDispatched(start, SystemClock.uptimeMillis());
+            }
+        }
+
+        /**
+         * Keeps one card from monopolizing the shared looper. A runtime using up its slice yields
+         * the rest of the window to the messages queued by other cards, and a runtime running a
+         * single task too long gets a dedicated thread next time it is created.
+         */
+        private void onSharedMessageDispatched(long start, long end) {
+            long cost = end - start;
+            if (cost >= SHARED_LONG_TASK_MS && mAppInfo != null) {
+                Log.w(TAG, "task of " + mAppInfo.getPackage() + " blocked shared looper for "
+                        + cost + "ms");
+                JsThreadFactory.getInstance().isolate(mAppInfo.getPackage());
+            }
+            if (end - mSliceStart >= SHARED_SLICE_WINDOW_MS) {
+                mSliceStart = start;
+                mSliceUsed = 0;
+            }
+            mSliceUsed += cost;
+            if (mSliceUsed >= SHARED_SLICE_BUDGET_MS) {
+                // yield at least once, even if a single task used up the whole window
+                mThrottledUntil = Math.max(mSliceStart + SHARED_SLICE_WINDOW_MS, end + 1);
+                mSliceStart = mThrottledUntil;
+                mSliceUsed = 0;
+            }
+        }
+
         @Override
         public void handleMessage(Message msg) {
             if ((mApplicationState == STATE_NONE || mApplicationState == STATE_DESTROYED)
                     && Collections.binarySearch(mApplicationMessages, msg.what) >= 0) {
                 // not handle application msg when runtime is not initialized or is destroying
+                if (msg.what == MSG_FIRE_EVENT) {
+                    mEventQueue.remove((JsEventCallbackData) msg.obj);
+                }
                 return;
             }
             switch (msg.what) {
@@ -1562,7 +1748,7 @@ public class JsThread extends HandlerThread {
                     if (DebugUtils.DBG) {
                         DebugUtils.startRecord("JsThreadFireEvent");
                     }
-                    fireEvent((JsEventCallbackData) msg.obj);
+                    fireQueuedEvent((JsEventCallbackData) msg.obj);
                     if (DebugUtils.DBG) {
                         DebugUtils.endRecord("JsThreadFireEvent");
                     }
@@ -6,11 +6,20 @@
 package org.hapjs.render.jsruntime;
 
 import android.content.Context;
+import android.os.HandlerThread;
+import android.os.Looper;
+import java.util.HashSet;
+import java.util.Set;
 
 public class JsThreadFactory {
+    private static final String SHARED_THREAD_NAME = "CardJsThread";
 
     private final Object mLock;
     private JsThread mPreloadThread;
+    private HandlerThread mSharedThread;
+    private int mSharedThreadRefCount;
+    // packages which once blocked the shared thread too long, they get dedicated threads
+    private final Set<String> mIsolatedPackages = new HashSet<>();
 
     private JsThreadFactory() {
         mLock = new Object();
@@ -41,13 +50,59 @@ public class JsThreadFactory {
         return thread;
     }
 
+    /**
+     * Create a js runtime. Runtimes of cards share one thread to reduce the cost of showing many
+     * cards at the same time, unless the card has been isolated for blocking the shared thread.
+     */
+    public JsThread create(Context context, String pkg, boolean cardMode) {
+        if (!cardMode) {
+            return create(context);
+        }
+        synchronized (mLock) {
+            if (mIsolatedPackages.contains(pkg)) {
+                return load(context);
+            }
+        }
+        return new JsThread(getApplicationContext(context), acquireSharedLooper());
+    }
+
+    void isolate(String pkg) {
+        synchronized (mLock) {
+            mIsolatedPackages.add(pkg);
+        }
+    }
+
+    private Looper acquireSharedLooper() {
+        synchronized (mLock) {
+            if (mSharedThread == null) {
+                mSharedThread = new HandlerThread(SHARED_THREAD_NAME);
+                mSharedThread.start();
+            }
+            ++mSharedThreadRefCount;
+            return mSharedThread.getLooper();
+        }
+    }
+
+    void releaseSharedLooper(Looper looper) {
+        synchronized (mLock) {
+            if (mSharedThread == null || mSharedThread.getLooper() != looper) {
+                return;
+            }
+            if (--mSharedThreadRefCount <= 0) {
+                mSharedThread.quitSafely();
+                mSharedThread = null;
+                mSharedThreadRefCount = 0;
+            }
+        }
+    }
+
     private JsThread load(Context context) {
+        return new JsThread(getApplicationContext(context));
+    }
+
+    private Context getApplicationContext(Context context) {
         Context applicationContext = context.getApplicationContext();
-        if (applicationContext != null) {
-            return new JsThread(applicationContext);
-        } else {
-            return new JsThread(context);
-        }
+        return applicationContext != null ? applicationContext : context;
     }
 
     private static class Holder {
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.jsruntime;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.hapjs.common.executors.Executors;
+import org.hapjs.common.executors.PriorityScheduler;
+import org.hapjs.common.utils.UriUtils;
+import org.hapjs.io.AssetSource;
+import org.hapjs.io.JavascriptReader;
+import org.hapjs.io.RpkSource;
+import org.hapjs.io.Source;
+import org.hapjs.io.TextReader;
+import org.hapjs.model.AppInfo;
+import org.hapjs.model.PageInfo;
+import org.hapjs.model.RouterInfo;
+import org.hapjs.render.Page;
+import org.hapjs.render.css.CSSParser;
+import org.hapjs.render.css.CSSStyleSheet;
+import org.json.JSONException;
+
+/**
+ * Prepares the likely next pages of the current page while the app is idle.
+ *
+ * <p>Candidates are the pages declared in the "prerender" list of the page in manifest, and the
+ * page most often navigated to from the current page in this session. Their js and css are read
+ * and the style sheets are parsed ahead, so that {@link JsThread#loadPage(Page)} can create the
+ * page without waiting for io. The page script isn't executed until navigation, so no lifecycle
+ * is fired for a page the user never opens. Prepared pages are kept within {@link #MAX_BUDGET}
+ * and dropped on memory pressure.
+ */
+class PagePrerenderer implements ComponentCallbacks2 {
+    private static final String TAG = "PagePrerenderer";
+
+    private static final int MAX_CANDIDATES = 2;
+    private static final int MIN_LEARNED_COUNT = 2;
+    // 按字符串字符数估算, 约 4MB
+    private static final long MAX_BUDGET = 2 * 1024 * 1024;
+
+    private final Context mContext;
+    private final AppInfo mAppInfo;
+    private final Map<String, Entry> mEntries = new LinkedHashMap<>();
+    private final Map<String, Map<String, Integer>> mTransitions = new HashMap<>();
+    private long mSize;
+    private boolean mReleased;
+
+    PagePrerenderer(Context context, AppInfo appInfo) {
+        mContext = context.getApplicationContext();
+        mAppInfo = appInfo;
+        mContext.registerComponentCallbacks(this);
+    }
+
+    static Source createJsSource(Context context, String pkg, String jsuri) {
+        if (UriUtils.isAssetUri(jsuri)) {
+            return new AssetSource(context, UriUtils.getAssetPath(jsuri));
+        } else {
+            return new RpkSource(context, pkg, jsuri);
+        }
+    }
+
+    static Source createCssSource(Context context, String pkg, String jsuri) {
+        return new RpkSource(context, pkg, jsuri.replace(".js", ".css.json"));
+    }
+
+    static List<CSSStyleSheet> parseStyleSheets(String css) {
+        if (TextUtils.isEmpty(css)) {
+            return Collections.emptyList();
+        }
+        List<CSSStyleSheet> styleSheets = new ArrayList<>();
+        try {
+            org.hapjs.common.json.JSONObject styles = new org.hapjs.common.json.JSONObject(css);
+            org.hapjs.common.json.JSONArray styleList = styles.getJSONArray("list");
+            int n = styleList.length();
+            for (int i = 0; i < n; i++) {
+                styleSheets.add(CSSParser.parseCSSStyleSheet(styleList.getJSONObject(i)));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "parse css failed: " + e.getMessage());
+        }
+        return styleSheets;
+    }
+
+    /**
+     * Record a navigation, must be called in main thread.
+     */
+    void recordNavigation(Page from, Page to) {
+        if (from == null || to == null) {
+            return;
+        }
+        Map<String, Integer> targets = mTransitions.get(from.getName());
+        if (targets == null) {
+            targets = new HashMap<>();
+            mTransitions.put(from.getName(), targets);
+        }
+        Integer count = targets.get(to.getName());
+        targets.put(to.getName(), count == null ? 1 : count + 1);
+    }
+
+    /**
+     * Prepare the likely next pages of page when main thread becomes idle, must be called in main
+     * thread.
+     */
+    void prerenderNext(Page page) {
+        List<PageInfo> candidates = getCandidates(page);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Looper.myQueue()
+                .addIdleHandler(
+                        () -> {
+                            for (PageInfo pageInfo : candidates) {
+                                prerender(pageInfo);
+                            }
+                            return false;
+                        });
+    }
+
+    /**
+     * Take the prepared sources of the page, the entry is removed since its style sheets are
+     * registered to the page.
+     *
+     * @return the prepared sources, or null if not prepared yet
+     */
+    synchronized Entry take(String jsuri) {
+        Entry entry = mEntries.remove(jsuri);
+        if (entry != null) {
+            mSize -= entry.size;
+        }
+        return entry;
+    }
+
+    synchronized void clear() {
+        mEntries.clear();
+        mSize = 0;
+    }
+
+    void release() {
+        synchronized (this) {
+            mReleased = true;
+            clear();
+        }
+        mContext.unregisterComponentCallbacks(this);
+    }
+
+    private List<PageInfo> getCandidates(Page page) {
+        RouterInfo routerInfo = mAppInfo.getRouterInfo();
+        if (routerInfo == null || !(page.getRoutableInfo() instanceof PageInfo)) {
+            return Collections.emptyList();
+        }
+        List<PageInfo> candidates = new ArrayList<>(MAX_CANDIDATES);
+        List<String> declared = ((PageInfo) page.getRoutableInfo()).getPrerenderPages();
+        for (String name : declared) {
+            addCandidate(candidates, routerInfo.getPageInfoByName(name), page);
+        }
+        Map<String, Integer> targets = mTransitions.get(page.getName());
+        if (targets != null) {
+            String learned = null;
+            int maxCount = MIN_LEARNED_COUNT - 1;
+            for (Map.Entry<String, Integer> target : targets.entrySet()) {
+                if (target.getValue() > maxCount) {
+                    learned = target.getKey();
+                    maxCount = target.getValue();
+                }
+            }
+            if (learned != null) {
+                addCandidate(candidates, routerInfo.getPageInfoByName(learned), page);
+            }
+        }
+        return candidates;
+    }
+
+    private void addCandidate(List<PageInfo> candidates, PageInfo pageInfo, Page current) {
+        if (pageInfo == null
+                || candidates.size() >= MAX_CANDIDATES
+                || candidates.contains(pageInfo)
+                || pageInfo == current.getRoutableInfo()) {
+            return;
+        }
+        candidates.add(pageInfo);
+    }
+
+    private void prerender(PageInfo pageInfo) {
+        String jsuri = pageInfo.getUri();
+        synchronized (this) {
+            if (mReleased || mEntries.containsKey(jsuri)) {
+                return;
+            }
+        }
+        String pkg = mAppInfo.getPackage();
+        Executors.priority(PriorityScheduler.Priority.BACKGROUND)
+                .execute(
+                        () -> {
+                            String js = JavascriptReader.get()
+                                    .read(createJsSource(mContext, pkg, jsuri));
+                            if (TextUtils.isEmpty(js)) {
+                                return;
+                            }
+                            String css = TextReader.get()
+                                    .read(createCssSource(mContext, pkg, jsuri));
+                            put(jsuri, new Entry(js, css, parseStyleSheets(css)));
+                        });
+    }
+
+    private synchronized void put(String jsuri, Entry entry) {
+        if (mReleased || entry.size > MAX_BUDGET) {
+            return;
+        }
+        Entry old = mEntries.put(jsuri, entry);
+        if (old != null) {
+            mSize -= old.size;
+        }
+        mSize += entry.size;
+        Iterator<Entry> it = mEntries.values().iterator();
+        while (mSize > MAX_BUDGET && it.hasNext()) {
+            mSize -= it.next().size;
+            it.remove();
+        }
+        Log.d(TAG, "prerendered " + jsuri + ", size=" + mSize);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            clear();
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // ignore
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    static class Entry {
+        final String js;
+        final String css;
+        final List<CSSStyleSheet> styleSheets;
+        final long size;
+
+        Entry(String js, String css, List<CSSStyleSheet> styleSheets) {
+            this.js = js;
+            this.css = css;
+            this.styleSheets = styleSheets;
+            // 解析后的样式表按 css 原文大小估算
+            this.size = js.length() + (css == null ? 0 : css.length() * 2L);
+        }
+    }
+}
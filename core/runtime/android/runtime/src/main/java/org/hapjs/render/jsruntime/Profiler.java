@@ -15,11 +15,8 @@ import com.eclipsesource.v8.V8Value;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.hapjs.common.executors.Executors;
 import org.hapjs.common.executors.ScheduledExecutor;
 import org.hapjs.common.utils.FileUtils;
@@ -31,8 +28,14 @@ public class Profiler extends V8Object {
 
     private static final String TAG = "Profiler";
 
-    // 基于时间点和事件的 Profiler 文本文件
-    private static final String FILE_NAME_TIMELINE = "profiler_log.txt";
+    // 基于时间点和事件的 Profiler 二进制记录目录
+    private static final String DIR_NAME_TIMELINE = "profiler_trace";
+
+    // 导出的 chrome trace event 格式文件
+    private static final String FILE_NAME_TIMELINE = "profiler_trace.json";
+
+    // 导出的上次运行的 chrome trace event 格式文件
+    private static final String FILE_NAME_PREV_TIMELINE = "profiler_trace_prev.json";
 
     // 基于火焰图的 Profile 火焰图文件
     private static final String FILE_NAME_FLAME = "framework.cpuprofile";
@@ -40,10 +43,13 @@ public class Profiler extends V8Object {
     private static final String KEY_APP_START = "app_start";
 
     private static ScheduledExecutor sExecutor = Executors.createSingleThreadExecutor();
-    private static Map<String, Long> mMsgMap = new HashMap<>();
+    private static Map<String, Long> mMsgMap = new ConcurrentHashMap<>();
+    private static volatile TraceRecorder sRecorder;
 
     private static boolean sIsAllowProfiler;
     private static boolean sIsCached;
+    // accessed by sExecutor only
+    private static boolean sPrevTimelineExported;
     public final JavaCallback isEnabled = (v8Object, v8Array) -> sIsAllowProfiler;
     public final JavaVoidCallback saveProfilerData =
             (v8Object, args) -> {
@@ -52,101 +58,111 @@ public class Profiler extends V8Object {
                     return;
                 }
                 String profilerData = toMsg(args);
-                sExecutor.execute(() -> writeFlameDataToFile(profilerData));
+                sExecutor.execute(
+                        () -> {
+                            writeFlameDataToFile(profilerData);
+                            exportTimeline();
+                            if (!sPrevTimelineExported) {
+                                sPrevTimelineExported = true;
+                                exportPreviousTimeline();
+                            }
+                        });
             };
-    private long mThreadId;
     public final JavaVoidCallback record =
             (v8Object, args) -> {
                 if (!sIsAllowProfiler) {
-                    Log.d(TAG, "record: not allow profiler");
                     return;
                 }
-                String msg = toMsg(args);
-                sExecutor.execute(() -> writeToFile(getContent("record", msg, mThreadId)));
+                long currentTime = System.nanoTime();
+                getRecorder().record(TraceRecorder.TYPE_INSTANT, toMsg(args), currentTime);
             };
     public final JavaVoidCallback time =
             (v8Object, args) -> {
                 if (!sIsAllowProfiler) {
-                    Log.d(TAG, "time: not allow profiler");
                     return;
                 }
                 long currentTime = System.nanoTime();
-                String msg = toMsg(args);
-                sExecutor.execute(
-                        () -> {
-                            String key = mThreadId + "_" + msg;
-                            mMsgMap.put(key, currentTime);
-                        });
+                getRecorder().record(TraceRecorder.TYPE_BEGIN, toMsg(args), currentTime);
             };
 
     public final JavaVoidCallback timeEnd =
             (v8Object, args) -> {
                 if (!sIsAllowProfiler) {
-                    Log.d(TAG, "timeEnd: not allow profiler");
                     return;
                 }
                 long currentTime = System.nanoTime();
-                String msg = toMsg(args);
-                sExecutor.execute(
-                        () -> {
-                            String key = mThreadId + "_" + msg;
-                            String content;
-                            if (mMsgMap.containsKey(key)) {
-                                content = getContent("timeEnd", msg, mThreadId) + ": "
-                                        + getCost(currentTime, key);
-                            } else {
-                                content = getContent("timeEnd", msg, mThreadId)
-                                        + ": don't match the time flag";
-                            }
-                            writeToFile(content);
-                        });
+                getRecorder().record(TraceRecorder.TYPE_END, toMsg(args), currentTime);
             };
 
-    public Profiler(V8 v8, long threadId) {
+    public Profiler(V8 v8) {
         super(v8);
-        mThreadId = threadId;
     }
 
     public static void recordAppStart(long time) {
         mMsgMap.put(KEY_APP_START, time);
     }
 
-    public static void recordFirstFrameRendered(long time, long threadId) {
+    public static void recordFirstFrameRendered(long time) {
         if (!sIsAllowProfiler) {
-            Log.d(TAG, "recordFirstFrameRendered: not allow profiler");
             return;
         }
-        sExecutor.execute(
-                () -> {
-                    if (mMsgMap.containsKey(KEY_APP_START)) {
-                        writeToFile(getContent("first frame rendered", getCost(time, KEY_APP_START),
-                                threadId));
-                    }
-                });
+        Long appStart = mMsgMap.remove(KEY_APP_START);
+        TraceRecorder recorder = getRecorder();
+        if (appStart != null) {
+            recorder.record(TraceRecorder.TYPE_BEGIN, "first frame rendered", appStart);
+            recorder.record(TraceRecorder.TYPE_END, "first frame rendered", time);
+        }
     }
 
-    private static String getCost(long time, String key) {
-        Long value = mMsgMap.remove(key);
-        if (value != null) {
-            long cost = time - value;
-            return String.format(Locale.getDefault(), "%.1f", cost / 1000000f) + "ms";
+    private static TraceRecorder getRecorder() {
+        TraceRecorder recorder = sRecorder;
+        if (recorder == null) {
+            synchronized (Profiler.class) {
+                recorder = sRecorder;
+                if (recorder == null) {
+                    File dir = Runtime.getInstance().getContext().getExternalFilesDir(null);
+                    recorder = new TraceRecorder(
+                            dir == null ? null : new File(dir, DIR_NAME_TIMELINE), sExecutor);
+                    sRecorder = recorder;
+                }
+            }
         }
-        return "";
+        return recorder;
     }
 
-    private static void writeToFile(String content) {
+    /**
+     * Export the recorded timeline to chrome trace event format, which can be opened by
+     * chrome://tracing or perfetto.
+     */
+    public static void exportTimeline() {
+        TraceRecorder recorder = sRecorder;
+        File dir = Runtime.getInstance().getContext().getExternalFilesDir(null);
+        if (recorder == null || dir == null) {
+            return;
+        }
         try {
-            File logFile =
-                    new File(
-                            Runtime.getInstance().getContext().getExternalFilesDir(null),
-                            FILE_NAME_TIMELINE);
-            if (!logFile.exists()) {
-                logFile.createNewFile();
-            }
-            String finalContent = content + "\n";
-            FileUtils.saveToFile(finalContent.getBytes(StandardCharsets.UTF_8), logFile, true);
+            recorder.exportChromeTrace(new File(dir, FILE_NAME_TIMELINE));
         } catch (IOException e) {
-            Log.e(TAG, "write to file failed", e);
+            Log.e(TAG, "export timeline failed", e);
+        }
+    }
+
+    /**
+     * Export the timeline recorded by the previous run, e.g. the one before a crash, to chrome
+     * trace event format.
+     */
+    public static void exportPreviousTimeline() {
+        File dir = Runtime.getInstance().getContext().getExternalFilesDir(null);
+        if (!sIsAllowProfiler || dir == null) {
+            return;
+        }
+        // the recorder keeps the trace of the previous run when created
+        getRecorder();
+        try {
+            TraceRecorder.exportPreviousChromeTrace(
+                    new File(dir, DIR_NAME_TIMELINE), new File(dir, FILE_NAME_PREV_TIMELINE));
+        } catch (IOException e) {
+            Log.e(TAG, "export previous timeline failed", e);
         }
     }
 
@@ -180,16 +196,6 @@ public class Profiler extends V8Object {
                 });
     }
 
-    private static String getContent(String prefix, String msg, long threadId) {
-        return getCurrentTime() + " " + threadId + " " + prefix + ": " + msg;
-    }
-
-    private static String getCurrentTime() {
-        Date date = new Date(System.currentTimeMillis());
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-        return sdf.format(date);
-    }
-
     private static String toMsg(V8Array args) {
         if (args == null || args.length() == 0) {
             return "";
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.jsruntime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Timers of {@link JsBridgeTimer} ordered by fire time, without any dependency on the thread they
+ * run on.
+ *
+ * <p>Timers of a hidden page are throttled to fire at most once per {@link
+ * #HIDDEN_TIMER_INTERVAL}. Timers of the app ({@link #NO_PAGE}) are throttled the same way while
+ * the app is in background, i.e. after its last visible page is hidden.
+ */
+class TimerQueue {
+    static final int NO_PAGE = -1;
+    // timers of hidden pages are aligned to this interval
+    static final long HIDDEN_TIMER_INTERVAL = 1000;
+
+    private final Map<Integer, Timer> mTimers = new HashMap<>();
+    private final PriorityQueue<Timer> mQueue = new PriorityQueue<>();
+    private final Set<Integer> mHiddenPages = new HashSet<>();
+    private final Set<Integer> mVisiblePages = new HashSet<>();
+    private boolean mAppHidden;
+    private long mSequence;
+
+    void add(int pageId, int id, boolean isRepeat, int time, long now) {
+        cancel(id);
+        Timer timer = new Timer(pageId, id, isRepeat, time, now);
+        timer.sequence = mSequence++;
+        mTimers.put(id, timer);
+        mQueue.add(timer);
+    }
+
+    void cancel(int id) {
+        Timer timer = mTimers.remove(id);
+        if (timer != null) {
+            timer.cancelled = true;
+            mQueue.remove(timer);
+        }
+    }
+
+    void clearPage(int pageId) {
+        Iterator<Timer> it = mQueue.iterator();
+        while (it.hasNext()) {
+            Timer timer = it.next();
+            if (timer.pageId == pageId) {
+                timer.cancelled = true;
+                it.remove();
+                mTimers.remove(timer.id);
+            }
+        }
+        mHiddenPages.remove(pageId);
+        mVisiblePages.remove(pageId);
+    }
+
+    /**
+     * @return whether any page or the app became visible, so held work should be resumed
+     */
+    boolean setPageVisible(int pageId, boolean visible) {
+        if (pageId == NO_PAGE) {
+            return false;
+        }
+        if (!visible) {
+            mVisiblePages.remove(pageId);
+            mHiddenPages.add(pageId);
+            if (mVisiblePages.isEmpty()) {
+                mAppHidden = true;
+            }
+            return false;
+        }
+        mVisiblePages.add(pageId);
+        boolean pageShown = mHiddenPages.remove(pageId);
+        boolean appShown = mAppHidden;
+        mAppHidden = false;
+        if (!pageShown && !appShown) {
+            return false;
+        }
+        List<Timer> released = new ArrayList<>();
+        Iterator<Timer> it = mQueue.iterator();
+        while (it.hasNext()) {
+            Timer timer = it.next();
+            if (timer.throttled
+                    && (timer.pageId == pageId || (appShown && timer.pageId == NO_PAGE))) {
+                it.remove();
+                released.add(timer);
+            }
+        }
+        for (Timer timer : released) {
+            timer.throttled = false;
+            timer.fireTime = timer.dueTime;
+            mQueue.add(timer);
+        }
+        return true;
+    }
+
+    boolean isPageHidden(int pageId) {
+        return pageId == NO_PAGE ? mAppHidden : mHiddenPages.contains(pageId);
+    }
+
+    /**
+     * @return the time the first timer should fire at, or {@link Long#MAX_VALUE} if no timer
+     */
+    long getNextFireTime() {
+        Timer first = mQueue.peek();
+        return first == null ? Long.MAX_VALUE : first.fireTime;
+    }
+
+    /**
+     * Remove the timers to be fired at {@code now}, in the order of fire time. Repeating timers
+     * are scheduled again, and timers of hidden pages are deferred to the next aligned tick, so
+     * they fire together.
+     */
+    List<Timer> pollExpired(long now) {
+        List<Timer> expired = null;
+        Timer timer;
+        while ((timer = mQueue.peek()) != null && timer.fireTime <= now) {
+            mQueue.poll();
+            if (!timer.throttled && isPageHidden(timer.pageId)) {
+                timer.throttled = true;
+                timer.fireTime = alignToHiddenInterval(now);
+                mQueue.add(timer);
+                continue;
+            }
+            timer.throttled = false;
+            if (expired == null) {
+                expired = new ArrayList<>();
+            }
+            expired.add(timer);
+            if (timer.isRepeat && timer.time > 0) {
+                timer.dueTime = nextDueTime(timer.dueTime, timer.time, now);
+                timer.fireTime = timer.dueTime;
+                timer.sequence = mSequence++;
+                mQueue.add(timer);
+            } else {
+                mTimers.remove(timer.id);
+            }
+        }
+        return expired;
+    }
+
+    private static long nextDueTime(long dueTime, int time, long now) {
+        long next = dueTime + time;
+        if (now >= next) {
+            next += ((now - next) / time + 1) * time;
+        }
+        return next;
+    }
+
+    private static long alignToHiddenInterval(long time) {
+        return (time / HIDDEN_TIMER_INTERVAL + 1) * HIDDEN_TIMER_INTERVAL;
+    }
+
+    static class Timer implements Comparable<Timer> {
+        final int pageId;
+        final int id;
+        final boolean isRepeat;
+        final int time;
+        // the time expected by js
+        long dueTime;
+        // the time to be fired, may be later than dueTime if throttled
+        long fireTime;
+        long sequence;
+        boolean throttled;
+        // may be cancelled by a previous callback of the same batch
+        boolean cancelled;
+
+        Timer(int pageId, int id, boolean isRepeat, int time, long now) {
+            this.pageId = pageId;
+            this.id = id;
+            this.isRepeat = isRepeat;
+            this.time = time;
+            this.dueTime = now + time;
+            this.fireTime = dueTime;
+        }
+
+        @Override
+        public int compareTo(Timer o) {
+            if (fireTime != o.fireTime) {
+                return fireTime < o.fireTime ? -1 : 1;
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+}
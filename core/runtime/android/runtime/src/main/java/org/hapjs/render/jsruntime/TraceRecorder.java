@@ -0,0 +1,453 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.jsruntime;
+
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.hapjs.common.executors.Executor;
+import org.hapjs.common.utils.FileUtils;
+
+/**
+ * Binary trace recorder used by {@link Profiler}.
+ *
+ * <p>Each thread writes into its own ring buffer, so recording takes no lock. Buffers are memory
+ * mapped files when possible, which keeps the latest events even if the process dies.
+ *
+ * <p>Messages of the framework embed numbers such as timestamps and costs, so they are split into
+ * a static key, in which each number is replaced by a placeholder, and the numbers, which are
+ * written into the event. Only the keys are interned into ids, the table of keys is bounded and
+ * saved to the names file by the given executor. The whole trace can be exported to the chrome
+ * trace event format on demand.
+ *
+ * <p>The trace of the previous run is moved to {@link #PREV_DIR_SUFFIX} instead of being deleted,
+ * so it can still be exported by {@link #exportPreviousChromeTrace(File, File)} after a crash.
+ */
+class TraceRecorder {
+    static final int TYPE_INSTANT = 0;
+    static final int TYPE_BEGIN = 1;
+    static final int TYPE_END = 2;
+
+    static final String PREV_DIR_SUFFIX = ".prev";
+
+    private static final String TAG = "TraceRecorder";
+    private static final String NAMES_FILE = "names.txt";
+    private static final String BUFFER_FILE_SUFFIX = ".trace";
+    private static final char ARG_PLACEHOLDER = '\u0000';
+    private static final int MAX_NAMES = 4096;
+    private static final int MAX_ARGS = 4;
+    // 超出 long 范围或以 0 开头的数字保留在 key 中
+    private static final int MAX_ARG_DIGITS = 18;
+    // key of the events recorded after the table of names is full
+    private static final String OVERFLOW_NAME = "(too many trace names)";
+    // thread id, event count
+    private static final int HEADER_SIZE = 16;
+    // timestamp, name id, type, arg count, args
+    private static final int EVENT_SIZE = 16 + 8 * MAX_ARGS;
+    private static final int BUFFER_SIZE = HEADER_SIZE + EVENT_SIZE * 16 * 1024;
+    // per thread cache of interned keys, must be a power of two
+    private static final int KEY_CACHE_SIZE = 256;
+
+    private final File mDir;
+    private final Executor mFlusher;
+    private final Map<String, Integer> mNameIds = new ConcurrentHashMap<>();
+    private final List<String> mNames = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean mFlushScheduled = new AtomicBoolean();
+    // accessed by the flusher only
+    private int mSavedNameCount;
+    private final List<Buffer> mBuffers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Buffer> mThreadBuffer =
+            new ThreadLocal<Buffer>() {
+                @Override
+                protected Buffer initialValue() {
+                    Buffer buffer = new Buffer(Thread.currentThread().getId());
+                    mBuffers.add(buffer);
+                    return buffer;
+                }
+            };
+
+    TraceRecorder(File dir, Executor flusher) {
+        mDir = dir;
+        mFlusher = flusher;
+        if (mDir != null) {
+            rotate(mDir);
+            if (!mDir.mkdirs()) {
+                Log.w(TAG, "failed to create trace dir: " + mDir);
+            }
+        }
+        mNames.add(OVERFLOW_NAME);
+        mNameIds.put(OVERFLOW_NAME, 0);
+    }
+
+    private static void rotate(File dir) {
+        if (!dir.exists()) {
+            return;
+        }
+        File prev = new File(dir.getPath() + PREV_DIR_SUFFIX);
+        FileUtils.rmRF(prev);
+        if (!dir.renameTo(prev)) {
+            Log.w(TAG, "failed to keep previous trace: " + dir);
+            FileUtils.rmRF(dir);
+        }
+    }
+
+    void record(int type, String message, long timeNanos) {
+        Buffer buffer = mThreadBuffer.get();
+        int argCount = buffer.parse(message);
+        buffer.write(timeNanos, buffer.internKey(), type, argCount);
+    }
+
+    private int intern(String name) {
+        Integer id = mNameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (mNames) {
+            id = mNameIds.get(name);
+            if (id == null) {
+                if (mNames.size() >= MAX_NAMES) {
+                    return 0;
+                }
+                id = mNames.size();
+                mNames.add(name);
+                mNameIds.put(name, id);
+            }
+        }
+        scheduleFlush();
+        return id;
+    }
+
+    private void scheduleFlush() {
+        if (mDir == null || mFlusher == null || !mFlushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        mFlusher.execute(this::flushNames);
+    }
+
+    private void flushNames() {
+        mFlushScheduled.set(false);
+        int count = mNames.size();
+        if (count <= mSavedNameCount) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = mSavedNameCount; i < count; i++) {
+            sb.append(mNames.get(i).replace('\n', ' ')).append('\n');
+        }
+        if (FileUtils.saveToFile(
+                sb.toString().getBytes(StandardCharsets.UTF_8), new File(mDir, NAMES_FILE),
+                true)) {
+            mSavedNameCount = count;
+        }
+    }
+
+    /**
+     * Export recorded events to the chrome trace event format.
+     */
+    void exportChromeTrace(File file) throws IOException {
+        List<String> names = new ArrayList<>(mNames);
+        try (ChromeTraceWriter writer =
+                     new ChromeTraceWriter(file, android.os.Process.myPid(), names)) {
+            for (Buffer buffer : mBuffers) {
+                writer.writeEvents(buffer.threadId, buffer.data, buffer.getCount());
+            }
+        }
+    }
+
+    /**
+     * Export the trace kept in {@link #PREV_DIR_SUFFIX} by the recorder of the previous run.
+     *
+     * @param dir the dir given to the recorder
+     * @return false if there is no previous trace
+     */
+    static boolean exportPreviousChromeTrace(File dir, File file) throws IOException {
+        File prev = new File(dir.getPath() + PREV_DIR_SUFFIX);
+        File[] traces = prev.listFiles((d, name) -> name.endsWith(BUFFER_FILE_SUFFIX));
+        if (traces == null || traces.length == 0) {
+            return false;
+        }
+        // the pid of the previous run is not recorded
+        try (ChromeTraceWriter writer =
+                     new ChromeTraceWriter(file, 0, readNames(new File(prev, NAMES_FILE)))) {
+            for (File trace : traces) {
+                try (RandomAccessFile raf = new RandomAccessFile(trace, "r")) {
+                    if (raf.length() < HEADER_SIZE) {
+                        continue;
+                    }
+                    ByteBuffer data =
+                            raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+                    writer.writeEvents(data.getLong(0), data, data.getLong(8));
+                }
+            }
+        }
+        return true;
+    }
+
+    private static List<String> readNames(File file) throws IOException {
+        // the names file starts with the overflow name, so line numbers are name ids
+        List<String> names = new ArrayList<>();
+        if (!file.exists()) {
+            names.add(OVERFLOW_NAME);
+            return names;
+        }
+        try (BufferedReader reader =
+                     new BufferedReader(
+                             new InputStreamReader(
+                                     new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                names.add(line);
+            }
+        }
+        return names;
+    }
+
+    private static String escape(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                if (sb == null) {
+                    sb = new StringBuilder(value.substring(0, i));
+                }
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else {
+                    sb.append(' ');
+                }
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? value : sb.toString();
+    }
+
+    /**
+     * Writer of chrome trace events. Async begin and end events are paired by an id assigned to
+     * each distinct name, since console.time pairs are matched by name, not by stack.
+     */
+    private static class ChromeTraceWriter implements AutoCloseable {
+        private final Writer mWriter;
+        private final int mPid;
+        private final List<String> mNames;
+        private final Map<String, Integer> mAsyncIds = new HashMap<>();
+        private final StringBuilder mName = new StringBuilder();
+        private boolean mFirst = true;
+
+        ChromeTraceWriter(File file, int pid, List<String> names) throws IOException {
+            mWriter = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+            mPid = pid;
+            mNames = names;
+            mWriter.write("{\"traceEvents\":[");
+        }
+
+        void writeEvents(long threadId, ByteBuffer data, long count) throws IOException {
+            int capacity = (data.capacity() - HEADER_SIZE) / EVENT_SIZE;
+            if (capacity <= 0) {
+                return;
+            }
+            long from = Math.max(0, count - capacity);
+            for (long i = from; i < count; i++) {
+                int pos = position(i, capacity);
+                long time = data.getLong(pos);
+                int nameId = data.getInt(pos + 8);
+                int type = data.getShort(pos + 12);
+                int argCount = data.getShort(pos + 14);
+                String key = nameId >= 0 && nameId < mNames.size() ? mNames.get(nameId) : "";
+                mName.setLength(0);
+                for (int j = 0, arg = 0; j < key.length(); j++) {
+                    char c = key.charAt(j);
+                    if (c == ARG_PLACEHOLDER && arg < argCount) {
+                        mName.append(data.getLong(pos + 16 + 8 * arg++));
+                    } else {
+                        mName.append(c);
+                    }
+                }
+                if (!mFirst) {
+                    mWriter.write(',');
+                }
+                mFirst = false;
+                writeEvent(threadId, type, mName.toString(), time);
+            }
+        }
+
+        private void writeEvent(long tid, int type, String name, long time) throws IOException {
+            mWriter.write("{\"name\":\"");
+            mWriter.write(escape(name));
+            mWriter.write("\",\"cat\":\"hap\",\"pid\":");
+            mWriter.write(String.valueOf(mPid));
+            mWriter.write(",\"tid\":");
+            mWriter.write(String.valueOf(tid));
+            mWriter.write(",\"ts\":");
+            mWriter.write(String.valueOf(time / 1000));
+            switch (type) {
+                case TYPE_BEGIN:
+                    mWriter.write(",\"ph\":\"b\",\"id\":" + asyncId(name));
+                    break;
+                case TYPE_END:
+                    mWriter.write(",\"ph\":\"e\",\"id\":" + asyncId(name));
+                    break;
+                default:
+                    mWriter.write(",\"ph\":\"i\",\"s\":\"t\"");
+                    break;
+            }
+            mWriter.write('}');
+        }
+
+        private int asyncId(String name) {
+            Integer id = mAsyncIds.get(name);
+            if (id == null) {
+                id = mAsyncIds.size() + 1;
+                mAsyncIds.put(name, id);
+            }
+            return id;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                mWriter.write("]}");
+            } finally {
+                mWriter.close();
+            }
+        }
+    }
+
+    private static int position(long index, int capacity) {
+        return HEADER_SIZE + (int) (index % capacity) * EVENT_SIZE;
+    }
+
+    private class Buffer {
+        final long threadId;
+        final ByteBuffer data;
+        final int capacity;
+        // used by the owner thread only
+        final StringBuilder key = new StringBuilder();
+        final long[] args = new long[MAX_ARGS];
+        // keys interned by this thread, so recording a known key allocates nothing
+        private final String[] mCachedKeys = new String[KEY_CACHE_SIZE];
+        private final int[] mCachedIds = new int[KEY_CACHE_SIZE];
+        // written by the owner thread only
+        private volatile long mCount;
+
+        Buffer(long threadId) {
+            this.threadId = threadId;
+            this.data = allocate(threadId);
+            this.capacity = (data.capacity() - HEADER_SIZE) / EVENT_SIZE;
+            data.putLong(0, threadId);
+            data.putLong(8, 0);
+        }
+
+        private ByteBuffer allocate(long threadId) {
+            if (mDir != null) {
+                File file = new File(mDir, threadId + BUFFER_FILE_SUFFIX);
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, BUFFER_SIZE);
+                } catch (IOException e) {
+                    Log.w(TAG, "failed to map trace buffer, fallback to memory", e);
+                }
+            }
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        /**
+         * Split the message into {@link #key} and {@link #args}.
+         *
+         * @return count of args
+         */
+        int parse(String message) {
+            key.setLength(0);
+            int argCount = 0;
+            int length = message.length();
+            int i = 0;
+            while (i < length) {
+                char c = message.charAt(i);
+                if (c < '0' || c > '9' || argCount >= MAX_ARGS) {
+                    key.append(c == ARG_PLACEHOLDER ? ' ' : c);
+                    i++;
+                    continue;
+                }
+                int end = i;
+                while (end < length && message.charAt(end) >= '0' && message.charAt(end) <= '9') {
+                    end++;
+                }
+                if (end - i > MAX_ARG_DIGITS || (c == '0' && end - i > 1)) {
+                    key.append(message, i, end);
+                } else {
+                    long value = 0;
+                    for (int j = i; j < end; j++) {
+                        value = value * 10 + (message.charAt(j) - '0');
+                    }
+                    args[argCount++] = value;
+                    key.append(ARG_PLACEHOLDER);
+                }
+                i = end;
+            }
+            return argCount;
+        }
+
+        /**
+         * @return id of the {@link #key} parsed last
+         */
+        int internKey() {
+            int hash = 0;
+            for (int i = 0, length = key.length(); i < length; i++) {
+                hash = 31 * hash + key.charAt(i);
+            }
+            int slot = (hash ^ (hash >>> 16)) & (KEY_CACHE_SIZE - 1);
+            String cached = mCachedKeys[slot];
+            if (cached != null && cached.contentEquals(key)) {
+                return mCachedIds[slot];
+            }
+            String name = key.toString();
+            int id = intern(name);
+            mCachedKeys[slot] = name;
+            mCachedIds[slot] = id;
+            return id;
+        }
+
+        void write(long time, int nameId, int type, int argCount) {
+            long count = mCount;
+            int pos = position(count);
+            data.putLong(pos, time);
+            data.putInt(pos + 8, nameId);
+            data.putShort(pos + 12, (short) type);
+            // 名字表已满时 key 无法还原, 不记录参数
+            int savedArgs = nameId == 0 ? 0 : argCount;
+            data.putShort(pos + 14, (short) savedArgs);
+            for (int i = 0; i < savedArgs; i++) {
+                data.putLong(pos + 16 + 8 * i, args[i]);
+            }
+            data.putLong(8, count + 1);
+            mCount = count + 1;
+        }
+
+        long getCount() {
+            return mCount;
+        }
+
+        int position(long index) {
+            return TraceRecorder.position(index, capacity);
+        }
+    }
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.skeleton;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.Xml;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hapjs.cache.Cache;
+import org.hapjs.common.utils.FileUtils;
+import org.hapjs.render.css.media.CSSMediaParser;
+import org.hapjs.render.css.media.MediaList;
+import org.hapjs.render.css.media.MediaPropertyInfoImpl;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Compiled form of a skeleton DSL(.sk file).
+ *
+ * <p>All the valid clipPath tags of the sk file are kept, together with their media queries, so
+ * the compiled file doesn't depend on the device state and only the media query is evaluated when
+ * it's loaded. The sk files are compiled when the package is installed, see
+ * {@link #compileAll(Context, String)}, and the compiled files are kept in the cache dir of the
+ * platform, as the resource dir holds the files of the signed package only. A compiled file
+ * records the length and lastModified of its sk file, and is compiled again on load if they
+ * don't match, e.g. the cache dir was cleared or the package was updated by another process.
+ */
+public class SkeletonDisplayList {
+    static final byte SHAPE_RECT = 1;
+    static final byte SHAPE_CIRCLE = 2;
+    static final byte SHAPE_ELLIPSE = 3;
+    static final byte SHAPE_IMG = 4;
+
+    private static final String TAG = "SkeletonDisplayList";
+
+    private static final int MAGIC = 0x534b4c31;
+    private static final int VERSION = 3;
+
+    private static final String SKELETON_DIR = "skeleton";
+    private static final String COMPILED_ROOT_DIR = "skeleton";
+    private static final String SK_FILE_SUFFIX = ".sk";
+    private static final String COMPILED_FILE_SUFFIX = ".bin";
+
+    private static final int NO_STRING = -1;
+    private static final int MAX_CACHE_SIZE = 8;
+
+    private static final LruCache<String, SkeletonDisplayList> sCache =
+            new LruCache<>(MAX_CACHE_SIZE);
+
+    private final List<Clip> mClips = new ArrayList<>();
+    // lastModified of the compiled file
+    private long mStamp;
+    private long mSourceLength;
+    private long mSourceModified;
+
+    private SkeletonDisplayList() {
+    }
+
+    /**
+     * Load the compiled skeleton of sk file. Packages installed before the sk files were compiled
+     * at install time are compiled on first load.
+     *
+     * @return the matched clipPath, or null if there is no matched clipPath or the sk file is
+     *     invalid
+     */
+    public static Clip load(Context context, String pkg, String skPath) {
+        File skFile = new File(Cache.getResourceDir(context, pkg), skPath);
+        File compiledFile = getCompiledFile(context, pkg, skPath);
+        String key = compiledFile.getPath();
+        long stamp = compiledFile.lastModified();
+
+        SkeletonDisplayList displayList;
+        synchronized (sCache) {
+            displayList = sCache.get(key);
+        }
+        if (displayList == null || displayList.mStamp != stamp
+                || !displayList.isCompiledFrom(skFile)) {
+            displayList = stamp == 0 ? null : readCompiled(compiledFile);
+            if (displayList == null || !displayList.isCompiledFrom(skFile)) {
+                displayList = compile(skFile);
+                if (displayList == null) {
+                    return null;
+                }
+                writeCompiled(displayList, compiledFile);
+            }
+            displayList.mStamp = compiledFile.lastModified();
+            synchronized (sCache) {
+                sCache.put(key, displayList);
+            }
+        }
+        return displayList.select();
+    }
+
+    /**
+     * Compile all the sk files of a package, called after the package is installed. The compiled
+     * files of the previous version are removed first, so files of removed sk files don't remain.
+     */
+    public static void compileAll(Context context, String pkg) {
+        remove(context, pkg);
+        File skeletonDir = new File(Cache.getResourceDir(context, pkg), SKELETON_DIR);
+        if (!skeletonDir.isDirectory()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        compileDir(context, pkg, skeletonDir, SKELETON_DIR);
+        Log.d(TAG, "LOG_SKELETON compile sk files time = "
+                + (System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Remove the compiled files of a package, called when the package is removed.
+     */
+    public static void remove(Context context, String pkg) {
+        FileUtils.rmRF(new File(getCompiledRootDir(context), pkg));
+    }
+
+    private static void compileDir(Context context, String pkg, File dir, String path) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String filePath = path + "/" + file.getName();
+            if (file.isDirectory()) {
+                compileDir(context, pkg, file, filePath);
+            } else if (file.getName().endsWith(SK_FILE_SUFFIX)) {
+                SkeletonDisplayList displayList = compile(file);
+                if (displayList != null) {
+                    writeCompiled(displayList, getCompiledFile(context, pkg, filePath));
+                }
+            }
+        }
+    }
+
+    private static File getCompiledRootDir(Context context) {
+        return new File(context.getCacheDir(), COMPILED_ROOT_DIR);
+    }
+
+    private static File getCompiledFile(Context context, String pkg, String skPath) {
+        return new File(new File(getCompiledRootDir(context), pkg),
+                skPath + COMPILED_FILE_SUFFIX);
+    }
+
+    private boolean isCompiledFrom(File skFile) {
+        return mSourceLength == skFile.length() && mSourceModified == skFile.lastModified();
+    }
+
+    private static SkeletonDisplayList compile(File skFile) {
+        if (!skFile.isFile()) {
+            return null;
+        }
+        // 先记录源文件信息, 编译过程中源文件被修改时下次加载会重新编译
+        long length = skFile.length();
+        long lastModified = skFile.lastModified();
+        InputStream is = null;
+        try {
+            is = new FileInputStream(skFile);
+            SkeletonDisplayList displayList = compile(is);
+            displayList.mSourceLength = length;
+            displayList.mSourceModified = lastModified;
+            return displayList;
+        } catch (Exception e) {
+            Log.e(TAG, "LOG_SKELETON compile sk file fail, " + skFile, e);
+            return null;
+        } finally {
+            FileUtils.closeQuietly(is);
+        }
+    }
+
+    static SkeletonDisplayList compile(InputStream is) throws XmlPullParserException, IOException {
+        SkeletonDisplayList displayList = new SkeletonDisplayList();
+        Clip clip = null;
+        boolean hasSkeletonRoot = false;
+        XmlPullParser parser = Xml.newPullParser();
+        parser.setInput(is, "utf-8");
+        int eventType = parser.getEventType();
+        while (eventType != XmlPullParser.END_DOCUMENT) {
+            if (eventType == XmlPullParser.START_TAG) {
+                String tag = parser.getName();
+                if ("skeleton".equals(tag)) {
+                    hasSkeletonRoot = true;
+                } else if ("clipPath".equals(tag)) {
+                    if (!hasSkeletonRoot) {
+                        throw new IllegalArgumentException(
+                                "LOG_SKELETON Invalid DSL: no root tag of skeleton");
+                    }
+                    clip = new Clip();
+                    clip.media = getAttr(parser, "media", null);
+                    clip.autoHide = Boolean.valueOf(getAttr(parser, "autoHide", "true"));
+                    clip.bgColor = getAttr(parser, "color", null);
+                    try {
+                        clip.width = getIntAttr(parser, "width", -1);
+                        clip.height = getIntAttr(parser, "height", -1);
+                    } catch (NumberFormatException e) {
+                        clip.invalidReason = e.getMessage();
+                    }
+                    if (clip.width < 0 && clip.invalidReason == null) {
+                        clip.invalidReason = "Invalid width or not set in the DSL";
+                    }
+                } else if (clip != null && clip.invalidReason == null) {
+                    try {
+                        Shape shape = compileShape(parser, tag);
+                        if (shape != null) {
+                            clip.shapes.add(shape);
+                        }
+                    } catch (NumberFormatException e) {
+                        clip.invalidReason = e.getMessage();
+                    }
+                }
+            } else if (eventType == XmlPullParser.END_TAG
+                    && "clipPath".equals(parser.getName())
+                    && clip != null) {
+                // 无效的 clipPath 不参与匹配, 不影响其他 clipPath
+                if (clip.invalidReason == null) {
+                    displayList.mClips.add(clip);
+                } else {
+                    Log.w(TAG, "LOG_SKELETON skip invalid clipPath, media=" + clip.media
+                            + ", reason=" + clip.invalidReason);
+                }
+                clip = null;
+            }
+            eventType = parser.next();
+        }
+        return displayList;
+    }
+
+    private static Shape compileShape(XmlPullParser parser, String tag) {
+        Shape shape = new Shape();
+        switch (tag) {
+            case "rect":
+                shape.type = SHAPE_RECT;
+                int rx = getIntAttr(parser, "rx", -1);
+                int ry = getIntAttr(parser, "ry", -1);
+                shape.values = new int[] {
+                        getIntAttr(parser, "x", 0),
+                        getIntAttr(parser, "y", 0),
+                        getIntAttr(parser, "width", 0),
+                        getIntAttr(parser, "height", 0),
+                        // 只设置了rx或ry时, 两者相同
+                        rx >= 0 ? rx : Math.max(ry, 0),
+                        ry >= 0 ? ry : Math.max(rx, 0)
+                };
+                break;
+            case "circle":
+                shape.type = SHAPE_CIRCLE;
+                shape.values = new int[] {
+                        getIntAttr(parser, "cx", 0),
+                        getIntAttr(parser, "cy", 0),
+                        getIntAttr(parser, "r", 0)
+                };
+                break;
+            case "ellipse":
+                shape.type = SHAPE_ELLIPSE;
+                shape.values = new int[] {
+                        getIntAttr(parser, "cx", 0),
+                        getIntAttr(parser, "cy", 0),
+                        getIntAttr(parser, "rx", 0),
+                        getIntAttr(parser, "ry", 0)
+                };
+                break;
+            case "full-screen-img":
+                shape.type = SHAPE_IMG;
+                shape.values = new int[0];
+                shape.src = getAttr(parser, "local-src", "");
+                shape.fitStyle = getAttr(parser, "fit-style", "none");
+                return shape;
+            default:
+                return null;
+        }
+        shape.color = getAttr(parser, "color", SkeletonSvgView.DEFAULT_ELE_COLOR);
+        shape.footer = Boolean.parseBoolean(getAttr(parser, "footer", "false"));
+        return shape;
+    }
+
+    /**
+     * DSL matching rules (the skeleton tag may contain multiple clipPath tags) 1. If a clipPath
+     * with media parameters is matched, the first successfully matched clipPath tag with media is
+     * taken as the result 2. Otherwise the first clipPath tag without media is taken as the result
+     */
+    Clip select() {
+        Clip result = null;
+        for (Clip clip : mClips) {
+            if (clip.media != null) {
+                try {
+                    MediaList mediaList = CSSMediaParser.parseMediaList(clip.media);
+                    mediaList.updateMediaPropertyInfo(new MediaPropertyInfoImpl());
+                    if (mediaList.getResult()) {
+                        Log.d(TAG, "LOG_SKELETON media query match : " + clip.media);
+                        return clip;
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "LOG_SKELETON skip invalid media query: " + clip.media, e);
+                }
+            } else if (result == null) {
+                result = clip;
+            }
+        }
+        return result;
+    }
+
+    private static SkeletonDisplayList readCompiled(File file) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            SkeletonDisplayList displayList = new SkeletonDisplayList();
+            displayList.mSourceLength = in.readLong();
+            displayList.mSourceModified = in.readLong();
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+            int clipCount = in.readInt();
+            for (int i = 0; i < clipCount; i++) {
+                Clip clip = new Clip();
+                clip.media = getString(strings, in.readInt());
+                clip.autoHide = in.readBoolean();
+                clip.bgColor = getString(strings, in.readInt());
+                clip.width = in.readInt();
+                clip.height = in.readInt();
+                int shapeCount = in.readInt();
+                for (int j = 0; j < shapeCount; j++) {
+                    Shape shape = new Shape();
+                    shape.type = in.readByte();
+                    shape.color = getString(strings, in.readInt());
+                    shape.footer = in.readBoolean();
+                    shape.src = getString(strings, in.readInt());
+                    shape.fitStyle = getString(strings, in.readInt());
+                    shape.values = new int[in.readByte()];
+                    for (int k = 0; k < shape.values.length; k++) {
+                        shape.values[k] = in.readInt();
+                    }
+                    clip.shapes.add(shape);
+                }
+                displayList.mClips.add(clip);
+            }
+            return displayList;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            Log.w(TAG, "LOG_SKELETON read compiled skeleton fail, ", e);
+            return null;
+        } finally {
+            FileUtils.closeQuietly(in);
+        }
+    }
+
+    private static String getString(String[] strings, int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    private static void writeCompiled(SkeletonDisplayList displayList, File file) {
+        File dir = file.getParentFile();
+        if (dir == null || (!dir.exists() && !dir.mkdirs())) {
+            return;
+        }
+        // 颜色, media, 图片路径等字符串只保存一份
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        File tmpFile = new File(dir, file.getName() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            for (Clip clip : displayList.mClips) {
+                intern(strings, indexes, clip.media);
+                intern(strings, indexes, clip.bgColor);
+                for (Shape shape : clip.shapes) {
+                    intern(strings, indexes, shape.color);
+                    intern(strings, indexes, shape.src);
+                    intern(strings, indexes, shape.fitStyle);
+                }
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(displayList.mSourceLength);
+            out.writeLong(displayList.mSourceModified);
+            out.writeInt(strings.size());
+            for (String value : strings) {
+                out.writeUTF(value);
+            }
+            out.writeInt(displayList.mClips.size());
+            for (Clip clip : displayList.mClips) {
+                out.writeInt(intern(strings, indexes, clip.media));
+                out.writeBoolean(clip.autoHide);
+                out.writeInt(intern(strings, indexes, clip.bgColor));
+                out.writeInt(clip.width);
+                out.writeInt(clip.height);
+                out.writeInt(clip.shapes.size());
+                for (Shape shape : clip.shapes) {
+                    out.writeByte(shape.type);
+                    out.writeInt(intern(strings, indexes, shape.color));
+                    out.writeBoolean(shape.footer);
+                    out.writeInt(intern(strings, indexes, shape.src));
+                    out.writeInt(intern(strings, indexes, shape.fitStyle));
+                    out.writeByte(shape.values.length);
+                    for (int value : shape.values) {
+                        out.writeInt(value);
+                    }
+                }
+            }
+            out.close();
+            out = null;
+            if (!tmpFile.renameTo(file)) {
+                tmpFile.delete();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "LOG_SKELETON write compiled skeleton fail, ", e);
+            tmpFile.delete();
+        } finally {
+            FileUtils.closeQuietly(out);
+        }
+    }
+
+    private static int intern(List<String> strings, Map<String, Integer> indexes, String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            indexes.put(value, index);
+        }
+        return index;
+    }
+
+    private static String getAttr(XmlPullParser parser, String key, String defaultValue) {
+        String attr = parser.getAttributeValue(null, key);
+        return TextUtils.isEmpty(attr) ? defaultValue : attr;
+    }
+
+    private static int getIntAttr(XmlPullParser parser, String key, int defaultValue) {
+        String attr = parser.getAttributeValue(null, key);
+        return TextUtils.isEmpty(attr) ? defaultValue : Integer.parseInt(attr);
+    }
+
+    /**
+     * A clipPath tag, drawn by {@link SkeletonSvgView}.
+     */
+    public static class Clip {
+        String media;
+        boolean autoHide = true;
+        String bgColor;
+        int width;
+        int height;
+        List<Shape> shapes = new ArrayList<>();
+        // only used when compiling
+        String invalidReason;
+    }
+
+    /**
+     * A shape of clipPath. The values of rect are x, y, width, height, rx and ry, of circle are
+     * cx, cy and r, of ellipse are cx, cy, rx and ry.
+     */
+    static class Shape {
+        byte type;
+        String color;
+        boolean footer;
+        String src;
+        String fitStyle;
+        int[] values;
+    }
+}
@@ -23,9 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.hapjs.cache.Cache;
 import org.hapjs.common.utils.ColorUtil;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.hapjs.logging.MetricsRegistry;
 
 public class SkeletonSvgView extends View {
     public static final int STATE_NOT_STARTED =
@@ -37,6 +35,8 @@ public class SkeletonSvgView extends View {
     private static final String TAG = "Skeleton_SvgView";
     private static final int GLYPH_DATA_TYPE_PATH = 1;
     private static final int GLYPH_DATA_TYPE_IMG = 2;
+    private static final MetricsRegistry.Timer TIME_TO_SKELETON_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_TIME_TO_SKELETON);
     RectF mImgRect;
     private String mPackageName;
     private PointF mViewport;
@@ -50,6 +50,7 @@ public class SkeletonSvgView extends View {
     private Paint mPathFillPaint; // 绘制三种基本形状
     // 绘制img所用
     private Paint mImgPaint;
+    private long mLaunchStartTime;
 
     public SkeletonSvgView(Context context, String packageName) {
         super(context);
@@ -148,6 +149,8 @@ public class SkeletonSvgView extends View {
                     }
                 }
             }
+            TIME_TO_SKELETON_TIMER.stop(mLaunchStartTime);
+            mLaunchStartTime = 0;
         } else {
             Log.w(TAG, "LOG_SKELETON skeleton onDraw, mRenderDataList is null or empty");
         }
@@ -325,6 +328,14 @@ public class SkeletonSvgView extends View {
         }
     }
 
+    /**
+     * @param launchStartTime value returned by {@link MetricsRegistry#start()} when the app is
+     *                        launched, the time to the first skeleton frame is recorded from it
+     */
+    public void setLaunchStartTime(long launchStartTime) {
+        mLaunchStartTime = launchStartTime;
+    }
+
     /**
      * rebuild: Generate Path objects for path type data
      */
@@ -343,17 +354,8 @@ public class SkeletonSvgView extends View {
                         int type = renderData.getType();
                         if (type == GLYPH_DATA_TYPE_PATH) {
                             PathData pathData = (PathData) renderData;
-                            try {
-                                pathData.path =
-                                        PathParser.createPathFromPathData(pathData.pathString);
-                                if (pathData.path != null) {
-                                    pathData.path.transform(scaleMatrix);
-                                } else {
-                                    pathData.path = new Path();
-                                }
-                            } catch (Exception e) {
-                                pathData.path = new Path();
-                            }
+                            pathData.path = pathData.createPath();
+                            pathData.path.transform(scaleMatrix);
                         } else if (type == GLYPH_DATA_TYPE_IMG) {
                             initImgData();
                         }
@@ -428,11 +430,11 @@ public class SkeletonSvgView extends View {
         Log.d(TAG, "LOG_SKELETON setAutoHide: " + this.mAutoHide);
     }
 
-    public void setup(JSONObject json, int skeletonViewWidth, int skeletonViewHeight)
-            throws Exception {
+    public void setup(SkeletonDisplayList.Clip clip, int skeletonViewWidth,
+                      int skeletonViewHeight) {
         long buildRenderStart = System.currentTimeMillis();
         List<RenderData> renderDataList =
-                buildRenderData(json, skeletonViewWidth, skeletonViewHeight);
+                buildRenderData(clip, skeletonViewWidth, skeletonViewHeight);
         Log.d(
                 TAG,
                 "LOG_SKELETON buildRenderData time = "
@@ -440,8 +442,8 @@ public class SkeletonSvgView extends View {
         setRenderData(renderDataList);
 
         // Set the svg background color from DSL
-        if (json.has("bgColor")) {
-            int bgColor = ColorUtil.getColor(json.getString("bgColor"), Color.TRANSPARENT);
+        if (clip.bgColor != null) {
+            int bgColor = ColorUtil.getColor(clip.bgColor, Color.TRANSPARENT);
             if (bgColor != Color.TRANSPARENT) {
                 setBackgroundColor(bgColor);
             }
@@ -450,20 +452,17 @@ public class SkeletonSvgView extends View {
     }
 
     /**
-     * Generate rendering data from parsed json and set viewportSize and autoHide for svgSkeletonView
+     * Generate rendering data from the display list and set viewportSize and autoHide for
+     * svgSkeletonView
      */
     private List<RenderData> buildRenderData(
-            JSONObject json, int skeletonViewWidth, int skeletonViewHeight) throws JSONException {
-        int skeletonWidth = json.getInt("skeletonWidth");
-        int skeletonHeight = 0;
-        if (json.has("skeletonHeight")) {
-            skeletonHeight = json.getInt("skeletonHeight");
-        }
+            SkeletonDisplayList.Clip clip, int skeletonViewWidth, int skeletonViewHeight) {
+        int skeletonWidth = clip.width;
+        int skeletonHeight = Math.max(clip.height, 0);
         int viewportWidth = skeletonWidth;
         int viewportHeight = skeletonWidth * skeletonViewHeight / skeletonViewWidth;
         setViewportSize(viewportWidth, viewportHeight);
-        boolean autoHide = json.optBoolean("autoHide", true);
-        setAutoHide(autoHide);
+        setAutoHide(clip.autoHide);
         Log.i(
                 TAG,
                 "LOG_SKELETON set skeleton, viewportWidth = "
@@ -471,83 +470,80 @@ public class SkeletonSvgView extends View {
                         + ", viewportHeight = "
                         + viewportHeight
                         + ", autoHide = "
-                        + autoHide);
-        List<RenderData> list = new ArrayList<>();
+                        + clip.autoHide);
+        // footer 元素按 skeleton 高度与视口高度之差上移
+        int footerOffset = skeletonHeight > 0 ? skeletonHeight - viewportHeight : 0;
+        int defaultColor = ColorUtil.getColor(DEFAULT_ELE_COLOR);
+        List<RenderData> list = new ArrayList<>(clip.shapes.size());
         File mAppResFile = Cache.getResourceDir(getContext(), mPackageName);
-        if (json.has("clipPath")) {
-            JSONArray clipPath = json.getJSONArray("clipPath");
-            for (int i = 0; i < clipPath.length(); i++) {
-                JSONObject element = clipPath.getJSONObject(i);
-                RenderData renderData;
-                if ("rect".equals(element.getString("tag"))) {
-                    boolean footer = element.getBoolean("footer");
-                    int y = element.getInt("y");
-                    if (footer && skeletonHeight > 0) {
-                        y = y - (skeletonHeight - viewportHeight);
-                    }
+        for (SkeletonDisplayList.Shape shape : clip.shapes) {
+            int[] values = shape.values;
+            PathData pathData = null;
+            switch (shape.type) {
+                case SkeletonDisplayList.SHAPE_RECT: {
+                    int y = shape.footer ? values[1] - footerOffset : values[1];
                     if (y <= viewportHeight) {
-                        renderData = new PathData();
-                        ((PathData) renderData).pathString =
-                                SvgViewUtility.rect2path(
-                                        element.getInt("width"),
-                                        element.getInt("height"),
-                                        element.getInt("x"),
-                                        y,
-                                        element.getInt("rx"),
-                                        element.getInt("ry"));
-                        String color = element.optString("color", DEFAULT_ELE_COLOR);
-                        ((PathData) renderData).color =
-                                ColorUtil.getColor(color, ColorUtil.getColor(DEFAULT_ELE_COLOR));
-                        list.add(renderData);
-                    }
-                } else if ("circle".equals(element.getString("tag"))) {
-                    boolean footer = element.getBoolean("footer");
-                    int cy = element.getInt("cy");
-                    int r = element.getInt("r");
-                    if (footer && skeletonHeight > 0) {
-                        cy = cy - (skeletonHeight - viewportHeight);
+                        pathData = PathData.rect(values[2], values[3], values[0], y, values[4],
+                                values[5]);
                     }
+                    break;
+                }
+                case SkeletonDisplayList.SHAPE_CIRCLE: {
+                    int cy = shape.footer ? values[1] - footerOffset : values[1];
+                    int r = values[2];
                     if (cy <= viewportHeight - r) {
-                        renderData = new PathData();
-                        ((PathData) renderData).pathString =
-                                SvgViewUtility.ellipse2path(element.getInt("cx"), cy, r, r);
-                        String color = element.optString("color", DEFAULT_ELE_COLOR);
-                        ((PathData) renderData).color =
-                                ColorUtil.getColor(color, ColorUtil.getColor(DEFAULT_ELE_COLOR));
-                        list.add(renderData);
-                    }
-                } else if ("ellipse".equals(element.getString("tag"))) {
-                    boolean footer = element.getBoolean("footer");
-                    int cy = element.getInt("cy");
-                    int ry = element.getInt("ry");
-                    if (footer && skeletonHeight > 0) {
-                        cy = cy - (skeletonHeight - viewportHeight);
+                        pathData = PathData.ellipse(values[0], cy, r, r);
                     }
+                    break;
+                }
+                case SkeletonDisplayList.SHAPE_ELLIPSE: {
+                    int cy = shape.footer ? values[1] - footerOffset : values[1];
+                    int ry = values[3];
                     if (cy <= viewportHeight - ry) {
-                        renderData = new PathData();
-                        ((PathData) renderData).pathString =
-                                SvgViewUtility.ellipse2path(element.getInt("cx"), cy,
-                                        element.getInt("rx"), ry);
-                        String color = element.optString("color", DEFAULT_ELE_COLOR);
-                        ((PathData) renderData).color =
-                                ColorUtil.getColor(color, ColorUtil.getColor(DEFAULT_ELE_COLOR));
-                        list.add(renderData);
+                        pathData = PathData.ellipse(values[0], cy, values[2], ry);
                     }
-                } else if ("full-screen-img".equals(element.getString("tag"))) {
-                    renderData = new ImgData();
-                    ((ImgData) renderData).imgPath = element.getString("localSrc");
-                    ((ImgData) renderData).fitStyle = element.getString("fitStyle");
-                    File imgFile = new File(mAppResFile, ((ImgData) renderData).imgPath);
-                    ((ImgData) renderData).bitMap = BitmapFactory.decodeFile(imgFile.getPath());
-                    list.add(renderData);
+                    break;
+                }
+                case SkeletonDisplayList.SHAPE_IMG: {
+                    ImgData imgData = new ImgData();
+                    imgData.imgPath = shape.src;
+                    imgData.fitStyle = shape.fitStyle;
+                    imgData.bitMap = BitmapFactory.decodeFile(
+                            new File(mAppResFile, imgData.imgPath).getPath());
+                    list.add(imgData);
+                    break;
                 }
+                default:
+                    break;
+            }
+            if (pathData != null) {
+                pathData.color = ColorUtil.getColor(shape.color, defaultColor);
+                list.add(pathData);
             }
         }
         return list;
     }
 
-    private static class SvgViewUtility {
-        private static String rect2path(int width, int height, int x, int y, int rx, int ry) {
+    private abstract static class RenderData {
+        abstract int getType();
+    }
+
+    private static class PathData extends RenderData {
+        final RectF bounds;
+        final float rx;
+        final float ry;
+        final boolean oval;
+        int color;
+        Path path; // rebuildRenderData()方法中赋值
+
+        private PathData(RectF bounds, float rx, float ry, boolean oval) {
+            this.bounds = bounds;
+            this.rx = rx;
+            this.ry = ry;
+            this.oval = oval;
+        }
+
+        static PathData rect(int width, int height, int x, int y, int rx, int ry) {
             // 圆角最多一半
             if (rx > width / 2) {
                 rx = width / 2;
@@ -555,78 +551,35 @@ public class SkeletonSvgView extends View {
             if (ry > height / 2) {
                 ry = height / 2;
             }
-
             // 如果其中一个设置为 0 则圆角不生效
             if (rx == 0 || ry == 0) {
-                return "M" + x + " " + y + " h" + width + " v" + height + " h" + (-width) + "z";
-            } else {
-                return "M"
-                        + x
-                        + " "
-                        + (y + ry)
-                        + "a"
-                        + rx
-                        + " "
-                        + ry
-                        + " 0 0 1 "
-                        + rx
-                        + " "
-                        + (-ry)
-                        + "h"
-                        + (width - rx - rx)
-                        + "a"
-                        + rx
-                        + " "
-                        + ry
-                        + " 0 0 1 "
-                        + rx
-                        + " "
-                        + ry
-                        + "v"
-                        + (height - ry - ry)
-                        + "a"
-                        + rx
-                        + " "
-                        + ry
-                        + " 0 0 1 "
-                        + (-rx)
-                        + " "
-                        + ry
-                        + "h"
-                        + (rx + rx - width)
-                        + "a"
-                        + rx
-                        + " "
-                        + ry
-                        + " 0 0 1 "
-                        + (-rx)
-                        + " "
-                        + (-ry)
-                        + "z";
+                rx = 0;
+                ry = 0;
             }
+            return new PathData(new RectF(x, y, x + width, y + height), rx, ry, false);
         }
 
-        private static String ellipse2path(int cx, int cy, int rx, int ry) {
+        static PathData ellipse(int cx, int cy, int rx, int ry) {
             if (rx == 0 && ry > 0) {
                 rx = ry;
             }
             if (ry == 0 && rx > 0) {
                 ry = rx;
             }
-            return "M" + (cx - rx) + " " + cy + "a" + rx + " " + ry + " 0 1 0 " + 2 * rx + " 0"
-                    + "a" + rx
-                    + " " + ry + " 0 1 0 " + (-2 * rx) + " 0" + "z";
+            return new PathData(new RectF(cx - rx, cy - ry, cx + rx, cy + ry), rx, ry, true);
         }
-    }
-
-    private abstract static class RenderData {
-        abstract int getType();
-    }
 
-    private static class PathData extends RenderData {
-        String pathString;
-        int color;
-        Path path; // rebuildRenderData()方法中赋值
+        Path createPath() {
+            Path path = new Path();
+            if (oval) {
+                path.addOval(bounds, Path.Direction.CW);
+            } else if (rx > 0 && ry > 0) {
+                path.addRoundRect(bounds, rx, ry, Path.Direction.CW);
+            } else {
+                path.addRect(bounds, Path.Direction.CW);
+            }
+            return path;
+        }
 
         @Override
         int getType() {
@@ -636,9 +589,10 @@ public class SkeletonSvgView extends View {
         @Override
         public String toString() {
             return "PathData{"
-                    + "pathString='"
-                    + pathString
-                    + '\''
+                    + "bounds="
+                    + bounds
+                    + ", oval="
+                    + oval
                     + ", color="
                     + color
                     + ", path="
@@ -34,6 +34,12 @@ public class DocAnimator {
 
     private static final int ALPHA = 11;
 
+    // 反射查找只做一次, 每次页面切换动画直接复用
+    private static Constructor<?> sAnimatorConstructor;
+    private static Method sSetTargetMethod;
+    private static Field sTransformationInfoField;
+    private static Constructor<?> sTransformationInfoConstructor;
+
     private int mRootViewWidth;
     private int mAnimType;
 
@@ -78,13 +84,18 @@ public class DocAnimator {
             if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
                 //when OS version behind Android O, should set View's mTransformationInfo field
                 // with a new instance
-                Field mTransformationInfo = View.class.getDeclaredField("mTransformationInfo");
-                mTransformationInfo.setAccessible(true);
-                Class<?> transClz = Class.forName("android.view.View$TransformationInfo");
-                Constructor<?> constructor = transClz.getDeclaredConstructor();
-                constructor.setAccessible(true);
-                Object transObj = constructor.newInstance();
-                mTransformationInfo.set(mTargetView, transObj);
+                if (sTransformationInfoConstructor == null) {
+                    Field mTransformationInfo =
+                            View.class.getDeclaredField("mTransformationInfo");
+                    mTransformationInfo.setAccessible(true);
+                    Class<?> transClz = Class.forName("android.view.View$TransformationInfo");
+                    Constructor<?> constructor = transClz.getDeclaredConstructor();
+                    constructor.setAccessible(true);
+                    sTransformationInfoField = mTransformationInfo;
+                    sTransformationInfoConstructor = constructor;
+                }
+                Object transObj = sTransformationInfoConstructor.newInstance();
+                sTransformationInfoField.set(mTargetView, transObj);
             }
         } catch (NoSuchMethodException e) {
             Log.e(TAG, "renderNodeAnimator not find method", e);
@@ -125,9 +136,11 @@ public class DocAnimator {
 
     private Animator createAnimator(int renderProperty, float finalValue) {
         try {
-            Class<?> clz = Class.forName("android.view.RenderNodeAnimator");
-            Constructor<?> constructor = clz.getConstructor(int.class, float.class);
-            return (Animator) constructor.newInstance(renderProperty, finalValue);
+            if (sAnimatorConstructor == null) {
+                Class<?> clz = Class.forName("android.view.RenderNodeAnimator");
+                sAnimatorConstructor = clz.getConstructor(int.class, float.class);
+            }
+            return (Animator) sAnimatorConstructor.newInstance(renderProperty, finalValue);
         } catch (Exception e) {
             Log.e(TAG, "reflect renderNodeAnimator failed", e);
         }
@@ -136,9 +149,11 @@ public class DocAnimator {
 
     private void setAnimatorTarget(Animator animator) {
         try {
-            Class<?> clz = animator.getClass();
-            Method setTargetMethod = clz.getDeclaredMethod("setTarget", View.class);
-            setTargetMethod.invoke(animator, mTargetView);
+            if (sSetTargetMethod == null) {
+                Class<?> clz = animator.getClass();
+                sSetTargetMethod = clz.getDeclaredMethod("setTarget", View.class);
+            }
+            sSetTargetMethod.invoke(animator, mTargetView);
         } catch (NoSuchMethodException e) {
             Log.e(TAG, "renderNodeAnimator not find method", e);
         } catch (IllegalAccessException | InvocationTargetException e) {
@@ -16,12 +16,14 @@ import org.hapjs.bridge.DefaultAppInfoProvider;
 import org.hapjs.bridge.DefaultApplicationProvider;
 import org.hapjs.bridge.DependencyManager;
 import org.hapjs.bridge.annotation.DependencyAnnotation;
+import org.hapjs.bridge.storage.ApplicationSettings;
 import org.hapjs.cache.DefaultInstallInterceptProviderImpl;
 import org.hapjs.cache.DefaultPackageCheckProvider;
 import org.hapjs.cache.InstallInterceptProvider;
 import org.hapjs.cache.PackageCheckProvider;
 import org.hapjs.common.net.UserAgentHelper;
 import org.hapjs.common.utils.FrescoUtils;
+import org.hapjs.common.utils.ImageMemoryTracker;
 import org.hapjs.common.utils.ProcessUtils;
 import org.hapjs.common.utils.SoLoaderHelper;
 import org.hapjs.pm.DefaultNativePackageProviderImpl;
@@ -169,6 +171,10 @@ public class Runtime {
                 new ComponentCallbacks2() {
                     @Override
                     public void onTrimMemory(int level) {
+                        ImageMemoryTracker.get().trim(level);
+                        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                            ApplicationSettings.flushAll();
+                        }
                         FrescoUtils.trimOnLowMemory();
                     }
 
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package android.os;
+
+// Mock for test
+public class Process {
+    public static final int THREAD_PRIORITY_DEFAULT = 0;
+    public static final int THREAD_PRIORITY_BACKGROUND = 10;
+
+    public static int myPid() {
+        return 0;
+    }
+
+    public static void setThreadPriority(int priority) {
+    }
+}
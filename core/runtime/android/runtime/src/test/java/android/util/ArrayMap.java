@@ -0,0 +1,12 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package android.util;
+
+import java.util.HashMap;
+
+// Mock for test
+public class ArrayMap<K, V> extends HashMap<K, V> {
+}
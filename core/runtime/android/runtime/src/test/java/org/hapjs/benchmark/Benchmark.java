@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import org.hapjs.common.json.JSONObject;
+import org.json.JSONException;
+
+/**
+ * A minimal harness measuring pure java code of runtime on JVM.
+ *
+ * <p>Each operation is repeated until a round takes {@link #MIN_ROUND_NANOS}, warmed up for at
+ * least {@link #MIN_WARMUP_NANOS}, then measured in several rounds, and the median time per
+ * operation is reported to reduce the noise of gc and jit.
+ *
+ * <p>Absolute times depend on the machine running the tests, so each operation is compared as the
+ * ratio of its time to the time of a fixed calibration operation measured on the same JVM. Results
+ * of a suite are written as json to {@link #PROP_OUTPUT}, with the ratios and the nanoseconds for
+ * reference, and the ratios are compared with the results of the same suite in
+ * {@link #PROP_BASELINE}, which defaults to the baseline checked in under
+ * src/test/resources/benchmark. Regressions fail the test, so they are listed in the junit report.
+ *
+ * <p>Benchmarks are skipped unless {@link #PROP_ENABLED} is true, e.g.
+ * ./gradlew :runtime:testDebugUnitTest -Phapjs.benchmark=true
+ * -Phapjs.benchmark.baseline=/path/to/baseline
+ *
+ * <p>To update the checked in baseline, copy the json files written to {@link #PROP_OUTPUT} there,
+ * keeping the slowest ratio of a few runs, as jit may compile some operations differently in each
+ * JVM. Ratios still vary between cpu architectures and JVMs, a CI machine may record its own
+ * baseline with a previous build and pass it by {@link #PROP_BASELINE}, with a tighter
+ * {@link #PROP_TOLERANCE} when the machine is stable.
+ */
+public class Benchmark {
+    public static final String PROP_ENABLED = "hapjs.benchmark";
+    public static final String PROP_OUTPUT = "hapjs.benchmark.output";
+    public static final String PROP_BASELINE = "hapjs.benchmark.baseline";
+    public static final String PROP_TOLERANCE = "hapjs.benchmark.tolerance";
+
+    private static final String BASELINE_RESOURCE_DIR = "/benchmark/";
+    private static final String DEFAULT_OUTPUT = "build/benchmark";
+    private static final double DEFAULT_TOLERANCE = 0.2;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final long MIN_WARMUP_NANOS = 1000 * 1000 * 1000L;
+    private static final int MEASURE_ROUNDS = 11;
+    private static final long MIN_ROUND_NANOS = 20 * 1000 * 1000L;
+    private static final int MAX_BATCH = 1 << 24;
+    private static final int CALIBRATION_SIZE = 4096;
+    private static final int CALIBRATION_RUNS = 5;
+    private static final String KEY_CALIBRATION = "calibration";
+    private static final String KEY_RATIOS = "ratios";
+    private static final String KEY_NANOS = "nanos";
+
+    private static double sCalibrationNanos;
+
+    // 防止被测结果被 jit 优化掉
+    public static volatile Object sBlackhole;
+
+    private final String mSuite;
+    private final Map<String, Double> mResults = new LinkedHashMap<>();
+
+    public Benchmark(String suite) {
+        mSuite = suite;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(PROP_ENABLED));
+    }
+
+    /**
+     * @return median nanoseconds per operation
+     */
+    public double measure(String name, Operation operation) throws Exception {
+        getCalibrationNanos();
+        double median = measure(operation);
+        mResults.put(name, median);
+        return median;
+    }
+
+    private static double measure(Operation operation) throws Exception {
+        int batch = 1;
+        while (runBatch(operation, batch) < MIN_ROUND_NANOS && batch < MAX_BATCH) {
+            batch <<= 1;
+        }
+        // 至少预热一秒, 等待 jit 编译完成
+        long warmupNanos = 0;
+        for (int i = 0; i < WARMUP_ROUNDS || warmupNanos < MIN_WARMUP_NANOS; i++) {
+            warmupNanos += runBatch(operation, batch);
+        }
+        double[] samples = new double[MEASURE_ROUNDS];
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            samples[i] = (double) runBatch(operation, batch) / batch;
+        }
+        Arrays.sort(samples);
+        return samples[MEASURE_ROUNDS / 2];
+    }
+
+    /**
+     * Measure the calibration operation once per JVM before the first suite, taking the fastest of
+     * several runs, as the first runs are still slowed down by jit.
+     *
+     * @return nanoseconds of the calibration operation
+     */
+    private static synchronized double getCalibrationNanos() throws Exception {
+        if (sCalibrationNanos == 0) {
+            Operation calibration = new CalibrationOperation();
+            double min = Double.MAX_VALUE;
+            for (int i = 0; i < CALIBRATION_RUNS; i++) {
+                min = Math.min(min, measure(calibration));
+            }
+            sCalibrationNanos = min;
+        }
+        return sCalibrationNanos;
+    }
+
+    /**
+     * Write the results, and compare them with the baseline.
+     *
+     * @return descriptions of the operations slower than baseline beyond tolerance
+     */
+    public List<String> finish() throws Exception {
+        File outputDir = new File(System.getProperty(PROP_OUTPUT, DEFAULT_OUTPUT));
+        if (!outputDir.exists() && !outputDir.mkdirs()) {
+            throw new IOException("failed to create " + outputDir);
+        }
+        double calibration = getCalibrationNanos();
+        JSONObject ratios = new JSONObject();
+        JSONObject nanos = new JSONObject();
+        for (Map.Entry<String, Double> entry : mResults.entrySet()) {
+            ratios.put(entry.getKey(), entry.getValue() / calibration);
+            nanos.put(entry.getKey(), entry.getValue());
+        }
+        JSONObject results = new JSONObject();
+        results.put(KEY_CALIBRATION, calibration);
+        results.put(KEY_RATIOS, ratios);
+        results.put(KEY_NANOS, nanos);
+        Files.write(
+                new File(outputDir, mSuite + ".json").toPath(),
+                results.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<String> regressions = new ArrayList<>();
+        JSONObject baseline = loadBaseline();
+        if (baseline == null) {
+            return regressions;
+        }
+        double tolerance = Double.parseDouble(
+                System.getProperty(PROP_TOLERANCE, String.valueOf(DEFAULT_TOLERANCE)));
+        JSONObject expectedRatios = baseline.getJSONObject(KEY_RATIOS);
+        Iterator<String> names = expectedRatios.keys();
+        while (names.hasNext()) {
+            String name = names.next();
+            Double current = mResults.get(name);
+            double expected = expectedRatios.getDouble(name);
+            if (current != null && current / calibration > expected * (1 + tolerance)) {
+                regressions.add(
+                        String.format(Locale.US,
+                                "%s.%s: %.3f x calibration (%.1f ns/op), baseline %.3f x",
+                                mSuite, name, current / calibration, current, expected));
+            }
+        }
+        return regressions;
+    }
+
+    private JSONObject loadBaseline() throws IOException, JSONException {
+        String baselineDir = System.getProperty(PROP_BASELINE);
+        String content;
+        if (baselineDir == null || baselineDir.isEmpty()) {
+            content = readResource(BASELINE_RESOURCE_DIR + mSuite + ".json");
+        } else {
+            File baselineFile = new File(baselineDir, mSuite + ".json");
+            if (!baselineFile.exists()) {
+                return null;
+            }
+            content = new String(
+                    Files.readAllBytes(baselineFile.toPath()), StandardCharsets.UTF_8);
+        }
+        return content == null ? null : new JSONObject(content);
+    }
+
+    /**
+     * Read a test resource, such as a page of a sample app under /benchmark/pages.
+     *
+     * @return content of the resource, or null if not found
+     */
+    public static String readResource(String path) throws IOException {
+        try (InputStream in = Benchmark.class.getResourceAsStream(path)) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long runBatch(Operation operation, int batch) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < batch; i++) {
+            operation.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    /**
+     * A fixed mix of work common in runtime: sorting, hashing strings and allocating, whose code
+     * never changes, so its time only depends on the machine.
+     */
+    private static class CalibrationOperation implements Operation {
+        private final int[] mValues = new int[CALIBRATION_SIZE];
+        private final String[] mKeys = new String[CALIBRATION_SIZE / 16];
+
+        CalibrationOperation() {
+            Random random = new Random(0);
+            for (int i = 0; i < mValues.length; i++) {
+                mValues[i] = random.nextInt();
+            }
+            for (int i = 0; i < mKeys.length; i++) {
+                mKeys[i] = "key" + random.nextInt();
+            }
+        }
+
+        @Override
+        public void run() {
+            int[] values = Arrays.copyOf(mValues, mValues.length);
+            Arrays.sort(values);
+            Map<String, Integer> map = new HashMap<>();
+            for (int i = 0; i < mKeys.length; i++) {
+                map.put(mKeys[i] + i, values[i]);
+            }
+            sBlackhole = map;
+        }
+    }
+}
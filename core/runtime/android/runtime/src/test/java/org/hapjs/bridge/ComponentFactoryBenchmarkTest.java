@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.bridge;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.Map;
+import org.hapjs.benchmark.Benchmark;
+import org.hapjs.component.Container;
+import org.hapjs.component.bridge.RenderEventCallback;
+import org.hapjs.runtime.HapEngine;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compare creating components by the factory switch generated into MetaDataSetImpl with the
+ * cached constructor {@link Widget#createComponent} falls back to.
+ *
+ * <p>Components can't be constructed on JVM, so classes with the same constructor signature stand
+ * in for them, and the factory is mirrored the way MetadataGenerator emits it. Only the overhead of
+ * the two ways of calling the constructor is measured, not the constructor itself.
+ */
+public class ComponentFactoryBenchmarkTest {
+    private static final String[] CLASSNAMES = {
+            TextComponent.class.getName(),
+            ImageComponent.class.getName(),
+            DivComponent.class.getName(),
+            ListComponent.class.getName()
+    };
+
+    private Constructor<?>[] mConstructors;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Benchmark.isEnabled());
+        mConstructors = new Constructor<?>[CLASSNAMES.length];
+        for (int i = 0; i < CLASSNAMES.length; i++) {
+            // the same as Widget.getConstructor
+            mConstructors[i] =
+                    Class.forName(CLASSNAMES[i])
+                            .getConstructor(
+                                    HapEngine.class,
+                                    Context.class,
+                                    Container.class,
+                                    int.class,
+                                    RenderEventCallback.class,
+                                    Map.class);
+        }
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        for (int i = 0; i < CLASSNAMES.length; i++) {
+            assertNotNull(createComponent(CLASSNAMES[i], null, null, null, i, null, null));
+            assertNotNull(mConstructors[i].newInstance(null, null, null, i, null, null));
+        }
+
+        Benchmark benchmark = new Benchmark("component_factory");
+        benchmark.measure(
+                "factory",
+                () -> {
+                    for (int i = 0; i < CLASSNAMES.length; i++) {
+                        Benchmark.sBlackhole =
+                                createComponent(CLASSNAMES[i], null, null, null, i, null, null);
+                    }
+                });
+        benchmark.measure(
+                "constructor",
+                () -> {
+                    for (int i = 0; i < CLASSNAMES.length; i++) {
+                        Benchmark.sBlackhole =
+                                mConstructors[i].newInstance(null, null, null, i, null, null);
+                    }
+                });
+
+        List<String> regressions = benchmark.finish();
+        assertTrue("regressions: " + regressions, regressions.isEmpty());
+    }
+
+    // the same as MetaDataSetImpl.createComponent generated by MetadataGenerator
+    private static Object createComponent(
+            String classname,
+            HapEngine hapEngine,
+            Context context,
+            Container parent,
+            int ref,
+            RenderEventCallback callback,
+            Map<String, Object> savedState) {
+        switch (classname) {
+            case "org.hapjs.bridge.ComponentFactoryBenchmarkTest$TextComponent":
+                return new TextComponent(hapEngine, context, parent, ref, callback, savedState);
+            case "org.hapjs.bridge.ComponentFactoryBenchmarkTest$ImageComponent":
+                return new ImageComponent(hapEngine, context, parent, ref, callback, savedState);
+            case "org.hapjs.bridge.ComponentFactoryBenchmarkTest$DivComponent":
+                return new DivComponent(hapEngine, context, parent, ref, callback, savedState);
+            case "org.hapjs.bridge.ComponentFactoryBenchmarkTest$ListComponent":
+                return new ListComponent(hapEngine, context, parent, ref, callback, savedState);
+            default:
+                return null;
+        }
+    }
+
+    public static class TextComponent {
+        final int mRef;
+
+        public TextComponent(
+                HapEngine hapEngine,
+                Context context,
+                Container parent,
+                int ref,
+                RenderEventCallback callback,
+                Map<String, Object> savedState) {
+            mRef = ref;
+        }
+    }
+
+    public static class ImageComponent extends TextComponent {
+        public ImageComponent(
+                HapEngine hapEngine,
+                Context context,
+                Container parent,
+                int ref,
+                RenderEventCallback callback,
+                Map<String, Object> savedState) {
+            super(hapEngine, context, parent, ref, callback, savedState);
+        }
+    }
+
+    public static class DivComponent extends TextComponent {
+        public DivComponent(
+                HapEngine hapEngine,
+                Context context,
+                Container parent,
+                int ref,
+                RenderEventCallback callback,
+                Map<String, Object> savedState) {
+            super(hapEngine, context, parent, ref, callback, savedState);
+        }
+    }
+
+    public static class ListComponent extends TextComponent {
+        public ListComponent(
+                HapEngine hapEngine,
+                Context context,
+                Container parent,
+                int ref,
+                RenderEventCallback callback,
+                Map<String, Object> savedState) {
+            super(hapEngine, context, parent, ref, callback, savedState);
+        }
+    }
+}
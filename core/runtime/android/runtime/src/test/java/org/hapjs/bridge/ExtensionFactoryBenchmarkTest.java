@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.bridge;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.hapjs.benchmark.Benchmark;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compare creating extensions by the factory switch generated into MetaDataSetImpl with the
+ * reflective fallback of {@link ExtensionBridge#createExtension}.
+ *
+ * <p>MetaDataSetImpl is only generated for application projects, so the factory is mirrored here
+ * the way MetadataGenerator emits it. Only the warm cost is measured, the cost of loading the
+ * classes on first invoke is the same for both paths on JVM.
+ */
+public class ExtensionFactoryBenchmarkTest {
+    private static final String[] MODULES = {
+            FirstExtension.class.getName(),
+            SecondExtension.class.getName(),
+            ThirdExtension.class.getName(),
+            FourthExtension.class.getName()
+    };
+
+    private ExtensionBridge mBridge;
+    // a different loader than the one of ExtensionBridge, so the factory is bypassed
+    private ClassLoader mLoader;
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue(Benchmark.isEnabled());
+        mLoader = new ClassLoader(ExtensionBridge.class.getClassLoader()) {
+        };
+        mBridge =
+                new ExtensionBridge(mLoader) {
+                    @Override
+                    protected ExtensionMetaData getExtensionMetaData(String module) {
+                        return null;
+                    }
+                };
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        ExtensionMetaData[] metaDatas = new ExtensionMetaData[MODULES.length];
+        for (int i = 0; i < MODULES.length; i++) {
+            metaDatas[i] = new ExtensionMetaData("ext" + i, MODULES[i]);
+            assertNotNull(createExtension(MODULES[i]));
+            assertNotNull(mBridge.createExtension(mLoader, metaDatas[i]));
+        }
+
+        Benchmark benchmark = new Benchmark("extension_factory");
+        benchmark.measure(
+                "factory",
+                () -> {
+                    for (String module : MODULES) {
+                        Benchmark.sBlackhole = createExtension(module);
+                    }
+                });
+        benchmark.measure(
+                "reflection",
+                () -> {
+                    for (ExtensionMetaData metaData : metaDatas) {
+                        Benchmark.sBlackhole = mBridge.createExtension(mLoader, metaData);
+                    }
+                });
+
+        List<String> regressions = benchmark.finish();
+        assertTrue("regressions: " + regressions, regressions.isEmpty());
+    }
+
+    // the same as MetaDataSetImpl.createExtension generated by MetadataGenerator
+    private static AbstractExtension createExtension(String classname) {
+        switch (classname) {
+            case "org.hapjs.bridge.ExtensionFactoryBenchmarkTest$FirstExtension":
+                return new FirstExtension();
+            case "org.hapjs.bridge.ExtensionFactoryBenchmarkTest$SecondExtension":
+                return new SecondExtension();
+            case "org.hapjs.bridge.ExtensionFactoryBenchmarkTest$ThirdExtension":
+                return new ThirdExtension();
+            case "org.hapjs.bridge.ExtensionFactoryBenchmarkTest$FourthExtension":
+                return new FourthExtension();
+            default:
+                return null;
+        }
+    }
+
+    public static class FirstExtension extends AbstractExtension {
+        @Override
+        protected Response invokeInner(Request request) {
+            return Response.SUCCESS;
+        }
+
+        @Override
+        public String getName() {
+            return "first";
+        }
+
+        @Override
+        public ExtensionMetaData getMetaData() {
+            return null;
+        }
+    }
+
+    public static class SecondExtension extends FirstExtension {
+        @Override
+        public String getName() {
+            return "second";
+        }
+    }
+
+    public static class ThirdExtension extends FirstExtension {
+        @Override
+        public String getName() {
+            return "third";
+        }
+    }
+
+    public static class FourthExtension extends FirstExtension {
+        @Override
+        public String getName() {
+            return "fourth";
+        }
+    }
+}
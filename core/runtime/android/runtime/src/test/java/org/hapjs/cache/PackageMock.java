@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Create unsigned packages shaped like the output of toolkit: a manifest, an app script, a script
+ * and a style sheet for each page, and images which don't compress.
+ */
+public class PackageMock {
+    private static final int PAGES = 20;
+    private static final int IMAGES = 40;
+    private static final int SCRIPT_SIZE = 16 * 1024;
+    private static final int IMAGE_SIZE = 32 * 1024;
+
+    public static byte[] create() throws IOException {
+        Random random = new Random(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            addEntry(zip, "manifest.json",
+                    "{\"package\":\"org.hapjs.benchmark\",\"versionCode\":1}"
+                            .getBytes(StandardCharsets.UTF_8));
+            addEntry(zip, "app.js", createScript(random, SCRIPT_SIZE));
+            for (int i = 0; i < PAGES; i++) {
+                addEntry(zip, "pages/page" + i + "/index.js", createScript(random, SCRIPT_SIZE));
+                addEntry(zip, "pages/page" + i + "/index.css.json",
+                        createScript(random, SCRIPT_SIZE / 4));
+            }
+            for (int i = 0; i < IMAGES; i++) {
+                byte[] image = new byte[IMAGE_SIZE];
+                random.nextBytes(image);
+                addEntry(zip, "common/images/image" + i + ".png", image);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void addEntry(ZipOutputStream zip, String name, byte[] content)
+            throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static byte[] createScript(Random random, int size) {
+        String[] words = {"function", "return", "this", "var", "render", "data", "style", "=>"};
+        StringBuilder sb = new StringBuilder(size + 16);
+        while (sb.length() < size) {
+            sb.append(words[random.nextInt(words.length)]).append(random.nextInt(100)).append(' ');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
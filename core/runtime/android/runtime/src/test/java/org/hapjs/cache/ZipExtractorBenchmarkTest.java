@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.cache;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import org.hapjs.benchmark.Benchmark;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ZipExtractorBenchmarkTest {
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mPackageFile;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Benchmark.isEnabled());
+        mPackageFile = mTemporaryFolder.newFile("package.rpk");
+        Files.write(mPackageFile.toPath(), PackageMock.create());
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        Benchmark benchmark = new Benchmark("zip");
+
+        File outDir = mTemporaryFolder.newFolder("resources");
+        benchmark.measure("extract", () -> ZipExtractor.create(mPackageFile).extract(outDir));
+
+        List<String> regressions = benchmark.finish();
+        assertTrue("regressions: " + regressions, regressions.isEmpty());
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.cache.utils;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.List;
+import org.hapjs.benchmark.Benchmark;
+import org.hapjs.cache.PackageMock;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SignatureVerifierBenchmarkTest {
+    private static final int BLOCK_ID_SIGNATURE_SMALL_CHUNK = 0x01000102;
+    private static final int SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA256 = 0x0103;
+    private static final long SIG_BLOCK_MAGIC_LO = 0x20676953204b5052L;
+    private static final long SIG_BLOCK_MAGIC_HI = 0x3234206b636f6c42L;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int EOCD_SIZE = 22;
+    private static final int EOCD_CENTRAL_DIR_OFFSET = 16;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mPackageFile;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Benchmark.isEnabled());
+        mPackageFile = mTemporaryFolder.newFile("signed.rpk");
+        Files.write(mPackageFile.toPath(), sign(PackageMock.create()));
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        Benchmark benchmark = new Benchmark("signature");
+
+        String path = mPackageFile.getPath();
+        benchmark.measure("verify", () -> Benchmark.sBlackhole = SignatureVerifier.verify(path));
+
+        List<String> regressions = benchmark.finish();
+        assertTrue("regressions: " + regressions, regressions.isEmpty());
+    }
+
+    /**
+     * Sign the zip with the test key in the same format as toolkit, i.e. APK Signature Scheme v2
+     * with 1MB chunks and the magic of rpk.
+     */
+    private byte[] sign(byte[] zip) throws Exception {
+        // ZipOutputStream 不写注释, EoCD 固定在末尾
+        ByteBuffer eocd = ByteBuffer.wrap(zip, zip.length - EOCD_SIZE, EOCD_SIZE).slice();
+        eocd.order(ByteOrder.LITTLE_ENDIAN);
+        int centralDirOffset = eocd.getInt(EOCD_CENTRAL_DIR_OFFSET);
+        int eocdOffset = zip.length - EOCD_SIZE;
+
+        byte[] digest = computeDigest(
+                ByteBuffer.wrap(zip, 0, centralDirOffset).slice(),
+                ByteBuffer.wrap(zip, centralDirOffset, eocdOffset - centralDirOffset).slice(),
+                eocd.duplicate());
+
+        X509Certificate certificate;
+        try (InputStream in = getResource("test.x509.pem")) {
+            certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(in);
+        }
+        PrivateKey privateKey;
+        try (InputStream in = getResource("test.pk8")) {
+            privateKey = KeyFactory.getInstance("RSA")
+                    .generatePrivate(new PKCS8EncodedKeySpec(readAll(in)));
+        }
+
+        byte[] signedData = concat(
+                lengthPrefixed(lengthPrefixed(concat(
+                        int32(SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA256), lengthPrefixed(digest)))),
+                lengthPrefixed(lengthPrefixed(certificate.getEncoded())),
+                lengthPrefixed(new byte[0]));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(privateKey);
+        signature.update(signedData);
+        byte[] signer = concat(
+                lengthPrefixed(signedData),
+                lengthPrefixed(lengthPrefixed(concat(
+                        int32(SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA256),
+                        lengthPrefixed(signature.sign())))),
+                lengthPrefixed(certificate.getPublicKey().getEncoded()));
+        byte[] value = lengthPrefixed(lengthPrefixed(signer));
+
+        // size, id-value pair, size, magic
+        int blockSize = 8 + 8 + 4 + value.length + 8 + 16;
+        ByteBuffer block = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+        block.putLong(blockSize - 8);
+        block.putLong(4 + value.length);
+        block.putInt(BLOCK_ID_SIGNATURE_SMALL_CHUNK);
+        block.put(value);
+        block.putLong(blockSize - 8);
+        block.putLong(SIG_BLOCK_MAGIC_LO);
+        block.putLong(SIG_BLOCK_MAGIC_HI);
+
+        ByteBuffer signed = ByteBuffer.allocate(zip.length + blockSize)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        signed.put(zip, 0, centralDirOffset);
+        signed.put(block.array());
+        signed.put(zip, centralDirOffset, zip.length - centralDirOffset);
+        signed.putInt(eocdOffset + blockSize + EOCD_CENTRAL_DIR_OFFSET,
+                centralDirOffset + blockSize);
+        return signed.array();
+    }
+
+    private static byte[] computeDigest(ByteBuffer... sections) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        ByteArrayOutputStream chunkDigests = new ByteArrayOutputStream();
+        int chunkCount = 0;
+        for (ByteBuffer section : sections) {
+            while (section.hasRemaining()) {
+                int size = Math.min(section.remaining(), CHUNK_SIZE);
+                md.update((byte) 0xa5);
+                md.update(int32(size));
+                ByteBuffer chunk = section.slice();
+                chunk.limit(size);
+                md.update(chunk);
+                section.position(section.position() + size);
+                chunkDigests.write(md.digest());
+                chunkCount++;
+            }
+        }
+        md.update((byte) 0x5a);
+        md.update(int32(chunkCount));
+        md.update(chunkDigests.toByteArray());
+        return md.digest();
+    }
+
+    private static byte[] int32(int value) {
+        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+    }
+
+    private static byte[] lengthPrefixed(byte[] data) {
+        return concat(int32(data.length), data);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private InputStream getResource(String name) throws IOException {
+        InputStream in = getClass().getResourceAsStream("/signature/" + name);
+        if (in == null) {
+            throw new IOException("resource not found: " + name);
+        }
+        return in;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
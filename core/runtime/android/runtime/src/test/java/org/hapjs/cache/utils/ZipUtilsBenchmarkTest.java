@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.cache.utils;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.hapjs.benchmark.Benchmark;
+import org.hapjs.common.utils.FileUtils;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compare {@link ZipUtils#unzip(File, File)} with the sequential ZipInputStream extraction it
+ * replaced, on an archive of many small files and one of a few large files.
+ */
+public class ZipUtilsBenchmarkTest {
+    private static final int SMALL_FILE_COUNT = 2000;
+    private static final int SMALL_FILE_SIZE = 4 * 1024;
+    private static final int LARGE_FILE_COUNT = 4;
+    private static final int LARGE_FILE_SIZE = 16 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mSmallFilesZip;
+    private File mLargeFilesZip;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Benchmark.isEnabled());
+        mSmallFilesZip = createZip("small.zip", SMALL_FILE_COUNT, SMALL_FILE_SIZE);
+        mLargeFilesZip = createZip("large.zip", LARGE_FILE_COUNT, LARGE_FILE_SIZE);
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        Benchmark benchmark = new Benchmark("unzip");
+        File outDir = mTemporaryFolder.newFolder("out");
+
+        benchmark.measure("serialSmallFiles", () -> unzipSerially(mSmallFilesZip, outDir));
+        benchmark.measure("parallelSmallFiles", () -> ZipUtils.unzip(mSmallFilesZip, outDir));
+        benchmark.measure("serialLargeFiles", () -> unzipSerially(mLargeFilesZip, outDir));
+        benchmark.measure("parallelLargeFiles", () -> ZipUtils.unzip(mLargeFilesZip, outDir));
+
+        List<String> regressions = benchmark.finish();
+        assertTrue("regressions: " + regressions, regressions.isEmpty());
+    }
+
+    private File createZip(String name, int fileCount, int fileSize) throws IOException {
+        File file = mTemporaryFolder.newFile(name);
+        Random random = new Random(fileCount);
+        byte[] content = new byte[fileSize];
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < fileCount; i++) {
+                // half random and half repeated, so entries compress like assets do
+                for (int j = 0; j < fileSize; j++) {
+                    content[j] = (byte) (j % 2 == 0 ? random.nextInt(256) : j);
+                }
+                out.putNextEntry(new ZipEntry("dir" + i % 16 + "/file" + i + ".bin"));
+                out.write(content);
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * The former implementation of unzip: one ZipInputStream read with a 1 KB buffer, entries
+     * written one after another.
+     */
+    private static void unzipSerially(File zipFile, File targetDirectory) throws IOException {
+        byte[] buffer = new byte[1024];
+        try (ZipInputStream zis =
+                     new ZipInputStream(new BufferedInputStream(new FileInputStream(zipFile)))) {
+            ZipEntry ze;
+            while ((ze = zis.getNextEntry()) != null) {
+                File targetFile = new File(targetDirectory, ze.getName());
+                if (ze.isDirectory()) {
+                    targetFile.mkdirs();
+                    continue;
+                }
+                File targetParentFile = targetFile.getParentFile();
+                if (!targetParentFile.exists()) {
+                    targetParentFile.mkdirs();
+                }
+                FileOutputStream fos = new FileOutputStream(targetFile);
+                try {
+                    int count;
+                    while ((count = zis.read(buffer)) != -1) {
+                        fos.write(buffer, 0, count);
+                    }
+                } finally {
+                    FileUtils.closeQuietly(fos);
+                }
+                zis.closeEntry();
+            }
+        }
+    }
+}
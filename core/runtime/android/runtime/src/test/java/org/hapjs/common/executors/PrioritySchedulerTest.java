@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.common.executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrioritySchedulerTest {
+    private static final int MAX_THREADS = 8;
+    // bulk may use a quarter of the threads
+    private static final int BULK_LIMIT = MAX_THREADS / 4;
+    private static final int BULK_TASKS = 200;
+    // a bulk task blocks on io like writing a file of an install
+    private static final long BULK_TASK_MILLIS = 20;
+    private static final int RENDER_TASKS = 20;
+    private static final long RENDER_INTERVAL_MILLIS = 5;
+    // 8 threads running all the bulk tasks in order would take 500ms
+    private static final long MAX_RENDER_WAIT_MILLIS = 100;
+
+    private PriorityScheduler mScheduler;
+
+    @Before
+    public void setup() {
+        mScheduler = new PriorityScheduler(MAX_THREADS, Thread::new);
+    }
+
+    @Test
+    public void renderStaysFastUnderBulkFlood() throws Exception {
+        CountDownLatch bulkDone = new CountDownLatch(BULK_TASKS);
+        AtomicInteger bulkRunning = new AtomicInteger();
+        AtomicInteger maxBulkRunning = new AtomicInteger();
+        for (int i = 0; i < BULK_TASKS; i++) {
+            mScheduler.executor(PriorityScheduler.Priority.BULK).execute(() -> {
+                int running = bulkRunning.incrementAndGet();
+                maxBulkRunning.accumulateAndGet(running, Math::max);
+                sleep(BULK_TASK_MILLIS);
+                bulkRunning.decrementAndGet();
+                bulkDone.countDown();
+            });
+        }
+
+        CountDownLatch renderDone = new CountDownLatch(RENDER_TASKS);
+        AtomicLong maxRenderWait = new AtomicLong();
+        for (int i = 0; i < RENDER_TASKS; i++) {
+            long submitTime = System.nanoTime();
+            mScheduler.executor(PriorityScheduler.Priority.VISIBLE_RENDER).execute(() -> {
+                maxRenderWait.accumulateAndGet(System.nanoTime() - submitTime, Math::max);
+                renderDone.countDown();
+            });
+            sleep(RENDER_INTERVAL_MILLIS);
+        }
+
+        assertTrue(renderDone.await(5, TimeUnit.SECONDS));
+        long maxWaitMillis = TimeUnit.NANOSECONDS.toMillis(maxRenderWait.get());
+        assertTrue("max render wait " + maxWaitMillis + "ms",
+                maxWaitMillis < MAX_RENDER_WAIT_MILLIS);
+        // bulk 任务在上限内继续执行, 不会被饿死
+        assertTrue(bulkDone.await(10, TimeUnit.SECONDS));
+        assertEquals(BULK_LIMIT, maxBulkRunning.get());
+    }
+
+    @Test
+    public void starvingBulkRunsUnderRenderFlood() throws Exception {
+        CountDownLatch bulkDone = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        // keep all the threads busy with render tasks
+        for (int i = 0; i < MAX_THREADS * 4; i++) {
+            mScheduler.executor(PriorityScheduler.Priority.VISIBLE_RENDER)
+                    .execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            sleep(BULK_TASK_MILLIS);
+                            if (bulkDone.getCount() > 0 && System.nanoTime() < deadline) {
+                                mScheduler.executor(PriorityScheduler.Priority.VISIBLE_RENDER)
+                                        .execute(this);
+                            }
+                        }
+                    });
+        }
+        mScheduler.executor(PriorityScheduler.Priority.BULK).execute(bulkDone::countDown);
+
+        // 等待超过 STARVATION_TIMEOUT 后 bulk 任务先于 render 任务执行
+        assertTrue(bulkDone.await(2, TimeUnit.SECONDS));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
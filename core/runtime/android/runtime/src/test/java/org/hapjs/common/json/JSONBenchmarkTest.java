@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.common.json;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+import org.hapjs.benchmark.Benchmark;
+import org.json.JSONException;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JSONBenchmarkTest {
+    private static final int ACTIONS = 200;
+    private static final String PAGE = "/benchmark/pages/about-page.json";
+
+    private String mActionsJson;
+    private String mPageActionsJson;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Benchmark.isEnabled());
+        mActionsJson = createActionsJson();
+        mPageActionsJson = createPageActionsJson(
+                new JSONObject(Benchmark.readResource(PAGE)).getJSONObject("template"));
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        Benchmark benchmark = new Benchmark("json");
+
+        benchmark.measure(
+                "parseRenderActions",
+                () -> Benchmark.sBlackhole = new JSONObject(mActionsJson));
+
+        JSONObject actions = new JSONObject(mActionsJson);
+        benchmark.measure("stringify", () -> Benchmark.sBlackhole = actions.toString());
+
+        benchmark.measure(
+                "parsePageActions",
+                () -> Benchmark.sBlackhole = new JSONObject(mPageActionsJson));
+
+        JSONObject pageActions = new JSONObject(mPageActionsJson);
+        benchmark.measure(
+                "stringifyPageActions", () -> Benchmark.sBlackhole = pageActions.toString());
+
+        List<String> regressions = benchmark.finish();
+        assertTrue("regressions: " + regressions, regressions.isEmpty());
+    }
+
+    /**
+     * Render actions shaped like the ones sent by js framework on page creation: nodes with
+     * attributes, inline styles and events.
+     */
+    private String createActionsJson() {
+        StringBuilder sb = new StringBuilder("{\"pageId\":1,\"actions\":[");
+        for (int i = 0; i < ACTIONS; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"method\":\"addElement\",\"args\":[")
+                    .append(i / 4).append(",{\"ref\":\"").append(i + 1)
+                    .append("\",\"type\":\"").append(i % 3 == 0 ? "text" : "div")
+                    .append("\",\"attr\":{\"class\":\"item c").append(i % 80)
+                    .append("\",\"value\":\"item title ").append(i)
+                    .append("\"},\"style\":{\"width\":\"").append(100 + i % 50)
+                    .append("px\",\"opacity\":0.").append(i % 10)
+                    .append(",\"flex\":1},\"event\":[\"click\",\"longpress\"]},")
+                    .append(i % 4).append("]}");
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /**
+     * Render actions creating the about page shipped in assets, a page compiled by toolkit with
+     * bound data filled in.
+     */
+    private String createPageActionsJson(JSONObject template) throws JSONException {
+        JSONArray actions = new JSONArray();
+        addElements(actions, template, 0, 0);
+        JSONObject result = new JSONObject();
+        result.put("pageId", 1);
+        result.put("actions", actions);
+        return result.toString();
+    }
+
+    private void addElements(JSONArray actions, JSONObject node, int parentRef, int index)
+            throws JSONException {
+        int ref = actions.length() + 1;
+        JSONObject attr = new JSONObject(node.optJSONObject("attr").toString());
+        JSONArray classList = node.optJSONArray("classList");
+        if (classList != null && classList.length() > 0) {
+            StringBuilder classes = new StringBuilder();
+            for (int i = 0; i < classList.length(); i++) {
+                classes.append(i > 0 ? " " : "").append(classList.getString(i));
+            }
+            attr.put("class", classes.toString());
+        }
+        JSONObject element = new JSONObject();
+        element.put("ref", String.valueOf(ref));
+        element.put("type", node.getString("type"));
+        element.put("attr", attr);
+        JSONObject style = node.optJSONObject("style");
+        element.put("style", style == null ? new JSONObject() : style);
+        JSONObject events = node.optJSONObject("events");
+        JSONArray event = new JSONArray();
+        if (events != null) {
+            Iterator<String> names = events.keys();
+            while (names.hasNext()) {
+                event.put(names.next());
+            }
+        }
+        element.put("event", event);
+
+        JSONArray args = new JSONArray();
+        args.put(parentRef);
+        args.put(element);
+        args.put(index);
+        JSONObject action = new JSONObject();
+        action.put("method", "addElement");
+        action.put("args", args);
+        actions.put(action);
+
+        JSONArray children = node.optJSONArray("children");
+        if (children != null) {
+            for (int i = 0; i < children.length(); i++) {
+                addElements(actions, children.getJSONObject(i), ref, i);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.common.utils;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import org.hapjs.benchmark.Benchmark;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compare reading a range near the end of a large file by skipping an input stream, as
+ * readArrayBuffer did, with the positional channel read it uses now.
+ */
+public class FileUtilsBenchmarkTest {
+    private static final int FILE_SIZE = 64 * 1024 * 1024;
+    private static final int[] RANGE_SIZES = {4 * 1024, 256 * 1024, 4 * 1024 * 1024, FILE_SIZE};
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mFile;
+    private RandomAccessFile mRandomAccessFile;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Benchmark.isEnabled());
+        mFile = mTemporaryFolder.newFile("data.bin");
+        mRandomAccessFile = new RandomAccessFile(mFile, "rw");
+        mRandomAccessFile.setLength(FILE_SIZE);
+        // touch every page, so the file is not sparse
+        byte[] block = new byte[64 * 1024];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (byte) i;
+        }
+        for (int written = 0; written < FILE_SIZE; written += block.length) {
+            mRandomAccessFile.write(block);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (mRandomAccessFile != null) {
+            mRandomAccessFile.close();
+        }
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        Benchmark benchmark = new Benchmark("file_read");
+        FileChannel channel = mRandomAccessFile.getChannel();
+        for (int size : RANGE_SIZES) {
+            int position = FILE_SIZE - size;
+            String suffix = size / 1024 + "k";
+            benchmark.measure(
+                    "stream_" + suffix,
+                    () -> Benchmark.sBlackhole =
+                            FileUtils.readStreamAsBuffer(
+                                    new FileInputStream(mFile), position, size, true));
+            benchmark.measure(
+                    "channel_" + suffix,
+                    () -> Benchmark.sBlackhole =
+                            FileUtils.readChannelAsBuffer(channel, position, size));
+        }
+
+        List<String> regressions = benchmark.finish();
+        assertTrue("regressions: " + regressions, regressions.isEmpty());
+    }
+}
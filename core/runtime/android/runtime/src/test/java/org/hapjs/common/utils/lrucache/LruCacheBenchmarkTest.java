@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.common.utils.lrucache;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.hapjs.benchmark.Benchmark;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LruCacheBenchmarkTest {
+    private static final int CAPACITY = 64;
+
+    private String[] mKeys;
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue(Benchmark.isEnabled());
+        mKeys = new String[CAPACITY * 2];
+        for (int i = 0; i < mKeys.length; i++) {
+            mKeys[i] = "/pages/page" + i + "/index.js";
+        }
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        Benchmark benchmark = new Benchmark("lru_cache");
+
+        LruCache<String, String> hitCache = new LruCache<>(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            hitCache.put(mKeys[i], mKeys[i]);
+        }
+        benchmark.measure(
+                "getHit",
+                () -> {
+                    for (int i = 0; i < CAPACITY; i++) {
+                        Benchmark.sBlackhole = hitCache.get(mKeys[i]);
+                    }
+                });
+
+        LruCache<String, String> evictCache = new LruCache<>(CAPACITY);
+        benchmark.measure(
+                "putEvict",
+                () -> {
+                    for (String key : mKeys) {
+                        if (evictCache.get(key) == null) {
+                            evictCache.put(key, key);
+                        }
+                    }
+                });
+
+        List<String> regressions = benchmark.finish();
+        assertTrue("regressions: " + regressions, regressions.isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+    @Before
+    public void setup() {
+        MetricsRegistry.setEnabled(true);
+        MetricsRegistry.get().snapshotAndReset();
+    }
+
+    @After
+    public void tearDown() {
+        MetricsRegistry.setEnabled(false);
+    }
+
+    @Test
+    public void bucketsCoverAllValuesContiguously() {
+        assertEquals(0, MetricsRegistry.Timer.bucketOf(0));
+        assertEquals(
+                MetricsRegistry.Timer.BUCKET_COUNT - 1,
+                MetricsRegistry.Timer.bucketOf(Long.MAX_VALUE));
+        for (int bucket = 0; bucket < MetricsRegistry.Timer.BUCKET_COUNT - 1; bucket++) {
+            long upper = MetricsRegistry.Timer.upperBoundOf(bucket);
+            assertEquals(bucket, MetricsRegistry.Timer.bucketOf(upper));
+            assertEquals(bucket + 1, MetricsRegistry.Timer.bucketOf(upper + 1));
+        }
+    }
+
+    @Test
+    public void percentileWithinSubBucketPrecision() {
+        MetricsRegistry.Timer timer = MetricsRegistry.get().timer("test");
+        for (long i = 1; i <= 1000; i++) {
+            timer.record(i * 1000);
+        }
+        MetricsRegistry.TimerSnapshot snapshot = single(MetricsRegistry.get().snapshotAndReset());
+        assertEquals(1000, snapshot.count);
+        assertEquals(1000_000, snapshot.maxNanos);
+        assertNear(500_000, snapshot.percentile(50));
+        assertNear(900_000, snapshot.percentile(90));
+        assertNear(990_000, snapshot.percentile(99));
+        assertEquals(1000_000, snapshot.percentile(100));
+    }
+
+    @Test
+    public void snapshotResetsTimer() {
+        MetricsRegistry.Timer timer = MetricsRegistry.get().timer("test");
+        timer.record(10);
+        timer.record(-1);
+        MetricsRegistry.TimerSnapshot snapshot = single(MetricsRegistry.get().snapshotAndReset());
+        assertEquals(1, snapshot.count);
+        assertEquals(10, snapshot.totalNanos);
+        assertEquals(10, snapshot.percentile(50));
+        assertTrue(MetricsRegistry.get().snapshotAndReset().isEmpty());
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        MetricsRegistry.setEnabled(false);
+        assertEquals(0, MetricsRegistry.start());
+        MetricsRegistry.get().timer("test").stop(MetricsRegistry.start());
+        MetricsRegistry.Counter counter = MetricsRegistry.get().counter("test");
+        counter.increment();
+        assertEquals(0, counter.getAndReset());
+        assertTrue(MetricsRegistry.get().snapshotAndReset().isEmpty());
+    }
+
+    private static MetricsRegistry.TimerSnapshot single(List<MetricsRegistry.TimerSnapshot> list) {
+        assertEquals(1, list.size());
+        return list.get(0);
+    }
+
+    private static void assertNear(long expected, long actual) {
+        // the upper bound of a bucket is at most 1/16 above the value
+        assertTrue(
+                "expected " + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 16);
+    }
+}
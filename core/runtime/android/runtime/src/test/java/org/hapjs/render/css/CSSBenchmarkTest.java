@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.css;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hapjs.benchmark.Benchmark;
+import org.hapjs.common.json.JSONArray;
+import org.hapjs.common.json.JSONObject;
+import org.hapjs.render.action.RenderActionDocumentMock;
+import org.hapjs.render.action.RenderActionNode;
+import org.json.JSONException;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CSSBenchmarkTest {
+    private static final int CLASS_RULES = 80;
+    private static final int DESC_RULES = 20;
+    private static final int ID_RULES = 10;
+    private static final String PAGE = "/benchmark/pages/about-page.json";
+
+    private String mStyleSheetJson;
+    private JSONObject mPage;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Benchmark.isEnabled());
+        mStyleSheetJson = createStyleSheetJson();
+        mPage = new JSONObject(Benchmark.readResource(PAGE));
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        Benchmark benchmark = new Benchmark("css");
+
+        benchmark.measure(
+                "parseStyleSheet",
+                () -> Benchmark.sBlackhole =
+                        CSSParser.parseCSSStyleSheet(new JSONObject(mStyleSheetJson)));
+
+        RenderActionDocumentMock document = new RenderActionDocumentMock(0);
+        document.registerStyleSheet(
+                1, CSSParser.parseCSSStyleSheet(new JSONObject(mStyleSheetJson)));
+        RenderActionNode page = createNode(document, document, 1, "div", "doc-page", null);
+        page.setStyleObjectId(1);
+        RenderActionNode list = createNode(document, page, 2, "list", "list", null);
+        RenderActionNode item = createNode(document, list, 3, "list-item", "item-5", null);
+        RenderActionNode row = createNode(document, item, 4, "div", "row c3", null);
+        RenderActionNode title = createNode(document, row, 5, "text", "title c7 c12", "id3");
+        benchmark.measure(
+                "matchStyles",
+                () -> Benchmark.sBlackhole = title.calFinalStyle(title.calMatchedStyles()));
+
+        // 样式表和节点来自 assets 中 toolkit 编译的关于页面
+        String pageStyleSheetJson = mPage.getJSONObject("style").toString();
+        benchmark.measure(
+                "parsePageStyleSheet",
+                () -> Benchmark.sBlackhole =
+                        CSSParser.parseCSSStyleSheet(new JSONObject(pageStyleSheetJson)));
+
+        RenderActionDocumentMock pageDocument = new RenderActionDocumentMock(1);
+        pageDocument.registerStyleSheet(
+                1, CSSParser.parseCSSStyleSheet(new JSONObject(pageStyleSheetJson)));
+        List<RenderActionNode> pageNodes = new ArrayList<>();
+        createNodes(pageDocument, pageDocument, mPage.getJSONObject("template"), pageNodes);
+        pageNodes.get(0).setStyleObjectId(1);
+        benchmark.measure(
+                "matchPageStyles",
+                () -> {
+                    for (RenderActionNode node : pageNodes) {
+                        Benchmark.sBlackhole = node.calFinalStyle(node.calMatchedStyles());
+                    }
+                });
+
+        OrderedConcurrentHashMap<String, String> map = new OrderedConcurrentHashMap<>();
+        benchmark.measure(
+                "orderedMap",
+                () -> {
+                    for (int i = 0; i < CLASS_RULES; i++) {
+                        map.add(".c" + i, "value");
+                    }
+                    for (String key : map) {
+                        Benchmark.sBlackhole = map.get(key);
+                    }
+                    map.clear();
+                });
+
+        List<String> regressions = benchmark.finish();
+        assertTrue("regressions: " + regressions, regressions.isEmpty());
+    }
+
+    private RenderActionNode createNode(
+            RenderActionDocumentMock document,
+            Node parent,
+            int id,
+            String tagName,
+            String classes,
+            String cssId) {
+        RenderActionNode node = document.createNode(id, tagName);
+        node.setParent(parent);
+        node.setCSSClass(classes);
+        if (cssId != null) {
+            node.setCSSId(cssId);
+        }
+        return node;
+    }
+
+    private void createNodes(
+            RenderActionDocumentMock document,
+            Node parent,
+            JSONObject template,
+            List<RenderActionNode> nodes)
+            throws JSONException {
+        StringBuilder classes = new StringBuilder();
+        JSONArray classList = template.optJSONArray("classList");
+        if (classList != null) {
+            for (int i = 0; i < classList.length(); i++) {
+                classes.append(i > 0 ? " " : "").append(classList.getString(i));
+            }
+        }
+        RenderActionNode node =
+                createNode(document, parent, nodes.size() + 1, template.getString("type"),
+                        classes.toString(), null);
+        nodes.add(node);
+        JSONArray children = template.optJSONArray("children");
+        if (children != null) {
+            for (int i = 0; i < children.length(); i++) {
+                createNodes(document, node, children.getJSONObject(i), nodes);
+            }
+        }
+    }
+
+    /**
+     * A style sheet shaped like the output of toolkit for a list page: rules of tags, a lot of
+     * class rules, descendant rules of list items, and a few id rules.
+     */
+    private String createStyleSheetJson() {
+        StringBuilder sb = new StringBuilder("{");
+        String[] tags = {"div", "text", "image", "list", "list-item"};
+        for (String tag : tags) {
+            appendRule(sb, tag, 0);
+        }
+        for (int i = 0; i < CLASS_RULES; i++) {
+            appendRule(sb, ".c" + i, i);
+        }
+        for (int i = 0; i < DESC_RULES; i++) {
+            appendRule(sb, ".list .item-" + i + " .title", i);
+        }
+        for (int i = 0; i < ID_RULES; i++) {
+            appendRule(sb, ".doc-page #id" + i, i);
+        }
+        sb.setCharAt(sb.length() - 1, '}');
+        return sb.toString();
+    }
+
+    private void appendRule(StringBuilder sb, String selector, int seed) {
+        sb.append('"').append(selector).append("\":{")
+                .append("\"width\":\"").append(100 + seed).append("px\",")
+                .append("\"height\":\"").append(40 + seed % 20).append("px\",")
+                .append("\"color\":\"#").append(String.format("%06x", seed * 2221)).append("\",")
+                .append("\"fontSize\":\"").append(24 + seed % 8).append("px\",")
+                .append("\"flexDirection\":\"").append(seed % 2 == 0 ? "row" : "column")
+                .append("\",")
+                .append("\"marginTop\":\"").append(seed % 16).append("px\"},");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.jsruntime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hapjs.component.constants.Attributes;
+import org.junit.Test;
+
+public class JsEventQueueTest {
+    private static final int PAGE = 1;
+    private static final int LIST = 2;
+
+    private final JsEventQueue mQueue = new JsEventQueue();
+
+    @Test
+    public void mergedScrollSumsDeltas() {
+        JsThread.JsEventCallbackData first = mQueue.offer(scroll(3, 10, 1));
+        JsThread.JsEventCallbackData merged = mQueue.offer(scroll(4, 15, 1));
+        assertEquals(7, merged.params.get("scrollX"));
+        assertEquals(25, merged.params.get("scrollY"));
+        assertEquals(1, merged.params.get("scrollState"));
+        // the message of the first event finds nothing to fire
+        assertFalse(mQueue.remove(first));
+        assertTrue(mQueue.remove(merged));
+    }
+
+    @Test
+    public void scrollStateChangeIsNotMerged() {
+        JsThread.JsEventCallbackData dragging = mQueue.offer(scroll(0, 10, 1));
+        JsThread.JsEventCallbackData settling = mQueue.offer(scroll(0, 5, 2));
+        JsThread.JsEventCallbackData merged = mQueue.offer(scroll(0, 3, 2));
+        assertEquals(8, merged.params.get("scrollY"));
+        assertFalse(mQueue.remove(settling));
+        assertTrue(mQueue.remove(dragging));
+        assertEquals(10, dragging.params.get("scrollY"));
+        assertTrue(mQueue.remove(merged));
+    }
+
+    @Test
+    public void discreteEventIsNotSkipped() {
+        JsThread.JsEventCallbackData scroll = mQueue.offer(scroll(0, 10, 1));
+        JsThread.JsEventCallbackData click = mQueue.offer(event(Attributes.Event.CLICK, null));
+        JsThread.JsEventCallbackData next = mQueue.offer(scroll(0, 10, 1));
+        assertNotSame(scroll, next);
+        assertEquals(10, next.params.get("scrollY"));
+        assertTrue(mQueue.remove(scroll));
+        assertTrue(mQueue.remove(click));
+        assertTrue(mQueue.remove(next));
+    }
+
+    @Test
+    public void absoluteEventIsReplaced() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("offsetWidth", 100);
+        JsThread.JsEventCallbackData first = mQueue.offer(event(Attributes.Event.RESIZE, params));
+        JsThread.JsEventCallbackData second = mQueue.offer(event(Attributes.Event.RESIZE, params));
+        assertSame(params, second.params);
+        assertFalse(mQueue.remove(first));
+        assertTrue(mQueue.remove(second));
+    }
+
+    @Test
+    public void coalesceBatch() {
+        List<JsThread.JsEventCallbackData> result =
+                JsEventQueue.coalesce(
+                        Arrays.asList(scroll(1, 1, 1), scroll(2, 2, 1), scroll(0, 0, 0)));
+        assertEquals(2, result.size());
+        assertEquals(3, result.get(0).params.get("scrollY"));
+        assertEquals(0, result.get(1).params.get("scrollState"));
+    }
+
+    private static JsThread.JsEventCallbackData scroll(int dx, int dy, int state) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("scrollX", dx);
+        params.put("scrollY", dy);
+        params.put("scrollState", state);
+        return event(Attributes.Event.SCROLL, params);
+    }
+
+    private static JsThread.JsEventCallbackData event(String name, Map<String, Object> params) {
+        return new JsThread.JsEventCallbackData(PAGE, LIST, name, params, null);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.jsruntime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimerQueueTest {
+    private static final int PAGE = 1;
+
+    private TimerQueue mQueue;
+
+    @Before
+    public void setup() {
+        mQueue = new TimerQueue();
+    }
+
+    @Test
+    public void firesInOrderOfTimeThenSequence() {
+        mQueue.add(PAGE, 1, false, 30, 0);
+        mQueue.add(PAGE, 2, false, 10, 0);
+        mQueue.add(PAGE, 3, false, 10, 0);
+        assertEquals(10, mQueue.getNextFireTime());
+        assertEquals(ids(2, 3), idsOf(mQueue.pollExpired(10)));
+        assertEquals(ids(1), idsOf(mQueue.pollExpired(40)));
+        assertEquals(Long.MAX_VALUE, mQueue.getNextFireTime());
+    }
+
+    @Test
+    public void cancelAndReplace() {
+        mQueue.add(PAGE, 1, false, 10, 0);
+        mQueue.add(PAGE, 2, false, 10, 0);
+        mQueue.cancel(1);
+        // the same id replaces the pending timer
+        mQueue.add(PAGE, 2, false, 50, 0);
+        assertNull(mQueue.pollExpired(10));
+        assertEquals(ids(2), idsOf(mQueue.pollExpired(50)));
+    }
+
+    @Test
+    public void intervalSkipsMissedTicks() {
+        mQueue.add(PAGE, 1, true, 10, 0);
+        assertEquals(ids(1), idsOf(mQueue.pollExpired(35)));
+        assertEquals(40, mQueue.getNextFireTime());
+    }
+
+    @Test
+    public void hiddenPageTimersAreAlignedAndReleasedOnShow() {
+        mQueue.setPageVisible(PAGE, true);
+        mQueue.add(PAGE, 1, false, 10, 0);
+        mQueue.add(PAGE, 2, false, 20, 0);
+        mQueue.setPageVisible(PAGE, false);
+        assertNull(mQueue.pollExpired(20));
+        assertEquals(TimerQueue.HIDDEN_TIMER_INTERVAL, mQueue.getNextFireTime());
+        assertEquals(ids(1, 2), idsOf(mQueue.pollExpired(TimerQueue.HIDDEN_TIMER_INTERVAL)));
+
+        mQueue.add(PAGE, 3, false, 10, 1000);
+        assertNull(mQueue.pollExpired(1010));
+        assertTrue(mQueue.setPageVisible(PAGE, true));
+        assertEquals(1010, mQueue.getNextFireTime());
+        assertEquals(ids(3), idsOf(mQueue.pollExpired(1010)));
+    }
+
+    @Test
+    public void appTimersAreThrottledInBackground() {
+        mQueue.add(TimerQueue.NO_PAGE, 1, true, 10, 0);
+        // not hidden before any page is shown
+        assertEquals(ids(1), idsOf(mQueue.pollExpired(10)));
+
+        mQueue.setPageVisible(PAGE, true);
+        mQueue.setPageVisible(2, true);
+        mQueue.setPageVisible(PAGE, false);
+        assertFalse(mQueue.isPageHidden(TimerQueue.NO_PAGE));
+        mQueue.setPageVisible(2, false);
+        assertTrue(mQueue.isPageHidden(TimerQueue.NO_PAGE));
+        assertNull(mQueue.pollExpired(20));
+        assertEquals(TimerQueue.HIDDEN_TIMER_INTERVAL, mQueue.getNextFireTime());
+
+        assertTrue(mQueue.setPageVisible(2, true));
+        assertEquals(20, mQueue.getNextFireTime());
+    }
+
+    @Test
+    public void clearPageRemovesItsTimersOnly() {
+        mQueue.add(PAGE, 1, false, 10, 0);
+        mQueue.add(2, 2, false, 10, 0);
+        mQueue.clearPage(PAGE);
+        assertEquals(ids(2), idsOf(mQueue.pollExpired(10)));
+    }
+
+    private static List<Integer> ids(int... ids) {
+        List<Integer> list = new ArrayList<>();
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static List<Integer> idsOf(List<TimerQueue.Timer> timers) {
+        List<Integer> list = new ArrayList<>();
+        for (TimerQueue.Timer timer : timers) {
+            list.add(timer.id);
+        }
+        return list;
+    }
+}
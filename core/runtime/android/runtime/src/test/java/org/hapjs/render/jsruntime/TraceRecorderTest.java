@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.render.jsruntime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import org.hapjs.common.executors.Executor;
+import org.hapjs.common.executors.Future;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TraceRecorderTest {
+    private static final Executor DIRECT_EXECUTOR =
+            new Executor() {
+                @Override
+                public void execute(Runnable runnable) {
+                    runnable.run();
+                }
+
+                @Override
+                public <T> Future<T> submit(Callable<T> task) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void exportsTraceOfPreviousRun() throws Exception {
+        File dir = new File(mFolder.getRoot(), "trace");
+        File out = mFolder.newFile("prev.json");
+        assertFalse(TraceRecorder.exportPreviousChromeTrace(dir, out));
+
+        TraceRecorder recorder = new TraceRecorder(dir, DIRECT_EXECUTOR);
+        recorder.record(TraceRecorder.TYPE_BEGIN, "load page 12", 1000_000);
+        recorder.record(TraceRecorder.TYPE_END, "load page 12", 2000_000);
+        recorder.record(TraceRecorder.TYPE_INSTANT, "cost 35 ms", 3000_000);
+
+        // a new run keeps the trace of the previous one
+        new TraceRecorder(dir, DIRECT_EXECUTOR);
+        assertTrue(TraceRecorder.exportPreviousChromeTrace(dir, out));
+        String json = new String(Files.readAllBytes(out.toPath()), StandardCharsets.UTF_8);
+        assertEquals(2, count(json, "\"name\":\"load page 12\""));
+        assertEquals(1, count(json, "\"ph\":\"b\",\"id\":1"));
+        assertEquals(1, count(json, "\"ph\":\"e\",\"id\":1"));
+        assertEquals(1, count(json, "\"name\":\"cost 35 ms\""));
+        assertEquals(1, count(json, "\"ts\":3000"));
+    }
+
+    @Test
+    public void pairsEventsWithCollidingHashesSeparately() throws Exception {
+        // "Aa" and "BB" have the same String.hashCode()
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        File dir = new File(mFolder.getRoot(), "trace");
+        TraceRecorder recorder = new TraceRecorder(dir, DIRECT_EXECUTOR);
+        recorder.record(TraceRecorder.TYPE_BEGIN, "Aa", 1000);
+        recorder.record(TraceRecorder.TYPE_BEGIN, "BB", 2000);
+        recorder.record(TraceRecorder.TYPE_END, "Aa", 3000);
+        recorder.record(TraceRecorder.TYPE_END, "BB", 4000);
+        new TraceRecorder(dir, DIRECT_EXECUTOR);
+        File out = mFolder.newFile("prev.json");
+        assertTrue(TraceRecorder.exportPreviousChromeTrace(dir, out));
+        String json = new String(Files.readAllBytes(out.toPath()), StandardCharsets.UTF_8);
+        assertEquals(2, count(json, "\"name\":\"Aa\",\"cat\":\"hap\",\"pid\":0"));
+        assertEquals(2, count(json, "\"id\":1}"));
+        assertEquals(2, count(json, "\"id\":2}"));
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.widgets.canvas;
+
+import static org.junit.Assert.assertEquals;
+
+import android.text.TextUtils;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import org.hapjs.widgets.canvas.canvas2d.Parser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measure commands per second parsed from the 2d canvas string protocol, splitting the frame with
+ * String.split as before compared with {@link CanvasRenderActionProcessor}. Frames are built the
+ * way the js canvas shim does, with new coordinates every frame. Results are printed to logcat
+ * with tag "CanvasBenchmark".
+ */
+@RunWith(AndroidJUnit4.class)
+public class CanvasRenderActionProcessorBenchmarkTest {
+    private static final String TAG = "CanvasBenchmark";
+    private static final int PAGE_ID = 1;
+    private static final int CANVAS_ID = 2;
+    private static final int PARTICLES = 1000;
+    // commands of a particle: fillStyle, beginPath, arc, fill
+    private static final int COMMANDS_PER_PARTICLE = 4;
+    private static final int FRAMES = 60;
+    private static final int WARMUP_FRAMES = 10;
+
+    @Test
+    public void compareSplitAndIndexOf() {
+        String[] frames = createFrames(FRAMES);
+        String[] warmup = createFrames(WARMUP_FRAMES);
+        CanvasRenderActionProcessor processor = new CanvasRenderActionProcessor();
+        Map<Character, Parser> parsers = Parser.create();
+        assertEquals(
+                PARTICLES * COMMANDS_PER_PARTICLE,
+                processor.process(PAGE_ID, CANVAS_ID, frames[0]).size());
+        assertEquals(
+                PARTICLES * COMMANDS_PER_PARTICLE,
+                processBySplit(parsers, frames[0]).size());
+
+        for (String frame : warmup) {
+            processBySplit(parsers, frame);
+            processor.process(PAGE_ID, CANVAS_ID, frame);
+        }
+        long start = System.nanoTime();
+        for (String frame : frames) {
+            processBySplit(parsers, frame);
+        }
+        long splitNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (String frame : frames) {
+            processor.process(PAGE_ID, CANVAS_ID, frame);
+        }
+        long indexOfNanos = System.nanoTime() - start;
+
+        Log.i(TAG, "split: " + commandsPerSecond(splitNanos) + " commands/s, "
+                + splitNanos / FRAMES / 1000 + " us/frame");
+        Log.i(TAG, "indexOf: " + commandsPerSecond(indexOfNanos) + " commands/s, "
+                + indexOfNanos / FRAMES / 1000 + " us/frame");
+    }
+
+    private static long commandsPerSecond(long nanos) {
+        return (long) PARTICLES * COMMANDS_PER_PARTICLE * FRAMES * 1000_000_000L / nanos;
+    }
+
+    private static String[] createFrames(int count) {
+        Random random = new Random(0);
+        String[] frames = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < PARTICLES; j++) {
+                sb.append("AA#").append(String.format(Locale.US, "%06x",
+                        random.nextInt(0xffffff))).append(';');
+                sb.append("S?;");
+                sb.append("Q?")
+                        .append(String.format(Locale.US, "%.2f", random.nextFloat() * 720))
+                        .append(',')
+                        .append(String.format(Locale.US, "%.2f", random.nextFloat() * 1280))
+                        .append(",4,0,6.283185,0;");
+                sb.append("Y?;");
+            }
+            frames[i] = sb.toString();
+        }
+        return frames;
+    }
+
+    // the same as CanvasRenderActionProcessor.process before commands were split by indexOf
+    private static ArrayList<Action> processBySplit(
+            Map<Character, Parser> parsers, String renderCommand) {
+        String[] commands = renderCommand.split(";");
+        ArrayList<Action> actions = new ArrayList<>();
+        for (String command : commands) {
+            if (TextUtils.isEmpty(command) || command.length() < 2) {
+                continue;
+            }
+            char flag = command.charAt(0);
+            char type = command.charAt(1);
+            String parameter = command.substring(2);
+            Parser parser = parsers.get(flag);
+            if (parser == null) {
+                continue;
+            }
+            try {
+                Action action = parser.parse(PAGE_ID, CANVAS_ID, type, parameter);
+                if (action != null) {
+                    actions.add(action);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        return actions;
+    }
+}
@@ -101,6 +101,12 @@ public class A extends Text {
         updateSpannable();
     }
 
+    @Override
+    protected String createLayoutCacheKey() {
+        // click spans are bound to this component, so the layout can't be shared
+        return null;
+    }
+
     @Override
     public CharSequence applySpannable() {
         mTextSpan.setDirty(false);
@@ -25,38 +25,42 @@ public class CanvasRenderActionProcessor {
             return null;
         }
 
-        String[] commands = renderCommand.split(";");
-        if (commands == null || commands.length <= 0) {
-            return null;
-        }
-
         ArrayList<Action> actions = new ArrayList<>();
-
-        for (String command : commands) {
-            if (TextUtils.isEmpty(command) || command.length() < 2) {
-                continue;
+        // 按';'逐个截取命令，避免split生成整个命令数组
+        int length = renderCommand.length();
+        int start = 0;
+        while (start < length) {
+            int end = renderCommand.indexOf(';', start);
+            if (end < 0) {
+                end = length;
             }
-
-            // 标识方法名称，比如fillStyle，lineCap
-            char flag = command.charAt(0);
-            // 标识参数类型，例如fillStyle的参数可以为color，gradient等
-            char type = command.charAt(1);
-
-            String parameter = command.substring(2);
-            Parser parser = mParsers.get(flag);
-            if (parser == null) {
-                continue;
-            }
-
-            try {
-                Action action = parser.parse(pageId, refId, type, parameter);
+            if (end - start >= 2) {
+                Action action = parse(pageId, refId, renderCommand.substring(start, end));
                 if (action != null) {
                     actions.add(action);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
             }
+            start = end + 1;
         }
         return actions;
     }
+
+    private Action parse(int pageId, int refId, String command) {
+        // 标识方法名称，比如fillStyle，lineCap
+        char flag = command.charAt(0);
+        // 标识参数类型，例如fillStyle的参数可以为color，gradient等
+        char type = command.charAt(1);
+
+        Parser parser = mParsers.get(flag);
+        if (parser == null) {
+            return null;
+        }
+
+        try {
+            return parser.parse(pageId, refId, type, command.substring(2));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
 }
@@ -69,6 +69,7 @@ public class Text extends AbstractText<TextLayoutView> implements SwipeObserver
     private ViewTreeObserver.OnPreDrawListener mPreDrawListener;
     private Choreographer.FrameCallback mSetTextCallback;
     private String mAriaLabel;
+    private String mLayoutCacheKey;
 
     public Text(
             HapEngine hapEngine,
@@ -142,6 +143,7 @@ public class Text extends AbstractText<TextLayoutView> implements SwipeObserver
         mSetTextCallback =
                 frameTimeNanos -> {
                     if (mHost != null) {
+                        mLayoutCacheKey = createLayoutCacheKey();
                         mHost.setText(applySpannable());
                     }
                     mSetTextCallback = null;
@@ -236,6 +238,21 @@ public class Text extends AbstractText<TextLayoutView> implements SwipeObserver
         return stringBuilder;
     }
 
+    /**
+     * @return key of the shared text layout cache, or null if the layout should not be shared
+     */
+    public String getLayoutCacheKey() {
+        return mLayoutCacheKey;
+    }
+
+    protected String createLayoutCacheKey() {
+        if (TextUtils.isEmpty(mText) || mTextSpan == null || !mChildren.isEmpty()
+                || !TextUtils.isEmpty(mTextIndent)) {
+            return null;
+        }
+        return mText + '\u0000' + mTextSpan.getSignature() + ',' + getColor();
+    }
+
     public TextLayoutBuilder getLayoutBuilder() {
         return mLayoutBuilder;
     }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021, the hapjs-platform Project Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hapjs.widgets.text;
+
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.util.LruCache;
+import com.facebook.fbui.textlayoutbuilder.TextLayoutBuilder;
+import org.hapjs.logging.MetricsRegistry;
+
+/**
+ * Process wide cache of text layouts.
+ *
+ * <p>The same text is measured again and again on re-layout, list recycling and identical list
+ * items. Layouts are immutable once built, so texts with the same content, styles and width
+ * constraint can share one. Only plain host text is cached, texts with child spans or text
+ * indent are always built by their own.
+ *
+ * <p>Layouts are still built on the UI thread during measurement, the cache only saves repeated
+ * builds. They are not precomputed when text attributes arrive, since the width constraint is
+ * only known once yoga measures the view, and {@link TextLayoutBuilder} is owned and mutated by
+ * the component on the UI thread. RichText renders through its own views and doesn't use this
+ * cache.
+ */
+public class TextLayoutCache {
+    private static final int MAX_SIZE = 200;
+
+    private static final LruCache<String, CachedLayout> sCache = new LruCache<>(MAX_SIZE);
+    private static final MetricsRegistry.Counter HIT_COUNTER =
+            MetricsRegistry.get().counter(MetricsRegistry.COUNTER_TEXT_LAYOUT_CACHE_HIT);
+    private static final MetricsRegistry.Counter MISS_COUNTER =
+            MetricsRegistry.get().counter(MetricsRegistry.COUNTER_TEXT_LAYOUT_CACHE_MISS);
+    private static final MetricsRegistry.Timer LAYOUT_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_TEXT_LAYOUT);
+
+    private TextLayoutCache() {
+    }
+
+    /**
+     * Build the layout of text, or reuse a cached one.
+     *
+     * @param textKey          key of text content and styles, null if the layout can't be shared
+     * @param builder          builder with the text and width constraint set
+     * @param text             text set to the builder
+     * @param widthMeasureSpec width constraint set to the builder
+     */
+    public static Layout obtain(
+            String textKey, TextLayoutBuilder builder, CharSequence text, int widthMeasureSpec) {
+        if (textKey == null) {
+            return build(builder);
+        }
+
+        String key = makeKey(textKey, builder, widthMeasureSpec);
+        CachedLayout cached = sCache.get(key);
+        if (cached != null) {
+            HIT_COUNTER.increment();
+            return cached.getLayout();
+        }
+        MISS_COUNTER.increment();
+        Layout layout = build(builder);
+        if (layout != null) {
+            sCache.put(key, new CachedLayout(text, layout, widthMeasureSpec));
+        }
+        return layout;
+    }
+
+    private static Layout build(TextLayoutBuilder builder) {
+        long start = MetricsRegistry.start();
+        Layout layout = builder.build();
+        LAYOUT_TIMER.stop(start);
+        return layout;
+    }
+
+    private static String makeKey(String textKey, TextLayoutBuilder builder, int widthMeasureSpec) {
+        Typeface typeface = builder.getTypeface();
+        return new StringBuilder(textKey.length() + 64)
+                .append(widthMeasureSpec).append(',')
+                .append(builder.getMaxLines()).append(',')
+                .append(builder.getTextSize()).append(',')
+                .append(typeface == null ? 0 : System.identityHashCode(typeface)).append(',')
+                .append(builder.getAlignment()).append(',')
+                .append(builder.getEllipsize()).append('\u0000')
+                .append(textKey)
+                .toString();
+    }
+}
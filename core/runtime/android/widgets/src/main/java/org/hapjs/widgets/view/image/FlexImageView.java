@@ -75,6 +75,7 @@ import java.util.List;
 import org.hapjs.common.executors.Executors;
 import org.hapjs.common.utils.BitmapUtils;
 import org.hapjs.common.utils.FloatUtil;
+import org.hapjs.common.utils.ImageMemoryTracker;
 import org.hapjs.common.utils.SvgDecoderUtil;
 import org.hapjs.common.utils.UriUtils;
 import org.hapjs.component.Component;
@@ -128,6 +129,13 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
     private int mFadeDurationMs = -1;
     private boolean mProgressiveRenderingEnabled;
     private OnLoadStatusListener mOnLoadStatusListener;
+    // 按测量尺寸限制解码大小时的尺寸, 视图变大后需要重新解码
+    private int mMeasuredDecodeWidth;
+    private int mMeasuredDecodeHeight;
+    // 图片的原始尺寸, 按测量尺寸限制解码后布局和 complete 事件仍使用原始尺寸
+    private Uri mNaturalSizeSource;
+    private int mNaturalWidth;
+    private int mNaturalHeight;
     private @Nullable IterativeBoxBlurPostProcessor mIterativeBoxBlurPostProcessor;
     private boolean mIsDirty;
     private boolean mSourceChanged;
@@ -297,6 +305,7 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
             setController(null);
             mSource = null;
             mViewAttach.releaseSource();
+            ImageMemoryTracker.get().onImageReleased(this);
             return;
         }
 
@@ -572,7 +581,11 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
             }
         }
 
-        if ((doResize && (getWidth() <= 0 && getHeight() <= 0) && !mIsRetrySrc)
+        // match_parent 的一边需要按测量尺寸解码, 同样等待布局
+        boolean waitMeasure = doResize || (mResizeMethod != ImageResizeMethod.SCALE
+                && (getLayoutParams().width == ViewGroup.LayoutParams.MATCH_PARENT
+                || getLayoutParams().height == ViewGroup.LayoutParams.MATCH_PARENT));
+        if ((waitMeasure && (getWidth() <= 0 && getHeight() <= 0) && !mIsRetrySrc)
                 || (doResize && mIsRetrySrc && (tmpWidth <= 0 || tmpHeight <= 0))) {
             // If need a resize and the size is not yet set, wait until the layout pass provides one
             return;
@@ -617,9 +630,26 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
             height = tmpHeight;
         }
 
-        doResize = doResize && (width > 0 && height > 0)
+        // 未指定尺寸时按测量尺寸限制解码大小
+        mMeasuredDecodeWidth = 0;
+        mMeasuredDecodeHeight = 0;
+        boolean naturalSizeKnown = mSource.equals(mNaturalSizeSource);
+        if (shouldClampToMeasured(width, getWidth(), naturalSizeKnown ? mNaturalWidth : 0)) {
+            width = getWidth();
+            mMeasuredDecodeWidth = width;
+        }
+        if (shouldClampToMeasured(height, getHeight(), naturalSizeKnown ? mNaturalHeight : 0)) {
+            height = getHeight();
+            mMeasuredDecodeHeight = height;
+        }
+        // 按测量尺寸解码时, 解码结果不是原始尺寸
+        final boolean measuredClamped = mMeasuredDecodeWidth > 0 || mMeasuredDecodeHeight > 0;
+
+        doResize = (doResize || measuredClamped)
+                && (width > 0 || height > 0)
                 && mScaleType != ScalingUtils.ScaleType.CENTER;
-        ResizeOptions resizeOptions = doResize ? new ResizeOptions(width, height) : null;
+        ResizeOptions resizeOptions =
+                doResize ? new ResizeOptions(Math.max(width, 1), Math.max(height, 1)) : null;
 
         ImageRequest imageRequest =
                 ImageRequestBuilder.newBuilderWithSource(mSource)
@@ -633,6 +663,7 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
         if (supportLargeImage) {
             mViewAttach.handleAttachedImage(imageRequest);
         }
+        final Uri source = mSource;
         ControllerListener controllerListener =
                 new BaseControllerListener<ImageInfo>() {
                     @Override
@@ -652,6 +683,33 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
                             return;
                         }
 
+                        final int naturalWidth;
+                        final int naturalHeight;
+                        if (imageInfo == null) {
+                            naturalWidth = 0;
+                            naturalHeight = 0;
+                        } else if (measuredClamped && source.equals(mNaturalSizeSource)) {
+                            naturalWidth = mNaturalWidth;
+                            naturalHeight = mNaturalHeight;
+                        } else {
+                            naturalWidth = imageInfo.getWidth();
+                            naturalHeight = imageInfo.getHeight();
+                            if (!measuredClamped) {
+                                mNaturalSizeSource = source;
+                                mNaturalWidth = naturalWidth;
+                                mNaturalHeight = naturalHeight;
+                            }
+                        }
+
+                        if (imageInfo != null) {
+                            ImageMemoryTracker.get().onImageSet(
+                                    FlexImageView.this,
+                                    mComponent.getHapEngine().getPackage(),
+                                    mComponent.getPageId(),
+                                    source,
+                                    (long) imageInfo.getWidth() * imageInfo.getHeight() * 4);
+                        }
+
                         if (null != imageInfo
                                 && imageInfo instanceof SvgDecoderUtil.CloseableSvgImage) {
                             /** 解决android 4.4 svg图片不显示和5.0以上版本svg图片显示模糊的问题 */
@@ -667,13 +725,15 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
                                                 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
                                             setDrawableFilterBitmap();
                                         }
-                                        updateImageInfo(imageInfo);
+                                        if (imageInfo != null) {
+                                            updateImageInfo(naturalWidth, naturalHeight);
+                                        }
                                     }
                                 });
                         if (mImageWidth == 0 && mImageHeight == 0 && !supportLargeImage) {
                             if (imageInfo != null) {
-                                mImageWidth = imageInfo.getWidth();
-                                mImageHeight = imageInfo.getHeight();
+                                mImageWidth = naturalWidth;
+                                mImageHeight = naturalHeight;
                             } else {
                                 mImageWidth = 0;
                                 mImageHeight = 0;
@@ -878,15 +938,15 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
         }
     }
 
-    private void updateImageInfo(ImageInfo imageInfo) {
-        if (imageInfo == null || mComponent == null) {
+    private void updateImageInfo(int imageWidth, int imageHeight) {
+        if (mComponent == null) {
             return;
         }
 
         ViewGroup.LayoutParams lp = getLayoutParams();
         boolean widthDefined = mComponent.isWidthDefined();
         boolean heightDefined = mComponent.isHeightDefined();
-        float aspectRatio = (float) imageInfo.getWidth() / imageInfo.getHeight();
+        float aspectRatio = (float) imageWidth / imageHeight;
         float layoutWidth;
         float layoutHeight;
 
@@ -926,8 +986,8 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
                         yogaNode.setWidth(layoutWidth);
                     } else {
                         // default to image dimension
-                        layoutWidth = imageInfo.getWidth() + leftBorderWidth + rightBorderWidth;
-                        layoutHeight = imageInfo.getHeight() + topBorderWidth + bottomBorderWidth;
+                        layoutWidth = imageWidth + leftBorderWidth + rightBorderWidth;
+                        layoutHeight = imageHeight + topBorderWidth + bottomBorderWidth;
                         yogaNode.setWidth(layoutWidth);
                         yogaNode.setHeight(layoutHeight);
                     }
@@ -948,8 +1008,8 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
                         yogaNode.setHeight(layoutHeight);
                     } else {
                         // default to image dimension
-                        layoutWidth = imageInfo.getWidth() + leftBorderWidth + rightBorderWidth;
-                        layoutHeight = imageInfo.getHeight() + topBorderWidth + bottomBorderWidth;
+                        layoutWidth = imageWidth + leftBorderWidth + rightBorderWidth;
+                        layoutHeight = imageHeight + topBorderWidth + bottomBorderWidth;
                         yogaNode.setWidth(layoutWidth);
                         yogaNode.setHeight(layoutHeight);
                     }
@@ -967,18 +1027,18 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
             layoutWidth = lp.width;
             layoutHeight = lp.height;
             if (!widthDefined && !heightDefined) {
-                layoutWidth = Math.max(getMeasuredWidth(), imageInfo.getWidth());
+                layoutWidth = Math.max(getMeasuredWidth(), imageWidth);
                 lp.width = (int) layoutWidth;
             } else if (!widthDefined && heightDefined) {
                 layoutHeight =
-                        (getMeasuredHeight() > imageInfo.getHeight() || lp.height < 0)
+                        (getMeasuredHeight() > imageHeight || lp.height < 0)
                                 ? getMeasuredHeight()
                                 : lp.height;
                 layoutWidth = Math.round(layoutHeight * aspectRatio);
                 lp.width = (int) layoutWidth;
             } else if (widthDefined && !heightDefined) {
                 layoutWidth =
-                        (getMeasuredWidth() > imageInfo.getWidth() || lp.width < 0)
+                        (getMeasuredWidth() > imageWidth || lp.width < 0)
                                 ? getMeasuredWidth()
                                 : lp.width;
                 layoutHeight = Math.round(layoutWidth / aspectRatio);
@@ -987,7 +1047,7 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
             setAspectRatio(aspectRatio);
         }
         if ("scale-down".equals(mObjectFit)
-                && (imageInfo.getWidth() > layoutWidth || imageInfo.getHeight() > layoutHeight)) {
+                && (imageWidth > layoutWidth || imageHeight > layoutHeight)) {
             mScaleType = ScalingUtils.ScaleType.FIT_CENTER;
             getHierarchy().setActualImageScaleType(mScaleType);
         }
@@ -1000,6 +1060,7 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
     protected void onAttach() {
         super.onAttach();
         mViewAttach.onAttach();
+        ImageMemoryTracker.get().onAttach(this);
         if (mAutoplay && mAnimatable != null && mComponent != null) {
             getAutoplayManager().addAutoplay(mComponent.getRef(), (Image) mComponent);
         }
@@ -1016,6 +1077,7 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
     protected void onDetach() {
         super.onDetach();
         mViewAttach.onDetach();
+        ImageMemoryTracker.get().onDetach(this);
         if (mAutoplay && mAnimatable != null && mComponent != null) {
             getAutoplayManager().removeAutoplay(mComponent.getRef());
         }
@@ -1120,11 +1182,40 @@ public class FlexImageView extends GenericDraweeView implements ComponentHost, G
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
+        if ((mMeasuredDecodeWidth > 0 && w > mMeasuredDecodeWidth)
+                || (mMeasuredDecodeHeight > 0 && h > mMeasuredDecodeHeight)
+                || isConstrainedBelowNaturalSize(w, h)) {
+            mIsDirty = true;
+        }
         if (w > 0 || h > 0) {
             maybeUpdateView(true);
         }
     }
 
+    private boolean shouldClampToMeasured(int layoutSize, int measuredSize, int naturalSize) {
+        if (mResizeMethod == ImageResizeMethod.SCALE || measuredSize <= 0) {
+            return false;
+        }
+        if (layoutSize == ViewGroup.LayoutParams.MATCH_PARENT) {
+            return true;
+        }
+        // 自适应的一边由图片尺寸决定, 只有视图被限制得比图片小时才按测量尺寸解码
+        return layoutSize == ViewGroup.LayoutParams.WRAP_CONTENT && measuredSize < naturalSize;
+    }
+
+    private boolean isConstrainedBelowNaturalSize(int w, int h) {
+        ViewGroup.LayoutParams lp = getLayoutParams();
+        if (lp == null || mSource == null || !mSource.equals(mNaturalSizeSource)) {
+            return false;
+        }
+        return (mMeasuredDecodeWidth == 0
+                && lp.width == ViewGroup.LayoutParams.WRAP_CONTENT
+                && shouldClampToMeasured(lp.width, w, mNaturalWidth))
+                || (mMeasuredDecodeHeight == 0
+                && lp.height == ViewGroup.LayoutParams.WRAP_CONTENT
+                && shouldClampToMeasured(lp.height, h, mNaturalHeight));
+    }
+
     @Override
     public boolean hasOverlappingRendering() {
         return false;
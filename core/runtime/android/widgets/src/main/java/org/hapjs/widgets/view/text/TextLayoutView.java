@@ -28,6 +28,7 @@ import org.hapjs.component.view.gesture.IGesture;
 import org.hapjs.component.view.helper.StateHelper;
 import org.hapjs.component.view.keyevent.KeyEventDelegate;
 import org.hapjs.widgets.text.Text;
+import org.hapjs.widgets.text.TextLayoutCache;
 
 public class TextLayoutView extends View implements ComponentHost, GestureHost {
 
@@ -226,7 +227,8 @@ public class TextLayoutView extends View implements ComponentHost, GestureHost {
         int widthSize = View.MeasureSpec.getSize(widthMeasureSpec);
         layoutBuilder.setWidth(widthSize, convertToLayoutBuilderMode(widthMode));
         layoutBuilder.setText(mText);
-        return layoutBuilder.build();
+        return TextLayoutCache.obtain(
+                mComponent.getLayoutCacheKey(), layoutBuilder, mText, widthMeasureSpec);
     }
 
     private int convertToLayoutBuilderMode(int widthMode) {
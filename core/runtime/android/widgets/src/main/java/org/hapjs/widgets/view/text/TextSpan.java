@@ -46,6 +46,25 @@ public class TextSpan {
         return new SpannableString("");
     }
 
+    /**
+     * @return a string identifying all the styles applied by {@link #createSpanned(String)}
+     */
+    public String getSignature() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(mColor).append(',')
+                .append(mFontSize).append(',')
+                .append(mLineHeight).append(',')
+                .append(mTextDecoration).append(',')
+                .append(mFontFamily);
+        if (mTypefaceBuilder != null) {
+            Typeface typeface = mTypefaceBuilder.getTypeface();
+            sb.append(',').append(typeface == null ? 0 : System.identityHashCode(typeface))
+                    .append(',').append(mTypefaceBuilder.getWeight())
+                    .append(',').append(mTypefaceBuilder.getStyle());
+        }
+        return sb.toString();
+    }
+
     public boolean isDirty() {
         return mIsDirty;
     }
@@ -200,8 +200,9 @@ public class Page implements ChromeDevtoolsDomain {
 
     @ChromeDevtoolsMethod
     public void screencastFrameAck(JsonRpcPeer peer, JSONObject params) {
-        // Nothing to do here, just need to make sure Chrome doesn't get an error that this method
-        // isn't implemented
+        if (mScreencastDispatcher != null && params != null) {
+            mScreencastDispatcher.onFrameAck(params.optInt("sessionId"));
+        }
     }
 
     @ChromeDevtoolsMethod
@@ -304,6 +305,9 @@ public class Page implements ChromeDevtoolsDomain {
 
         @JsonProperty(required = true)
         public ScreencastFrameEventMetadata metadata;
+
+        @JsonProperty(required = true)
+        public int sessionId;
     }
 
     public static class ScreencastFrameEventMetadata {
@@ -335,6 +339,8 @@ public class Page implements ChromeDevtoolsDomain {
         public int maxWidth;
         @JsonProperty
         public int maxHeight;
+        @JsonProperty
+        public int everyNthFrame;
     }
 
     public static class ScreencastVisibilityChangedEvent {
@@ -17,19 +17,32 @@ import android.graphics.RectF;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Base64;
 import android.util.Base64OutputStream;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import com.facebook.stetho.common.LogUtil;
 import com.facebook.stetho.inspector.elements.android.ActivityTracker;
 import com.facebook.stetho.inspector.jsonrpc.DisconnectReceiver;
 import com.facebook.stetho.inspector.jsonrpc.JsonRpcPeer;
 import com.facebook.stetho.inspector.protocol.module.Page;
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import org.hapjs.debug.log.DebuggerLogUtil;
 
+/**
+ * Sends screencast frames to the client.
+ *
+ * <p>A frame is only captured when the window was drawn since the previous one, and only while
+ * the client has acknowledged the previous frame, frames produced while the client lags are
+ * dropped. A captured frame is not sent if its pixels are the same as the previous one.
+ */
 public final class ScreencastDispatcher {
     private static final long FRAME_DELAY = 200L;
+    // 客户端超过这个时间没有回复screencastFrameAck, 不再等待
+    private static final long ACK_TIMEOUT = 1000L;
+    private static final int STATS_INTERVAL = 50;
 
     private final Handler mMainHandler = new Handler(Looper.getMainLooper());
     private final BitmapFetchRunnable mBitmapFetchRunnable = new BitmapFetchRunnable();
@@ -37,18 +50,40 @@ public final class ScreencastDispatcher {
     private final EventDispatchRunnable mEventDispatchRunnable = new EventDispatchRunnable();
     private final RectF mTempSrc = new RectF();
     private final RectF mTempDst = new RectF();
+    private final ViewTreeObserver.OnDrawListener mOnDrawListener =
+            new ViewTreeObserver.OnDrawListener() {
+                @Override
+                public void onDraw() {
+                    mDirty = true;
+                }
+            };
 
-    private boolean mIsRunning;
+    private volatile boolean mIsRunning;
+    private volatile boolean mDirty = true;
+    private volatile int mPendingAckSessionId;
+    private volatile long mLastSendTime;
     private Handler mBackgroundHandler;
     private JsonRpcPeer mPeer;
     private HandlerThread mHandlerThread;
     private Bitmap mBitmap;
     private Canvas mCanvas;
+    private View mObservedView;
+    private ByteBuffer mPixels;
+    private ByteBuffer mLastPixels;
+    private int mSessionId;
+    private long mFrameDelay;
     private Page.StartScreencastRequest mRequest;
     private ByteArrayOutputStream mStream;
     private Page.ScreencastFrameEvent mEvent = new Page.ScreencastFrameEvent();
     private Page.ScreencastFrameEventMetadata mMetadata = new Page.ScreencastFrameEventMetadata();
 
+    // 统计截屏本身的耗时, 避免连接调试器后的性能数据失真
+    private int mCapturedFrames;
+    private int mSentFrames;
+    private int mSkippedFrames;
+    private long mCaptureTime;
+    private long mEncodeTime;
+
     private DisconnectReceiver mDisconnectReceiver;
 
     public ScreencastDispatcher() {
@@ -57,13 +92,14 @@ public final class ScreencastDispatcher {
     public void startScreencast(JsonRpcPeer peer, Page.StartScreencastRequest request) {
         LogUtil.d("Starting screencast");
         mRequest = request;
+        mFrameDelay = FRAME_DELAY * Math.max(1, request.everyNthFrame);
         mHandlerThread = new HandlerThread("Screencast Thread");
         mHandlerThread.start();
         mPeer = peer;
         mIsRunning = true;
         mStream = new ByteArrayOutputStream();
         mBackgroundHandler = new Handler(mHandlerThread.getLooper());
-        mMainHandler.postDelayed(mBitmapFetchRunnable, FRAME_DELAY);
+        mMainHandler.postDelayed(mBitmapFetchRunnable, mFrameDelay);
         mDisconnectReceiver =
                 new DisconnectReceiver() {
                     @Override
@@ -79,24 +115,85 @@ public final class ScreencastDispatcher {
         mBackgroundHandler.post(new CancellationRunnable());
     }
 
+    public void onFrameAck(int sessionId) {
+        if (sessionId == mPendingAckSessionId) {
+            mPendingAckSessionId = 0;
+        }
+    }
+
+    private boolean isWaitingForAck() {
+        return mPendingAckSessionId != 0
+                && SystemClock.uptimeMillis() - mLastSendTime < ACK_TIMEOUT;
+    }
+
+    private void observeDraw(View rootView) {
+        if (mObservedView == rootView) {
+            return;
+        }
+        stopObservingDraw();
+        rootView.getViewTreeObserver().addOnDrawListener(mOnDrawListener);
+        mObservedView = rootView;
+        mDirty = true;
+    }
+
+    private void stopObservingDraw() {
+        if (mObservedView != null) {
+            ViewTreeObserver observer = mObservedView.getViewTreeObserver();
+            if (observer.isAlive()) {
+                observer.removeOnDrawListener(mOnDrawListener);
+            }
+            mObservedView = null;
+        }
+    }
+
+    private void logStats() {
+        if (mCapturedFrames == 0 || mCapturedFrames % STATS_INTERVAL != 0) {
+            return;
+        }
+        LogUtil.d(
+                "Screencast frames captured: %d, sent: %d, skipped: %d, "
+                        + "avg capture: %.2fms, avg encode: %.2fms",
+                mCapturedFrames,
+                mSentFrames,
+                mSkippedFrames,
+                mCaptureTime / 1000000f / mCapturedFrames,
+                mEncodeTime / 1000000f / Math.max(1, mSentFrames));
+    }
+
     private class BitmapFetchRunnable implements Runnable {
         @Override
         public void run() {
-            updateScreenBitmap();
-            mBackgroundHandler.post(mEventDispatchRunnable.withEndAction(this));
-        }
-
-        private void updateScreenBitmap() {
             if (!mIsRunning) {
                 return;
             }
+            if (!updateScreenBitmap()) {
+                mMainHandler.postDelayed(this, mFrameDelay);
+                return;
+            }
+            mBackgroundHandler.post(mEventDispatchRunnable.withEndAction(this));
+        }
+
+        /**
+         * @return true if a new frame was drawn to the bitmap
+         */
+        private boolean updateScreenBitmap() {
             Activity activity = mActivityTracker.tryGetTopActivity();
             if (activity == null) {
-                return;
+                return false;
             }
             // This stuff needs to happen in the UI thread
             View rootView = activity.getWindow().getDecorView();
+            observeDraw(rootView);
+            if (!mDirty) {
+                return false;
+            }
+            if (isWaitingForAck()) {
+                // 客户端还没处理完上一帧, 丢弃这一帧, 等下次再截取
+                mSkippedFrames++;
+                return false;
+            }
             try {
+                long start = SystemClock.elapsedRealtimeNanos();
                 if (mBitmap == null) {
                     int viewWidth = rootView.getWidth();
                     int viewHeight = rootView.getHeight();
@@ -114,11 +211,16 @@ public final class ScreencastDispatcher {
                     matrix.setRectToRect(mTempSrc, mTempDst, Matrix.ScaleToFit.CENTER);
                     mCanvas.setMatrix(matrix);
                 }
+                mDirty = false;
                 rootView.draw(mCanvas);
+                mCaptureTime += SystemClock.elapsedRealtimeNanos() - start;
+                mCapturedFrames++;
+                return true;
             } catch (OutOfMemoryError e) {
                 LogUtil.w("Out of memory trying to allocate screencast Bitmap.");
                 DebuggerLogUtil.logMessage("ENGINE_SCREENSHOT_ERROR");
                 DebuggerLogUtil.logException(e);
+                return false;
             }
         }
     }
@@ -136,6 +238,39 @@ public final class ScreencastDispatcher {
             if (!mIsRunning || mBitmap == null) {
                 return;
             }
+            if (isChanged()) {
+                sendFrame();
+            } else {
+                mSkippedFrames++;
+            }
+            logStats();
+            mMainHandler.postDelayed(mEndAction, mFrameDelay);
+        }
+
+        /**
+         * Compare pixels with the previous frame, the window may be redrawn without any visible
+         * change, e.g. a blinking cursor that is not on screen.
+         */
+        private boolean isChanged() {
+            long start = SystemClock.elapsedRealtimeNanos();
+            int size = mBitmap.getByteCount();
+            if (mPixels == null || mPixels.capacity() != size) {
+                mPixels = ByteBuffer.allocate(size);
+                mLastPixels = null;
+            }
+            mPixels.clear();
+            mBitmap.copyPixelsToBuffer(mPixels);
+            mPixels.flip();
+            boolean changed = mLastPixels == null || !mPixels.equals(mLastPixels);
+            ByteBuffer tmp = mLastPixels;
+            mLastPixels = mPixels;
+            mPixels = tmp;
+            mCaptureTime += SystemClock.elapsedRealtimeNanos() - start;
+            return changed;
+        }
+
+        private void sendFrame() {
+            long start = SystemClock.elapsedRealtimeNanos();
             int width = mBitmap.getWidth();
             int height = mBitmap.getHeight();
             mStream.reset();
@@ -145,12 +280,16 @@ public final class ScreencastDispatcher {
                     Bitmap.CompressFormat.valueOf(mRequest.format.toUpperCase());
             mBitmap.compress(format, mRequest.quality, base64Stream);
             mEvent.data = mStream.toString();
+            mEvent.sessionId = ++mSessionId;
             mMetadata.pageScaleFactor = 1;
             mMetadata.deviceWidth = width;
             mMetadata.deviceHeight = height;
             mEvent.metadata = mMetadata;
+            mEncodeTime += SystemClock.elapsedRealtimeNanos() - start;
+            mSentFrames++;
+            mPendingAckSessionId = mEvent.sessionId;
+            mLastSendTime = SystemClock.uptimeMillis();
             mPeer.invokeMethod("Page.screencastFrame", mEvent, null);
-            mMainHandler.postDelayed(mEndAction, FRAME_DELAY);
         }
     }
 
@@ -164,12 +303,20 @@ public final class ScreencastDispatcher {
             mHandlerThread.interrupt();
             mMainHandler.removeCallbacks(mBitmapFetchRunnable);
             mBackgroundHandler.removeCallbacks(mEventDispatchRunnable);
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    stopObservingDraw();
+                }
+            });
             mPeer.unregisterDisconnectReceiver(mDisconnectReceiver);
             mIsRunning = false;
             mHandlerThread = null;
             mBitmap = null;
             mCanvas = null;
             mStream = null;
+            mPixels = null;
+            mLastPixels = null;
             mDisconnectReceiver = null;
         }
     }
@@ -128,6 +128,8 @@ class MetadataGenerator {
         )
         generateWidgetMetaDataJSONString()
         generateWidgetMetaData()
+        generateExtensionFactory()
+        generateComponentFactory()
         generateEventTargets(
                 eventTargets,
                 'EVENT_TARGET_META_DATA_MAP',
@@ -247,6 +249,74 @@ class MetadataGenerator {
         getMetaDataMethod.body()._return(JExpr.invoke(getMetaDataMapMethod).invoke("get").arg(nameParam))
     }
 
+    /**
+     * 生成按类名直接new扩展实例的工厂方法, 避免运行时通过反射创建
+     */
+    private void generateExtensionFactory() {
+        def abstractExtensionType = codeModel.directClass("org.hapjs.bridge.AbstractExtension")
+        def createExtensionMethod = metaDataSetClass.method(
+                PUBLIC, abstractExtensionType, 'createExtension')
+        createExtensionMethod.annotate(codeModel.ref(Override.class))
+        def classnameParam = createExtensionMethod.param(String.class, "classname")
+        def body = createExtensionMethod.body()
+
+        def classnames = new LinkedHashSet<String>()
+        for (MetaData<Extension> metaData : [featureExtensions, moduleExtensions, widgetExtensions]) {
+            for (Extension extension : metaData.elements) {
+                if (extension.instantiable) {
+                    classnames.add(extension.classname)
+                }
+            }
+        }
+        if (!classnames.isEmpty()) {
+            def switchBlock = body._switch(classnameParam)
+            for (String classname : classnames) {
+                switchBlock._case(JExpr.lit(classname)).body()
+                        ._return(JExpr._new(codeModel.directClass(classname)))
+            }
+        }
+        body._return(JExpr._null())
+    }
+
+    /**
+     * 生成按类名直接new组件实例的工厂方法, 避免每次创建组件都通过反射调用构造函数
+     */
+    private void generateComponentFactory() {
+        def createComponentMethod = metaDataSetClass.method(
+                PUBLIC, codeModel.directClass("org.hapjs.component.Component"), 'createComponent')
+        createComponentMethod.annotate(codeModel.ref(Override.class))
+        def classnameParam = createComponentMethod.param(String.class, "classname")
+        def args = [
+                createComponentMethod.param(codeModel.directClass("org.hapjs.runtime.HapEngine"), "hapEngine"),
+                createComponentMethod.param(codeModel.directClass("android.content.Context"), "context"),
+                createComponentMethod.param(codeModel.directClass("org.hapjs.component.Container"), "parent"),
+                createComponentMethod.param(codeModel.INT, "ref"),
+                createComponentMethod.param(codeModel.directClass("org.hapjs.component.bridge.RenderEventCallback"), "callback"),
+                createComponentMethod.param(
+                        codeModel.ref(Map.class).narrow(codeModel.ref(String.class), codeModel.ref(Object.class)),
+                        "savedState")
+        ]
+        def body = createComponentMethod.body()
+
+        def classnames = new LinkedHashSet<String>()
+        for (Widget widget : widgets.elements) {
+            if (widget.instantiable) {
+                classnames.add(widget.classname)
+            }
+        }
+        if (!classnames.isEmpty()) {
+            def switchBlock = body._switch(classnameParam)
+            for (String classname : classnames) {
+                def newComponent = JExpr._new(codeModel.directClass(classname))
+                for (JVar arg : args) {
+                    newComponent.arg(arg)
+                }
+                switchBlock._case(JExpr.lit(classname)).body()._return(newComponent)
+            }
+        }
+        body._return(JExpr._null())
+    }
+
     private void generateExtensionMetaDataJSONStringMethod(MetaData<Extension> metaData, String methodName) {
         def stringClass = codeModel.ref(String.class)
         def getExtensionMetaDataJSONStringMethod = metaDataSetClass.method(
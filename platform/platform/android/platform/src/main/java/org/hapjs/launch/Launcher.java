@@ -5,63 +5,65 @@
 
 package org.hapjs.launch;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
 import android.util.Log;
 import org.hapjs.common.utils.FileUtils;
+import org.hapjs.logging.MetricsRegistry;
 import org.hapjs.persistence.LauncherTable;
 
 public class Launcher {
     private static final String TAG = "Launcher";
+    private static final MetricsRegistry.Timer SELECT_TIMER =
+            MetricsRegistry.get().timer(MetricsRegistry.TIMER_LAUNCHER_SELECT);
 
     public static LauncherInfo select(Context context, String pkg) {
-        Uri uri = LauncherTable.getSelectUri(context).buildUpon().appendPath(pkg).build();
-        return getLauncherInfo(context, uri);
+        long start = MetricsRegistry.start();
+        Bundle result = call(context, LauncherTable.METHOD_SELECT, pkg, null);
+        SELECT_TIMER.stop(start);
+        if (result == null) {
+            return null;
+        }
+        return new LauncherInfo(
+                result.getInt(LauncherTable.Columns._ID),
+                result.getString(LauncherTable.Columns.APP_ID),
+                result.getBoolean(LauncherTable.Columns.IS_ALIVE),
+                result.getLong(LauncherTable.Columns.ACTIVE_AT));
     }
 
     public static boolean active(Context context, String pkg) {
-        Uri uri = LauncherTable.getActiveUri(context);
-        ContentValues values = new ContentValues();
-        values.put(LauncherTable.Columns._ID, LauncherManager.getCurrentLauncherId(context));
-        values.put(LauncherTable.Columns.APP_ID, pkg);
-        int affectedCount = -1;
-        try {
-            affectedCount = context.getContentResolver().update(uri, values, null, null);
-        } catch (Exception e) {
-            Log.e(TAG, "failed to update by uri.", e);
-        }
-        return affectedCount > 0;
+        Bundle extras = new Bundle();
+        extras.putInt(LauncherTable.Columns._ID, LauncherManager.getCurrentLauncherId(context));
+        return getAffectedCount(call(context, LauncherTable.METHOD_ACTIVE, pkg, extras)) > 0;
     }
 
     public static boolean inactive(Context context, String pkg) {
-        Uri uri = LauncherTable.getInactiveUri(context);
-        ContentValues values = new ContentValues();
-        values.put(LauncherTable.Columns._ID, LauncherManager.getCurrentLauncherId(context));
-        values.put(LauncherTable.Columns.APP_ID, pkg);
-        int affectedCount = -1;
-        try {
-            affectedCount = context.getContentResolver().update(uri, values, null, null);
-        } catch (Exception e) {
-            Log.e(TAG, "failed to update by uri.", e);
-        }
-        return affectedCount > 0;
+        Bundle extras = new Bundle();
+        extras.putInt(LauncherTable.Columns._ID, LauncherManager.getCurrentLauncherId(context));
+        return getAffectedCount(call(context, LauncherTable.METHOD_INACTIVE, pkg, extras)) > 0;
     }
 
     public static boolean updateResidentType(Context context, String pkg, int residentType) {
-        Uri uri = LauncherTable.getResidentUri(context);
-        ContentValues values = new ContentValues();
-        values.put(LauncherTable.Columns._ID, LauncherManager.getCurrentLauncherId(context));
-        values.put(LauncherTable.Columns.APP_ID, pkg);
-        values.put(LauncherTable.Columns.RESIDENT_TYPE, residentType);
-        int affectedCount = -1;
+        Bundle extras = new Bundle();
+        extras.putInt(LauncherTable.Columns._ID, LauncherManager.getCurrentLauncherId(context));
+        extras.putInt(LauncherTable.Columns.RESIDENT_TYPE, residentType);
+        return getAffectedCount(call(context, LauncherTable.METHOD_RESIDENT, pkg, extras)) > 0;
+    }
+
+    private static Bundle call(Context context, String method, String pkg, Bundle extras) {
         try {
-            affectedCount = context.getContentResolver().update(uri, values, null, null);
+            return context.getContentResolver()
+                    .call(LauncherTable.getBaseUri(context), method, pkg, extras);
         } catch (Exception e) {
-            Log.e(TAG, "failed to update by uri.", e);
+            Log.e(TAG, "failed to call " + method, e);
         }
-        return affectedCount > 0;
+        return null;
+    }
+
+    private static int getAffectedCount(Bundle result) {
+        return result == null ? -1 : result.getInt(LauncherTable.RESULT_COUNT, -1);
     }
 
     public static LauncherInfo getLauncherInfo(Context context, int launcherId) {
@@ -9,6 +9,7 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
+import android.os.Bundle;
 import android.text.TextUtils;
 
 public abstract class AbstractTable implements Table {
@@ -60,4 +61,9 @@ public abstract class AbstractTable implements Table {
     public String getType(int matchCode, Uri uri) {
         return null;
     }
+
+    @Override
+    public Bundle call(int matchCode, String method, String arg, Bundle extras) {
+        return null;
+    }
 }
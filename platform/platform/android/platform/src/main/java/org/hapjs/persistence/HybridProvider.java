@@ -10,6 +10,8 @@ import android.content.Context;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
+import android.util.SparseArray;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -21,10 +23,13 @@ public class HybridProvider extends AbstractContentProvider {
 
     private static final UriMatcher MATCHER = new UriMatcher(UriMatcher.NO_MATCH);
     private static final Map<String, Integer> sUriMatchMap = new HashMap<>();
+    private static final Map<String, Integer> sMethodMatchMap = new HashMap<>();
     private static String AUTHORITY;
     private static int BASE_MATCH_CODE = 0;
     private static List<Table> sTables = new ArrayList<>();
     private static List<AbstractDatabase> sDatabases = new ArrayList<>();
+    // 按 match code 缓存对应的 table, 避免每次请求遍历所有 table
+    private final SparseArray<Table> mMatchedTables = new SparseArray<>();
 
     public static String getAuthority(Context context) {
         if (AUTHORITY == null) {
@@ -41,6 +46,13 @@ public class HybridProvider extends AbstractContentProvider {
         sUriMatchMap.put(path, code);
     }
 
+    /**
+     * Route {@link android.content.ContentResolver#call} of method to the table responding code.
+     */
+    public static void addMethodMatch(String method, int code) {
+        sMethodMatchMap.put(method, code);
+    }
+
     public static int getBaseMatchCode() {
         BASE_MATCH_CODE += 100;
         return BASE_MATCH_CODE;
@@ -87,53 +99,63 @@ public class HybridProvider extends AbstractContentProvider {
             Uri uri, String[] projection, String selection, String[] selectionArgs,
             String sortOrder) {
         int matchCode = MATCHER.match(uri);
-        for (Table table : sTables) {
-            if (table.respond(matchCode)) {
-                return table.query(matchCode, uri, projection, selection, selectionArgs, sortOrder);
-            }
+        Table table = getTable(matchCode);
+        if (table == null) {
+            return null;
         }
-        return null;
+        return table.query(matchCode, uri, projection, selection, selectionArgs, sortOrder);
     }
 
     @Override
     public Uri doInsert(Uri uri, ContentValues values) {
         int matchCode = MATCHER.match(uri);
-        for (Table table : sTables) {
-            if (table.respond(matchCode)) {
-                return table.insert(matchCode, uri, values);
-            }
-        }
-        return null;
+        Table table = getTable(matchCode);
+        return table == null ? null : table.insert(matchCode, uri, values);
     }
 
     @Override
     public int doUpdate(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
         int matchCode = MATCHER.match(uri);
-        for (Table table : sTables) {
-            if (table.respond(matchCode)) {
-                return table.update(matchCode, uri, values, selection, selectionArgs);
-            }
-        }
-        return 0;
+        Table table = getTable(matchCode);
+        return table == null ? 0 : table.update(matchCode, uri, values, selection, selectionArgs);
     }
 
     @Override
     public int doDelete(Uri uri, String selection, String[] selectionArgs) {
         int matchCode = MATCHER.match(uri);
-        for (Table table : sTables) {
-            if (table.respond(matchCode)) {
-                return table.delete(matchCode, uri, selection, selectionArgs);
-            }
-        }
-        return 0;
+        Table table = getTable(matchCode);
+        return table == null ? 0 : table.delete(matchCode, uri, selection, selectionArgs);
     }
 
     @Override
     public String doGetType(Uri uri) {
         int matchCode = MATCHER.match(uri);
-        for (Table table : sTables) {
-            if (table.respond(matchCode)) {
-                return table.getType(matchCode, uri);
+        Table table = getTable(matchCode);
+        return table == null ? null : table.getType(matchCode, uri);
+    }
+
+    @Override
+    public Bundle doCall(String method, String arg, Bundle extras) {
+        // provider 未导出, 只有同 uid 的平台和 launcher 进程可以调用
+        Integer matchCode = sMethodMatchMap.get(method);
+        Table table = matchCode == null ? null : getTable(matchCode);
+        return table == null ? null : table.call(matchCode, method, arg, extras);
+    }
+
+    private Table getTable(int matchCode) {
+        Table table;
+        synchronized (mMatchedTables) {
+            table = mMatchedTables.get(matchCode);
+        }
+        if (table != null) {
+            return table;
+        }
+        for (Table t : sTables) {
+            if (t.respond(matchCode)) {
+                synchronized (mMatchedTables) {
+                    mMatchedTables.put(matchCode, t);
+                }
+                return t;
             }
         }
         return null;
@@ -9,23 +9,33 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.MatrixCursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.os.Binder;
+import android.os.Bundle;
 import android.os.Process;
 import android.provider.BaseColumns;
 import android.text.TextUtils;
 import android.util.Log;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import org.hapjs.common.executors.Executor;
+import org.hapjs.common.executors.Executors;
 import org.hapjs.common.utils.ProcessUtils;
 import org.hapjs.launch.LauncherManager;
 import org.hapjs.runtime.Runtime;
 
 public class LauncherTable extends AbstractTable {
     public static final String NAME = "launcher";
+    public static final String METHOD_SELECT = "launcherSelect";
+    public static final String METHOD_ACTIVE = "launcherActive";
+    public static final String METHOD_INACTIVE = "launcherInactive";
+    public static final String METHOD_RESIDENT = "launcherResident";
+    public static final String RESULT_COUNT = "count";
     private static final String TAG = "LauncherTable";
     private static final String URI_PATH_BASE = "launcher";
     private static final String URI_PATH_SELECT = "select";
@@ -43,7 +53,8 @@ public class LauncherTable extends AbstractTable {
     private static final int MATCH_INACTIVE = 2;
     private static final int MATCH_QUERY = 3;
     private static final int MATCH_RESIDENT = 4;
-    private static final int MATCH_SIZE = 5;
+    private static final int MATCH_CALL = 5;
+    private static final int MATCH_SIZE = 6;
     private static final int BASE_MATCH_CODE = HybridProvider.getBaseMatchCode();
     private static final String CREATE_TABLE_LAUNCHER =
             "CREATE TABLE "
@@ -83,7 +94,11 @@ public class LauncherTable extends AbstractTable {
     private static final int COLUMN_BORN_AT_INDEX = 4;
     private static final int COLUMN_RESIDENT_INDEX = 5;
     private static final int LAUNCHER_SIZE = 5;
+    // 内存中的状态为准, 数据库只用于进程重启后恢复, 按顺序异步写入. 进程在写入前退出时,
+    // 未记录的 launcher 进程在下次 select 时作为孤儿进程处理
+    private static final Executor PERSIST_EXECUTOR = Executors.createSingleThreadExecutor();
     private static Map<String, Uri> sActionUriMap = new HashMap<>();
+    private static Uri sBaseUri;
 
     static {
         HybridProvider.addURIMatch(
@@ -96,11 +111,18 @@ public class LauncherTable extends AbstractTable {
                 .addURIMatch(URI_PATH_BASE + "/" + URI_PATH_QUERY, BASE_MATCH_CODE + MATCH_QUERY);
         HybridProvider.addURIMatch(
                 URI_PATH_BASE + "/" + URI_PATH_RESIDENT, BASE_MATCH_CODE + MATCH_RESIDENT);
+        HybridProvider.addMethodMatch(METHOD_SELECT, BASE_MATCH_CODE + MATCH_CALL);
+        HybridProvider.addMethodMatch(METHOD_ACTIVE, BASE_MATCH_CODE + MATCH_CALL);
+        HybridProvider.addMethodMatch(METHOD_INACTIVE, BASE_MATCH_CODE + MATCH_CALL);
+        HybridProvider.addMethodMatch(METHOD_RESIDENT, BASE_MATCH_CODE + MATCH_CALL);
     }
 
     private HybridDatabaseHelper mDbHelper;
     private Map<String, LauncherInfo> mActives;
     private boolean mInitialized;
+    // pid of the alive launcher process of each id which has no launcher info, e.g. the info
+    // was not persisted before the platform process died
+    private final int[] mOrphanPids = new int[LAUNCHER_SIZE];
 
     public LauncherTable(HybridDatabaseHelper dbHelper) {
         mDbHelper = dbHelper;
@@ -123,6 +145,19 @@ public class LauncherTable extends AbstractTable {
         return getActionUri(context, URI_PATH_QUERY);
     }
 
+    /**
+     * Uri for {@link android.content.ContentResolver#call}, which avoids the cursor window of
+     * query and is cheaper for the launch path.
+     */
+    public static Uri getBaseUri(Context context) {
+        if (sBaseUri == null) {
+            sBaseUri =
+                    Uri.parse("content://" + HybridProvider.getAuthority(context) + "/"
+                            + URI_PATH_BASE);
+        }
+        return sBaseUri;
+    }
+
     private static Uri getActionUri(Context context, String action) {
         Uri uri = sActionUriMap.get(action);
         if (uri == null) {
@@ -244,6 +279,37 @@ public class LauncherTable extends AbstractTable {
         return 0;
     }
 
+    @Override
+    public Bundle call(int matchCode, String method, String arg, Bundle extras) {
+        if (matchCode - BASE_MATCH_CODE != MATCH_CALL) {
+            return null;
+        }
+        if (METHOD_SELECT.equals(method)) {
+            return selectForCall(arg);
+        }
+        if (extras == null || !extras.containsKey(Columns._ID)) {
+            return null;
+        }
+        int id = extras.getInt(Columns._ID);
+        int count;
+        switch (method) {
+            case METHOD_ACTIVE:
+                count = active(id, arg);
+                break;
+            case METHOD_INACTIVE:
+                count = inactive(id, arg);
+                break;
+            case METHOD_RESIDENT:
+                count = updateResident(id, arg, extras.getInt(Columns.RESIDENT_TYPE));
+                break;
+            default:
+                return null;
+        }
+        Bundle result = new Bundle();
+        result.putInt(RESULT_COUNT, count);
+        return result;
+    }
+
     @Override
     public boolean respond(int matchCode) {
         return matchCode >= BASE_MATCH_CODE && matchCode < BASE_MATCH_CODE + MATCH_SIZE;
@@ -255,14 +321,37 @@ public class LauncherTable extends AbstractTable {
     }
 
     private synchronized Cursor select(String appId) {
+        LauncherInfo info = doSelect(appId);
+        return info == null ? null : buildCursor(info);
+    }
+
+    private synchronized Bundle selectForCall(String appId) {
+        if (TextUtils.isEmpty(appId)) {
+            Log.e(TAG, "appId is empty");
+            return null;
+        }
+        LauncherInfo info = doSelect(appId);
+        if (info == null) {
+            return null;
+        }
+        Bundle result = new Bundle();
+        result.putInt(Columns._ID, info.id);
+        result.putString(Columns.APP_ID, info.appId);
+        result.putBoolean(Columns.IS_ALIVE, info.isAlive());
+        result.putLong(Columns.ACTIVE_AT, info.activeAt);
+        return result;
+    }
+
+    private LauncherInfo doSelect(String appId) {
         Log.d(TAG, "select: appId=" + appId);
 
         refresh();
 
         LauncherInfo info = mActives.get(appId);
         if (info == null) {
-            if (mActives.size() < LAUNCHER_SIZE) {
-                info = new LauncherInfo(getAvailableId(), appId);
+            int availableId = mActives.size() < LAUNCHER_SIZE ? getAvailableId() : -1;
+            if (availableId >= 0) {
+                info = new LauncherInfo(availableId, appId);
             } else {
                 for (LauncherInfo li : mActives.values()) {
                     if (info == null || info.compareTo(li) > 0) {
@@ -287,7 +376,7 @@ public class LauncherTable extends AbstractTable {
             insertOrUpdate(info);
         }
 
-        return buildCursor(info);
+        return info;
     }
 
     private synchronized int active(int id, String appId) {
@@ -438,16 +527,25 @@ public class LauncherTable extends AbstractTable {
         updateProcess();
     }
 
+    // 每次 select 都通过 ActivityManager 跨进程查询进程列表, 是 select 的主要耗时
     private void updateProcess() {
         Context context = Runtime.getInstance().getContext();
         Map<String, Integer> aliveProcesses = ProcessUtils.getAppProcesses(context);
+        Arrays.fill(mOrphanPids, INVALID_PID);
         if (aliveProcesses == null || aliveProcesses.isEmpty()) {
             for (LauncherInfo info : mActives.values()) {
                 info.reset();
             }
             return;
         }
+        for (int id = 0; id < LAUNCHER_SIZE; id++) {
+            Integer pid = aliveProcesses.get(LauncherManager.getLauncherProcessName(context, id));
+            if (pid != null) {
+                mOrphanPids[id] = pid;
+            }
+        }
         for (LauncherInfo info : mActives.values()) {
+            mOrphanPids[info.id] = INVALID_PID;
             String processName = LauncherManager.getLauncherProcessName(context, info.id);
             Integer pid = aliveProcesses.get(processName);
             if (pid != null) {
@@ -462,17 +560,31 @@ public class LauncherTable extends AbstractTable {
         }
     }
 
+    /**
+     * @return an id without launcher info, ids whose process is still alive are used only if there
+     *     is no other one, and the process is killed. -1 if all the ids are used.
+     */
     private int getAvailableId() {
         int ids = 0;
         for (LauncherInfo info : mActives.values()) {
             ids += 1 << info.id;
         }
+        int orphanId = -1;
         for (int i = 0; i < LAUNCHER_SIZE; ++i) {
             if ((ids & (1 << i)) == 0) {
-                return i;
+                if (mOrphanPids[i] == INVALID_PID) {
+                    return i;
+                } else if (orphanId < 0) {
+                    orphanId = i;
+                }
             }
         }
-        throw new IllegalStateException("No available id");
+        if (orphanId >= 0) {
+            Log.w(TAG, "kill launcher " + orphanId + " without launcher info");
+            Process.killProcess(mOrphanPids[orphanId]);
+            mOrphanPids[orphanId] = INVALID_PID;
+        }
+        return orphanId;
     }
 
     private void insertOrUpdate(LauncherInfo info) {
@@ -481,9 +593,17 @@ public class LauncherTable extends AbstractTable {
         values.put(Columns.APP_ID, info.appId);
         values.put(Columns.ACTIVE_AT, info.activeAt);
         values.put(Columns.RESIDENT_TYPE, info.residentType);
-        mDbHelper
-                .getWritableDatabase()
-                .insertWithOnConflict(NAME, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        PERSIST_EXECUTOR.execute(
+                () -> {
+                    try {
+                        mDbHelper
+                                .getWritableDatabase()
+                                .insertWithOnConflict(
+                                        NAME, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                    } catch (SQLException e) {
+                        Log.e(TAG, "failed to persist launcher " + values, e);
+                    }
+                });
     }
 
     private Cursor buildCursor(LauncherInfo info) {
@@ -9,6 +9,7 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
+import android.os.Bundle;
 
 public interface Table {
     void onCreate(SQLiteDatabase db);
@@ -32,6 +33,8 @@ public interface Table {
 
     String getType(int matchCode, Uri uri);
 
+    Bundle call(int matchCode, String method, String arg, Bundle extras);
+
     boolean respond(int matchCode);
 
     String getName();